@@ -0,0 +1,378 @@
+package us.ihmc.simulationconstructionset;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import us.ihmc.yoVariables.buffer.YoBuffer;
+import us.ihmc.yoVariables.buffer.YoBufferVariableEntry;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.registry.YoVariableList;
+
+/**
+ * Loads a data file written by {@link DataFileWriter} without blocking the caller until every
+ * sample has been decoded.
+ * <p>
+ * The header is parsed and all the buffer entries are created on the calling thread, so the
+ * registry and the buffer are fully set up when {@link #readData} returns. The samples are then
+ * decoded on worker threads and each column is published through the
+ * {@link DataFileLoadingListener} as soon as it is complete.
+ * </p>
+ * <p>
+ * Uncompressed column formatted files are read with positional reads, each worker decoding its own
+ * subset of the columns directly from the file. A gzip file is a single deflate stream which
+ * cannot be split, so it is inflated by one thread while the float conversion and the writes into
+ * the buffer are spread over the workers. Row formatted, ASCII and comma separated files cannot be
+ * published column by column and are read in one piece on a background thread.
+ * </p>
+ */
+public class AsynchronousDataFileReader
+{
+   private static final int SAMPLES_PER_READ = 1 << 16;
+   private static final int BYTES_PER_SAMPLE = 4;
+
+   public interface DataFileLoadingListener
+   {
+      /**
+       * Called from a worker thread every time a column has been completely written into the buffer.
+       */
+      void columnLoaded(YoBufferVariableEntry entry, int numberOfColumnsLoaded, int numberOfColumns);
+   }
+
+   private final DataFileReader dataFileReader;
+   private final int numberOfThreads;
+
+   public AsynchronousDataFileReader(File file)
+   {
+      this(new DataFileReader(file));
+   }
+
+   public AsynchronousDataFileReader(URL url)
+   {
+      this(new DataFileReader(url));
+   }
+
+   public AsynchronousDataFileReader(DataFileReader dataFileReader)
+   {
+      this(dataFileReader, Runtime.getRuntime().availableProcessors());
+   }
+
+   public AsynchronousDataFileReader(DataFileReader dataFileReader, int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("numberOfThreads must be at least 1, was: " + numberOfThreads);
+
+      this.dataFileReader = dataFileReader;
+      this.numberOfThreads = numberOfThreads;
+   }
+
+   public double getRecordDT()
+   {
+      return dataFileReader.getRecordDT();
+   }
+
+   /**
+    * Starts loading the data file into the given buffer.
+    *
+    * @return a future completing with the number of points read, or -1 if the file is not a valid
+    *         data file, once every column has been written into the buffer.
+    */
+   public CompletableFuture<Integer> readData(YoVariableList newVars, YoRegistry rootRegistryToAddNewVariablesTo, YoBuffer dataBuffer,
+                                              SimulationConstructionSet sim, DataFileLoadingListener listener)
+         throws IOException
+   {
+      if (dataFileReader.isCommaSeparated())
+         return readDataInOnePiece(newVars, rootRegistryToAddNewVariablesTo, dataBuffer, sim);
+
+      YoDataInputStream dataStream = dataFileReader.openDataStream();
+      if (dataStream == null)
+         return CompletableFuture.completedFuture(-1);
+
+      String line = dataStream.readASCIILine();
+
+      if (line == null || !line.startsWith("$BEGIN_HEADER"))
+      {
+         dataStream.close();
+         return readDataInOnePiece(newVars, rootRegistryToAddNewVariablesTo, dataBuffer, sim);
+      }
+
+      dataFileReader.parseHeader(dataStream, sim);
+
+      int nPoints = dataFileReader.getNumberOfPoints();
+
+      if (!dataFileReader.isColumnFormatted() || nPoints == -1)
+      {
+         dataStream.close();
+         return readDataInOnePiece(newVars, rootRegistryToAddNewVariablesTo, dataBuffer, sim);
+      }
+
+      dataBuffer.clearBuffers(nPoints);
+
+      List<String> varNames = dataFileReader.getVariableNames();
+      int nVars = dataFileReader.getNumberOfVariables();
+      YoBufferVariableEntry[] entries = new YoBufferVariableEntry[nVars];
+
+      for (int i = 0; i < nVars; i++)
+      {
+         entries[i] = dataFileReader.getDataBufferEntry(varNames.get(i), dataBuffer, rootRegistryToAddNewVariablesTo, newVars);
+      }
+
+      dataBuffer.setInPoint(0);
+      dataBuffer.setOutPoint(nPoints - 1);
+      dataBuffer.setCurrentIndex(0);
+
+      ColumnPublisher publisher = new ColumnPublisher(nVars, listener);
+      File file = dataFileReader.getFile();
+
+      if (file != null && !dataFileReader.isCompressed())
+      {
+         dataStream.close();
+         long dataOffset = file.length() - (long) nVars * nPoints * BYTES_PER_SAMPLE;
+         if (dataOffset < 0)
+            throw new EOFException("Data file " + file + " is shorter than announced in its header.");
+
+         return readColumnsInParallel(file, dataOffset, entries, nPoints, publisher);
+      }
+      else
+      {
+         return readColumnsFromStream(dataStream, entries, nPoints, publisher);
+      }
+   }
+
+   private CompletableFuture<Integer> readDataInOnePiece(YoVariableList newVars, YoRegistry rootRegistryToAddNewVariablesTo, YoBuffer dataBuffer,
+                                                         SimulationConstructionSet sim)
+   {
+      CompletableFuture<Integer> result = new CompletableFuture<>();
+
+      Thread thread = new Thread(() ->
+      {
+         try
+         {
+            result.complete(dataFileReader.readData(newVars, rootRegistryToAddNewVariablesTo, dataBuffer, sim));
+         }
+         catch (Throwable e)
+         {
+            result.completeExceptionally(e);
+         }
+      }, "DataFileReader");
+      thread.setDaemon(true);
+      thread.start();
+
+      return result;
+   }
+
+   private CompletableFuture<Integer> readColumnsInParallel(File file, long dataOffset, YoBufferVariableEntry[] entries, int nPoints,
+                                                            ColumnPublisher publisher)
+         throws IOException
+   {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      ExecutorService executor = createExecutor(Math.min(numberOfThreads, Math.max(entries.length, 1)));
+      List<CompletableFuture<Void>> workers = new ArrayList<>();
+      int numberOfWorkers = Math.min(numberOfThreads, entries.length);
+
+      for (int worker = 0; worker < numberOfWorkers; worker++)
+      {
+         int firstColumn = worker;
+
+         workers.add(CompletableFuture.runAsync(() ->
+         {
+            ByteBuffer byteBuffer = ByteBuffer.allocate(Math.min(nPoints, SAMPLES_PER_READ) * BYTES_PER_SAMPLE);
+
+            // Interleave the columns between the workers so the first variables are available first.
+            for (int column = firstColumn; column < entries.length; column += numberOfWorkers)
+            {
+               long columnOffset = dataOffset + (long) column * nPoints * BYTES_PER_SAMPLE;
+
+               for (int sample = 0; sample < nPoints; sample += SAMPLES_PER_READ)
+               {
+                  int numberOfSamples = Math.min(SAMPLES_PER_READ, nPoints - sample);
+                  byteBuffer.clear();
+                  byteBuffer.limit(numberOfSamples * BYTES_PER_SAMPLE);
+                  readFully(channel, byteBuffer, columnOffset + (long) sample * BYTES_PER_SAMPLE);
+                  byteBuffer.flip();
+                  writeSamples(byteBuffer.asFloatBuffer(), entries[column], sample, numberOfSamples);
+               }
+
+               publisher.columnLoaded(entries[column]);
+            }
+         }, executor));
+      }
+
+      return whenAllDone(workers, nPoints, executor, () -> channel.close());
+   }
+
+   private CompletableFuture<Integer> readColumnsFromStream(YoDataInputStream dataStream, YoBufferVariableEntry[] entries, int nPoints,
+                                                            ColumnPublisher publisher)
+   {
+      ExecutorService executor = createExecutor(numberOfThreads + 1);
+      // Bounds the number of inflated columns waiting to be converted.
+      Semaphore pendingColumns = new Semaphore(2 * numberOfThreads);
+      List<CompletableFuture<Void>> conversions = new ArrayList<>();
+
+      CompletableFuture<Void> inflation = CompletableFuture.runAsync(() ->
+      {
+         for (int column = 0; column < entries.length; column++)
+         {
+            YoBufferVariableEntry entry = entries[column];
+            byte[] columnBytes = new byte[nPoints * BYTES_PER_SAMPLE];
+
+            pendingColumns.acquireUninterruptibly();
+            readFully(dataStream, columnBytes);
+
+            CompletableFuture<Void> conversion = CompletableFuture.runAsync(() ->
+            {
+               try
+               {
+                  writeSamples(ByteBuffer.wrap(columnBytes).asFloatBuffer(), entry, 0, nPoints);
+                  publisher.columnLoaded(entry);
+               }
+               finally
+               {
+                  pendingColumns.release();
+               }
+            }, executor);
+
+            synchronized (conversions)
+            {
+               conversions.add(conversion);
+            }
+         }
+      }, executor);
+
+      return inflation.thenCompose(done ->
+      {
+         synchronized (conversions)
+         {
+            return whenAllDone(conversions, nPoints, executor, () -> dataStream.close());
+         }
+      }).whenComplete((nPointsRead, exception) ->
+      {
+         if (exception != null)
+         {
+            executor.shutdownNow();
+            closeQuietly(() -> dataStream.close());
+         }
+      });
+   }
+
+   private static void writeSamples(FloatBuffer samples, YoBufferVariableEntry entry, int firstSample, int numberOfSamples)
+   {
+      for (int i = 0; i < numberOfSamples; i++)
+      {
+         entry.writeBufferAt(samples.get(i), firstSample + i);
+      }
+   }
+
+   private static void readFully(FileChannel channel, ByteBuffer byteBuffer, long position)
+   {
+      try
+      {
+         while (byteBuffer.hasRemaining())
+         {
+            int bytesRead = channel.read(byteBuffer, position);
+            if (bytesRead < 0)
+               throw new EOFException("Reached end of data file while reading samples.");
+            position += bytesRead;
+         }
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private static void readFully(YoDataInputStream dataStream, byte[] bytes)
+   {
+      try
+      {
+         dataStream.readFully(bytes);
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private static CompletableFuture<Integer> whenAllDone(List<CompletableFuture<Void>> tasks, int nPoints, ExecutorService executor, Closer closer)
+   {
+      return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[tasks.size()])).handle((done, exception) ->
+      {
+         executor.shutdown();
+         closeQuietly(closer);
+
+         if (exception != null)
+         {
+            for (CompletableFuture<Void> task : tasks)
+               task.cancel(false);
+
+            throw exception instanceof RuntimeException ? (RuntimeException) exception : new RuntimeException(exception);
+         }
+
+         return nPoints;
+      });
+   }
+
+   private static void closeQuietly(Closer closer)
+   {
+      try
+      {
+         closer.close();
+      }
+      catch (IOException e)
+      {
+         e.printStackTrace();
+      }
+   }
+
+   private static ExecutorService createExecutor(int numberOfThreads)
+   {
+      AtomicInteger threadIndex = new AtomicInteger();
+      ThreadFactory threadFactory = runnable ->
+      {
+         Thread thread = new Thread(runnable, "DataFileReader-" + threadIndex.getAndIncrement());
+         thread.setDaemon(true);
+         return thread;
+      };
+
+      return Executors.newFixedThreadPool(numberOfThreads, threadFactory);
+   }
+
+   private interface Closer
+   {
+      void close() throws IOException;
+   }
+
+   private static class ColumnPublisher
+   {
+      private final AtomicInteger numberOfColumnsLoaded = new AtomicInteger();
+      private final int numberOfColumns;
+      private final DataFileLoadingListener listener;
+
+      public ColumnPublisher(int numberOfColumns, DataFileLoadingListener listener)
+      {
+         this.numberOfColumns = numberOfColumns;
+         this.listener = listener;
+      }
+
+      public void columnLoaded(YoBufferVariableEntry entry)
+      {
+         int loaded = numberOfColumnsLoaded.incrementAndGet();
+
+         if (listener != null)
+            listener.columnLoaded(entry, loaded, numberOfColumns);
+      }
+   }
+}
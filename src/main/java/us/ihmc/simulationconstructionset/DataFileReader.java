@@ -142,12 +142,7 @@ public class DataFileReader
    {
       //    try
       //    {
-      YoDataInputStream dataStream;
-
-      if (inFile.getName().endsWith(".gz"))
-         dataStream = new YoDataInputStream(new BufferedInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(inFile))))); // inStream);
-      else
-         dataStream = new YoDataInputStream(new BufferedInputStream(new FileInputStream(inFile))); // inStream);
+      YoDataInputStream dataStream = openDataStream();
 
       if (inFile.getName().endsWith(".csv"))
       {
@@ -169,13 +164,7 @@ public class DataFileReader
    {
       //    try
       //    {
-      YoDataInputStream dataStream;
-
-      if (inURL.getPath().endsWith(".gz"))
-         dataStream = new YoDataInputStream(new BufferedInputStream(new GZIPInputStream(new BufferedInputStream(inURL.openStream())))); // inStream);
-
-      else
-         dataStream = new YoDataInputStream(new BufferedInputStream(inURL.openStream())); // inStream);
+      YoDataInputStream dataStream = openDataStream();
 
       if (inURL.getPath().endsWith(".csv"))
       {
@@ -192,6 +181,74 @@ public class DataFileReader
 
    }
 
+   YoDataInputStream openDataStream() throws IOException
+   {
+      if (inFile != null)
+      {
+         if (inFile.getName().endsWith(".gz"))
+            return new YoDataInputStream(new BufferedInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(inFile))))); // inStream);
+         else
+            return new YoDataInputStream(new BufferedInputStream(new FileInputStream(inFile))); // inStream);
+      }
+      else if (inURL != null)
+      {
+         if (inURL.getPath().endsWith(".gz"))
+            return new YoDataInputStream(new BufferedInputStream(new GZIPInputStream(new BufferedInputStream(inURL.openStream())))); // inStream);
+         else
+            return new YoDataInputStream(new BufferedInputStream(inURL.openStream())); // inStream);
+      }
+      else
+      {
+         return null;
+      }
+   }
+
+   File getFile()
+   {
+      return inFile;
+   }
+
+   URL getURL()
+   {
+      return inURL;
+   }
+
+   boolean isCompressed()
+   {
+      if (inFile != null)
+         return inFile.getName().endsWith(".gz");
+      else
+         return inURL != null && inURL.getPath().endsWith(".gz");
+   }
+
+   boolean isCommaSeparated()
+   {
+      if (inFile != null)
+         return inFile.getName().endsWith(".csv");
+      else
+         return inURL != null && inURL.getPath().endsWith(".csv");
+   }
+
+   boolean isColumnFormatted()
+   {
+      return columnFormatted;
+   }
+
+   int getNumberOfVariables()
+   {
+      return nVars;
+   }
+
+   int getNumberOfPoints()
+   {
+      return nPoints;
+   }
+
+   ArrayList<String> getVariableNames()
+   {
+      return varNames;
+   }
+
    public int readData(YoDataInputStream dataStream, YoVariableList newVars, YoRegistry rootRegistryToAddNewVariablesTo, YoBuffer dataBuffer,
                        SimulationConstructionSet sim)
          throws IOException
@@ -211,6 +268,68 @@ public class DataFileReader
          return readASCIIData(dataStream, newVars, dataBuffer, line, rootRegistryToAddNewVariablesTo);
       }
 
+      parseHeader(dataStream, sim);
+
+      //    if (nPoints > 0)
+      {
+         // dataBuffer.setMaxIndex(nPoints);
+         // First Clear all the existing data in case we don't read one of the variables that currently exists.
+
+         // vars.clearAll(nPoints);
+         if (nPoints != -1)
+         {
+            dataBuffer.clearBuffers(nPoints);
+         }
+
+         else
+         {
+            dataBuffer.clearBuffers(1024);
+         }
+
+         if (columnFormatted)
+            loadColumnFormattedData(dataStream, newVars, rootRegistryToAddNewVariablesTo, dataBuffer);
+         else
+            loadRowFormattedData(dataStream, newVars, rootRegistryToAddNewVariablesTo, dataBuffer);
+
+         dataBuffer.setInPoint(0);
+         dataBuffer.setOutPoint(nPoints - 1);
+         dataBuffer.setCurrentIndex(0);
+      }
+
+      // vars.setMaxIndex(nPoints);
+
+      dataStream.close();
+
+      // inStream.close();
+
+      //    }
+      //    catch (IOException e)
+      //    {
+      ////       e.printStackTrace();
+      //       return -1;
+      //    }
+
+      // int lB3 = Integer.parseInt("42913ac7",16);
+      // float foo3 = Float.intBitsToFloat(lB3);
+      // String hexS3 = Integer.toHexString(lB3);
+
+      // System.out.println(lB3);
+      // System.out.println(hexS3);
+      // System.out.println(foo3);
+
+      return nPoints;
+   }
+
+   /**
+    * Parses the binary header, assuming the <tt>$BEGIN_HEADER</tt> line has already been consumed
+    * from the stream. On return the stream is positioned at the first data sample.
+    */
+   void parseHeader(YoDataInputStream dataStream, SimulationConstructionSet sim) throws IOException
+   {
+      nPoints = -1;
+      varNames = new ArrayList<>();
+
+      String line;
       boolean doneParsing = false;
       boolean inRobotConfig = false;
 
@@ -243,7 +362,6 @@ public class DataFileReader
 
       robotConfig = replaceAll(robotConfig, "\n$", "\n");
 
-
       if (sim != null)
       {
          RobotDefinitionFixedFrame compare = new RobotDefinitionFixedFrame();
@@ -262,55 +380,6 @@ public class DataFileReader
 
       if (DEBUG)
          System.out.println("Done Parsing!");
-
-      //    if (nPoints > 0)
-      {
-         // dataBuffer.setMaxIndex(nPoints);
-         // First Clear all the existing data in case we don't read one of the variables that currently exists.
-
-         // vars.clearAll(nPoints);
-         if (nPoints != -1)
-         {
-            dataBuffer.clearBuffers(nPoints);
-         }
-
-         else
-         {
-            dataBuffer.clearBuffers(1024);
-         }
-
-         if (columnFormatted)
-            loadColumnFormattedData(dataStream, newVars, rootRegistryToAddNewVariablesTo, dataBuffer);
-         else
-            loadRowFormattedData(dataStream, newVars, rootRegistryToAddNewVariablesTo, dataBuffer);
-
-         dataBuffer.setInPoint(0);
-         dataBuffer.setOutPoint(nPoints - 1);
-         dataBuffer.setCurrentIndex(0);
-      }
-
-      // vars.setMaxIndex(nPoints);
-
-      dataStream.close();
-
-      // inStream.close();
-
-      //    }
-      //    catch (IOException e)
-      //    {
-      ////       e.printStackTrace();
-      //       return -1;
-      //    }
-
-      // int lB3 = Integer.parseInt("42913ac7",16);
-      // float foo3 = Float.intBitsToFloat(lB3);
-      // String hexS3 = Integer.toHexString(lB3);
-
-      // System.out.println(lB3);
-      // System.out.println(hexS3);
-      // System.out.println(foo3);
-
-      return nPoints;
    }
 
    private String replaceAll(String orig, String regex, String rep)
@@ -370,7 +439,7 @@ public class DataFileReader
       }
    }
 
-   private YoBufferVariableEntry getDataBufferEntry(String varName, YoBuffer dataBuffer, YoRegistry rootRegistryToAddNewVariablesTo, YoVariableList newVars)
+   YoBufferVariableEntry getDataBufferEntry(String varName, YoBuffer dataBuffer, YoRegistry rootRegistryToAddNewVariablesTo, YoVariableList newVars)
          throws IOException
    {
       YoVariable newVariable = dataBuffer.findVariable(varName);
@@ -0,0 +1,264 @@
+package us.ihmc.simulationconstructionset;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the samples of a binary data file written by {@link DataFileWriter} a chunk at a time,
+ * without ever holding the whole file in memory.
+ * <p>
+ * Row formatted files, as written while logging, are read sequentially. Column formatted files
+ * store one variable after the other, so each chunk is gathered with one positional read per
+ * variable. A compressed column formatted file cannot be read at random positions, so its samples
+ * are first inflated into a temporary file which is deleted by {@link #close()}.
+ * </p>
+ * <p>
+ * ASCII and comma separated files are not supported.
+ * </p>
+ */
+public class DataFileStreamReader implements Closeable
+{
+   private static final int BYTES_PER_SAMPLE = 4;
+
+   private final DataFileReader dataFileReader;
+   private final int nVars;
+   private final int nPoints;
+
+   private YoDataInputStream rowStream;
+   private byte[] rowBytes;
+
+   private FileChannel columnChannel;
+   private long dataOffset;
+   private File inflatedFile;
+   private ByteBuffer columnBuffer;
+
+   private int numberOfSamplesRead = 0;
+   private boolean reachedEnd = false;
+
+   public DataFileStreamReader(File file) throws IOException
+   {
+      dataFileReader = new DataFileReader(file);
+
+      if (dataFileReader.isCommaSeparated())
+         throw new IOException("Comma separated data files cannot be streamed: " + file);
+
+      YoDataInputStream dataStream = dataFileReader.openDataStream();
+      String line = dataStream.readASCIILine();
+
+      if (line == null || !line.startsWith("$BEGIN_HEADER"))
+      {
+         dataStream.close();
+         throw new IOException("Only binary data files can be streamed: " + file);
+      }
+
+      dataFileReader.parseHeader(dataStream, null);
+      nVars = dataFileReader.getNumberOfVariables();
+      nPoints = dataFileReader.getNumberOfPoints();
+
+      if (!dataFileReader.isColumnFormatted())
+      {
+         rowStream = dataStream;
+         rowBytes = new byte[nVars * BYTES_PER_SAMPLE];
+         return;
+      }
+
+      if (nPoints == -1)
+      {
+         dataStream.close();
+         throw new IOException("Column formatted data file without a number of points: " + file);
+      }
+
+      if (dataFileReader.isCompressed())
+      {
+         inflatedFile = inflateSamples(dataStream, (long) nVars * nPoints * BYTES_PER_SAMPLE);
+         dataOffset = 0;
+         columnChannel = FileChannel.open(inflatedFile.toPath(), StandardOpenOption.READ);
+      }
+      else
+      {
+         dataStream.close();
+         dataOffset = file.length() - (long) nVars * nPoints * BYTES_PER_SAMPLE;
+         if (dataOffset < 0)
+            throw new EOFException("Data file " + file + " is shorter than announced in its header.");
+
+         columnChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      }
+   }
+
+   public double getRecordDT()
+   {
+      return dataFileReader.getRecordDT();
+   }
+
+   public int getNumberOfVariables()
+   {
+      return nVars;
+   }
+
+   /**
+    * @return the number of samples announced in the header, or -1 for a row formatted log of
+    *         unknown length which is then read until the end of the file.
+    */
+   public int getNumberOfPoints()
+   {
+      return nPoints;
+   }
+
+   /**
+    * @return the full names of the variables, in the order of the values of each sample.
+    */
+   public List<String> getVariableNames()
+   {
+      return Collections.unmodifiableList(dataFileReader.getVariableNames());
+   }
+
+   public int getNumberOfSamplesRead()
+   {
+      return numberOfSamplesRead;
+   }
+
+   /**
+    * Reads the next samples of the file.
+    *
+    * @param samplesToPack          where the samples are written one after the other, each sample
+    *                               being the {@link #getNumberOfVariables()} values of the
+    *                               variables. Modified.
+    * @param maximumNumberOfSamples the maximum number of samples to read.
+    * @return the number of samples read, 0 once the end of the file has been reached.
+    */
+   public int readChunk(float[] samplesToPack, int maximumNumberOfSamples) throws IOException
+   {
+      if (reachedEnd || nVars == 0)
+         return 0;
+
+      int numberOfSamples = Math.min(maximumNumberOfSamples, samplesToPack.length / nVars);
+      if (nPoints != -1)
+         numberOfSamples = Math.min(numberOfSamples, nPoints - numberOfSamplesRead);
+
+      if (columnChannel != null)
+         numberOfSamples = readColumnFormattedChunk(samplesToPack, numberOfSamples);
+      else
+         numberOfSamples = readRowFormattedChunk(samplesToPack, numberOfSamples);
+
+      numberOfSamplesRead += numberOfSamples;
+      if (numberOfSamples == 0)
+         reachedEnd = true;
+
+      return numberOfSamples;
+   }
+
+   private int readRowFormattedChunk(float[] samplesToPack, int numberOfSamples) throws IOException
+   {
+      FloatBuffer rowFloats = ByteBuffer.wrap(rowBytes).asFloatBuffer();
+
+      for (int sample = 0; sample < numberOfSamples; sample++)
+      {
+         try
+         {
+            rowStream.readFully(rowBytes);
+         }
+         catch (EOFException e)
+         {
+            // Logs of unknown length simply end, a partially written last sample is dropped.
+            reachedEnd = true;
+            return sample;
+         }
+
+         rowFloats.rewind();
+         rowFloats.get(samplesToPack, sample * nVars, nVars);
+      }
+
+      return numberOfSamples;
+   }
+
+   private int readColumnFormattedChunk(float[] samplesToPack, int numberOfSamples) throws IOException
+   {
+      if (numberOfSamples == 0)
+         return 0;
+
+      if (columnBuffer == null || columnBuffer.capacity() < numberOfSamples * BYTES_PER_SAMPLE)
+         columnBuffer = ByteBuffer.allocate(numberOfSamples * BYTES_PER_SAMPLE);
+
+      for (int variable = 0; variable < nVars; variable++)
+      {
+         long position = dataOffset + ((long) variable * nPoints + numberOfSamplesRead) * BYTES_PER_SAMPLE;
+
+         columnBuffer.clear();
+         columnBuffer.limit(numberOfSamples * BYTES_PER_SAMPLE);
+
+         while (columnBuffer.hasRemaining())
+         {
+            int bytesRead = columnChannel.read(columnBuffer, position);
+            if (bytesRead < 0)
+               throw new EOFException("Reached end of data file while reading samples.");
+            position += bytesRead;
+         }
+
+         columnBuffer.flip();
+         FloatBuffer columnFloats = columnBuffer.asFloatBuffer();
+
+         for (int sample = 0; sample < numberOfSamples; sample++)
+         {
+            samplesToPack[sample * nVars + variable] = columnFloats.get(sample);
+         }
+      }
+
+      return numberOfSamples;
+   }
+
+   private static File inflateSamples(YoDataInputStream dataStream, long numberOfBytes) throws IOException
+   {
+      File file = File.createTempFile("DataFileStreamReader", ".data");
+      file.deleteOnExit();
+
+      try (YoDataInputStream inputStream = dataStream; OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file)))
+      {
+         byte[] bytes = new byte[1 << 16];
+
+         while (numberOfBytes > 0)
+         {
+            int bytesRead = inputStream.read(bytes, 0, (int) Math.min(bytes.length, numberOfBytes));
+            if (bytesRead < 0)
+               throw new EOFException("Compressed data file is shorter than announced in its header.");
+
+            outputStream.write(bytes, 0, bytesRead);
+            numberOfBytes -= bytesRead;
+         }
+      }
+      catch (IOException e)
+      {
+         file.delete();
+         throw e;
+      }
+
+      return file;
+   }
+
+   @Override
+   public void close() throws IOException
+   {
+      try
+      {
+         if (rowStream != null)
+            rowStream.close();
+         if (columnChannel != null)
+            columnChannel.close();
+      }
+      finally
+      {
+         if (inflatedFile != null)
+            inflatedFile.delete();
+      }
+   }
+}
@@ -0,0 +1,13 @@
+package us.ihmc.simulationconstructionset;
+
+/**
+ * Listener notified every time the simulation records a new data point.
+ */
+public interface DataRecordedListener
+{
+   /**
+    * Called from the simulation thread right after the current values of the variables have been
+    * written into the data buffer, before the graphs and graphics are updated.
+    */
+   public void dataRecorded();
+}
@@ -2,7 +2,9 @@ package us.ihmc.simulationconstructionset;
 
 import us.ihmc.euclid.matrix.Matrix3D;
 import us.ihmc.euclid.matrix.RotationMatrix;
+import us.ihmc.euclid.matrix.interfaces.Matrix3DBasics;
 import us.ihmc.euclid.matrix.interfaces.RotationMatrixBasics;
+import us.ihmc.euclid.matrix.interfaces.RotationMatrixReadOnly;
 import us.ihmc.euclid.referenceFrame.ReferenceFrame;
 import us.ihmc.euclid.tuple3D.Vector3D;
 import us.ihmc.euclid.tuple3D.interfaces.Tuple3DReadOnly;
@@ -97,19 +99,44 @@ public class ExternalForcePoint extends KinematicPoint
       xAxis.set(0, 0, 0);
    }
 
+   /**
+    * Computes the collision matrix of this point, which relates an impulse applied at this point to
+    * the change of its velocity, both expressed in the given collision frame.
+    * <p>
+    * The velocities of the robot have to be up to date with the current offset of this point.
+    * </p>
+    *
+    * @param R0_coll               the rotation from the collision frame to world.
+    * @param collisionMatrixToPack the collision matrix, in the collision frame.
+    */
+   public void computeCollisionMatrix(RotationMatrixReadOnly R0_coll, Matrix3DBasics collisionMatrixToPack)
+   {
+      Rk_coll.set(parentJoint.physics.Ri_0);
+      Rk_coll.multiply(R0_coll);
+
+      collisionMatrixToPack.set(parentJoint.physics.computeKiCollision(tempVectorForOffsetFromCOM, Rk_coll));
+   }
+
    public boolean resolveMicroCollision(double penetrationSquared, ExternalForcePoint externalForcePointTwo, Vector3DReadOnly negative_normal, double epsilon,
                                         double mu, Vector3DBasics p_world)
    {
       //TODO: Duplicate code all over the place here. Clean this up once it works well. Test cases too!
-      epsilon = epsilon + 1000000.0 * penetrationSquared;
-      if (epsilon > 20.0)
-         epsilon = 20.0;
+      epsilon = computeMicroCollisionRestitution(epsilon, penetrationSquared);
 
       //      System.out.println("epsilon1 = " + epsilon);
       //      System.out.println("penetrationSquared1 = " + penetrationSquared);
       return resolveCollision(externalForcePointTwo, negative_normal, epsilon, mu, p_world);
    }
 
+   /**
+    * Micro collisions increase the coefficient of restitution with the penetration so that resting
+    * contacts push the point back out.
+    */
+   public static double computeMicroCollisionRestitution(double epsilon, double penetrationSquared)
+   {
+      return Math.min(epsilon + 1000000.0 * penetrationSquared, 20.0);
+   }
+
    private final Vector3D otherObjectVelocity = new Vector3D();
 
    public boolean resolveCollision(ExternalForcePoint externalForcePoint, Vector3DReadOnly collisionNormalInWorld, double epsilon, double mu,
@@ -179,6 +206,61 @@ public class ExternalForcePoint extends KinematicPoint
       return true;
    }
 
+   /**
+    * Computes the impulse resolving a collision with an object moving at the given velocity without
+    * applying it, see
+    * {@link JointPhysics#computeCollisionImpulse(Vector3DReadOnly, RotationMatrixReadOnly, Vector3DReadOnly, double, double, Vector3DBasics, SpatialVector)}.
+    *
+    * @return whether the point and the object are moving together, if not there is no impulse.
+    */
+   public boolean computeCollisionImpulse(Vector3DReadOnly velocityOfOtherObjectInWorld, Vector3DReadOnly collisionNormalInWorld, double epsilon, double mu,
+                                          Vector3DBasics impulseInWorldToPack, SpatialVector impulseAtCenterOfMassToAddTo)
+   {
+      boolean movingTogether = computeRotationAndRelativeVelocity(collisionNormalInWorld, velocityOfOtherObjectInWorld, impulseInWorldToPack);
+      if (!movingTogether)
+      {
+         return false;
+      }
+
+      Rk_coll.set(parentJoint.physics.Ri_0);
+      Rk_coll.multiply(R0_coll);
+
+      parentJoint.physics.computeCollisionImpulse(tempVectorForOffsetFromCOM, Rk_coll, u_coll, epsilon, mu, impulseInWorldToPack, impulseAtCenterOfMassToAddTo);
+
+      // Rotate into world coordinates:
+      R0_coll.transform(impulseInWorldToPack);
+      impulse.set(impulseInWorldToPack);
+
+      return true;
+   }
+
+   private final Vector3D unitImpulse = new Vector3D();
+
+   /**
+    * Computes the collision matrix of this point, which relates an impulse applied at this point to
+    * the change of its velocity, both expressed in the given collision frame. Also packs the impulses
+    * at the center of mass of the parent link equivalent to unit impulses along the three axes of the
+    * collision frame, so that any impulse can later be applied with
+    * {@link JointPhysics#applyImpulseAtCenterOfMass(SpatialVector)} without recomputing the matrix.
+    * <p>
+    * The velocities of the robot have to be up to date with the current offset of this point.
+    * </p>
+    *
+    * @param R0_coll                          the rotation from the collision frame to world.
+    * @param collisionMatrixToPack            the collision matrix, in the collision frame.
+    * @param unitImpulsesAtCenterOfMassToPack the three impulses at the center of mass.
+    */
+   public void computeCollisionMatrix(RotationMatrixReadOnly R0_coll, Matrix3DBasics collisionMatrixToPack, SpatialVector[] unitImpulsesAtCenterOfMassToPack)
+   {
+      computeCollisionMatrix(R0_coll, collisionMatrixToPack);
+
+      for (int axis = 0; axis < 3; axis++)
+      {
+         unitImpulse.set(axis == 0 ? 1.0 : 0.0, axis == 1 ? 1.0 : 0.0, axis == 2 ? 1.0 : 0.0);
+         parentJoint.physics.transformCollisionImpulseToCenterOfMass(unitImpulse, unitImpulsesAtCenterOfMassToPack[axis]);
+      }
+   }
+
    public boolean resolveMicroCollision(double penetrationSquared, Vector3DReadOnly velocityOfOtherObjectInWorld, Vector3DReadOnly collisionNormalInWorld,
                                         double epsilon, double mu, Vector3DBasics impulseInWorldToPack)
    {
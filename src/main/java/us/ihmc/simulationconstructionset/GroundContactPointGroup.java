@@ -37,13 +37,22 @@ public class GroundContactPointGroup
       }
    }
 
+   /**
+    * The simulator does not maintain these lists anymore, the joint physics keep their own index of
+    * the points in contact, so they are rebuilt from the current contact state on each call.
+    */
    public ArrayList<GroundContactPoint> getGroundContactPointsInContact()
    {
+      decideGroundContactPointsInContact();
       return groundContactPointsInContact;
    }
 
+   /**
+    * Rebuilt from the current contact state on each call, see {@link #getGroundContactPointsInContact()}.
+    */
    public ArrayList<GroundContactPoint> getGroundContactPointsNotInContact()
    {
+      decideGroundContactPointsInContact();
       return groundContactPointsNotInContact;
    }
 
@@ -0,0 +1,218 @@
+package us.ihmc.simulationconstructionset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DBasics;
+import us.ihmc.simulationconstructionset.simulatedSensors.BlockGaussianRandomGenerator;
+import us.ihmc.yoVariables.euclid.referenceFrame.YoFrameVector3D;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoLong;
+
+/**
+ * Updates all the {@link IMUMount}s of a robot in one pass and simulates their measurements using
+ * the noise and bias parameters of each mount.
+ * <p>
+ * Once created with {@link Robot#createIMUSensorStage(long, double)}, this stage replaces the
+ * recursive update of the mount accelerations done after each integration. The measured angular
+ * velocity and linear acceleration of each mount are the ideal values plus a Gaussian noise and a
+ * bias. The noise is drawn by blocks from a {@link BlockGaussianRandomGenerator}, so a run is
+ * reproducible for a given seed. Each bias starts at its mean and follows a random walk: the bias
+ * standard deviation of the mount is the one of the walk after one second, the increment per update
+ * is scaled by the square root of the update period.
+ * </p>
+ * <p>
+ * The biases and the position of the generator are YoVariables, read back at each update, so the
+ * measurements are replayed identically after a rewind of the simulation.
+ * </p>
+ * <p>
+ * The mounts are collected when the stage is created, the mounts added to the robot afterwards are
+ * not updated.
+ * </p>
+ */
+public class IMUSensorStage
+{
+   private static final int CHANNELS_PER_MOUNT = 6;
+
+   private final IMUMount[] imuMounts;
+   private final BlockGaussianRandomGenerator random;
+   private final double sqrtUpdatePeriod;
+   private final YoLong noiseSamplePosition;
+
+   private final YoFrameVector3D[] measuredAngularVelocities;
+   private final YoFrameVector3D[] measuredLinearAccelerations;
+   private final YoFrameVector3D[] angularVelocityBiases;
+   private final YoFrameVector3D[] linearAccelerationBiases;
+
+   // One channel per axis, the angular velocity then the linear acceleration of each mount.
+   private final double[] idealValues;
+   private final double[] noiseMeans;
+   private final double[] noiseStandardDeviations;
+   private final double[] biasStandardDeviations;
+   private final double[] biases;
+   private final double[] measuredValues;
+   // The noise of all the channels followed by the bias increments of all the channels.
+   private final double[] gaussianSamples;
+
+   private final Vector3D tempVector = new Vector3D();
+
+   public IMUSensorStage(Robot robot, long seed, double updatePeriod)
+   {
+      this(robot, new BlockGaussianRandomGenerator(seed), updatePeriod);
+   }
+
+   /**
+    * @param robot        the robot whose mounts are updated.
+    * @param random       the source of the noise, owned by this stage from now on.
+    * @param updatePeriod the time between two updates, used to scale the random walk of the biases.
+    */
+   public IMUSensorStage(Robot robot, BlockGaussianRandomGenerator random, double updatePeriod)
+   {
+      if (updatePeriod <= 0.0)
+         throw new IllegalArgumentException("updatePeriod must be positive, was: " + updatePeriod);
+
+      this.random = random;
+      sqrtUpdatePeriod = Math.sqrt(updatePeriod);
+
+      List<IMUMount> imuMountList = new ArrayList<>();
+      robot.getIMUMounts(imuMountList);
+      imuMounts = imuMountList.toArray(new IMUMount[imuMountList.size()]);
+
+      YoRegistry registry = robot.getRobotsYoRegistry();
+      noiseSamplePosition = new YoLong(robot.getName() + "IMUNoiseSamplePosition", registry);
+      noiseSamplePosition.set(random.getPosition());
+      measuredAngularVelocities = new YoFrameVector3D[imuMounts.length];
+      measuredLinearAccelerations = new YoFrameVector3D[imuMounts.length];
+      angularVelocityBiases = new YoFrameVector3D[imuMounts.length];
+      linearAccelerationBiases = new YoFrameVector3D[imuMounts.length];
+
+      for (int i = 0; i < imuMounts.length; i++)
+      {
+         String name = imuMounts[i].getName();
+         measuredAngularVelocities[i] = new YoFrameVector3D(name + "MeasuredAngularVelocity", null, registry);
+         measuredLinearAccelerations[i] = new YoFrameVector3D(name + "MeasuredLinearAcceleration", null, registry);
+         angularVelocityBiases[i] = new YoFrameVector3D(name + "AngularVelocityBias", null, registry);
+         linearAccelerationBiases[i] = new YoFrameVector3D(name + "LinearAccelerationBias", null, registry);
+      }
+
+      int numberOfChannels = CHANNELS_PER_MOUNT * imuMounts.length;
+      idealValues = new double[numberOfChannels];
+      noiseMeans = new double[numberOfChannels];
+      noiseStandardDeviations = new double[numberOfChannels];
+      biasStandardDeviations = new double[numberOfChannels];
+      biases = new double[numberOfChannels];
+      measuredValues = new double[numberOfChannels];
+      gaussianSamples = new double[2 * numberOfChannels];
+
+      resetBiases();
+   }
+
+   /**
+    * Sets each bias back to the bias mean of its mount.
+    */
+   public void resetBiases()
+   {
+      for (int i = 0; i < imuMounts.length; i++)
+      {
+         IMUMount mount = imuMounts[i];
+         fillChannels(biases, i, mount.getAngularVelocityGaussianBiasMean(), mount.getAccelerationGaussianBiasMean());
+         setFromChannels(angularVelocityBiases[i], biases, CHANNELS_PER_MOUNT * i);
+         setFromChannels(linearAccelerationBiases[i], biases, CHANNELS_PER_MOUNT * i + 3);
+      }
+   }
+
+   /**
+    * Updates the accelerations of the mounts, then their measurements.
+    */
+   public void update()
+   {
+      for (int i = 0; i < imuMounts.length; i++)
+      {
+         IMUMount mount = imuMounts[i];
+         mount.updateIMUMountAcceleration();
+
+         int channel = CHANNELS_PER_MOUNT * i;
+         mount.getAngularVelocityInBody(tempVector);
+         tempVector.get(channel, idealValues);
+         mount.getLinearAccelerationInBody(tempVector);
+         tempVector.get(channel + 3, idealValues);
+
+         // The parameters can be changed at any time on the mounts.
+         fillChannels(noiseMeans, i, mount.getAngularVelocityGaussianNoiseMean(), mount.getAccelerationGaussianNoiseMean());
+         fillChannels(noiseStandardDeviations, i, mount.getAngularVelocityGaussianNoiseStdDev(), mount.getAccelerationGaussianNoiseStdDev());
+         fillChannels(biasStandardDeviations, i, mount.getAngularVelocityGaussianBiasStdDev(), mount.getAccelerationGaussianBiasStdDev());
+
+         // The biases are read back as they are restored with the other variables on a rewind.
+         angularVelocityBiases[i].get(channel, biases);
+         linearAccelerationBiases[i].get(channel + 3, biases);
+      }
+
+      int numberOfChannels = idealValues.length;
+      random.setPosition(noiseSamplePosition.getLongValue());
+      random.nextGaussians(gaussianSamples, 0, gaussianSamples.length);
+      noiseSamplePosition.set(random.getPosition());
+
+      for (int channel = 0; channel < numberOfChannels; channel++)
+      {
+         biases[channel] += sqrtUpdatePeriod * biasStandardDeviations[channel] * gaussianSamples[numberOfChannels + channel];
+         measuredValues[channel] = idealValues[channel] + noiseMeans[channel] + noiseStandardDeviations[channel] * gaussianSamples[channel] + biases[channel];
+      }
+
+      for (int i = 0; i < imuMounts.length; i++)
+      {
+         int channel = CHANNELS_PER_MOUNT * i;
+         setFromChannels(measuredAngularVelocities[i], measuredValues, channel);
+         setFromChannels(measuredLinearAccelerations[i], measuredValues, channel + 3);
+         setFromChannels(angularVelocityBiases[i], biases, channel);
+         setFromChannels(linearAccelerationBiases[i], biases, channel + 3);
+      }
+   }
+
+   private static void fillChannels(double[] channels, int mountIndex, double angularVelocityValue, double linearAccelerationValue)
+   {
+      int channel = CHANNELS_PER_MOUNT * mountIndex;
+      channels[channel] = angularVelocityValue;
+      channels[channel + 1] = angularVelocityValue;
+      channels[channel + 2] = angularVelocityValue;
+      channels[channel + 3] = linearAccelerationValue;
+      channels[channel + 4] = linearAccelerationValue;
+      channels[channel + 5] = linearAccelerationValue;
+   }
+
+   private static void setFromChannels(YoFrameVector3D vector, double[] channels, int channel)
+   {
+      vector.set(channels[channel], channels[channel + 1], channels[channel + 2]);
+   }
+
+   /**
+    * @return the mounts updated by this stage, in the order of the measurement indices.
+    */
+   public List<IMUMount> getIMUMounts()
+   {
+      List<IMUMount> list = new ArrayList<>(imuMounts.length);
+      Collections.addAll(list, imuMounts);
+      return list;
+   }
+
+   public void getMeasuredAngularVelocity(int mountIndex, Vector3DBasics measuredAngularVelocityToPack)
+   {
+      measuredAngularVelocityToPack.set(measuredAngularVelocities[mountIndex]);
+   }
+
+   public void getMeasuredLinearAcceleration(int mountIndex, Vector3DBasics measuredLinearAccelerationToPack)
+   {
+      measuredLinearAccelerationToPack.set(measuredLinearAccelerations[mountIndex]);
+   }
+
+   public void getAngularVelocityBias(int mountIndex, Vector3DBasics angularVelocityBiasToPack)
+   {
+      angularVelocityBiasToPack.set(angularVelocityBiases[mountIndex]);
+   }
+
+   public void getLinearAccelerationBias(int mountIndex, Vector3DBasics linearAccelerationBiasToPack)
+   {
+      linearAccelerationBiasToPack.set(linearAccelerationBiases[mountIndex]);
+   }
+}
@@ -513,6 +513,9 @@ public abstract class Joint implements CommonJoint, java.io.Serializable
       childJoint.parentJoint = this; // Set his parent to me for later back tracking...
 
       childrenJoints.add(childJoint);
+
+      if (rob != null)
+         rob.notifyForceSensorsChanged();
    }
 
    public void addLoopClosureConstraint(LoopClosureSoftConstraint childConstraint)
@@ -581,6 +584,9 @@ public abstract class Joint implements CommonJoint, java.io.Serializable
          forceSensors = new ArrayList<>();
 
       forceSensors.add(forceSensor);
+
+      if (rob != null)
+         rob.notifyForceSensorsChanged();
    }
 
    /**
@@ -695,7 +701,9 @@ public abstract class Joint implements CommonJoint, java.io.Serializable
    {
       if (forceSensors != null)
       {
-         list.addAll(forceSensors);
+         // Added one by one, addAll copies the list into a new array.
+         for (int i = 0; i < forceSensors.size(); i++)
+            list.add(forceSensors.get(i));
       }
       for (int i = 0; i < childrenJoints.size(); i++)
       {
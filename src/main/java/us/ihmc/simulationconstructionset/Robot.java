@@ -31,6 +31,8 @@ import us.ihmc.yoVariables.registry.YoRegistry;
 import us.ihmc.yoVariables.registry.YoVariableHolder;
 import us.ihmc.yoVariables.registry.YoVariableList;
 import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoLong;
 import us.ihmc.yoVariables.variable.YoVariable;
 
 /**
@@ -69,6 +71,14 @@ public class Robot implements YoVariableHolder, GroundContactPointsHolder
 
    private GroundContactModel groundContactModel;
 
+   private RobotSleepManager sleepManager = null;
+
+   private final YoInteger numberOfSubsteps;
+   private final YoLong substepCounter;
+   private double simulationDT = Double.NaN;
+
+   private IMUSensorStage imuSensorStage = null;
+
    private ExternalForcePoint kp_body;
 
    private DynamicIntegrationMethod dynamicIntegrationMethod = DynamicIntegrationMethod.RUNGE_KUTTA_FOURTH_ORDER;
@@ -160,6 +170,10 @@ public class Robot implements YoVariableHolder, GroundContactPointsHolder
       gravityY = new YoDouble("gravityY", yoRegistry);
       gravityZ = new YoDouble("gravityZ", yoRegistry);
 
+      numberOfSubsteps = new YoInteger(name + "NumberOfSubsteps", yoRegistry);
+      numberOfSubsteps.set(1);
+      substepCounter = new YoLong(name + "SubstepCounter", yoRegistry);
+
       setDefaultGravityToEarthWithMetricUnits();
    }
 
@@ -277,6 +291,7 @@ public class Robot implements YoVariableHolder, GroundContactPointsHolder
    public void addRootJoint(Joint root)
    {
       rootJoints.add(root);
+      notifyForceSensorsChanged();
    }
 
    /**
@@ -290,6 +305,86 @@ public class Robot implements YoVariableHolder, GroundContactPointsHolder
       return groundContactModel;
    }
 
+   /**
+    * Lets the simulator skip the dynamics of this robot while it is resting, see
+    * {@link RobotSleepManager}. Should be called once all the joints have been added, and before the
+    * robot is added to the simulation so that the variables of the sleep manager are recorded.
+    *
+    * @param linearVelocityThreshold  the maximum linear velocity of a resting link.
+    * @param angularVelocityThreshold the maximum angular velocity of a resting link.
+    * @param timeToSleep              how long the robot has to be resting before falling asleep.
+    */
+   public RobotSleepManager enableSleeping(double linearVelocityThreshold, double angularVelocityThreshold, double timeToSleep)
+   {
+      if (sleepManager == null)
+         sleepManager = new RobotSleepManager(this, linearVelocityThreshold, angularVelocityThreshold, timeToSleep);
+      else
+         sleepManager.setThresholds(linearVelocityThreshold, angularVelocityThreshold, timeToSleep);
+
+      return sleepManager;
+   }
+
+   /**
+    * @return the sleep manager of this robot, or {@code null} if sleeping is not enabled.
+    */
+   public RobotSleepManager getSleepManager()
+   {
+      return sleepManager;
+   }
+
+   /**
+    * Integrates this robot with several substeps per simulation tick, for instance for a stiff
+    * mechanism simulated in the same scene as robots that are fine with a larger time step. The
+    * ground contact model of this robot is evaluated at every substep, while the controllers, the
+    * collisions and the forces coming from the other robots are only updated once per simulation
+    * tick.
+    * <p>
+    * The number of substeps is a YoVariable and can be changed during the simulation.
+    * </p>
+    *
+    * @param numberOfSubsteps the number of integration steps per simulation tick, 1 by default.
+    */
+   public void setNumberOfSubsteps(int numberOfSubsteps)
+   {
+      if (numberOfSubsteps < 1)
+         throw new IllegalArgumentException("The number of substeps must be at least 1, was: " + numberOfSubsteps);
+
+      this.numberOfSubsteps.set(numberOfSubsteps);
+   }
+
+   public int getNumberOfSubsteps()
+   {
+      return Math.max(1, numberOfSubsteps.getIntegerValue());
+   }
+
+   /**
+    * @return the total number of integration steps of this robot, one per simulation tick when it is
+    *         not substepped. The ticks this robot spent sleeping are not counted.
+    */
+   public long getSubstepCounter()
+   {
+      return substepCounter.getLongValue();
+   }
+
+   void incrementSubstepCounter(int numberOfSubstepsTaken)
+   {
+      substepCounter.add(numberOfSubstepsTaken);
+   }
+
+   void setSimulationDT(double simulationDT)
+   {
+      this.simulationDT = simulationDT;
+   }
+
+   /**
+    * @return the time step this robot is integrated with, i.e. the DT of the simulation divided by
+    *         the number of substeps, or {@code NaN} if the robot has not been given to a simulator.
+    */
+   public double getIntegrationDT()
+   {
+      return simulationDT / getNumberOfSubsteps();
+   }
+
    /**
     * Step through each joint to determine if any points are in contact with the ground.
     */
@@ -536,6 +631,12 @@ public class Robot implements YoVariableHolder, GroundContactPointsHolder
 
    public void updateIMUMountAccelerations()
    {
+      if (imuSensorStage != null)
+      {
+         imuSensorStage.update();
+         return;
+      }
+
       for (int i = 0; i < rootJoints.size(); i++)
       {
          Joint rootJoint = rootJoints.get(i);
@@ -655,6 +756,31 @@ public class Robot implements YoVariableHolder, GroundContactPointsHolder
       }
    }
 
+   /**
+    * Creates a stage that updates all the IMU mounts of this robot in one pass and simulates their
+    * noisy measurements, and uses it from now on in {@link #updateIMUMountAccelerations()}. Has to be
+    * called once all the IMU mounts have been added, and only once per robot.
+    *
+    * @param seed         the seed of the noise, a given seed gives the same measurements.
+    * @param updatePeriod the time between two updates of the mounts, that is the simulation time
+    *                     step.
+    * @return the stage, which holds the measurements.
+    * @throws RuntimeException if the stage of this robot has already been created.
+    */
+   public IMUSensorStage createIMUSensorStage(long seed, double updatePeriod)
+   {
+      if (imuSensorStage != null)
+         throw new RuntimeException("The IMU sensor stage of the robot " + getName() + " has already been created.");
+
+      imuSensorStage = new IMUSensorStage(this, seed, updatePeriod);
+      return imuSensorStage;
+   }
+
+   public IMUSensorStage getIMUSensorStage()
+   {
+      return imuSensorStage;
+   }
+
    public void getIMUMounts(List<IMUMount> imuMountsToPack)
    {
       List<Joint> children = this.getRootJoints();
@@ -677,6 +803,38 @@ public class Robot implements YoVariableHolder, GroundContactPointsHolder
       }
    }
 
+   private final List<WrenchCalculatorInterface> forceSensorsToCalculate = new ArrayList<>();
+   private boolean forceSensorsChanged = true;
+
+   /**
+    * Called when a force sensor or a joint is added, so that the force sensors are collected again at
+    * the next call to {@link #calculateForceSensors()}.
+    */
+   void notifyForceSensorsChanged()
+   {
+      forceSensorsChanged = true;
+   }
+
+   /**
+    * Calls {@link WrenchCalculatorInterface#calculate()} on all the force sensors of this robot. The
+    * simulator calls it after the dynamics of every tick. The sensors are only collected from the
+    * joints again after a sensor or a joint has been added.
+    */
+   public void calculateForceSensors()
+   {
+      if (forceSensorsChanged)
+      {
+         forceSensorsToCalculate.clear();
+         getForceSensors(forceSensorsToCalculate);
+         forceSensorsChanged = false;
+      }
+
+      for (int i = 0; i < forceSensorsToCalculate.size(); i++)
+      {
+         forceSensorsToCalculate.get(i).calculate();
+      }
+   }
+
    /**
     * Retrieves a list of all ground contact points associated with this robot and the
     * groundContactGroupIdentifier.
@@ -0,0 +1,244 @@
+package us.ihmc.simulationconstructionset;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoBoolean;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoLong;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Puts a {@link Robot} to sleep when all its links have been moving slower than the given
+ * thresholds for some time, typically a passive object resting on the ground.
+ * <p>
+ * While a robot is sleeping, the {@link Simulator} skips its dynamics, integration and ground
+ * contact, only its time keeps advancing. Its velocities and accelerations are zeroed so that its
+ * recorded state and its IMU measurements are the ones of a body at rest. The robot wakes up as soon as one of its variables changes, which
+ * covers the external forces and torques applied to it, the impulses of the collision handler, and
+ * the changes made from the GUI or a script. It also wakes up when one of its collision shapes
+ * touches a moving body, for instance when the object it rests on starts moving.
+ * </p>
+ * <p>
+ * The sleep state is stored in {@link YoVariable}s, created when sleeping is enabled, and is
+ * therefore recorded and restored when rewinding. The rewinds are detected with a counter of the
+ * sleeping ticks.
+ * </p>
+ */
+public class RobotSleepManager
+{
+   private final Robot robot;
+   private double linearVelocityThreshold;
+   private double angularVelocityThreshold;
+   private double timeToSleep;
+
+   private final YoRegistry registry;
+   private final YoBoolean isSleeping;
+   private final YoDouble restingDuration;
+   private final YoInteger numberOfWakeUps;
+   private final YoLong sleepingTickCounter;
+
+   private final List<Joint> joints = new ArrayList<>();
+   private YoVariable[] watchedVariables;
+   private long[] sleepingValues;
+   private long expectedSleepingTickCounter = -1;
+
+   private final Vector3D zeroVector = new Vector3D();
+
+   /**
+    * @param robot                    the robot to put to sleep, its joints have to be added already.
+    * @param linearVelocityThreshold  the maximum linear velocity of a resting link.
+    * @param angularVelocityThreshold the maximum angular velocity of a resting link.
+    * @param timeToSleep              how long the robot has to be resting before falling asleep.
+    */
+   RobotSleepManager(Robot robot, double linearVelocityThreshold, double angularVelocityThreshold, double timeToSleep)
+   {
+      this.robot = robot;
+
+      registry = new YoRegistry(robot.getName() + "SleepManager");
+      isSleeping = new YoBoolean(robot.getName() + "IsSleeping", registry);
+      restingDuration = new YoDouble(robot.getName() + "RestingDuration", registry);
+      numberOfWakeUps = new YoInteger(robot.getName() + "NumberOfWakeUps", registry);
+      sleepingTickCounter = new YoLong(robot.getName() + "SleepingTickCounter", registry);
+      robot.getRobotsYoRegistry().addChild(registry);
+
+      setThresholds(linearVelocityThreshold, angularVelocityThreshold, timeToSleep);
+   }
+
+   /**
+    * @param linearVelocityThreshold  the maximum linear velocity of a resting link.
+    * @param angularVelocityThreshold the maximum angular velocity of a resting link.
+    * @param timeToSleep              how long the robot has to be resting before falling asleep.
+    */
+   void setThresholds(double linearVelocityThreshold, double angularVelocityThreshold, double timeToSleep)
+   {
+      this.linearVelocityThreshold = linearVelocityThreshold;
+      this.angularVelocityThreshold = angularVelocityThreshold;
+      this.timeToSleep = timeToSleep;
+
+      joints.clear();
+      for (Joint rootJoint : robot.getRootJoints())
+         collectJoints(rootJoint);
+   }
+
+   private void collectJoints(Joint joint)
+   {
+      joints.add(joint);
+
+      for (int i = 0; i < joint.getChildrenJoints().size(); i++)
+         collectJoints(joint.getChildrenJoints().get(i));
+   }
+
+   public boolean isSleeping()
+   {
+      return isSleeping.getBooleanValue();
+   }
+
+   /**
+    * Wakes the robot up if any of its variables changed since it fell asleep.
+    *
+    * @return whether the robot is still sleeping.
+    */
+   boolean checkIfStillSleeping()
+   {
+      if (!isSleeping.getBooleanValue())
+         return false;
+
+      // The variables were restored from the data buffer, e.g. after a rewind, the new values become
+      // the reference so that the robot keeps sleeping as it was recorded.
+      if (watchedVariables == null || sleepingTickCounter.getLongValue() != expectedSleepingTickCounter)
+      {
+         saveSleepingValues();
+         return true;
+      }
+
+      for (int i = 0; i < watchedVariables.length; i++)
+      {
+         if (watchedVariables[i].getValueAsLongBits() != sleepingValues[i])
+         {
+            wakeUp();
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * Advances the time of the sleeping robot by one tick. The accelerations of the joints are zeroed
+    * every tick since they are not restored when rewinding.
+    */
+   void doSleepingTick(double dt)
+   {
+      for (int i = 0; i < joints.size(); i++)
+      {
+         joints.get(i).physics.a_hat_i.top.setToZero();
+         joints.get(i).physics.a_hat_i.bottom.setToZero();
+      }
+
+      robot.setTime(robot.getTime() + dt);
+      sleepingTickCounter.add(1);
+      expectedSleepingTickCounter = sleepingTickCounter.getLongValue();
+   }
+
+   /**
+    * @return whether the robot is awake and one of its links is moving faster than the thresholds.
+    */
+   boolean isMoving()
+   {
+      return !isSleeping.getBooleanValue() && !areAllLinksResting();
+   }
+
+   /**
+    * Called after the dynamics of the awake robot, puts it to sleep when it has been resting long
+    * enough.
+    */
+   void updateAfterDynamics(double dt)
+   {
+      if (!areAllLinksResting())
+      {
+         restingDuration.set(0.0);
+         return;
+      }
+
+      restingDuration.add(dt);
+
+      if (restingDuration.getDoubleValue() >= timeToSleep)
+         fallAsleep();
+   }
+
+   public void wakeUp()
+   {
+      if (!isSleeping.getBooleanValue())
+         return;
+
+      isSleeping.set(false);
+      restingDuration.set(0.0);
+      numberOfWakeUps.increment();
+   }
+
+   private boolean areAllLinksResting()
+   {
+      double linearThresholdSquared = linearVelocityThreshold * linearVelocityThreshold;
+      double angularThresholdSquared = angularVelocityThreshold * angularVelocityThreshold;
+
+      for (int i = 0; i < joints.size(); i++)
+      {
+         Joint joint = joints.get(i);
+
+         if (joint.physics.v_i.lengthSquared() > linearThresholdSquared || joint.physics.w_i.lengthSquared() > angularThresholdSquared)
+            return false;
+      }
+
+      return true;
+   }
+
+   private void fallAsleep()
+   {
+      for (int i = 0; i < joints.size(); i++)
+      {
+         Joint joint = joints.get(i);
+
+         if (joint instanceof OneDegreeOfFreedomJoint)
+         {
+            ((OneDegreeOfFreedomJoint) joint).getQDYoVariable().set(0.0);
+         }
+         else if (joint instanceof FloatingSCSJoint)
+         {
+            ((FloatingSCSJoint) joint).setVelocity(zeroVector);
+            ((FloatingSCSJoint) joint).setAngularVelocityInBody(zeroVector);
+         }
+      }
+
+      robot.updateVelocities();
+      robot.updateAllGroundContactPointVelocities();
+
+      isSleeping.set(true);
+      saveSleepingValues();
+   }
+
+   private void saveSleepingValues()
+   {
+      if (watchedVariables == null)
+      {
+         List<YoVariable> variables = new ArrayList<>(robot.getRobotsYoRegistry().collectSubtreeVariables());
+         variables.removeAll(registry.collectSubtreeVariables());
+         variables.remove(robot.getYoTime());
+         watchedVariables = variables.toArray(new YoVariable[variables.size()]);
+         sleepingValues = new long[watchedVariables.length];
+      }
+
+      for (int i = 0; i < watchedVariables.length; i++)
+         sleepingValues[i] = watchedVariables[i].getValueAsLongBits();
+
+      expectedSleepingTickCounter = sleepingTickCounter.getLongValue();
+   }
+
+   public int getNumberOfWakeUps()
+   {
+      return numberOfWakeUps.getIntegerValue();
+   }
+}
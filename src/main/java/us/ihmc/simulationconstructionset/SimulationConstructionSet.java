@@ -15,6 +15,9 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.AbstractButton;
 import javax.swing.ImageIcon;
@@ -54,6 +57,7 @@ import us.ihmc.jMonkeyEngineToolkit.camera.CameraConfiguration;
 import us.ihmc.jMonkeyEngineToolkit.camera.CaptureDevice;
 import us.ihmc.log.LogTools;
 import us.ihmc.robotics.robotDescription.RobotDescription;
+import us.ihmc.simulationconstructionset.AsynchronousDataFileReader.DataFileLoadingListener;
 import us.ihmc.simulationconstructionset.commands.AddCameraKeyCommandExecutor;
 import us.ihmc.simulationconstructionset.commands.AddKeyPointCommandExecutor;
 import us.ihmc.simulationconstructionset.commands.CreateNewGraphWindowCommandExecutor;
@@ -73,6 +77,7 @@ import us.ihmc.simulationconstructionset.commands.StepForwardCommandExecutor;
 import us.ihmc.simulationconstructionset.commands.ToggleCameraKeyModeCommandExecutor;
 import us.ihmc.simulationconstructionset.commands.WriteDataCommandExecutor;
 import us.ihmc.simulationconstructionset.dataBuffer.DataBufferTools;
+import us.ihmc.simulationconstructionset.dataBuffer.YoBufferSummaryIndex;
 import us.ihmc.simulationconstructionset.graphics.GraphicsDynamicGraphicsObject;
 import us.ihmc.simulationconstructionset.gui.EventDispatchThreadHelper;
 import us.ihmc.simulationconstructionset.gui.GraphArrayWindow;
@@ -330,6 +335,7 @@ public class SimulationConstructionSet
     */
    public static final String rootRegistryName = "root";
    private static final boolean DEBUG_CLOSE_AND_DISPOSE = false;
+   private static final long MIN_GRAPH_UPDATE_PERIOD_WHILE_LOADING_MILLIS = 250;
 
    private static double REAL_TIME_RATE = 1.0;
    private double SECONDS_PER_FRAME = 0.04; // 0.1 seconds per frame (25Hz)
@@ -369,7 +375,10 @@ public class SimulationConstructionSet
 
    private List<YoGraphicsListRegistry> yoGraphicListRegistries = new ArrayList<>();
    private RewoundListenerHandler rewoundListenerHandler = new RewoundListenerHandler();
+   // Notified from the simulation thread while listeners can be added from any thread.
+   private final List<DataRecordedListener> dataRecordedListeners = new CopyOnWriteArrayList<>();
    private YoBuffer myDataBuffer;
+   private YoBufferSummaryIndex dataBufferSummaryIndex;
    private boolean defaultLoaded = false;
    private int lastIndexPlayed = 0;
 
@@ -552,6 +561,7 @@ public class SimulationConstructionSet
       }
 
       mySimulation.getDataBuffer().fillBuffer(); // Copy the values through so that anything the user changed during initialization will be YoVariablized, and the default on all graphs.
+      invalidateDataBufferSummaryIndex();
 
       attachPlaybackListener(new PlaybackListener()
       {
@@ -1467,6 +1477,7 @@ public class SimulationConstructionSet
       rewoundListenerHandler.setEnable(false);
       mySimulation.tickAndUpdate();
       rewoundListenerHandler.setEnable(true);
+      notifyDataRecordedListeners();
 
       if (myGUI != null)
       {
@@ -1504,6 +1515,7 @@ public class SimulationConstructionSet
       rewoundListenerHandler.setEnable(false);
       mySimulation.tickAndUpdate();
       rewoundListenerHandler.setEnable(true);
+      notifyDataRecordedListeners();
 
       if (myGUI != null)
       {
@@ -1521,6 +1533,8 @@ public class SimulationConstructionSet
    public boolean updateAndTick()
    {
       myDataBuffer.writeIntoBuffer();
+      if (dataBufferSummaryIndex != null)
+         dataBufferSummaryIndex.markDirty(myDataBuffer.getCurrentIndex());
       boolean indexRolledOver = myDataBuffer.tickAndReadFromBuffer(1);
       if (myGUI != null)
       {
@@ -2116,7 +2130,9 @@ public class SimulationConstructionSet
       boolean notifyListeners = false; // TODO: This is very hackish. If listeners are on, then the variables will be added to the data buffer. But mySimulation.setRobots() in a few lines does that...
       rootRegistry.addChild(robotsYoRegistry, notifyListeners);
 
+      // Fills the whole data buffer with the initial values of the variables of the robot.
       mySimulation.addRobot(robot);
+      invalidateDataBufferSummaryIndex();
 
       // recomputeTiming();
       robots = mySimulation.getRobots();
@@ -2148,6 +2164,7 @@ public class SimulationConstructionSet
       rootRegistry.addChild(robotsYoRegistry, notifyListeners);
 
       mySimulation.setRobots(new Robot[] {robot});
+      invalidateDataBufferSummaryIndex();
 
       // recomputeTiming();
       robots = mySimulation.getRobots();
@@ -2212,6 +2229,8 @@ public class SimulationConstructionSet
       }
 
       myGUI.setup(heightMap);
+      if (myGUI.getGraphArrayPanel() != null)
+         myGUI.getGraphArrayPanel().setDataBufferSummaryIndex(getDataBufferSummaryIndex());
 
       // myGUI.updateCamera();
       if (robots != null)
@@ -2663,6 +2682,8 @@ public class SimulationConstructionSet
          myDataBuffer.tickAndWriteIntoBuffer(); // Update the data buffer and the min max values of each point it contains
          rewoundListenerHandler.setEnable(true);
 
+         notifyDataRecordedListeners();
+
          if (myGUI != null)
          {
             if (!fastSimulate)
@@ -3108,6 +3129,8 @@ public class SimulationConstructionSet
          myDataBuffer.tickAndWriteIntoBuffer();
          rewoundListenerHandler.setEnable(true);
 
+         notifyDataRecordedListeners();
+
          if (myGUI != null)
          {
             myGUI.updateGraphs();
@@ -3224,6 +3247,61 @@ public class SimulationConstructionSet
       }
    }
 
+   /**
+    * Adds a listener notified every time a data point is recorded while simulating, for instance to
+    * publish the variables to another process.
+    *
+    * @param listener the listener to notify from the simulation thread.
+    */
+   public void addDataRecordedListener(DataRecordedListener listener)
+   {
+      dataRecordedListeners.add(listener);
+   }
+
+   public void removeDataRecordedListener(DataRecordedListener listener)
+   {
+      dataRecordedListeners.remove(listener);
+   }
+
+   private void notifyDataRecordedListeners()
+   {
+      for (DataRecordedListener listener : dataRecordedListeners)
+      {
+         listener.dataRecorded();
+      }
+   }
+
+   /**
+    * Gets the index answering min, max, mean, RMS, integral and threshold crossing queries over ranges
+    * of the data buffer, for instance between the in and out points. The index is created on the first
+    * call and is then kept up to date as data is recorded.
+    *
+    * @return the summary index of the data buffer.
+    */
+   public YoBufferSummaryIndex getDataBufferSummaryIndex()
+   {
+      synchronized (simulationSynchronizer)
+      {
+         if (dataBufferSummaryIndex == null)
+         {
+            dataBufferSummaryIndex = new YoBufferSummaryIndex(myDataBuffer);
+            dataRecordedListeners.add(dataBufferSummaryIndex);
+         }
+
+         return dataBufferSummaryIndex;
+      }
+   }
+
+   /**
+    * Called after the data buffer has been rewritten as a whole, by cropping, packing, thinning or
+    * loading data.
+    */
+   void invalidateDataBufferSummaryIndex()
+   {
+      if (dataBufferSummaryIndex != null)
+         dataBufferSummaryIndex.invalidate();
+   }
+
    /**
     * Sets the criterion for simulation completion. When the criterion is met the simulation will
     * complete and SimulateDoneListeners will be triggered.
@@ -3536,6 +3614,7 @@ public class SimulationConstructionSet
    public void changeBufferSize(int bufferSize)
    {
       myDataBuffer.resizeBuffer(bufferSize);
+      invalidateDataBufferSummaryIndex();
 
       if (myGUI != null)
       {
@@ -3913,6 +3992,99 @@ public class SimulationConstructionSet
       readData(dataReader);
    }
 
+   /**
+    * Import simulation data from the specified file without blocking until the whole file has been
+    * decoded. The header is read and the variables are created before this method returns, the
+    * samples are then decoded on background threads and the graphs are refreshed as the variables
+    * become available. See {@link #readData(File)} for the supported file formats.
+    *
+    * @param chosenFile File to load.
+    * @return a future completing with the number of points read once the whole file is loaded.
+    */
+   public CompletableFuture<Integer> readDataInBackground(File chosenFile)
+   {
+      return readDataInBackground(new AsynchronousDataFileReader(chosenFile));
+   }
+
+   /**
+    * Import simulation data from the file at the specified URL without blocking until the whole file
+    * has been decoded. See {@link #readDataInBackground(File)}.
+    *
+    * @param url URL at which the source file is located.
+    * @return a future completing with the number of points read once the whole file is loaded.
+    */
+   public CompletableFuture<Integer> readDataInBackground(URL url)
+   {
+      return readDataInBackground(new AsynchronousDataFileReader(url));
+   }
+
+   private CompletableFuture<Integer> readDataInBackground(AsynchronousDataFileReader dataReader)
+   {
+      YoVariableList newVarList = new YoVariableList("Imported");
+      AtomicLong lastGraphUpdateTime = new AtomicLong(System.currentTimeMillis());
+
+      DataFileLoadingListener listener = (entry, numberOfColumnsLoaded, numberOfColumns) ->
+      {
+         long currentTime = System.currentTimeMillis();
+         long lastUpdateTime = lastGraphUpdateTime.get();
+
+         if (myGUI != null && currentTime - lastUpdateTime > MIN_GRAPH_UPDATE_PERIOD_WHILE_LOADING_MILLIS
+               && lastGraphUpdateTime.compareAndSet(lastUpdateTime, currentTime))
+         {
+            myGUI.updateGraphs();
+         }
+      };
+
+      CompletableFuture<Integer> result;
+
+      try
+      {
+         result = dataReader.readData(newVarList, rootRegistry, myDataBuffer, this, listener);
+      }
+      catch (IOException exception)
+      {
+         JOptionPane.showMessageDialog(jFrame, "IOException in read data: " + exception);
+         exception.printStackTrace();
+         result = new CompletableFuture<>();
+         result.completeExceptionally(exception);
+         return result;
+      }
+
+      // For column formatted files the buffer is already sized and the variables exist at this point.
+      if (myGUI != null && myDataBuffer.getBufferInOutLength() > 1)
+      {
+         setRecordDT(dataReader.getRecordDT());
+         myGUI.zoomFullView();
+         myGUI.updateGraphs();
+      }
+
+      return result.whenComplete((npoints, exception) ->
+      {
+         invalidateDataBufferSummaryIndex();
+
+         if (exception != null)
+         {
+            LogTools.error("Exception in read data: " + exception);
+            exception.printStackTrace();
+         }
+         else if (npoints > 0)
+         {
+            setRecordDT(dataReader.getRecordDT());
+
+            if (myGUI != null)
+            {
+               myGUI.zoomFullView();
+               myGUI.updateGraphs();
+               myGUI.updateSimulationGraphics();
+            }
+         }
+         else
+         {
+            EventDispatchThreadHelper.invokeLater(() -> JOptionPane.showMessageDialog(jFrame, "File not valid data file!"));
+         }
+      });
+   }
+
    /**
     * Internal function for loading data from file. Assuming the dataReader was created with a valid
     * data file this function will load the data into the simulation.
@@ -3926,6 +4098,7 @@ public class SimulationConstructionSet
       try
       {
          int npoints = dataReader.readData(newVarList, rootRegistry, myDataBuffer, this); // robVarList, myDataBuffer);
+         invalidateDataBufferSummaryIndex();
 
          if (npoints > 0)
          {
@@ -4052,6 +4225,7 @@ public class SimulationConstructionSet
       {
          dataReader.readState(mySimulation.getCombinedVarList(), printErrorForMissingVariables);
          myDataBuffer.tickAndWriteIntoBuffer();
+         invalidateDataBufferSummaryIndex();
          myDataBuffer.setInPoint();
          myDataBuffer.setOutPoint();
 
@@ -4213,6 +4387,7 @@ public class SimulationConstructionSet
        * index 0 of the data buffer) are properly stored in the data buffer
        */
       getDataBuffer().fillBuffer();
+      invalidateDataBufferSummaryIndex();
    }
 
    // /**
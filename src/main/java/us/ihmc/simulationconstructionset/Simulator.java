@@ -4,6 +4,9 @@ import java.util.ArrayList;
 
 import us.ihmc.simulationconstructionset.physics.CollisionArbiter;
 import us.ihmc.simulationconstructionset.physics.CollisionHandler;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeWithLink;
+import us.ihmc.simulationconstructionset.physics.Contacts;
 import us.ihmc.simulationconstructionset.physics.ScsCollisionDetector;
 import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
 import us.ihmc.simulationconstructionset.physics.collision.DefaultCollisionVisualizer;
@@ -32,6 +35,7 @@ public class Simulator implements java.io.Serializable
       this.simulationSynchronizer = simulationSynchronizer;
       this.robots = robots;
       DT = dt;
+      updateRobotsSimulationDT();
 
       //    this.time = time;
    }
@@ -39,11 +43,23 @@ public class Simulator implements java.io.Serializable
    public void setRobots(Robot[] robots)
    {
       this.robots = robots;
+      isSleepingCheckedThisTick = false;
+      updateRobotsSimulationDT();
    }
 
    public void setDT(double simulateDT)
    {
       DT = simulateDT;
+      updateRobotsSimulationDT();
+   }
+
+   private void updateRobotsSimulationDT()
+   {
+      if (robots == null)
+         return;
+
+      for (Robot robot : robots)
+         robot.setSimulationDT(DT);
    }
 
    public double getDT()
@@ -66,41 +82,28 @@ public class Simulator implements java.io.Serializable
    }
 
    private final CollisionDetectionResult newCollisions = new CollisionDetectionResult();
+   // Whether each robot was found sleeping at the start of the tick, kept for the rest of the tick.
+   private boolean[] sleepingThisTick = new boolean[0];
+   private boolean isSleepingCheckedThisTick = false;
 
    private void updateState()
    {
       synchronized (simulationSynchronizer)
       {
-         for (Robot robot : robots)
-         {
-            // +++JEP090122 This updates the locations and velocities of everything. Need to do this instead of just update so that the ground contact has the
-            // most recent velocities and is rewindable...
-            robot.updateVelocities();
-
-            //          rob.update();
+         checkSleepingRobots();
 
-            robot.updateAllGroundContactPointVelocities(); // +++JEP OPTIMIZE: Need to do this once so all point velocities get updated. Otherwise only those in contact will.
+         for (int i = 0; i < robots.length; i++)
+         {
+            Robot robot = robots[i];
 
-            if (robot.getGroundContactModel() != null)
+            if (sleepingThisTick[i])
             {
-               robot.getGroundContactModel().doGroundContact(); // Do the ground contact model
+               runScripts(robot);
+               continue;
             }
 
-            // Needed to move this outside and do it even if no ground contact model, for
-            // Contact models that are done outside of the robot.
-            robot.decideGroundContactPointsInContact(); // +++JEP OPTIMIZE. This should be in a GroundContactDetector...
-
-            // Computes forces for closing kinematic loops.
-            // TODO Should be resolved in robot.doDynamics.
-            robot.doLoopClosure();
-
-            if (scripts != null) // Run the scripts
-            {
-               for (Script script : scripts)
-               {
-                  script.doScript(robot.getTime());
-               }
-            }
+            updateRobotState(robot);
+            runScripts(robot);
          }
 
          if (collisionDetector != null)
@@ -113,11 +116,112 @@ public class Simulator implements java.io.Serializable
             collisionArbiter.processNewCollisions(newCollisions);
             CollisionDetectionResult cachedCollisions = collisionArbiter.getCollisions();
 
+            wakeUpRobotsTouchingMovingBodies(cachedCollisions);
             collisionHandler.handleCollisions(cachedCollisions);
          }
       }
    }
 
+   /**
+    * Checks once per tick which robots are still sleeping, since the check compares all the variables
+    * of the sleeping robots.
+    */
+   private void checkSleepingRobots()
+   {
+      if (sleepingThisTick.length != robots.length)
+         sleepingThisTick = new boolean[robots.length];
+
+      for (int i = 0; i < robots.length; i++)
+      {
+         RobotSleepManager sleepManager = robots[i].getSleepManager();
+         sleepingThisTick[i] = sleepManager != null && sleepManager.checkIfStillSleeping();
+      }
+
+      isSleepingCheckedThisTick = true;
+   }
+
+   /**
+    * Wakes up the sleeping robots touching a moving body, such as the one they rest on, since they
+    * would not react to it moving away.
+    */
+   private void wakeUpRobotsTouchingMovingBodies(CollisionDetectionResult collisions)
+   {
+      for (int i = 0; i < collisions.getNumberOfCollisions(); i++)
+      {
+         Contacts contacts = collisions.getCollision(i);
+         Robot robotA = getRobot(contacts.getShapeA());
+         Robot robotB = getRobot(contacts.getShapeB());
+
+         wakeUpIfTouchingMovingBody(robotA, robotB);
+         wakeUpIfTouchingMovingBody(robotB, robotA);
+      }
+   }
+
+   private static void wakeUpIfTouchingMovingBody(Robot robot, Robot otherRobot)
+   {
+      if (robot == null || otherRobot == null || robot == otherRobot)
+         return;
+
+      RobotSleepManager sleepManager = robot.getSleepManager();
+
+      if (sleepManager == null || !sleepManager.isSleeping())
+         return;
+
+      // A robot that cannot sleep is considered to be moving.
+      RobotSleepManager otherSleepManager = otherRobot.getSleepManager();
+
+      if (otherSleepManager == null || otherSleepManager.isMoving())
+         sleepManager.wakeUp();
+   }
+
+   private static Robot getRobot(CollisionShape shape)
+   {
+      if (!(shape instanceof CollisionShapeWithLink) || shape.isGround())
+         return null;
+
+      Link link = ((CollisionShapeWithLink) shape).getLink();
+
+      if (link == null || link.getParentJoint() == null)
+         return null;
+
+      return link.getParentJoint().getRobot();
+   }
+
+   private void updateRobotState(Robot robot)
+   {
+      // +++JEP090122 This updates the locations and velocities of everything. Need to do this instead of just update so that the ground contact has the
+      // most recent velocities and is rewindable...
+      robot.updateVelocities();
+
+      //          rob.update();
+
+      robot.updateAllGroundContactPointVelocities(); // +++JEP OPTIMIZE: Need to do this once so all point velocities get updated. Otherwise only those in contact will.
+
+      if (robot.getGroundContactModel() != null)
+      {
+         robot.getGroundContactModel().doGroundContact(); // Do the ground contact model
+      }
+
+      // Needed to move this outside and do it even if no ground contact model, for
+      // Contact models that are done outside of the robot.
+      robot.decideGroundContactPointsInContact(); // +++JEP OPTIMIZE. This should be in a GroundContactDetector...
+
+      // Computes forces for closing kinematic loops.
+      // TODO Should be resolved in robot.doDynamics.
+      robot.doLoopClosure();
+   }
+
+   private void runScripts(Robot robot)
+   {
+      if (scripts != null) // Run the scripts
+      {
+         for (Script script : scripts)
+         {
+            script.doScript(robot.getTime());
+         }
+      }
+   }
+
    protected void doControl()
    {
       for (Robot robot : robots)
@@ -134,11 +238,63 @@ public class Simulator implements java.io.Serializable
    {
       synchronized (simulationSynchronizer)
       {
+         // The dynamics can be done without the state update, see SimulationConstructionSet.doDynamicsAndIntegrate().
+         if (!isSleepingCheckedThisTick)
+            checkSleepingRobots();
+
+         isSleepingCheckedThisTick = false;
+
          for (int i = 0; i < robots.length; i++)
          {
             Robot robot = robots[i];
-            robot.doDynamicsAndIntegrate(DT);
+            RobotSleepManager sleepManager = robot.getSleepManager();
+
+            if (sleepingThisTick[i])
+            {
+               if (sleepManager.isSleeping())
+               {
+                  // The changes made by the controllers are only noticed at the next state update.
+                  sleepManager.doSleepingTick(DT);
+                  robot.updateIMUMountAccelerations();
+                  robot.calculateForceSensors();
+                  continue;
+               }
+
+               // Woken up by a moving body during this tick, the state update was skipped.
+               updateRobotState(robot);
+            }
+
+            int numberOfSubsteps = robot.getNumberOfSubsteps();
+
+            if (numberOfSubsteps == 1)
+            {
+               robot.doDynamicsAndIntegrate(DT);
+               robot.incrementSubstepCounter(1);
+            }
+            else
+            {
+               double startTime = robot.getTime();
+               double substepDT = DT / numberOfSubsteps;
+
+               // The first substep uses the state and contact updated with the other robots.
+               robot.doDynamicsAndIntegrate(substepDT);
+
+               for (int substep = 1; substep < numberOfSubsteps; substep++)
+               {
+                  updateRobotState(robot);
+                  robot.doDynamicsAndIntegrate(substepDT);
+               }
+
+               // Keeps the robots in sync despite the round-off of the substeps.
+               robot.setTime(startTime + DT);
+               robot.incrementSubstepCounter(numberOfSubsteps);
+            }
+
             robot.updateIMUMountAccelerations();
+            robot.calculateForceSensors();
+
+            if (sleepManager != null)
+               sleepManager.updateAfterDynamics(DT);
          }
       }
    }
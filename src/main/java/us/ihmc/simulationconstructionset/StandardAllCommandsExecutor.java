@@ -198,6 +198,8 @@ public class StandardAllCommandsExecutor implements AllCommandsExecutor
    public void cropBuffer()
    {
       dataBuffer.cropBuffer();
+      if (simulationConstructionSet != null)
+         simulationConstructionSet.invalidateDataBufferSummaryIndex();
       if (standardSimulationGUI != null)
          standardSimulationGUI.zoomFullView();
    }
@@ -206,6 +208,8 @@ public class StandardAllCommandsExecutor implements AllCommandsExecutor
    public void packBuffer()
    {
       dataBuffer.shiftBuffer();
+      if (simulationConstructionSet != null)
+         simulationConstructionSet.invalidateDataBufferSummaryIndex();
       if (standardSimulationGUI != null)
          standardSimulationGUI.updateGraphs();
    }
@@ -214,6 +218,8 @@ public class StandardAllCommandsExecutor implements AllCommandsExecutor
    public void cutBuffer()
    {
       dataBuffer.cutBuffer();
+      if (simulationConstructionSet != null)
+         simulationConstructionSet.invalidateDataBufferSummaryIndex();
       if (standardSimulationGUI != null)
          standardSimulationGUI.zoomFullView();
    }
@@ -222,6 +228,8 @@ public class StandardAllCommandsExecutor implements AllCommandsExecutor
    public void thinBuffer(int keepEveryNthPoint)
    {
       dataBuffer.thinData(keepEveryNthPoint);
+      if (simulationConstructionSet != null)
+         simulationConstructionSet.invalidateDataBufferSummaryIndex();
       if (standardSimulationGUI != null)
          standardSimulationGUI.zoomFullView();
    }
@@ -0,0 +1,117 @@
+package us.ihmc.simulationconstructionset.dataBuffer;
+
+/**
+ * Aggregates of the values of one variable over a range of the data buffer, as computed by
+ * {@link YoBufferSummaryIndex}.
+ * <p>
+ * A NaN in the range makes the minimum, the maximum and the sums NaN.
+ * </p>
+ */
+public class YoBufferRangeSummary
+{
+   private int numberOfSamples = 0;
+   private double min = Double.POSITIVE_INFINITY;
+   private double max = Double.NEGATIVE_INFINITY;
+   private double sum = 0.0;
+   private double sumOfSquares = 0.0;
+   private double firstValue = Double.NaN;
+   private double lastValue = Double.NaN;
+
+   YoBufferRangeSummary()
+   {
+   }
+
+   void add(double value)
+   {
+      numberOfSamples++;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      sum += value;
+      sumOfSquares += value * value;
+   }
+
+   void add(int numberOfSamples, double min, double max, double sum, double sumOfSquares)
+   {
+      this.numberOfSamples += numberOfSamples;
+      this.min = Math.min(this.min, min);
+      this.max = Math.max(this.max, max);
+      this.sum += sum;
+      this.sumOfSquares += sumOfSquares;
+   }
+
+   /**
+    * The samples are not added in order, so the values at the ends of the range are set separately.
+    */
+   void setFirstAndLastValues(double firstValue, double lastValue)
+   {
+      this.firstValue = firstValue;
+      this.lastValue = lastValue;
+   }
+
+   public int getNumberOfSamples()
+   {
+      return numberOfSamples;
+   }
+
+   /**
+    * @return the minimum, or {@link Double#POSITIVE_INFINITY} if the range is empty.
+    */
+   public double getMin()
+   {
+      return min;
+   }
+
+   /**
+    * @return the maximum, or {@link Double#NEGATIVE_INFINITY} if the range is empty.
+    */
+   public double getMax()
+   {
+      return max;
+   }
+
+   public double getSum()
+   {
+      return sum;
+   }
+
+   /**
+    * @return the mean, or NaN if the range is empty.
+    */
+   public double getMean()
+   {
+      return sum / numberOfSamples;
+   }
+
+   /**
+    * @return the root mean square, or NaN if the range is empty.
+    */
+   public double getRMS()
+   {
+      return Math.sqrt(sumOfSquares / numberOfSamples);
+   }
+
+   /**
+    * Integrates the variable over the range with the trapezoidal rule, assuming the samples are
+    * evenly spaced in time.
+    *
+    * @param dt the time between two samples, typically the record period of the simulation.
+    * @return the integral, zero if the range has less than two samples.
+    */
+   public double getIntegral(double dt)
+   {
+      if (numberOfSamples < 2)
+         return 0.0;
+
+      return dt * (sum - 0.5 * (firstValue + lastValue));
+   }
+
+   public double getFirstValue()
+   {
+      return firstValue;
+   }
+
+   public double getLastValue()
+   {
+      return lastValue;
+   }
+}
@@ -0,0 +1,443 @@
+package us.ihmc.simulationconstructionset.dataBuffer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import us.ihmc.simulationconstructionset.DataRecordedListener;
+import us.ihmc.yoVariables.buffer.YoBuffer;
+import us.ihmc.yoVariables.buffer.YoBufferVariableEntry;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Answers min, max, mean, RMS, integral and threshold crossing queries over a range of the data
+ * buffer without going through every sample of the range.
+ * <p>
+ * The buffer of each queried variable is split in blocks of fixed size, and the min, max, sum and
+ * sum of squares of the blocks are kept in a segment tree. A query scans at most the two partial
+ * blocks at the ends of the range and combines the full blocks in between from the tree, so its
+ * cost depends on the block size and the logarithm of the buffer size instead of the length of the
+ * range. The summaries are created the first time a variable is queried.
+ * </p>
+ * <p>
+ * When registered as a {@link DataRecordedListener}, the block of each newly recorded point is
+ * marked dirty and recomputed at the next query. Code writing into the buffer by other means has to
+ * call {@link #markDirty(int)}, or {@link #invalidate()} when the whole buffer is changed as when
+ * cropping, packing or thinning. A change of the buffer size is detected and triggers a rebuild.
+ * </p>
+ * <p>
+ * The ranges are given by inclusive indices and wrap around the end of the buffer when the first
+ * index is greater than the last one, like the in and out points.
+ * </p>
+ */
+public class YoBufferSummaryIndex implements DataRecordedListener
+{
+   public static final int DEFAULT_BLOCK_SIZE = 256;
+
+   private static final int BELOW = 0;
+   private static final int ABOVE = 1;
+   private static final int UNKNOWN = -1;
+
+   private final YoBuffer buffer;
+   private final int blockSize;
+   private final Map<YoVariable, VariableSummary> summaries = new HashMap<>();
+
+   public YoBufferSummaryIndex(YoBuffer buffer)
+   {
+      this(buffer, DEFAULT_BLOCK_SIZE);
+   }
+
+   public YoBufferSummaryIndex(YoBuffer buffer, int blockSize)
+   {
+      if (blockSize < 1)
+         throw new IllegalArgumentException("The block size must be positive, was: " + blockSize);
+
+      this.buffer = buffer;
+      this.blockSize = blockSize;
+   }
+
+   /**
+    * Marks the point at the current index of the buffer, which has just been recorded.
+    */
+   @Override
+   public synchronized void dataRecorded()
+   {
+      markDirty(buffer.getCurrentIndex());
+   }
+
+   /**
+    * Marks the point at the given index as changed for all the variables, its block will be
+    * recomputed at the next query.
+    */
+   public synchronized void markDirty(int index)
+   {
+      int block = index / blockSize;
+
+      for (VariableSummary summary : summaries.values())
+      {
+         summary.markDirty(block);
+      }
+   }
+
+   /**
+    * Discards all the summaries, they are rebuilt from the buffer at the next query.
+    */
+   public synchronized void invalidate()
+   {
+      for (VariableSummary summary : summaries.values())
+      {
+         summary.invalid = true;
+      }
+   }
+
+   /**
+    * Stops maintaining the summary of the given variable until it is queried again.
+    */
+   public synchronized void remove(YoVariable variable)
+   {
+      summaries.remove(variable);
+   }
+
+   public YoBufferRangeSummary summarizeBetweenInAndOutPoints(YoVariable variable)
+   {
+      return summarize(variable, buffer.getInPoint(), buffer.getOutPoint());
+   }
+
+   /**
+    * Summarizes all the values of the variable in the buffer, as used for the auto-scaling of the
+    * graphs.
+    */
+   public YoBufferRangeSummary summarizeWholeBuffer(YoVariable variable)
+   {
+      return summarize(variable, 0, buffer.getBufferSize() - 1);
+   }
+
+   /**
+    * Summarizes the values of the variable from {@code fromIndex} to {@code toIndex}, both included.
+    */
+   public synchronized YoBufferRangeSummary summarize(YoVariable variable, int fromIndex, int toIndex)
+   {
+      VariableSummary summary = getUpToDateSummary(variable, fromIndex, toIndex);
+      YoBufferRangeSummary rangeSummary = new YoBufferRangeSummary();
+
+      if (fromIndex <= toIndex)
+      {
+         summarize(summary, fromIndex, toIndex, rangeSummary);
+      }
+      else
+      {
+         summarize(summary, fromIndex, summary.size - 1, rangeSummary);
+         summarize(summary, 0, toIndex, rangeSummary);
+      }
+
+      rangeSummary.setFirstAndLastValues(summary.data[fromIndex], summary.data[toIndex]);
+      return rangeSummary;
+   }
+
+   public int countThresholdCrossingsBetweenInAndOutPoints(YoVariable variable, double threshold)
+   {
+      return countThresholdCrossings(variable, buffer.getInPoint(), buffer.getOutPoint(), threshold);
+   }
+
+   /**
+    * Counts the number of times the variable goes from below the threshold to at or above it, or the
+    * other way around, between two consecutive points from {@code fromIndex} to {@code toIndex}, both
+    * included. The blocks entirely on one side of the threshold are skipped.
+    */
+   public synchronized int countThresholdCrossings(YoVariable variable, int fromIndex, int toIndex, double threshold)
+   {
+      VariableSummary summary = getUpToDateSummary(variable, fromIndex, toIndex);
+      CrossingCounter counter = new CrossingCounter();
+
+      if (fromIndex <= toIndex)
+      {
+         countThresholdCrossings(summary, fromIndex, toIndex, threshold, counter);
+      }
+      else
+      {
+         countThresholdCrossings(summary, fromIndex, summary.size - 1, threshold, counter);
+         countThresholdCrossings(summary, 0, toIndex, threshold, counter);
+      }
+
+      return counter.count;
+   }
+
+   private VariableSummary getUpToDateSummary(YoVariable variable, int fromIndex, int toIndex)
+   {
+      YoBufferVariableEntry entry = buffer.getEntry(variable);
+
+      if (entry == null)
+         throw new IllegalArgumentException("The variable " + variable.getFullNameString() + " is not in the data buffer.");
+
+      int bufferSize = buffer.getBufferSize();
+      checkIndex(fromIndex, bufferSize);
+      checkIndex(toIndex, bufferSize);
+
+      VariableSummary summary = summaries.get(variable);
+
+      if (summary == null)
+      {
+         summary = new VariableSummary();
+         summaries.put(variable, summary);
+      }
+
+      summary.update(entry.getBuffer(), bufferSize);
+      return summary;
+   }
+
+   private static void checkIndex(int index, int bufferSize)
+   {
+      if (index < 0 || index >= bufferSize)
+         throw new IllegalArgumentException("The index " + index + " is outside of the data buffer of size " + bufferSize);
+   }
+
+   private void summarize(VariableSummary summary, int fromIndex, int toIndex, YoBufferRangeSummary rangeSummary)
+   {
+      int fromBlock = fromIndex / blockSize;
+      int toBlock = toIndex / blockSize;
+
+      if (toBlock - fromBlock < 2)
+      {
+         summary.scan(fromIndex, toIndex, rangeSummary);
+         return;
+      }
+
+      summary.scan(fromIndex, (fromBlock + 1) * blockSize - 1, rangeSummary);
+      summary.combineBlocks(fromBlock + 1, toBlock - 1, rangeSummary);
+      summary.scan(toBlock * blockSize, toIndex, rangeSummary);
+   }
+
+   private void countThresholdCrossings(VariableSummary summary, int fromIndex, int toIndex, double threshold, CrossingCounter counter)
+   {
+      double[] data = summary.data;
+      int index = fromIndex;
+
+      while (index <= toIndex)
+      {
+         int block = index / blockSize;
+         int blockStart = block * blockSize;
+         int blockEnd = Math.min(blockStart + blockSize, summary.size) - 1;
+         int end = Math.min(blockEnd, toIndex);
+
+         if (index == blockStart && end == blockEnd)
+         {
+            // NaN fails both tests, the block is then scanned.
+            if (summary.getBlockMin(block) >= threshold)
+            {
+               counter.add(ABOVE);
+               index = end + 1;
+               continue;
+            }
+            if (summary.getBlockMax(block) < threshold)
+            {
+               counter.add(BELOW);
+               index = end + 1;
+               continue;
+            }
+         }
+
+         for (; index <= end; index++)
+         {
+            counter.add(data[index] < threshold ? BELOW : ABOVE);
+         }
+      }
+   }
+
+   private static class CrossingCounter
+   {
+      private int count = 0;
+      private int previousSide = UNKNOWN;
+
+      void add(int side)
+      {
+         if (previousSide != UNKNOWN && side != previousSide)
+            count++;
+         previousSide = side;
+      }
+   }
+
+   /**
+    * Segment tree over the blocks of the buffer of one variable, stored in arrays with the root at 1
+    * and the leaves, one per block, from {@code numberOfLeaves}.
+    */
+   private class VariableSummary
+   {
+      private double[] data;
+      private int size;
+      private int numberOfBlocks;
+      private int numberOfLeaves;
+      private boolean invalid = true;
+
+      private double[] min = new double[0];
+      private double[] max = new double[0];
+      private double[] sum = new double[0];
+      private double[] sumOfSquares = new double[0];
+
+      private boolean[] dirtyBlocks = new boolean[0];
+      private int[] dirtyBlockList = new int[0];
+      private int numberOfDirtyBlocks = 0;
+
+      void markDirty(int block)
+      {
+         if (invalid)
+            return;
+
+         if (block < 0 || block >= numberOfBlocks)
+         {
+            invalid = true;
+            return;
+         }
+
+         if (!dirtyBlocks[block])
+         {
+            dirtyBlocks[block] = true;
+            dirtyBlockList[numberOfDirtyBlocks++] = block;
+         }
+      }
+
+      void update(double[] data, int size)
+      {
+         if (invalid || data != this.data || size != this.size)
+         {
+            rebuild(data, size);
+            return;
+         }
+
+         for (int i = 0; i < numberOfDirtyBlocks; i++)
+         {
+            int block = dirtyBlockList[i];
+            dirtyBlocks[block] = false;
+            computeBlock(block);
+
+            for (int node = (numberOfLeaves + block) >> 1; node >= 1; node >>= 1)
+            {
+               combineChildren(node);
+            }
+         }
+
+         numberOfDirtyBlocks = 0;
+      }
+
+      private void rebuild(double[] data, int size)
+      {
+         this.data = data;
+         this.size = size;
+         numberOfBlocks = Math.max(1, (size + blockSize - 1) / blockSize);
+         numberOfLeaves = Integer.highestOneBit(numberOfBlocks);
+         if (numberOfLeaves < numberOfBlocks)
+            numberOfLeaves <<= 1;
+
+         if (min.length != 2 * numberOfLeaves)
+         {
+            min = new double[2 * numberOfLeaves];
+            max = new double[2 * numberOfLeaves];
+            sum = new double[2 * numberOfLeaves];
+            sumOfSquares = new double[2 * numberOfLeaves];
+         }
+
+         if (dirtyBlocks.length != numberOfBlocks)
+         {
+            dirtyBlocks = new boolean[numberOfBlocks];
+            dirtyBlockList = new int[numberOfBlocks];
+         }
+         else
+         {
+            for (int i = 0; i < numberOfDirtyBlocks; i++)
+               dirtyBlocks[dirtyBlockList[i]] = false;
+         }
+         numberOfDirtyBlocks = 0;
+
+         for (int block = 0; block < numberOfLeaves; block++)
+         {
+            computeBlock(block);
+         }
+
+         for (int node = numberOfLeaves - 1; node >= 1; node--)
+         {
+            combineChildren(node);
+         }
+
+         invalid = false;
+      }
+
+      private void computeBlock(int block)
+      {
+         int start = block * blockSize;
+         int end = Math.min(start + blockSize, size);
+
+         double blockMin = Double.POSITIVE_INFINITY;
+         double blockMax = Double.NEGATIVE_INFINITY;
+         double blockSum = 0.0;
+         double blockSumOfSquares = 0.0;
+
+         for (int i = start; i < end; i++)
+         {
+            double value = data[i];
+            blockMin = Math.min(blockMin, value);
+            blockMax = Math.max(blockMax, value);
+            blockSum += value;
+            blockSumOfSquares += value * value;
+         }
+
+         int node = numberOfLeaves + block;
+         min[node] = blockMin;
+         max[node] = blockMax;
+         sum[node] = blockSum;
+         sumOfSquares[node] = blockSumOfSquares;
+      }
+
+      private void combineChildren(int node)
+      {
+         int left = 2 * node;
+         int right = left + 1;
+         min[node] = Math.min(min[left], min[right]);
+         max[node] = Math.max(max[left], max[right]);
+         sum[node] = sum[left] + sum[right];
+         sumOfSquares[node] = sumOfSquares[left] + sumOfSquares[right];
+      }
+
+      void scan(int fromIndex, int toIndex, YoBufferRangeSummary rangeSummary)
+      {
+         for (int i = fromIndex; i <= toIndex; i++)
+         {
+            rangeSummary.add(data[i]);
+         }
+      }
+
+      /**
+       * Adds the full blocks from {@code fromBlock} to {@code toBlock}, both included, to the range
+       * summary.
+       */
+      void combineBlocks(int fromBlock, int toBlock, YoBufferRangeSummary rangeSummary)
+      {
+         int left = numberOfLeaves + fromBlock;
+         int right = numberOfLeaves + toBlock + 1;
+
+         while (left < right)
+         {
+            if ((left & 1) == 1)
+               addNode(left++, rangeSummary);
+            if ((right & 1) == 1)
+               addNode(--right, rangeSummary);
+
+            left >>= 1;
+            right >>= 1;
+         }
+      }
+
+      private void addNode(int node, YoBufferRangeSummary rangeSummary)
+      {
+         int numberOfBlocksInNode = numberOfLeaves / Integer.highestOneBit(node);
+         rangeSummary.add(numberOfBlocksInNode * blockSize, min[node], max[node], sum[node], sumOfSquares[node]);
+      }
+
+      double getBlockMin(int block)
+      {
+         return min[numberOfLeaves + block];
+      }
+
+      double getBlockMax(int block)
+      {
+         return max[numberOfLeaves + block];
+      }
+   }
+}
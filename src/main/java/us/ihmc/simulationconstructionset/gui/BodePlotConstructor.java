@@ -1,16 +1,77 @@
 package us.ihmc.simulationconstructionset.gui;
 
+import java.util.function.Supplier;
+
+import javax.swing.JFrame;
+import javax.swing.JOptionPane;
+
 import org.jtransforms.fft.DoubleFFT_1D;
 
 import us.ihmc.commons.Conversions;
+import us.ihmc.log.LogTools;
 
 public class BodePlotConstructor
 {
+   private static SpectralAnalysisEngine spectralAnalysisEngine;
+
    private BodePlotConstructor()
    {
    }
 
+   private static synchronized SpectralAnalysisEngine getSpectralAnalysisEngine()
+   {
+      if (spectralAnalysisEngine == null)
+         spectralAnalysisEngine = new SpectralAnalysisEngine(SpectralAnalysisEngine.WindowType.HANN, 0.5, Runtime.getRuntime().availableProcessors());
+      return spectralAnalysisEngine;
+   }
+
+   /**
+    * Computes the plot in a worker thread and displays it from the event dispatch thread once done,
+    * so that long signals do not freeze the GUI. A failure is reported from the event dispatch thread
+    * as well.
+    */
+   private static void plotInBackground(Supplier<JFrame> plotConstructor)
+   {
+      new SwingWorker()
+      {
+         @Override
+         public Object construct()
+         {
+            try
+            {
+               return plotConstructor.get();
+            }
+            catch (RuntimeException e)
+            {
+               return e;
+            }
+         }
+
+         @Override
+         public void finished()
+         {
+            Object plot = getValue();
+
+            if (plot instanceof RuntimeException)
+            {
+               RuntimeException e = (RuntimeException) plot;
+               LogTools.error("Could not compute the plot: " + e.getMessage());
+               JOptionPane.showMessageDialog(null, "Could not compute the plot:\n" + e.getMessage(), "Plot failed", JOptionPane.ERROR_MESSAGE);
+            }
+            else if (plot instanceof FFTPlotter)
+               ((FFTPlotter) plot).packAndDisplayFrame(0, 0);
+            else if (plot instanceof SpectrogramPlotter)
+               ((SpectrogramPlotter) plot).packAndDisplayFrame(0, 0);
+         }
+      };
+   }
+
    public static void plotFFT(String variableName, double[] time, double[] data)
+   {
+      plotInBackground(() -> createFFTPlot(variableName, time, data));
+   }
+
+   private static FFTPlotter createFFTPlot(String variableName, double[] time, double[] data)
    {
       double[][] freqMagPhase = computeFreqMagPhase(time, data);
 
@@ -28,11 +89,15 @@ public class BodePlotConstructor
 
       double[][] bodeData = new double[][] {frequency, magnitude, phase};
 
-      FFTPlotter plot = new FFTPlotter(bodeData, variableName + " FFT Plot", "(Hz)", "(dB)", "(deg)");
-      plot.packAndDisplayFrame(0, 0);
+      return new FFTPlotter(bodeData, variableName + " FFT Plot", "(Hz)", "(dB)", "(deg)");
    }
 
    public static void plotBodeFromInputToOutput(String inputName, String outputName, double[] time, double[] input, double[] output)
+   {
+      plotInBackground(() -> createBodePlot(inputName, outputName, time, input, output));
+   }
+
+   private static FFTPlotter createBodePlot(String inputName, String outputName, double[] time, double[] input, double[] output)
    {
       double[][] bodeFreqMagPhase = computeBodeFreqMagPhaseFromInputToOutput(time, input, output);
 
@@ -42,8 +107,48 @@ public class BodePlotConstructor
 
       double[][] bodeData = new double[][] {bodeFrequency, bodeMagnitude, bodePhase};
 
-      FFTPlotter plot = new FFTPlotter(bodeData, outputName + "/" + inputName + " Bode Plot", "(Hz)", "(dB)", "(deg)");
-      plot.packAndDisplayFrame(0, 0);
+      return new FFTPlotter(bodeData, outputName + "/" + inputName + " Bode Plot", "(Hz)", "(dB)", "(deg)");
+   }
+
+   /**
+    * Plots the amplitude spectrum averaged over Hann windowed segments overlapping by half (Welch's
+    * method), which is less noisy than the full length transform of {@link #plotFFT(String, double[], double[])}.
+    */
+   public static void plotWelchFFT(String variableName, double[] time, double[] data)
+   {
+      plotInBackground(() ->
+      {
+         int segmentLength = SpectralAnalysisEngine.computeDefaultSegmentLength(data.length, SpectralAnalysisEngine.DEFAULT_MAXIMUM_SEGMENT_LENGTH);
+         double[][] frequencyAmplitude = getSpectralAnalysisEngine().computeWelchAmplitudeSpectrum(time, data, segmentLength);
+         double[] magnitude = new double[frequencyAmplitude[1].length];
+         for (int i = 0; i < magnitude.length; i++)
+            magnitude[i] = Conversions.amplitudeToDecibels(frequencyAmplitude[1][i]);
+
+         return new FFTPlotter(frequencyAmplitude[0], magnitude, variableName + " Welch FFT Plot", "(Hz)", "(dB)");
+      });
+   }
+
+   /**
+    * Plots the frequency response from the input to the output estimated with Welch's method.
+    */
+   public static void plotWelchBodeFromInputToOutput(String inputName, String outputName, double[] time, double[] input, double[] output)
+   {
+      plotInBackground(() ->
+      {
+         int segmentLength = SpectralAnalysisEngine.computeDefaultSegmentLength(input.length, SpectralAnalysisEngine.DEFAULT_MAXIMUM_SEGMENT_LENGTH);
+         double[][] bodeData = getSpectralAnalysisEngine().computeWelchBode(time, input, output, segmentLength);
+         return new FFTPlotter(bodeData, outputName + "/" + inputName + " Welch Bode Plot", "(Hz)", "(dB)", "(deg)");
+      });
+   }
+
+   public static void plotSpectrogram(String variableName, double[] time, double[] data)
+   {
+      plotInBackground(() ->
+      {
+         // Shorter segments than for the averaged spectra to resolve the changes over time.
+         int segmentLength = SpectralAnalysisEngine.computeDefaultSegmentLength(data.length / 8, SpectralAnalysisEngine.DEFAULT_MAXIMUM_SEGMENT_LENGTH / 4);
+         return new SpectrogramPlotter(getSpectralAnalysisEngine().computeSpectrogram(time, data, Math.max(segmentLength, 4)), variableName + " Spectrogram");
+      });
    }
 
    public static double[][] computeBodeFreqMagPhaseFromInputToOutput(double[] time, double[] input, double[] output)
@@ -49,6 +49,9 @@ public class FFTPlotter extends JFrame
     */
    private static final long serialVersionUID = 8401116583400863812L;
 
+   /** The series given to the chart have at most twice this number of points. */
+   private static final int NUMBER_OF_PLOT_BUCKETS = 1000;
+
    public FFTPlotter(double[][] freqMagnitudePhaseData, String title, String freqUnits, String magnitudeUnits, String phaseUnits)
    {
       super(title);
@@ -71,6 +74,24 @@ public class FFTPlotter extends JFrame
       setContentPane(chartPanel);
    }
 
+   /**
+    * Creates a plot of the magnitude only, for instance for an averaged spectrum which has no phase.
+    */
+   public FFTPlotter(double[] frequency, double[] magnitude, String title, String freqUnits, String magnitudeUnits)
+   {
+      super(title);
+
+      XYPlot plot = new XYPlot(createDataset(frequency, magnitude),
+                               new LogarithmicAxis("Frequency " + freqUnits),
+                               new NumberAxis("Magnitude " + magnitudeUnits),
+                               new StandardXYItemRenderer());
+      plot.getRenderer().setSeriesVisibleInLegend(0, false);
+      JFreeChart chart = new JFreeChart(title, JFreeChart.DEFAULT_TITLE_FONT, plot, true);
+      ChartPanel chartPanel = new ChartPanel(chart);
+      chartPanel.setPreferredSize(new java.awt.Dimension(500, 270));
+      setContentPane(chartPanel);
+   }
+
    public void packAndDisplayFrame(int xScreen, int yScreen)
    {
       pack();
@@ -92,13 +113,19 @@ public class FFTPlotter extends JFrame
 
    private XYDataset createDataset(double[] xdata, double[] ydata)
    {
+      // The frequency axis is logarithmic, the buckets are evenly spaced on it when possible.
+      double[][] decimatedData = PlotDataDecimator.decimate(xdata, ydata, NUMBER_OF_PLOT_BUCKETS, xdata.length > 0 && xdata[0] > 0.0);
+      xdata = decimatedData[0];
+      ydata = decimatedData[1];
+
       XYSeries series = new XYSeries("data series", false);
       XYSeriesCollection dataset = new XYSeriesCollection();
 
       for (int i = 0; i < xdata.length; i++)
       {
-         series.add(xdata[i], ydata[i]);
+         series.add(xdata[i], ydata[i], false);
       }
+      series.fireSeriesChanged();
 
       dataset.addSeries(series);
 
@@ -0,0 +1,421 @@
+package us.ihmc.simulationconstructionset.gui;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import us.ihmc.simulationconstructionset.GraphConfiguration;
+
+/**
+ * The graph groups, graph windows and entry box tabs of a GUI configuration file, parsed once.
+ * <p>
+ * The file is scanned from start to end with a cursor, instead of searching each section from the
+ * start of the file, so that loading a configuration with many graph windows and graphs stays
+ * linear in the size of the file. The viewports, multi views and extra panels are still parsed by
+ * the GUI from {@link #getXMLRepresentation()}.
+ * </p>
+ */
+public class GUIConfigurationDescription
+{
+   private final String xmlRepresentation;
+   private final GraphGroupDescription graphGroup;
+   private final List<GraphWindowDescription> graphWindows = new ArrayList<>();
+   private final List<EntryBoxTabDescription> entryBoxTabs = new ArrayList<>();
+
+   public static GUIConfigurationDescription read(File file) throws IOException
+   {
+      return new GUIConfigurationDescription(readXMLRepresentation(file));
+   }
+
+   /**
+    * @return the lines of the file, concatenated without line separators as the configuration files
+    *         have always been read.
+    */
+   public static String readXMLRepresentation(File file) throws IOException
+   {
+      StringBuilder xmlRepresentation = new StringBuilder((int) file.length());
+
+      try (BufferedReader reader = new BufferedReader(new FileReader(file)))
+      {
+         String line;
+
+         while ((line = reader.readLine()) != null)
+         {
+            xmlRepresentation.append(line);
+         }
+      }
+
+      return xmlRepresentation.toString();
+   }
+
+   public GUIConfigurationDescription(String xmlRepresentation)
+   {
+      this.xmlRepresentation = xmlRepresentation;
+
+      graphGroup = parseGraphGroup(xmlRepresentation);
+      parseGraphWindows();
+      parseEntryBoxTabs();
+   }
+
+   /**
+    * Parses the first graph group of the given text.
+    *
+    * @return the graph group, or {@code null} if there is none.
+    */
+   public static GraphGroupDescription parseGraphGroup(String xmlRepresentation)
+   {
+      String graphGroupString = findMiddleString(xmlRepresentation, 0, "<GraphGroup>", "</GraphGroup>");
+
+      if (graphGroupString == null)
+         return null;
+
+      int numberOfColumns = Integer.parseInt(findMiddleString(graphGroupString, 0, "<Cols>", "</Cols>"));
+      GraphGroupDescription graphGroup = new GraphGroupDescription(numberOfColumns);
+
+      int index = 0;
+
+      while (true)
+      {
+         int graphStart = indexOfIgnoreCase(graphGroupString, "<Graph>", index);
+         if (graphStart == -1)
+            break;
+         graphStart += "<Graph>".length();
+
+         int graphEnd = indexOfIgnoreCase(graphGroupString, "</Graph>", graphStart);
+         if (graphEnd == -1)
+            break;
+
+         String graphString = graphGroupString.substring(graphStart, graphEnd);
+         index = graphEnd + "</Graph>".length();
+
+         String variables = findMiddleString(graphString, 0, "<Variables>", "</Variables>");
+         List<String> variableNames = new ArrayList<>();
+
+         if (variables != null)
+         {
+            StringTokenizer tokenizer = new StringTokenizer(variables, ",");
+
+            while (tokenizer.hasMoreTokens())
+            {
+               variableNames.add(tokenizer.nextToken().trim());
+            }
+         }
+
+         GraphConfiguration graphConfiguration = GraphConfiguration.createClassBasedOnXMLRepresentation(0, graphString);
+         graphGroup.graphs.add(new GraphDescription(variableNames.toArray(new String[variableNames.size()]), graphConfiguration));
+      }
+
+      return graphGroup;
+   }
+
+   private void parseGraphWindows()
+   {
+      String numberOfWindowsString = findMiddleString(xmlRepresentation, 0, "<Graph Array Window Size>", "</Graph Array Window Size>");
+
+      if (numberOfWindowsString == null)
+         return;
+
+      int numberOfWindows = Integer.parseInt(numberOfWindowsString);
+      int index = 0;
+
+      for (int windowNumber = 1; windowNumber <= numberOfWindows; windowNumber++)
+      {
+         String first = "<Graph Array Window" + windowNumber + ">";
+         String second = "</Graph Array Window" + windowNumber + ">";
+
+         // The windows are saved in order, so the search for the next window starts after the previous one.
+         int windowStart = indexOfIgnoreCase(xmlRepresentation, first, index);
+         if (windowStart == -1)
+            windowStart = indexOfIgnoreCase(xmlRepresentation, first, 0);
+
+         String graphWindowString = null;
+         if (windowStart != -1)
+         {
+            graphWindowString = findMiddleString(xmlRepresentation, windowStart, first, second);
+            index = windowStart + first.length();
+         }
+
+         if (graphWindowString == null)
+            graphWindowString = "";
+
+         int screenID = 1;
+         String screenIDString = findMiddleString(graphWindowString, 0, "<ScreenID>", "</ScreenID>");
+         if (screenIDString != null)
+            screenID = Integer.parseInt(screenIDString);
+
+         Point windowLocation = null;
+         String windowLocationString = findMiddleString(graphWindowString, 0, "<WindowLocation>", "</WindowLocation>");
+         if (windowLocationString != null)
+         {
+            StringTokenizer tokenizer = new StringTokenizer(windowLocationString, ",");
+            double xPosition = Double.parseDouble(tokenizer.nextToken());
+            double yPosition = Double.parseDouble(tokenizer.nextToken());
+            windowLocation = new Point((int) xPosition, (int) yPosition);
+         }
+
+         Dimension windowSize = null;
+         String windowSizeString = findMiddleString(graphWindowString, 0, "<WindowSize>", "</WindowSize>");
+         if (windowSizeString != null)
+         {
+            StringTokenizer tokenizer = new StringTokenizer(windowSizeString, ",");
+            double width = Double.parseDouble(tokenizer.nextToken());
+            double height = Double.parseDouble(tokenizer.nextToken());
+            windowSize = new Dimension((int) width, (int) height);
+         }
+
+         graphWindows.add(new GraphWindowDescription(screenID, windowLocation, windowSize, parseGraphGroup(graphWindowString)));
+      }
+   }
+
+   private void parseEntryBoxTabs()
+   {
+      String entryBoxesString = findMiddleString(xmlRepresentation, 0, "<Entry Boxes Tab Pane>", "</Entry Boxes Tab Pane>");
+
+      if (entryBoxesString == null)
+         return;
+
+      int index = 0;
+
+      while (true)
+      {
+         int tabEnd = indexOfIgnoreCase(entryBoxesString, "</EntryBoxTab>", index);
+         if (tabEnd == -1)
+            break;
+
+         String tabString = entryBoxesString.substring(index, tabEnd);
+         index = tabEnd + "</EntryBoxTab>".length();
+
+         String title = findMiddleString(tabString, 0, "<Title>", "</Title>");
+         String entryBoxes = findMiddleString(tabString, 0, "<Entry Boxes>", "</Entry Boxes>");
+         entryBoxTabs.add(new EntryBoxTabDescription(title, parseVariableNames(entryBoxes)));
+      }
+   }
+
+   /**
+    * Splits a comma separated list of variable names, ignoring the empty names.
+    */
+   public static String[] parseVariableNames(String commaSeparatedNames)
+   {
+      List<String> names = new ArrayList<>();
+
+      if (commaSeparatedNames != null)
+      {
+         for (String name : commaSeparatedNames.split(","))
+         {
+            name = name.trim();
+
+            if (!name.isEmpty())
+               names.add(name);
+         }
+      }
+
+      return names.toArray(new String[names.size()]);
+   }
+
+   /**
+    * Same as {@code XMLReaderUtility.getMiddleString}, the tags are case insensitive and the result
+    * is trimmed.
+    */
+   private static String findMiddleString(String fullString, int start, String beginString, String endString)
+   {
+      int beginIndex = indexOfIgnoreCase(fullString, beginString, start);
+      if (beginIndex == -1)
+         return null;
+      beginIndex += beginString.length();
+
+      int endIndex = indexOfIgnoreCase(fullString, endString, beginIndex);
+      if (endIndex == -1)
+         return null;
+
+      return fullString.substring(beginIndex, endIndex).trim();
+   }
+
+   private static int indexOfIgnoreCase(String fullString, String target, int start)
+   {
+      for (int i = start; i + target.length() <= fullString.length(); i++)
+      {
+         if (fullString.regionMatches(true, i, target, 0, target.length()))
+            return i;
+      }
+
+      return -1;
+   }
+
+   public String getXMLRepresentation()
+   {
+      return xmlRepresentation;
+   }
+
+   /**
+    * @return the graph group of the main graph array panel, or {@code null} if there is none.
+    */
+   public GraphGroupDescription getGraphGroup()
+   {
+      return graphGroup;
+   }
+
+   public List<GraphWindowDescription> getGraphWindows()
+   {
+      return Collections.unmodifiableList(graphWindows);
+   }
+
+   public List<EntryBoxTabDescription> getEntryBoxTabs()
+   {
+      return Collections.unmodifiableList(entryBoxTabs);
+   }
+
+   public static class GraphDescription
+   {
+      private final String[] variableNames;
+      private final GraphConfiguration graphConfiguration;
+
+      /**
+       * @param graphConfiguration the configuration of the graph, or {@code null} if it could not be
+       *                           parsed.
+       */
+      public GraphDescription(String[] variableNames, GraphConfiguration graphConfiguration)
+      {
+         this.variableNames = variableNames;
+         this.graphConfiguration = graphConfiguration;
+      }
+
+      public String[] getVariableNames()
+      {
+         return variableNames;
+      }
+
+      public GraphConfiguration getGraphConfiguration()
+      {
+         return graphConfiguration;
+      }
+   }
+
+   public static class GraphGroupDescription
+   {
+      private final int numberOfColumns;
+      private final List<GraphDescription> graphs = new ArrayList<>();
+
+      public GraphGroupDescription(int numberOfColumns)
+      {
+         this.numberOfColumns = numberOfColumns;
+      }
+
+      public int getNumberOfColumns()
+      {
+         return numberOfColumns;
+      }
+
+      public List<GraphDescription> getGraphs()
+      {
+         return Collections.unmodifiableList(graphs);
+      }
+
+      /**
+       * @return the configurations of the graphs, without the ones that could not be parsed.
+       */
+      public GraphConfiguration[] getGraphConfigurations()
+      {
+         List<GraphConfiguration> graphConfigurations = new ArrayList<>();
+
+         for (int i = 0; i < graphs.size(); i++)
+         {
+            if (graphs.get(i).getGraphConfiguration() != null)
+               graphConfigurations.add(graphs.get(i).getGraphConfiguration());
+         }
+
+         return graphConfigurations.toArray(new GraphConfiguration[graphConfigurations.size()]);
+      }
+
+      /**
+       * @return the variable names and the configuration name of each graph, in the format of
+       *         {@code StandardSimulationGUI.setupGraphGroup(String, String[][][], int)}.
+       */
+      public String[][][] getGraphVars()
+      {
+         String[][][] graphVars = new String[graphs.size()][][];
+
+         for (int i = 0; i < graphs.size(); i++)
+         {
+            GraphDescription graph = graphs.get(i);
+            String configurationName = graph.getGraphConfiguration() == null ? null : graph.getGraphConfiguration().getName();
+            graphVars[i] = new String[][] {graph.getVariableNames(), {configurationName}};
+         }
+
+         return graphVars;
+      }
+   }
+
+   public static class GraphWindowDescription
+   {
+      private final int screenID;
+      private final Point windowLocation;
+      private final Dimension windowSize;
+      private final GraphGroupDescription graphGroup;
+
+      public GraphWindowDescription(int screenID, Point windowLocation, Dimension windowSize, GraphGroupDescription graphGroup)
+      {
+         this.screenID = screenID;
+         this.windowLocation = windowLocation;
+         this.windowSize = windowSize;
+         this.graphGroup = graphGroup;
+      }
+
+      public int getScreenID()
+      {
+         return screenID;
+      }
+
+      /**
+       * @return the location of the window, or {@code null} if it was not saved.
+       */
+      public Point getWindowLocation()
+      {
+         return windowLocation;
+      }
+
+      /**
+       * @return the size of the window, or {@code null} if it was not saved.
+       */
+      public Dimension getWindowSize()
+      {
+         return windowSize;
+      }
+
+      /**
+       * @return the graph group of the window, or {@code null} if there is none.
+       */
+      public GraphGroupDescription getGraphGroup()
+      {
+         return graphGroup;
+      }
+   }
+
+   public static class EntryBoxTabDescription
+   {
+      private final String title;
+      private final String[] variableNames;
+
+      public EntryBoxTabDescription(String title, String[] variableNames)
+      {
+         this.title = title;
+         this.variableNames = variableNames;
+      }
+
+      public String getTitle()
+      {
+         return title;
+      }
+
+      public String[] getVariableNames()
+      {
+         return variableNames;
+      }
+   }
+}
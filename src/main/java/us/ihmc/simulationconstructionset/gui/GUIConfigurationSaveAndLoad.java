@@ -1,21 +1,17 @@
 package us.ihmc.simulationconstructionset.gui;
 
-import java.awt.Dimension;
-import java.awt.Point;
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
 
 import javax.swing.JFileChooser;
 
 import us.ihmc.jMonkeyEngineToolkit.camera.CameraConfiguration;
-import us.ihmc.simulationconstructionset.GraphConfiguration;
 import us.ihmc.simulationconstructionset.gui.dialogConstructors.GUIEnablerAndDisabler;
 import us.ihmc.simulationconstructionset.util.XMLReaderUtility;
 
@@ -117,20 +113,10 @@ public class GUIConfigurationSaveAndLoad
 
          if (guiConfig.exists())
          {
-            BufferedReader reader = new BufferedReader(new FileReader(guiConfig));
-            String xmlRepresentation = "";
-            String tempLine;
             String fileEnding = ".graphConf";
             String name = guiConfig.getName().substring(0, guiConfig.getName().length() - fileEnding.length());
 
-            while ((tempLine = reader.readLine()) != null)
-            {
-               xmlRepresentation += tempLine;
-            }
-
-            setupGraphGroups(myGUI, xmlRepresentation, name);
-
-            reader.close();
+            setupGraphGroups(myGUI, GUIConfigurationDescription.readXMLRepresentation(guiConfig), name);
          }
       }
       catch (Exception e)
@@ -150,22 +136,17 @@ public class GUIConfigurationSaveAndLoad
 
          if (guiConfig.exists())
          {
-            BufferedReader reader = new BufferedReader(new FileReader(guiConfig));
-            String xmlRepresentation = "";
-            String tempLine;
+            // The file is parsed once, the sections below only use the parsed description.
+            GUIConfigurationDescription configuration = GUIConfigurationDescription.read(guiConfig);
+            String xmlRepresentation = configuration.getXMLRepresentation();
             String fileEnding = ".dat";
             String name = guiConfig.getName().substring(0, guiConfig.getName().length() - fileEnding.length());
 
-            while ((tempLine = reader.readLine()) != null)
-            {
-               xmlRepresentation += tempLine;
-            }
-
             if (loadGraphGroups)
-               setupGraphGroups(myGUI, xmlRepresentation, name);
+               setupGraphGroup(myGUI, configuration.getGraphGroup(), name);
 
             if (loadEntryBoxes)
-               loadEntryBoxArrayTabbedPanel(xmlRepresentation);
+               loadEntryBoxTabs(configuration.getEntryBoxTabs());
 
             if (loadViewPorts)
             {
@@ -175,7 +156,8 @@ public class GUIConfigurationSaveAndLoad
 
             if (loadGraphWindows)
             {
-               setupGraphWindows(xmlRepresentation, "GraphWindows" + name);
+               removeOldWindows();
+               setupGraphWindows(myGUI, configuration.getGraphWindows(), "GraphWindows" + name);
                setupConfiguration(name);
             }
 
@@ -190,8 +172,6 @@ public class GUIConfigurationSaveAndLoad
             }
 
             myGUI.makeCheckBoxesConsistentWithCamera();
-
-            reader.close();
          }
       }
       catch (Exception e)
@@ -310,41 +290,7 @@ public class GUIConfigurationSaveAndLoad
    {
       try
       {
-         String graphGroupString = XMLReaderUtility.getMiddleString(0, xmlRepresentation, "<GraphGroup>", "</GraphGroup>");
-         int numColumns = Integer.parseInt(XMLReaderUtility.getMiddleString(0, graphGroupString, "<Cols>", "</Cols>"));
-         String graphString = "";
-         int currentgraphIndex = 0;
-         String[] strArray = graphGroupString.split("<Graph>");
-         int numberOfGraphs = strArray.length - 1;
-         GraphConfiguration[] graphConfigurations = new GraphConfiguration[numberOfGraphs];
-         String[][][] var = new String[numberOfGraphs][][];
-
-         for (int graphIndex = 0; graphIndex < numberOfGraphs; graphIndex++)
-         {
-            graphString = XMLReaderUtility.getMiddleString(currentgraphIndex, graphGroupString, "<Graph>", "</Graph>");
-            currentgraphIndex = XMLReaderUtility.getEndIndexOfSubString(currentgraphIndex, graphGroupString, "</Graph>");
-
-            String variables = XMLReaderUtility.getMiddleString(0, graphString, "<Variables>", "</Variables>");
-            StringTokenizer tokenizer = new StringTokenizer(variables, ",");
-            int numberOfTokens = tokenizer.countTokens();
-            GraphConfiguration tmpGraphConfiguration = GraphConfiguration.createClassBasedOnXMLRepresentation(0, graphString);
-
-            graphConfigurations[graphIndex] = tmpGraphConfiguration;
-
-            String[] graphConfigurationStringArray = {tmpGraphConfiguration.getName()};
-
-            var[graphIndex] = new String[2][numberOfTokens];
-
-            for (int i = 0; i < numberOfTokens; i++)
-            {
-               var[graphIndex][0][i] = tokenizer.nextToken().trim();
-            }
-
-            var[graphIndex][1] = graphConfigurationStringArray;
-         }
-
-         myGUI.setupGraphConfigurations(graphConfigurations);
-         myGUI.setupGraphGroup(name, var, numColumns);
+         setupGraphGroup(myGUI, GUIConfigurationDescription.parseGraphGroup(xmlRepresentation), name);
       }
       catch (Exception e)
       {
@@ -352,6 +298,15 @@ public class GUIConfigurationSaveAndLoad
       }
    }
 
+   public static void setupGraphGroup(StandardSimulationGUI myGUI, GUIConfigurationDescription.GraphGroupDescription graphGroup, String name)
+   {
+      if (graphGroup == null)
+         return;
+
+      myGUI.setupGraphConfigurations(graphGroup.getGraphConfigurations());
+      myGUI.setupGraphGroup(name, graphGroup.getGraphVars(), graphGroup.getNumberOfColumns());
+   }
+
    public void setupGraphWindows(String xmlRepresentation, String name)
    {
       removeOldWindows();
@@ -360,54 +315,19 @@ public class GUIConfigurationSaveAndLoad
 
    public static void setupGraphWindows(StandardSimulationGUI myGUI, String xmlRepresentation, String name)
    {
-      int graphArrayWindowSize = Integer.parseInt(XMLReaderUtility.getMiddleString(0,
-                                                                                   xmlRepresentation,
-                                                                                   "<Graph Array Window Size>",
-                                                                                   "</Graph Array Window Size>"));
-      for (int windowNumber = 1; windowNumber <= graphArrayWindowSize; windowNumber++)
-      {
-         String first = "<Graph Array Window" + windowNumber + ">";
-         String second = "</Graph Array Window" + windowNumber + ">";
-         String graphWindowString = XMLReaderUtility.getMiddleString(0, xmlRepresentation, first, second);
-
-         first = "<ScreenID>";
-         second = "</ScreenID>";
-         String screenIDString = XMLReaderUtility.getMiddleString(0, graphWindowString, first, second);
-
-         int screenID = 1;
-         if (screenIDString != null)
-            screenID = Integer.parseInt(screenIDString);
-
-         first = "<WindowLocation>";
-         second = "</WindowLocation>";
-         String windowLocationString = XMLReaderUtility.getMiddleString(0, graphWindowString, first, second);
-
-         Point windowLocation = null;
-         if (windowLocationString != null)
-         {
-            StringTokenizer tokenizer = new StringTokenizer(windowLocationString, ",");
-            double xPosition = Double.parseDouble(tokenizer.nextToken());
-            double yPosition = Double.parseDouble(tokenizer.nextToken());
-            windowLocation = new Point((int) xPosition, (int) yPosition);
-         }
-
-         first = "<WindowSize>";
-         second = "</WindowSize>";
-         String windowSizeString = XMLReaderUtility.getMiddleString(0, graphWindowString, first, second);
+      setupGraphWindows(myGUI, new GUIConfigurationDescription(xmlRepresentation).getGraphWindows(), name);
+   }
 
-         Dimension windowSize = null;
-         if (windowSizeString != null)
-         {
-            StringTokenizer tokenizer = new StringTokenizer(windowSizeString, ",");
-            double width = Double.parseDouble(tokenizer.nextToken());
-            double height = Double.parseDouble(tokenizer.nextToken());
-            windowSize = new Dimension((int) width, (int) height);
-         }
+   public static void setupGraphWindows(StandardSimulationGUI myGUI, List<GUIConfigurationDescription.GraphWindowDescription> graphWindows, String name)
+   {
+      for (int i = 0; i < graphWindows.size(); i++)
+      {
+         GUIConfigurationDescription.GraphWindowDescription graphWindow = graphWindows.get(i);
+         int windowNumber = i + 1;
 
-         setupGraphGroups(myGUI, graphWindowString, name + windowNumber);
-         myGUI.createNewGraphWindow(name + windowNumber, screenID, windowLocation, windowSize, false);
+         setupGraphGroup(myGUI, graphWindow.getGraphGroup(), name + windowNumber);
+         myGUI.createNewGraphWindow(name + windowNumber, graphWindow.getScreenID(), graphWindow.getWindowLocation(), graphWindow.getWindowSize(), false);
       }
-
    }
 
    private void removeOldWindows()
@@ -429,66 +349,32 @@ public class GUIConfigurationSaveAndLoad
 
    public void loadEntryBoxArrayTabbedPanel(String XMLStyleRepresentation)
    {
-      String XMLData = XMLReaderUtility.getMiddleString(0, XMLStyleRepresentation, "<Entry Boxes Tab Pane>", "</Entry Boxes Tab Pane>");
+      loadEntryBoxTabs(new GUIConfigurationDescription(XMLStyleRepresentation).getEntryBoxTabs());
+   }
 
-      if (XMLData == null)
+   public void loadEntryBoxTabs(List<GUIConfigurationDescription.EntryBoxTabDescription> entryBoxTabs)
+   {
+      if (entryBoxTabs.isEmpty())
          return;
 
-      int index = 0;
-      while ((XMLReaderUtility.getEndIndexOfSubString(index, XMLData, "</EntryBoxTab>") <= XMLData.length())
-            && (XMLReaderUtility.getEndIndexOfSubString(index, XMLData, "</EntryBoxTab>") > 0))
-      {
-         int endIndex = XMLReaderUtility.getEndIndexOfSubString(index, XMLData, "</EntryBoxTab>");
-
-         String currentXMLEntryTab = XMLData.substring(index, endIndex - 1);
+      // All the groups are set up before updating the GUI once, then the tabs are created with the
+      // names of all the groups resolved in one batch.
+      List<String> titles = new ArrayList<>(entryBoxTabs.size());
 
-         String name = XMLReaderUtility.getMiddleString(0, currentXMLEntryTab, "<Title>", "</Title>");
-
-         String currentXMLEntry = XMLReaderUtility.getMiddleString(0, currentXMLEntryTab, "<Entry Boxes>", "</Entry Boxes>");
-
-         loadEntryBoxArrayPanel(name, currentXMLEntry);
-         index = endIndex;
+      for (int i = 0; i < entryBoxTabs.size(); i++)
+      {
+         GUIConfigurationDescription.EntryBoxTabDescription entryBoxTab = entryBoxTabs.get(i);
+         myGUI.setupEntryBoxGroup(entryBoxTab.getTitle(), entryBoxTab.getVariableNames());
+         titles.add(entryBoxTab.getTitle());
       }
 
+      myGUI.updateGUI();
+      myGUI.createNewEntryBoxTabsFromEntryBoxGroups(titles);
    }
 
    public void loadEntryBoxArrayPanel(String tabName, String XMLData)
    {
-      int index = 0;
-      int currentNumberOfVariables = 0;
-
-      while ((XMLReaderUtility.getEndIndexOfSubString(index, XMLData, ",") <= XMLData.length())
-            && (XMLReaderUtility.getEndIndexOfSubString(index, XMLData, ",") > 0))
-      {
-         currentNumberOfVariables++;
-         index++;
-      }
-
-      if (index < XMLData.length())
-         currentNumberOfVariables++;
-      String[] name = new String[currentNumberOfVariables];
-
-      currentNumberOfVariables = 0;
-      index = 0;
-
-      while ((XMLReaderUtility.getEndIndexOfSubString(index, XMLData, ",") <= XMLData.length())
-            && (XMLReaderUtility.getEndIndexOfSubString(index, XMLData, ",") > 0))
-      {
-         int endIndex = XMLReaderUtility.getEndIndexOfSubString(index, XMLData, ",");
-
-         name[currentNumberOfVariables] = XMLData.substring(index, endIndex - 1);
-         name[currentNumberOfVariables] = name[currentNumberOfVariables].trim();
-         currentNumberOfVariables++;
-         index = endIndex;
-      }
-
-      if (index < XMLData.length())
-      {
-         name[currentNumberOfVariables] = XMLData.substring(index, XMLData.length());
-         name[currentNumberOfVariables] = name[currentNumberOfVariables].trim();
-      }
-
-      myGUI.setupEntryBoxGroup(tabName, name);
+      myGUI.setupEntryBoxGroup(tabName, GUIConfigurationDescription.parseVariableNames(XMLData));
       myGUI.updateGUI();
       myGUI.createNewEntryBoxTabFromEntryBoxGroup(tabName);
    }
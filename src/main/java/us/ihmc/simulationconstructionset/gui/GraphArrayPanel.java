@@ -18,6 +18,8 @@ import us.ihmc.graphicsDescription.graphInterfaces.GraphIndicesHolder;
 import us.ihmc.graphicsDescription.graphInterfaces.SelectedVariableHolder;
 import us.ihmc.simulationconstructionset.GraphConfiguration;
 import us.ihmc.simulationconstructionset.commands.ZoomGraphCommandExecutor;
+import us.ihmc.simulationconstructionset.dataBuffer.YoBufferSummaryIndex;
+import us.ihmc.simulationconstructionset.gui.config.GraphConfigurationList;
 import us.ihmc.yoVariables.buffer.YoBuffer;
 import us.ihmc.yoVariables.buffer.YoBufferVariableEntry;
 import us.ihmc.yoVariables.variable.YoVariable;
@@ -30,6 +32,7 @@ public class GraphArrayPanel extends JPanel implements GraphIndicesHolder, YoGra
 
    private JFrame parentFrame;
    private YoBuffer dataBuffer;
+   private YoBufferSummaryIndex dataBufferSummaryIndex;
 
    private int numColumns = 1;
    public final int MAX_GRAPHS = 24;
@@ -94,6 +97,25 @@ public class GraphArrayPanel extends JPanel implements GraphIndicesHolder, YoGra
       updateGraphs();
    }
 
+   /**
+    * Sets the summary index of the data buffer used for the auto-scaling of the graphs of this panel,
+    * including the ones added later.
+    */
+   public void setDataBufferSummaryIndex(YoBufferSummaryIndex dataBufferSummaryIndex)
+   {
+      this.dataBufferSummaryIndex = dataBufferSummaryIndex;
+
+      for (int i = 0; i < graphsOnThisPanel.size(); i++)
+      {
+         graphsOnThisPanel.get(i).setDataBufferSummaryIndex(dataBufferSummaryIndex);
+      }
+   }
+
+   public YoBufferSummaryIndex getDataBufferSummaryIndex()
+   {
+      return dataBufferSummaryIndex;
+   }
+
    @Override
    public void dataBufferChanged()
    {
@@ -443,6 +465,73 @@ public class GraphArrayPanel extends JPanel implements GraphIndicesHolder, YoGra
       addGraph(g);
    }
 
+   /**
+    * Replaces all the graphs of this panel with the graphs of a
+    * {@link us.ihmc.simulationconstructionset.gui.config.GraphGroup}.
+    * <p>
+    * The variable names of all the graphs are resolved at once before going on the Event Dispatch
+    * Thread, where the graphs are then created and added in one pass, updating the layout only once.
+    * </p>
+    *
+    * @param numColumns             the number of columns of graphs.
+    * @param graphVars              the variable names and the configuration name of each graph, as
+    *                               returned by
+    *                               {@code GraphGroup.getGraphVars()}.
+    * @param graphConfigurationList the list in which the configurations of the graphs are looked up.
+    */
+   public void setupGraphGroup(final int numColumns, List<String[][]> graphVars, GraphConfigurationList graphConfigurationList)
+   {
+      YoBufferVariableEntryIndex entryIndex = new YoBufferVariableEntryIndex(dataBuffer);
+      final List<List<YoBufferVariableEntry>> entriesOfGraphs = new ArrayList<>(graphVars.size());
+      final List<GraphConfiguration> configurationsOfGraphs = new ArrayList<>(graphVars.size());
+
+      for (int i = 0; i < graphVars.size(); i++)
+      {
+         String[][] varnames = graphVars.get(i);
+
+         if (varnames[0] == null)
+            continue;
+
+         entriesOfGraphs.add(entryIndex.findEntries(varnames[0]));
+
+         if ((varnames.length > 1) && (varnames[1].length > 0))
+            configurationsOfGraphs.add(graphConfigurationList.getGraphConfiguration(varnames[1][0]));
+         else
+            configurationsOfGraphs.add(null);
+      }
+
+      EventDispatchThreadHelper.invokeAndWait(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            graphsOnThisPanel.clear();
+            removeAll();
+
+            GraphArrayPanel.this.numColumns = numColumns;
+            setLayout(new GridLayout(0, numColumns, 2, 2));
+
+            for (int i = 0; i < entriesOfGraphs.size() && graphsOnThisPanel.size() < MAX_GRAPHS; i++)
+            {
+               YoGraph g = new YoGraph(getGraphArrayPanel(), getGraphArrayPanel(), selectedVariableHolder, dataBuffer, dataBuffer, parentFrame);
+               List<YoBufferVariableEntry> entries = entriesOfGraphs.get(i);
+
+               for (int j = 0; j < entries.size(); j++)
+                  g.addVariable(entries.get(j));
+
+               if (configurationsOfGraphs.get(i) != null)
+                  g.setGraphConfiguration(configurationsOfGraphs.get(i));
+
+               g.setDataBufferSummaryIndex(dataBufferSummaryIndex);
+               graphsOnThisPanel.add(g);
+               add(g);
+            }
+
+            updateGraphs();
+         }
+      });
+   }
+
    public void RepaintOnSetPoint()
    {
       for (int i = 0; i < graphsOnThisPanel.size(); i++)
@@ -512,6 +601,7 @@ public class GraphArrayPanel extends JPanel implements GraphIndicesHolder, YoGra
       if (numGraphs >= MAX_GRAPHS)
          return;
 
+      graph.setDataBufferSummaryIndex(dataBufferSummaryIndex);
       graphsOnThisPanel.add(graph);
       this.add(graph);
 
@@ -6,7 +6,6 @@ import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
 import java.awt.Point;
-import java.util.ArrayList;
 
 import javax.swing.JFrame;
 import javax.swing.JMenuBar;
@@ -80,6 +79,8 @@ public class GraphArrayWindow implements SelectGraphConfigurationCommandExecutor
       frame = new JFrame(windowName, configurationToUse);
       frame.setName(windowName);
       myGraphArrayPanel = new GraphArrayPanel(selectedVariableHolder, dataBuffer, frame, sim.getGUI());
+      if (sim.getGUI().getGraphArrayPanel() != null)
+         myGraphArrayPanel.setDataBufferSummaryIndex(sim.getGUI().getGraphArrayPanel().getDataBufferSummaryIndex());
 
       windowGUIActions = new StandardGUIActions();
 
@@ -245,14 +246,7 @@ public class GraphArrayWindow implements SelectGraphConfigurationCommandExecutor
       if (group == null)
          return;
 
-      myGraphArrayPanel.removeAllGraphs();
-      myGraphArrayPanel.setNumColumns(group.getNumColumns());
-
-      ArrayList<String[][]> graphVars = group.getGraphVars();
-      for (int i = 0; i < graphVars.size(); i++)
-      {
-         this.setupGraph(graphVars.get(i));
-      }
+      myGraphArrayPanel.setupGraphGroup(group.getNumColumns(), group.getGraphVars(), graphConfigurationList);
    }
 
    public void setupGraph(String[] varnames)
@@ -9,6 +9,7 @@ import java.awt.event.ActionListener;
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
@@ -27,6 +28,8 @@ public class GraphPropertiesPanel extends JPanel implements ActionListener
    private final JRadioButton timePlotButton, phasePlotButton, baseLineButton;
    private final JButton createFFTPlotButton;
    private final JButton createBodePlotButton;
+   private final JCheckBox welchCheckBox;
+   private final JButton createSpectrogramButton;
 
    private final YoGraph graph;
    private double newMinVal, newMaxVal;
@@ -237,6 +240,24 @@ public class GraphPropertiesPanel extends JPanel implements ActionListener
       gridbag.setConstraints(createBodePlotButton, constraints);
       this.add(createBodePlotButton);
 
+      welchCheckBox = new JCheckBox("Welch");
+      welchCheckBox.setToolTipText("Average the FFT and Bode plots over segments of the data");
+      constraints.gridx = 6;
+      constraints.gridy = 3;
+      constraints.gridwidth = 1;
+      constraints.anchor = GridBagConstraints.WEST;
+      gridbag.setConstraints(welchCheckBox, constraints);
+      this.add(welchCheckBox);
+
+      createSpectrogramButton = new JButton("Spectrogram");
+      createSpectrogramButton.addActionListener(this);
+      constraints.gridx = 7;
+      constraints.gridy = 3;
+      constraints.gridwidth = 1;
+      constraints.anchor = GridBagConstraints.WEST;
+      gridbag.setConstraints(createSpectrogramButton, constraints);
+      this.add(createSpectrogramButton);
+
       JLabel baseLineLabel = new JLabel("Base Line:  ");
       constraints.gridx = 0;
       constraints.gridy = 4;
@@ -341,12 +362,23 @@ public class GraphPropertiesPanel extends JPanel implements ActionListener
 
       if (event.getSource() == createFFTPlotButton)
       {
-         graph.createFFTPlotsFromEntriesBetweenInOutPoints();
+         if (welchCheckBox.isSelected())
+            graph.createWelchFFTPlotsFromEntriesBetweenInOutPoints();
+         else
+            graph.createFFTPlotsFromEntriesBetweenInOutPoints();
       }
 
       if (event.getSource() == createBodePlotButton)
       {
-         graph.createBodePlotFromEntriesBetweenInOutPoints();
+         if (welchCheckBox.isSelected())
+            graph.createWelchBodePlotFromEntriesBetweenInOutPoints();
+         else
+            graph.createBodePlotFromEntriesBetweenInOutPoints();
+      }
+
+      if (event.getSource() == createSpectrogramButton)
+      {
+         graph.createSpectrogramsFromEntriesBetweenInOutPoints();
       }
    }
 
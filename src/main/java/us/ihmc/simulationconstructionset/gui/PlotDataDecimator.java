@@ -0,0 +1,139 @@
+package us.ihmc.simulationconstructionset.gui;
+
+/**
+ * Reduces the number of points given to the charts. The x-axis is split into buckets and only the
+ * points with the minimum and maximum value of each bucket are kept, in order, so that the peaks
+ * remain visible.
+ */
+public class PlotDataDecimator
+{
+   private PlotDataDecimator()
+   {
+   }
+
+   /**
+    * @param x                   the abscissas, sorted in increasing order.
+    * @param y                   the ordinates.
+    * @param numberOfBuckets     the result has at most twice this number of points.
+    * @param logarithmicBuckets  whether the buckets have the same size on a logarithmic axis, in
+    *                            which case the abscissas must be positive.
+    * @return the decimated abscissas and ordinates, or the data itself if it is already small
+    *         enough.
+    */
+   public static double[][] decimate(double[] x, double[] y, int numberOfBuckets, boolean logarithmicBuckets)
+   {
+      int n = x.length;
+
+      if (y.length != n)
+         throw new IllegalArgumentException("x.length != y.length");
+      if (n <= 2 * numberOfBuckets)
+         return new double[][] {x, y};
+
+      double start = logarithmicBuckets ? Math.log(x[0]) : x[0];
+      double end = logarithmicBuckets ? Math.log(x[n - 1]) : x[n - 1];
+      double bucketSize = (end - start) / numberOfBuckets;
+
+      double[] decimatedX = new double[2 * numberOfBuckets + 1];
+      double[] decimatedY = new double[2 * numberOfBuckets + 1];
+      int size = 0;
+
+      int i = 0;
+
+      while (i < n)
+      {
+         double position = logarithmicBuckets ? Math.log(x[i]) : x[i];
+         int bucket = bucketSize > 0.0 ? Math.min((int) ((position - start) / bucketSize), numberOfBuckets - 1) : 0;
+         double bucketEnd = start + (bucket + 1) * bucketSize;
+
+         int minIndex = i;
+         int maxIndex = i;
+         i++;
+
+         while (i < n && (bucket == numberOfBuckets - 1 || (logarithmicBuckets ? Math.log(x[i]) : x[i]) < bucketEnd))
+         {
+            if (y[i] < y[minIndex])
+               minIndex = i;
+            if (y[i] > y[maxIndex])
+               maxIndex = i;
+            i++;
+         }
+
+         int firstIndex = Math.min(minIndex, maxIndex);
+         int secondIndex = Math.max(minIndex, maxIndex);
+
+         if (size + 2 > decimatedX.length)
+            break;
+
+         decimatedX[size] = x[firstIndex];
+         decimatedY[size] = y[firstIndex];
+         size++;
+
+         if (secondIndex != firstIndex)
+         {
+            decimatedX[size] = x[secondIndex];
+            decimatedY[size] = y[secondIndex];
+            size++;
+         }
+      }
+
+      double[] trimmedX = new double[size];
+      double[] trimmedY = new double[size];
+      System.arraycopy(decimatedX, 0, trimmedX, 0, size);
+      System.arraycopy(decimatedY, 0, trimmedY, 0, size);
+      return new double[][] {trimmedX, trimmedY};
+   }
+
+   /**
+    * Averages a grid of values down to at most the given number of rows and columns.
+    */
+   public static double[][] decimateGrid(double[][] values, int maximumNumberOfRows, int maximumNumberOfColumns)
+   {
+      int numberOfRows = values.length;
+      int numberOfColumns = numberOfRows == 0 ? 0 : values[0].length;
+      int rows = Math.min(numberOfRows, maximumNumberOfRows);
+      int columns = Math.min(numberOfColumns, maximumNumberOfColumns);
+      double[][] decimated = new double[rows][columns];
+
+      for (int row = 0; row < rows; row++)
+      {
+         int firstRow = row * numberOfRows / rows;
+         int lastRow = (row + 1) * numberOfRows / rows;
+
+         for (int column = 0; column < columns; column++)
+         {
+            int firstColumn = column * numberOfColumns / columns;
+            int lastColumn = (column + 1) * numberOfColumns / columns;
+            double sum = 0.0;
+
+            for (int i = firstRow; i < lastRow; i++)
+            {
+               for (int j = firstColumn; j < lastColumn; j++)
+                  sum += values[i][j];
+            }
+
+            decimated[row][column] = sum / ((lastRow - firstRow) * (lastColumn - firstColumn));
+         }
+      }
+
+      return decimated;
+   }
+
+   /**
+    * Returns the value at the center of each group of {@code decimatedLength} consecutive values, the
+    * groups being the same as in {@link #decimateGrid(double[][], int, int)}.
+    */
+   public static double[] decimateAxis(double[] axis, int decimatedLength)
+   {
+      int length = Math.min(axis.length, decimatedLength);
+      double[] decimated = new double[length];
+
+      for (int i = 0; i < length; i++)
+      {
+         int first = i * axis.length / length;
+         int last = (i + 1) * axis.length / length;
+         decimated[i] = 0.5 * (axis[first] + axis[last - 1]);
+      }
+
+      return decimated;
+   }
+}
@@ -0,0 +1,467 @@
+package us.ihmc.simulationconstructionset.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jtransforms.fft.DoubleFFT_1D;
+
+import us.ihmc.commons.Conversions;
+
+/**
+ * Computes averaged spectra of long signals by splitting them into overlapping windowed segments:
+ * <ul>
+ * <li>Welch's method for the amplitude spectrum of a signal and the frequency response from an
+ * input to an output, which average out the noise of a single full length transform.
+ * <li>Short-time Fourier transform for a spectrogram of the signal over time.
+ * </ul>
+ * The segments are transformed in parallel, each worker accumulating its own sums which are then
+ * added in a fixed order. The memory used does not depend on the length of the signal, except for
+ * the spectrogram which keeps one spectrum per segment.
+ */
+public class SpectralAnalysisEngine
+{
+   public enum WindowType
+   {
+      RECTANGULAR, HANN, HAMMING
+   }
+
+   public static final int DEFAULT_MAXIMUM_SEGMENT_LENGTH = 4096;
+   private static final int MINIMUM_SEGMENT_LENGTH = 64;
+   /**
+    * Power of a bin, relative to the largest power the input could have, below which the bin is
+    * considered to have no power at all. The round-off left by the removal of the mean is far below.
+    */
+   private static final double RELATIVE_NO_POWER_THRESHOLD = 1.0e-24;
+
+   private final WindowType windowType;
+   private final double overlap;
+   private final int numberOfThreads;
+   private final ExecutorService executorService;
+
+   /**
+    * @param windowType      window applied to each segment.
+    * @param overlap         fraction of a segment shared with the next one, in [0, 1).
+    * @param numberOfThreads number of threads transforming the segments, the calling thread being
+    *                        one of them.
+    */
+   public SpectralAnalysisEngine(WindowType windowType, double overlap, int numberOfThreads)
+   {
+      if (overlap < 0.0 || overlap >= 1.0)
+         throw new IllegalArgumentException("The overlap must be in [0, 1), was: " + overlap);
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("Need at least one thread, was: " + numberOfThreads);
+
+      this.windowType = windowType;
+      this.overlap = overlap;
+      this.numberOfThreads = numberOfThreads;
+
+      if (numberOfThreads > 1)
+      {
+         AtomicInteger threadNumber = new AtomicInteger();
+         executorService = Executors.newFixedThreadPool(numberOfThreads - 1, runnable ->
+         {
+            Thread thread = new Thread(runnable, "SpectralAnalysis-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+      else
+      {
+         executorService = null;
+      }
+   }
+
+   /**
+    * Returns the largest power of two that fits eight times in the signal, between 64 and
+    * {@code maximumSegmentLength}, or the length of the signal if it is shorter than that.
+    */
+   public static int computeDefaultSegmentLength(int numberOfSamples, int maximumSegmentLength)
+   {
+      if (numberOfSamples <= MINIMUM_SEGMENT_LENGTH)
+         return numberOfSamples;
+
+      int segmentLength = Integer.highestOneBit(Math.max(numberOfSamples / 8, MINIMUM_SEGMENT_LENGTH));
+      return Math.min(segmentLength, Integer.highestOneBit(maximumSegmentLength));
+   }
+
+   /**
+    * Computes the amplitude spectrum of the signal averaged over its segments.
+    *
+    * @param time          time of each sample, assumed evenly spaced.
+    * @param data          the signal.
+    * @param segmentLength number of samples per segment.
+    * @return the frequencies in Hz and the amplitudes in the units of the signal, without the DC
+    *         component.
+    */
+   public double[][] computeWelchAmplitudeSpectrum(double[] time, double[] data, int segmentLength)
+   {
+      checkLengths(time, data, segmentLength);
+
+      SegmentAccumulator accumulator = accumulate(data, null, segmentLength);
+      double[] window = createWindow(windowType, segmentLength);
+      double windowSum = 0.0;
+      for (double w : window)
+         windowSum += w;
+
+      int numberOfBins = segmentLength / 2;
+      double[] frequency = computeFrequencies(time, segmentLength);
+      double[] amplitude = new double[numberOfBins - 1];
+
+      for (int k = 1; k < numberOfBins; k++)
+      {
+         // Root mean square of the one-sided amplitudes of the segments.
+         amplitude[k - 1] = 2.0 * Math.sqrt(accumulator.inputPower[k] / accumulator.numberOfSegments) / windowSum;
+      }
+
+      return new double[][] {frequency, amplitude};
+   }
+
+   /**
+    * Estimates the frequency response from the input to the output as the ratio of their averaged
+    * cross spectrum to the averaged spectrum of the input.
+    *
+    * @return the frequencies in Hz, magnitudes in dB and phases in degrees, without the DC
+    *         component. The magnitude and phase are {@code NaN} at the frequencies where the input
+    *         has no power, for instance for a constant input.
+    */
+   public double[][] computeWelchBode(double[] time, double[] input, double[] output, int segmentLength)
+   {
+      checkLengths(time, input, segmentLength);
+      if (output.length != input.length)
+         throw new IllegalArgumentException("input.length != output.length");
+
+      SegmentAccumulator accumulator = accumulate(input, output, segmentLength);
+
+      int numberOfBins = segmentLength / 2;
+      double[] frequency = computeFrequencies(time, segmentLength);
+      double[] magnitude = new double[numberOfBins - 1];
+      double[] phase = new double[numberOfBins - 1];
+      double noPowerThreshold = computeNoPowerThreshold(input, segmentLength, accumulator.numberOfSegments);
+
+      for (int k = 1; k < numberOfBins; k++)
+      {
+         double inputPower = accumulator.inputPower[k];
+
+         if (!(inputPower > noPowerThreshold))
+         {
+            magnitude[k - 1] = Double.NaN;
+            phase[k - 1] = Double.NaN;
+            continue;
+         }
+
+         double real = accumulator.crossReal[k] / inputPower;
+         double imaginary = accumulator.crossImaginary[k] / inputPower;
+         magnitude[k - 1] = Conversions.amplitudeToDecibels(Math.sqrt(real * real + imaginary * imaginary));
+         phase[k - 1] = Math.toDegrees(Math.atan2(imaginary, real));
+      }
+
+      return new double[][] {frequency, magnitude, phase};
+   }
+
+   /**
+    * Computes the amplitude spectrum of each segment of the signal.
+    */
+   public Spectrogram computeSpectrogram(double[] time, double[] data, int segmentLength)
+   {
+      checkLengths(time, data, segmentLength);
+
+      int hop = computeHop(segmentLength);
+      int numberOfSegments = computeNumberOfSegments(data.length, segmentLength, hop);
+      int numberOfBins = segmentLength / 2;
+      double[] window = createWindow(windowType, segmentLength);
+      double windowSum = 0.0;
+      for (double w : window)
+         windowSum += w;
+      double scale = 2.0 / windowSum;
+
+      double[][] amplitudes = new double[numberOfSegments][];
+
+      runInParallel(numberOfSegments, (firstSegment, lastSegment) ->
+      {
+         DoubleFFT_1D fft = new DoubleFFT_1D(segmentLength);
+         double[] buffer = new double[segmentLength];
+
+         for (int segment = firstSegment; segment < lastSegment; segment++)
+         {
+            loadWindowedSegment(data, segment * hop, window, buffer);
+            fft.realForward(buffer);
+
+            double[] amplitude = new double[numberOfBins - 1];
+            for (int k = 1; k < numberOfBins; k++)
+               amplitude[k - 1] = scale * Math.hypot(buffer[2 * k], buffer[2 * k + 1]);
+            amplitudes[segment] = amplitude;
+         }
+
+         return null;
+      });
+
+      double[] segmentTimes = new double[numberOfSegments];
+      for (int segment = 0; segment < numberOfSegments; segment++)
+         segmentTimes[segment] = time[segment * hop + segmentLength / 2];
+
+      return new Spectrogram(segmentTimes, computeFrequencies(time, segmentLength), amplitudes);
+   }
+
+   /**
+    * The power of a bin is at most the number of segments times the square of the largest input value
+    * times the sum of the window.
+    */
+   private double computeNoPowerThreshold(double[] input, int segmentLength, int numberOfSegments)
+   {
+      double windowSum = 0.0;
+      for (double w : createWindow(windowType, segmentLength))
+         windowSum += w;
+
+      double maximumAbsoluteInput = 0.0;
+      for (double value : input)
+         maximumAbsoluteInput = Math.max(maximumAbsoluteInput, Math.abs(value));
+
+      double maximumAmplitude = maximumAbsoluteInput * windowSum;
+      return RELATIVE_NO_POWER_THRESHOLD * numberOfSegments * maximumAmplitude * maximumAmplitude;
+   }
+
+   private SegmentAccumulator accumulate(double[] input, double[] output, int segmentLength)
+   {
+      int hop = computeHop(segmentLength);
+      int numberOfSegments = computeNumberOfSegments(input.length, segmentLength, hop);
+      double[] window = createWindow(windowType, segmentLength);
+
+      List<SegmentAccumulator> partialSums = runInParallel(numberOfSegments, (firstSegment, lastSegment) ->
+      {
+         SegmentAccumulator partialSum = new SegmentAccumulator(segmentLength / 2);
+         DoubleFFT_1D fft = new DoubleFFT_1D(segmentLength);
+         double[] inputBuffer = new double[segmentLength];
+         double[] outputBuffer = output == null ? null : new double[segmentLength];
+
+         for (int segment = firstSegment; segment < lastSegment; segment++)
+         {
+            loadWindowedSegment(input, segment * hop, window, inputBuffer);
+            fft.realForward(inputBuffer);
+
+            if (outputBuffer != null)
+            {
+               loadWindowedSegment(output, segment * hop, window, outputBuffer);
+               fft.realForward(outputBuffer);
+            }
+
+            partialSum.add(inputBuffer, outputBuffer);
+         }
+
+         return partialSum;
+      });
+
+      SegmentAccumulator total = new SegmentAccumulator(segmentLength / 2);
+      for (int i = 0; i < partialSums.size(); i++)
+         total.add(partialSums.get(i));
+      return total;
+   }
+
+   private interface SegmentRangeTask<T>
+   {
+      T run(int firstSegment, int lastSegment);
+   }
+
+   /**
+    * Splits the segments into contiguous ranges, one per thread, and returns the results in the
+    * order of the ranges.
+    */
+   private <T> List<T> runInParallel(int numberOfSegments, SegmentRangeTask<T> task)
+   {
+      int numberOfWorkers = Math.max(1, Math.min(numberOfThreads, numberOfSegments));
+      List<Future<T>> futures = new ArrayList<>();
+
+      for (int worker = 1; worker < numberOfWorkers; worker++)
+      {
+         int firstSegment = worker * numberOfSegments / numberOfWorkers;
+         int lastSegment = (worker + 1) * numberOfSegments / numberOfWorkers;
+         Callable<T> callable = () -> task.run(firstSegment, lastSegment);
+         futures.add(executorService.submit(callable));
+      }
+
+      List<T> results = new ArrayList<>();
+      results.add(task.run(0, numberOfSegments / numberOfWorkers));
+
+      try
+      {
+         for (int i = 0; i < futures.size(); i++)
+            results.add(futures.get(i).get());
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException(e.getCause());
+      }
+
+      return results;
+   }
+
+   private int computeHop(int segmentLength)
+   {
+      return Math.max(1, (int) Math.round(segmentLength * (1.0 - overlap)));
+   }
+
+   private static int computeNumberOfSegments(int numberOfSamples, int segmentLength, int hop)
+   {
+      return (numberOfSamples - segmentLength) / hop + 1;
+   }
+
+   private static void checkLengths(double[] time, double[] data, int segmentLength)
+   {
+      if (data.length != time.length)
+         throw new IllegalArgumentException("time.length != data.length");
+      if (segmentLength < 4 || segmentLength > data.length)
+         throw new IllegalArgumentException("The segment length must be in [4, " + data.length + "], was: " + segmentLength);
+   }
+
+   /**
+    * Removes the mean of the segment before applying the window, so that the DC component does not
+    * leak into the low frequencies.
+    */
+   private static void loadWindowedSegment(double[] data, int start, double[] window, double[] bufferToPack)
+   {
+      int length = window.length;
+      double mean = 0.0;
+      for (int i = 0; i < length; i++)
+         mean += data[start + i];
+      mean /= length;
+
+      for (int i = 0; i < length; i++)
+         bufferToPack[i] = (data[start + i] - mean) * window[i];
+   }
+
+   private static double[] computeFrequencies(double[] time, int segmentLength)
+   {
+      double samplePeriod = (time[time.length - 1] - time[0]) / (time.length - 1);
+      double frequencyResolution = 1.0 / (segmentLength * samplePeriod);
+      double[] frequency = new double[segmentLength / 2 - 1];
+
+      for (int k = 1; k < segmentLength / 2; k++)
+         frequency[k - 1] = k * frequencyResolution;
+
+      return frequency;
+   }
+
+   static double[] createWindow(WindowType windowType, int length)
+   {
+      double[] window = new double[length];
+
+      for (int i = 0; i < length; i++)
+      {
+         double phase = 2.0 * Math.PI * i / length;
+
+         switch (windowType)
+         {
+            case HANN:
+               window[i] = 0.5 - 0.5 * Math.cos(phase);
+               break;
+            case HAMMING:
+               window[i] = 0.54 - 0.46 * Math.cos(phase);
+               break;
+            default:
+               window[i] = 1.0;
+               break;
+         }
+      }
+
+      return window;
+   }
+
+   public void shutdown()
+   {
+      if (executorService != null)
+         executorService.shutdown();
+   }
+
+   private static class SegmentAccumulator
+   {
+      private final double[] inputPower;
+      private final double[] crossReal;
+      private final double[] crossImaginary;
+      private int numberOfSegments = 0;
+
+      public SegmentAccumulator(int numberOfBins)
+      {
+         inputPower = new double[numberOfBins];
+         crossReal = new double[numberOfBins];
+         crossImaginary = new double[numberOfBins];
+      }
+
+      /**
+       * Adds one segment, both transforms being in the packed format of
+       * {@link DoubleFFT_1D#realForward(double[])}. The bin 0 is not used.
+       */
+      public void add(double[] inputTransform, double[] outputTransform)
+      {
+         for (int k = 1; k < inputPower.length; k++)
+         {
+            double inputReal = inputTransform[2 * k];
+            double inputImaginary = inputTransform[2 * k + 1];
+            inputPower[k] += inputReal * inputReal + inputImaginary * inputImaginary;
+
+            if (outputTransform != null)
+            {
+               double outputReal = outputTransform[2 * k];
+               double outputImaginary = outputTransform[2 * k + 1];
+               // conj(input) * output
+               crossReal[k] += inputReal * outputReal + inputImaginary * outputImaginary;
+               crossImaginary[k] += inputReal * outputImaginary - inputImaginary * outputReal;
+            }
+         }
+
+         numberOfSegments++;
+      }
+
+      public void add(SegmentAccumulator other)
+      {
+         for (int k = 0; k < inputPower.length; k++)
+         {
+            inputPower[k] += other.inputPower[k];
+            crossReal[k] += other.crossReal[k];
+            crossImaginary[k] += other.crossImaginary[k];
+         }
+
+         numberOfSegments += other.numberOfSegments;
+      }
+   }
+
+   public static class Spectrogram
+   {
+      private final double[] segmentTimes;
+      private final double[] frequencies;
+      private final double[][] amplitudes;
+
+      public Spectrogram(double[] segmentTimes, double[] frequencies, double[][] amplitudes)
+      {
+         this.segmentTimes = segmentTimes;
+         this.frequencies = frequencies;
+         this.amplitudes = amplitudes;
+      }
+
+      /** Time at the center of each segment. */
+      public double[] getSegmentTimes()
+      {
+         return segmentTimes;
+      }
+
+      public double[] getFrequencies()
+      {
+         return frequencies;
+      }
+
+      /** Amplitude indexed by segment then by frequency. */
+      public double[][] getAmplitudes()
+      {
+         return amplitudes;
+      }
+   }
+}
@@ -0,0 +1,92 @@
+package us.ihmc.simulationconstructionset.gui;
+
+import javax.swing.JFrame;
+
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.GrayPaintScale;
+import org.jfree.chart.renderer.xy.XYBlockRenderer;
+import org.jfree.chart.title.PaintScaleLegend;
+import org.jfree.data.xy.DefaultXYZDataset;
+import org.jfree.ui.RectangleEdge;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.simulationconstructionset.gui.SpectralAnalysisEngine.Spectrogram;
+
+/**
+ * Displays a spectrogram as blocks shaded by the amplitude in dB, time along the x-axis and
+ * frequency along the y-axis. The spectrogram is averaged down to a grid small enough for the
+ * chart.
+ */
+public class SpectrogramPlotter extends JFrame
+{
+   private static final long serialVersionUID = -3276429005834911716L;
+
+   private static final int MAXIMUM_NUMBER_OF_TIME_BLOCKS = 400;
+   private static final int MAXIMUM_NUMBER_OF_FREQUENCY_BLOCKS = 200;
+
+   public SpectrogramPlotter(Spectrogram spectrogram, String title)
+   {
+      super(title);
+
+      double[][] amplitudes = PlotDataDecimator.decimateGrid(spectrogram.getAmplitudes(), MAXIMUM_NUMBER_OF_TIME_BLOCKS, MAXIMUM_NUMBER_OF_FREQUENCY_BLOCKS);
+      double[] times = PlotDataDecimator.decimateAxis(spectrogram.getSegmentTimes(), MAXIMUM_NUMBER_OF_TIME_BLOCKS);
+      double[] frequencies = PlotDataDecimator.decimateAxis(spectrogram.getFrequencies(), MAXIMUM_NUMBER_OF_FREQUENCY_BLOCKS);
+
+      int numberOfItems = times.length * frequencies.length;
+      double[][] data = new double[3][numberOfItems];
+      double minimum = Double.POSITIVE_INFINITY;
+      double maximum = Double.NEGATIVE_INFINITY;
+
+      for (int i = 0; i < times.length; i++)
+      {
+         for (int j = 0; j < frequencies.length; j++)
+         {
+            int item = i * frequencies.length + j;
+            double decibels = Conversions.amplitudeToDecibels(Math.max(amplitudes[i][j], 1.0e-12));
+            data[0][item] = times[i];
+            data[1][item] = frequencies[j];
+            data[2][item] = decibels;
+            minimum = Math.min(minimum, decibels);
+            maximum = Math.max(maximum, decibels);
+         }
+      }
+
+      if (!(maximum > minimum))
+         maximum = minimum + 1.0;
+
+      DefaultXYZDataset dataset = new DefaultXYZDataset();
+      dataset.addSeries("spectrogram", data);
+
+      XYBlockRenderer renderer = new XYBlockRenderer();
+      if (times.length > 1)
+         renderer.setBlockWidth(times[1] - times[0]);
+      if (frequencies.length > 1)
+         renderer.setBlockHeight(frequencies[1] - frequencies[0]);
+      GrayPaintScale paintScale = new GrayPaintScale(minimum, maximum);
+      renderer.setPaintScale(paintScale);
+
+      NumberAxis timeAxis = new NumberAxis("Time (s)");
+      timeAxis.setAutoRangeIncludesZero(false);
+      NumberAxis frequencyAxis = new NumberAxis("Frequency (Hz)");
+      XYPlot plot = new XYPlot(dataset, timeAxis, frequencyAxis, renderer);
+
+      JFreeChart chart = new JFreeChart(title, JFreeChart.DEFAULT_TITLE_FONT, plot, false);
+      PaintScaleLegend legend = new PaintScaleLegend(paintScale, new NumberAxis("Amplitude (dB)"));
+      legend.setPosition(RectangleEdge.RIGHT);
+      chart.addSubtitle(legend);
+
+      ChartPanel chartPanel = new ChartPanel(chart);
+      chartPanel.setPreferredSize(new java.awt.Dimension(600, 400));
+      setContentPane(chartPanel);
+   }
+
+   public void packAndDisplayFrame(int xScreen, int yScreen)
+   {
+      pack();
+      setLocation(xScreen, yScreen);
+      setVisible(true);
+   }
+}
@@ -123,6 +123,7 @@ import us.ihmc.simulationconstructionset.util.ground.FlatGroundProfile;
 import us.ihmc.tools.TimestampProvider;
 import us.ihmc.tools.thread.CloseableAndDisposableRegistry;
 import us.ihmc.yoVariables.buffer.YoBuffer;
+import us.ihmc.yoVariables.buffer.YoBufferVariableEntry;
 import us.ihmc.yoVariables.providers.DoubleProvider;
 import us.ihmc.yoVariables.registry.YoRegistry;
 import us.ihmc.yoVariables.registry.YoVariableHolder;
@@ -1879,29 +1880,14 @@ public class StandardSimulationGUI implements SelectGraphConfigurationCommandExe
          return;
       }
 
-      EventDispatchThreadHelper.invokeAndWait(new Runnable()
-      {
-         @Override
-         public void run()
-         {
-            GraphGroup group = graphGroupList.getGraphGroup(name);
+      GraphGroup group = graphGroupList.getGraphGroup(name);
 
-            if (group == null)
-            {
-               return;
-            }
-
-            myGraphArrayPanel.removeAllGraphs();
-            myGraphArrayPanel.setNumColumns(group.getNumColumns());
-
-            List<String[][]> graphVars = group.getGraphVars();
+      if (group == null)
+      {
+         return;
+      }
 
-            for (int i = 0; i < graphVars.size(); i++)
-            {
-               setupGraph(graphVars.get(i));
-            }
-         }
-      });
+      myGraphArrayPanel.setupGraphGroup(group.getNumColumns(), group.getGraphVars(), graphConfigurationList);
    }
 
    public EntryBoxArrayPanel getEntryBoxArrayPanel()
@@ -1921,47 +1907,106 @@ public class StandardSimulationGUI implements SelectGraphConfigurationCommandExe
       });
    }
 
-   public void createNewEntryBoxTabFromEntryBoxGroupLocal(String name)
+   /**
+    * Creates the tabs of entry boxes of the given groups. The variable names of all the groups are
+    * resolved at once against the data buffer before going on the Event Dispatch Thread, where the
+    * tabs are then created.
+    *
+    * @param names the names of the entry box groups, as set up with
+    *              {@link #setupEntryBoxGroup(String, String[])}.
+    */
+   public void createNewEntryBoxTabsFromEntryBoxGroups(final List<String> names)
    {
-      //
-      if (myEntryBoxArrayPanel.getTabCount() > 0)
+      YoBufferVariableEntryIndex entryIndex = new YoBufferVariableEntryIndex(myDataBuffer);
+      final List<List<YoVariable>> variablesOfTabs = new ArrayList<>(names.size());
+
+      for (int i = 0; i < names.size(); i++)
       {
-         for (int i = 0; i < myEntryBoxArrayPanel.getTabCount(); i++)
+         variablesOfTabs.add(findEntryBoxGroupVariables(names.get(i), entryIndex));
+      }
+
+      EventDispatchThreadHelper.invokeAndWait(new Runnable()
+      {
+         @Override
+         public void run()
          {
-            if (myEntryBoxArrayPanel.getComponentAt(i) != null)
+            for (int i = 0; i < names.size(); i++)
             {
-               if (myEntryBoxArrayPanel.getComponentAt(i).getName().equals(name))
-               {
-                  myEntryBoxArrayPanel.removeTabAt(i);
-
-                  break;
-               }
+               createNewEntryBoxTabLocal(names.get(i), variablesOfTabs.get(i));
             }
          }
-      }
+      });
+   }
 
-      if (myEntryBoxArrayPanel == null)
-      {
-         return;
-      }
+   public void createNewEntryBoxTabFromEntryBoxGroupLocal(String name)
+   {
+      createNewEntryBoxTabLocal(name, findEntryBoxGroupVariables(name, null));
+   }
 
+   /**
+    * @param entryIndex the index used to resolve the variable names, or {@code null} to search them in
+    *                   the registry.
+    * @return the variables of the entry box group, or {@code null} if there is no such group.
+    */
+   private List<YoVariable> findEntryBoxGroupVariables(String name, YoBufferVariableEntryIndex entryIndex)
+   {
       EntryBoxGroup group = entryBoxGroupList.getEntryBoxGroup(name);
 
       if (group == null)
       {
-         return;
+         return null;
       }
 
       String[] entryBoxVars = group.getEntryBoxVars();
       String[] entryBoxRegularExpressions = group.getEntryBoxRegularExpressions();
       List<YoVariable> matchingVariables = new ArrayList<>();
       if (entryBoxVars != null)
-         Stream.of(entryBoxVars).filter(varName -> varName != null).map(varName -> rootRegistry.findVariable(varName)).filter(var -> var != null)
+         Stream.of(entryBoxVars).filter(varName -> varName != null).map(varName -> findVariable(varName, entryIndex)).filter(var -> var != null)
                .forEach(matchingVariables::add);
       if (entryBoxRegularExpressions != null)
          Stream.of(entryBoxRegularExpressions).filter(regex -> regex != null)
                .map(regex -> YoSearchTools.filterVariables(YoSearchTools.regularExpressionFilter(regex), rootRegistry)).forEach(matchingVariables::addAll);
 
+      return matchingVariables;
+   }
+
+   private YoVariable findVariable(String name, YoBufferVariableEntryIndex entryIndex)
+   {
+      if (entryIndex != null)
+      {
+         YoBufferVariableEntry entry = entryIndex.findEntry(name);
+
+         if (entry != null)
+            return entry.getVariable();
+      }
+
+      return rootRegistry.findVariable(name);
+   }
+
+   private void createNewEntryBoxTabLocal(String name, List<YoVariable> matchingVariables)
+   {
+      //
+      if (myEntryBoxArrayPanel.getTabCount() > 0)
+      {
+         for (int i = 0; i < myEntryBoxArrayPanel.getTabCount(); i++)
+         {
+            if (myEntryBoxArrayPanel.getComponentAt(i) != null)
+            {
+               if (myEntryBoxArrayPanel.getComponentAt(i).getName().equals(name))
+               {
+                  myEntryBoxArrayPanel.removeTabAt(i);
+
+                  break;
+               }
+            }
+         }
+      }
+
+      if (myEntryBoxArrayPanel == null || matchingVariables == null)
+      {
+         return;
+      }
+
       EntryBoxArrayPanel tmpEntryBoxArrayPanel = new EntryBoxArrayPanel(parentContainer, selectedVariableHolder, matchingVariables);
       tmpEntryBoxArrayPanel.setName(name);
       myEntryBoxArrayPanel.addEntryBoxArrayPanel(name, tmpEntryBoxArrayPanel);
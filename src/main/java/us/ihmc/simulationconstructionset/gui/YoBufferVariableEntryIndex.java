@@ -0,0 +1,66 @@
+package us.ihmc.simulationconstructionset.gui;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import us.ihmc.yoVariables.buffer.YoBuffer;
+import us.ihmc.yoVariables.buffer.YoBufferVariableEntry;
+
+/**
+ * Resolves many variable names against a {@link YoBuffer} at once.
+ * <p>
+ * The entries are indexed by full name when the index is created, which is what the GUI
+ * configurations store, so resolving a name is a hash lookup instead of a search through the
+ * buffer. The names that are not full names, as in older configurations, fall back on
+ * {@link YoBuffer#findVariableEntry(String)}. The index is not updated when variables are added to
+ * the buffer, it is meant to be created for one batch of names.
+ * </p>
+ */
+class YoBufferVariableEntryIndex
+{
+   private final YoBuffer buffer;
+   private final Map<String, YoBufferVariableEntry> entriesByFullName = new HashMap<>();
+
+   YoBufferVariableEntryIndex(YoBuffer buffer)
+   {
+      this.buffer = buffer;
+
+      List<YoBufferVariableEntry> entries = buffer.getEntries();
+
+      for (int i = 0; i < entries.size(); i++)
+      {
+         YoBufferVariableEntry entry = entries.get(i);
+         entriesByFullName.putIfAbsent(entry.getVariableFullNameString(), entry);
+      }
+   }
+
+   YoBufferVariableEntry findEntry(String name)
+   {
+      YoBufferVariableEntry entry = entriesByFullName.get(name);
+
+      if (entry == null)
+         entry = buffer.findVariableEntry(name);
+
+      return entry;
+   }
+
+   /**
+    * @return the entries of the given names, skipping the names that are not found.
+    */
+   List<YoBufferVariableEntry> findEntries(String[] names)
+   {
+      List<YoBufferVariableEntry> entries = new ArrayList<>(names.length);
+
+      for (String name : names)
+      {
+         YoBufferVariableEntry entry = findEntry(name);
+
+         if (entry != null)
+            entries.add(entry);
+      }
+
+      return entries;
+   }
+}
@@ -35,6 +35,8 @@ import us.ihmc.euclid.tools.EuclidCoreIOTools;
 import us.ihmc.graphicsDescription.graphInterfaces.GraphIndicesHolder;
 import us.ihmc.graphicsDescription.graphInterfaces.SelectedVariableHolder;
 import us.ihmc.simulationconstructionset.GraphConfiguration;
+import us.ihmc.simulationconstructionset.dataBuffer.YoBufferRangeSummary;
+import us.ihmc.simulationconstructionset.dataBuffer.YoBufferSummaryIndex;
 import us.ihmc.simulationconstructionset.gui.dialogs.GraphPropertiesDialog;
 import us.ihmc.yoVariables.buffer.YoBufferBounds;
 import us.ihmc.yoVariables.buffer.interfaces.YoBufferVariableEntryHolder;
@@ -75,6 +77,7 @@ public class YoGraph extends JPanel implements MouseListener, MouseMotionListene
 
    private final List<YoBufferVariableEntryReader> entriesOnThisGraph;
    private final SelectedVariableHolder selectedVariableHolder;
+   private YoBufferSummaryIndex dataBufferSummaryIndex;
 
    private boolean hasMinMaxChanged = true;
    private double min = 0.0, max = 1.1;
@@ -155,6 +158,19 @@ public class YoGraph extends JPanel implements MouseListener, MouseMotionListene
       showNamespace = false;
    }
 
+   /**
+    * Sets the index from which the auto-scaling gets the bounds of the variables, instead of the
+    * bounds of their buffer entries.
+    *
+    * @param dataBufferSummaryIndex the summary index of the data buffer the entries of this graph
+    *                               come from, or {@code null} to use the bounds of the entries.
+    */
+   public void setDataBufferSummaryIndex(YoBufferSummaryIndex dataBufferSummaryIndex)
+   {
+      this.dataBufferSummaryIndex = dataBufferSummaryIndex;
+      hasMinMaxChanged = true;
+   }
+
    public GraphConfiguration getGraphConfiguration()
    {
       return graphConfiguration;
@@ -424,9 +440,20 @@ public class YoGraph extends JPanel implements MouseListener, MouseMotionListene
          YoBufferVariableEntryReader entry = entriesOnThisGraph.get(i);
          boolean inverted = entry.getInverted();
 
-         YoBufferBounds bounds = entry.getBounds();
-         double entryMin = bounds.getLowerBound();
-         double entryMax = bounds.getUpperBound();
+         double entryMin, entryMax;
+
+         if (dataBufferSummaryIndex != null)
+         {
+            YoBufferRangeSummary summary = dataBufferSummaryIndex.summarizeWholeBuffer(entry.getVariable());
+            entryMin = summary.getMin();
+            entryMax = summary.getMax();
+         }
+         else
+         {
+            YoBufferBounds bounds = entry.getBounds();
+            entryMin = bounds.getLowerBound();
+            entryMax = bounds.getUpperBound();
+         }
 
          if (inverted)
          {
@@ -734,6 +761,71 @@ public class YoGraph extends JPanel implements MouseListener, MouseMotionListene
 
    }
 
+   /**
+    * Same as {@link #createFFTPlotsFromEntriesBetweenInOutPoints()} but averaging the spectrum over
+    * segments of the data.
+    */
+   public void createWelchFFTPlotsFromEntriesBetweenInOutPoints()
+   {
+      if (!checkInOutPoints())
+         return;
+
+      int inPoint = graphIndicesHolder.getInPoint();
+      int outPoint = graphIndicesHolder.getOutPoint();
+
+      double[] rngTimeData = Arrays.copyOfRange(timeDataHolder.getTimeBuffer(), inPoint, outPoint);
+
+      for (YoBufferVariableEntryReader entry : entriesOnThisGraph)
+      {
+         double[] rngData = Arrays.copyOfRange(entry.getBuffer(), inPoint, outPoint);
+         BodePlotConstructor.plotWelchFFT(entry.getVariableName(), rngTimeData, rngData);
+      }
+   }
+
+   /**
+    * Same as {@link #createBodePlotFromEntriesBetweenInOutPoints()} but averaging the spectra over
+    * segments of the data.
+    */
+   public void createWelchBodePlotFromEntriesBetweenInOutPoints()
+   {
+      if (entriesOnThisGraph.size() < 2)
+      {
+         System.out.println("need 2 entries (input/output) for Bode plot");
+         return;
+      }
+      if (!checkInOutPoints())
+         return;
+
+      int inPoint = graphIndicesHolder.getInPoint();
+      int outPoint = graphIndicesHolder.getOutPoint();
+
+      YoBufferVariableEntryReader input = entriesOnThisGraph.get(0);
+      YoBufferVariableEntryReader output = entriesOnThisGraph.get(1);
+
+      double[] inputData = Arrays.copyOfRange(input.getBuffer(), inPoint, outPoint);
+      double[] outputData = Arrays.copyOfRange(output.getBuffer(), inPoint, outPoint);
+      double[] timeData = Arrays.copyOfRange(timeDataHolder.getTimeBuffer(), inPoint, outPoint);
+
+      BodePlotConstructor.plotWelchBodeFromInputToOutput(input.getVariableName(), output.getVariableName(), timeData, inputData, outputData);
+   }
+
+   public void createSpectrogramsFromEntriesBetweenInOutPoints()
+   {
+      if (!checkInOutPoints())
+         return;
+
+      int inPoint = graphIndicesHolder.getInPoint();
+      int outPoint = graphIndicesHolder.getOutPoint();
+
+      double[] rngTimeData = Arrays.copyOfRange(timeDataHolder.getTimeBuffer(), inPoint, outPoint);
+
+      for (YoBufferVariableEntryReader entry : entriesOnThisGraph)
+      {
+         double[] rngData = Arrays.copyOfRange(entry.getBuffer(), inPoint, outPoint);
+         BodePlotConstructor.plotSpectrogram(entry.getVariableName(), rngTimeData, rngData);
+      }
+   }
+
    public void createFFTPlotsFromEntries()
    {
 
@@ -89,7 +89,7 @@ public class ImportDataDialogGenerator implements ImportDataDialogConstructor
          if (chosenFile.canRead()
                && (chosenFile.getName().endsWith(".data") || chosenFile.getName().endsWith(".data.gz") || chosenFile.getName().endsWith(".data.csv")))
          {
-            sim.readData(chosenFile);
+            sim.readDataInBackground(chosenFile);
          }
 
          else if (chosenFile.canRead() && (chosenFile.getName().endsWith(".state") || chosenFile.getName().endsWith(".state.gz")))
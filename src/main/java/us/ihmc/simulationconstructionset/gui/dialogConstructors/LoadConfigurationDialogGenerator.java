@@ -6,9 +6,7 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.util.StringTokenizer;
 
 import javax.swing.JCheckBox;
@@ -18,6 +16,7 @@ import javax.swing.JPanel;
 
 import us.ihmc.jMonkeyEngineToolkit.camera.CameraConfiguration;
 import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.simulationconstructionset.gui.GUIConfigurationDescription;
 import us.ihmc.simulationconstructionset.gui.GUIConfigurationSaveAndLoad;
 import us.ihmc.simulationconstructionset.gui.StandardSimulationGUI;
 import us.ihmc.simulationconstructionset.util.XMLReaderUtility;
@@ -209,17 +208,11 @@ public class LoadConfigurationDialogGenerator implements LoadConfigurationDialog
 
          String name = file.getName().substring(0, file.getName().length() - fileEnding.length());
 
-         BufferedReader reader = new BufferedReader(new FileReader(file));
-         String xmlRepresentation = "";
-         String tempLine;
-
-         while ((tempLine = reader.readLine()) != null)
-         {
-            xmlRepresentation += tempLine;
-         }
+         GUIConfigurationDescription configuration = GUIConfigurationDescription.read(file);
+         String xmlRepresentation = configuration.getXMLRepresentation();
 
          if (loadGraphGroups)
-            GUIConfigurationSaveAndLoad.setupGraphGroups(myGUI, xmlRepresentation, name);
+            GUIConfigurationSaveAndLoad.setupGraphGroup(myGUI, configuration.getGraphGroup(), name);
 
          if (loadEntryBoxes)
             loadEntryBoxArrayPanel(xmlRepresentation, file);
@@ -232,7 +225,7 @@ public class LoadConfigurationDialogGenerator implements LoadConfigurationDialog
 
          if (loadGraphWindows)
          {
-            GUIConfigurationSaveAndLoad.setupGraphWindows(myGUI, xmlRepresentation, "GraphWindows" + name);
+            GUIConfigurationSaveAndLoad.setupGraphWindows(myGUI, configuration.getGraphWindows(), "GraphWindows" + name);
             setupConfiguration(name);
          }
 
@@ -248,7 +241,6 @@ public class LoadConfigurationDialogGenerator implements LoadConfigurationDialog
 
          myGUI.makeCheckBoxesConsistentWithCamera();
 
-         reader.close();
          System.out.println("Your file has been loaded.");
       }
       catch (Exception e)
@@ -18,6 +18,7 @@ import us.ihmc.simulationconstructionset.physics.CollisionHandler;
 import us.ihmc.simulationconstructionset.physics.CollisionShapeDescription;
 import us.ihmc.simulationconstructionset.physics.CollisionShapeWithLink;
 import us.ihmc.simulationconstructionset.physics.Contacts;
+import us.ihmc.simulationconstructionset.physics.collision.simple.CachedContactManifold;
 import us.ihmc.yoVariables.registry.YoRegistry;
 import us.ihmc.yoVariables.variable.YoDouble;
 import us.ihmc.yoVariables.variable.YoInteger;
@@ -44,6 +45,7 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
    private int numberOfCyclesPerContactPair = 1;///4
    private double minDistanceToConsiderDifferent = 0.003; //0.003; //0.002; //0.02;
    private double percentMoveTowardTouchdownWhenSamePoint = 0.2; //0.2; //0.05; //1.0; //0.05;
+   private double warmStartFactor = 0.8;
 
    private static final boolean DEBUG = false;
 
@@ -72,6 +74,7 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
    private final Point3D point1 = new Point3D();
    private final Point3D point2 = new Point3D();
    private final Point3D tempPoint = new Point3D();
+   private final Point3D touchdownPointOne = new Point3D();
    private final Vector3D tempVectorForAveraging = new Vector3D();
 
    private List<CollisionHandlerListener> listeners = new ArrayList<>();
@@ -136,6 +139,15 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
       kdCollision.set(value);
    }
 
+   /**
+    * @param warmStartFactor fraction of the contact force of the previous tick used to preload the
+    *                        springs of the pairs recreated for persisting contacts, 0 disables it.
+    */
+   public void setWarmStartFactor(double warmStartFactor)
+   {
+      this.warmStartFactor = warmStartFactor;
+   }
+
    @Override
    public void maintenanceBeforeCollisionDetection()
    {
@@ -235,6 +247,8 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
          }
       }
 
+      saveContactForcesInManifolds();
+
       if (visualize)
       {
          contactingExternalForcePointsVisualizer.update();
@@ -500,11 +514,6 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
          // TODO: Sims won't sim same way twice, but I don't think they do anyway...
          Collections.shuffle(indices, random);
 
-         if (numberOfContacts > 1)
-         {
-            throw new RuntimeException("Only expecting one deepest contact each time...");
-         }
-
          for (int j = 0; j < numberOfContacts; j++)
          {
             int i = indices.get(j);
@@ -544,9 +553,11 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
             // Find first one attached to other part:
             boolean contactPairAlreadyExists = false;
             List<ContactingExternalForcePoint> pointsThatAreContactingShapeOne = getPointsThatAreContactingOtherLink(contactingExternalForcePointsTwo,
-                                                                                                                          linkOne);
+                                                                                                                          linkOne,
+                                                                                                                          pointsThatAreContactingShapeOneList);
             List<ContactingExternalForcePoint> pointsThatAreContactingShapeTwo = getPointsThatAreContactingOtherLink(contactingExternalForcePointsOne,
-                                                                                                                          linkTwo);
+                                                                                                                          linkTwo,
+                                                                                                                          pointsThatAreContactingShapeTwoList);
 
             //         int pointsThatAreHoldingWeight = 0;
             //
@@ -581,55 +592,28 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
             removeContactOnPointsThatAreOutsideCollisionSandwhich(pointsThatAreContactingShapeTwo, point1, normal, point2, negative_normal);
             rollContactPointsIfRolling(pointsThatAreContactingShapeTwo);
 
-            // Pick the existing pair that is close enough to the contacts:
-            for (int k = 0; k < pointsThatAreContactingShapeTwo.size(); k++)
-            {
-               ContactingExternalForcePoint contactPointToConsiderOne = pointsThatAreContactingShapeTwo.get(k);
-               ContactingExternalForcePoint contactPointToConsiderTwo = allContactingExternalForcePoints.get(contactPointToConsiderOne.getIndexOfContactingPair());
+            CachedContactManifold cachedManifold = (contacts instanceof CachedContactManifold) ? (CachedContactManifold) contacts : null;
 
-               Vector3D deltaVectorRemovingNormalComponentsOne = new Vector3D(contactPointToConsiderOne.getPositionCopy());
-               deltaVectorRemovingNormalComponentsOne.sub(point1);
-               subtractOffNormalComponent(normal, deltaVectorRemovingNormalComponentsOne);
-               double distanceToConsiderOne = deltaVectorRemovingNormalComponentsOne.length();
+            // Try the touchdown pair used for this contact on the previous tick first, if it is still attached:
+            ContactingExternalForcePoint cachedTouchdown = getAttachedTouchdown(cachedManifold, i, linkOne, linkTwo);
 
-               Vector3D deltaVectorRemovingNormalComponentsTwo = new Vector3D(contactPointToConsiderTwo.getPositionCopy());
-               deltaVectorRemovingNormalComponentsTwo.sub(point2);
-               subtractOffNormalComponent(normal, deltaVectorRemovingNormalComponentsTwo);
-               double distanceToConsiderTwo = deltaVectorRemovingNormalComponentsTwo.length();
+            if (cachedTouchdown != null && moveTowardContactIfSamePoint(cachedTouchdown))
+            {
+               externalForcePointOne = cachedTouchdown;
+               externalForcePointTwo = allContactingExternalForcePoints.get(cachedTouchdown.getIndexOfContactingPair());
+               contactPairAlreadyExists = true;
+            }
 
-               //            System.out.println("distanceToConsiderOne = " + distanceToConsiderOne);
-               //            System.out.println("distanceToConsiderTwo = " + distanceToConsiderTwo);
+            // Pick the existing pair that is close enough to the contacts:
+            for (int k = 0; k < pointsThatAreContactingShapeTwo.size() && !contactPairAlreadyExists; k++)
+            {
+               ContactingExternalForcePoint contactPointToConsiderOne = pointsThatAreContactingShapeTwo.get(k);
 
-               if (distanceToConsiderOne < minDistanceToConsiderDifferent || distanceToConsiderTwo < minDistanceToConsiderDifferent)
+               if (contactPointToConsiderOne != cachedTouchdown && moveTowardContactIfSamePoint(contactPointToConsiderOne))
                {
                   externalForcePointOne = contactPointToConsiderOne;
-                  externalForcePointTwo = contactPointToConsiderTwo;
+                  externalForcePointTwo = allContactingExternalForcePoints.get(contactPointToConsiderOne.getIndexOfContactingPair());
                   contactPairAlreadyExists = true;
-
-                  boolean areSlipping = true; //areSlipping(contactPointToConsiderOne, contactPointToConsiderTwo);
-
-                  if (areSlipping)
-                  {
-                     contactPointToConsiderOne.getPosition(positionOne);
-                     slipVector.set(deltaVectorRemovingNormalComponentsOne);
-                     //                  subtractOffNormalComponent(normal, slipVector);
-                     slipVector.scale(percentMoveTowardTouchdownWhenSamePoint);
-                     positionOne.sub(slipVector);
-                     contactPointToConsiderOne.setOffsetWorld(positionOne);
-
-                     contactPointToConsiderTwo.getPosition(positionTwo);
-                     slipVector.set(deltaVectorRemovingNormalComponentsTwo);
-                     //                  subtractOffNormalComponent(normal, slipVector);
-                     slipVector.scale(percentMoveTowardTouchdownWhenSamePoint);
-                     positionTwo.sub(slipVector);
-                     contactPointToConsiderTwo.setOffsetWorld(positionTwo);
-
-                     //                  contactPointToConsiderOne.setOffsetWorld(point1);
-                     //                  contactPointToConsiderTwo.setOffsetWorld(point2);
-
-                  }
-
-                  break;
                }
             }
 
@@ -662,6 +646,9 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
             int indexOfOne = externalForcePointOne.getIndex();
             int indexOfTwo = externalForcePointTwo.getIndex();
 
+            if (cachedManifold != null)
+               cachedManifold.setTouchdownIndex(i, indexOfOne);
+
             int indexOfContactingPairOne = externalForcePointOne.getIndexOfContactingPair();
             int indexOfContactingPairTwo = externalForcePointTwo.getIndexOfContactingPair();
 
@@ -706,9 +693,8 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
                      tempVectorForAveraging.scale(maximumPenetrationToStart / penetrationLength);
                   }
 
-                  tempPoint.set(point1);
-                  tempPoint.add(tempVectorForAveraging);
-                  externalForcePointOne.setOffsetWorld(tempPoint);
+                  touchdownPointOne.add(point1, tempVectorForAveraging);
+                  externalForcePointOne.setOffsetWorld(touchdownPointOne);
 
                   tempPoint.set(point2);
                   tempPoint.sub(tempVectorForAveraging);
@@ -716,9 +702,13 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
                }
                else
                {
+                  touchdownPointOne.set(point1);
                   externalForcePointOne.setOffsetWorld(point1);
                   externalForcePointTwo.setOffsetWorld(point2);
                }
+
+               if (cachedManifold != null)
+                  preloadSpringWithCachedForce(cachedManifold, i, externalForcePointTwo);
             }
 
             // Update the robot and its velocity:
@@ -759,6 +749,133 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
       }
    }
 
+   private final Vector3D deltaVectorRemovingNormalComponentsOne = new Vector3D();
+   private final Vector3D deltaVectorRemovingNormalComponentsTwo = new Vector3D();
+
+   /**
+    * Checks whether the existing pair of the given point is close enough to the current contact
+    * ({@link #point1}, {@link #point2}) to be considered the same, in which case its touchdown points
+    * are moved toward the contact.
+    */
+   private boolean moveTowardContactIfSamePoint(ContactingExternalForcePoint contactPointToConsiderOne)
+   {
+      ContactingExternalForcePoint contactPointToConsiderTwo = allContactingExternalForcePoints.get(contactPointToConsiderOne.getIndexOfContactingPair());
+
+      contactPointToConsiderOne.getPosition(positionOne);
+      deltaVectorRemovingNormalComponentsOne.sub(positionOne, point1);
+      subtractOffNormalComponent(normal, deltaVectorRemovingNormalComponentsOne);
+      double distanceToConsiderOne = deltaVectorRemovingNormalComponentsOne.length();
+
+      contactPointToConsiderTwo.getPosition(positionTwo);
+      deltaVectorRemovingNormalComponentsTwo.sub(positionTwo, point2);
+      subtractOffNormalComponent(normal, deltaVectorRemovingNormalComponentsTwo);
+      double distanceToConsiderTwo = deltaVectorRemovingNormalComponentsTwo.length();
+
+      if (distanceToConsiderOne >= minDistanceToConsiderDifferent && distanceToConsiderTwo >= minDistanceToConsiderDifferent)
+         return false;
+
+      slipVector.set(deltaVectorRemovingNormalComponentsOne);
+      slipVector.scale(percentMoveTowardTouchdownWhenSamePoint);
+      positionOne.sub(slipVector);
+      contactPointToConsiderOne.setOffsetWorld(positionOne);
+
+      slipVector.set(deltaVectorRemovingNormalComponentsTwo);
+      slipVector.scale(percentMoveTowardTouchdownWhenSamePoint);
+      positionTwo.sub(slipVector);
+      contactPointToConsiderTwo.setOffsetWorld(positionTwo);
+
+      return true;
+   }
+
+   /**
+    * Returns the point of link one used as touchdown for the given contact of the manifold on the
+    * previous tick, or {@code null} if there is none or it is not paired with link two anymore.
+    */
+   private ContactingExternalForcePoint getAttachedTouchdown(CachedContactManifold cachedManifold, int contactIndex, Link linkOne, Link linkTwo)
+   {
+      if (cachedManifold == null)
+         return null;
+
+      int touchdownIndex = cachedManifold.getTouchdownIndex(contactIndex);
+      if (touchdownIndex == -1)
+         return null;
+
+      ContactingExternalForcePoint touchdown = allContactingExternalForcePoints.get(touchdownIndex);
+      int indexOfContactingPair = touchdown.getIndexOfContactingPair();
+
+      if (touchdown.getLink() != linkOne || indexOfContactingPair == -1)
+         return null;
+      if (allContactingExternalForcePoints.get(indexOfContactingPair).getLink() != linkTwo)
+         return null;
+
+      return touchdown;
+   }
+
+   private final Vector3D cachedForce = new Vector3D();
+   private final Vector3D cachedNormalForce = new Vector3D();
+
+   /**
+    * Warm starts a new pair created for a contact that was already held on the previous tick: the
+    * touchdown of point two is offset so that the spring starts with the force of the previous tick,
+    * scaled by the warm start factor and projected on the friction cone, instead of starting from zero
+    * and letting the bodies sink until the spring has built up again.
+    */
+   private void preloadSpringWithCachedForce(CachedContactManifold cachedManifold, int contactIndex, ContactingExternalForcePoint externalForcePointTwo)
+   {
+      if (warmStartFactor <= 0.0)
+         return;
+
+      cachedManifold.getAccumulatedImpulse(contactIndex, cachedForce);
+      cachedForce.scale(warmStartFactor);
+
+      // The spring pushes point one against the normal.
+      double normalMagnitude = -cachedForce.dot(normal);
+      if (normalMagnitude <= 0.0)
+         return;
+
+      cachedNormalForce.setAndScale(-normalMagnitude, normal);
+      cachedForce.sub(cachedNormalForce);
+
+      double tangentialMagnitude = cachedForce.length();
+      double maximumTangentialMagnitude = coefficientOfFriction.getDoubleValue() * normalMagnitude;
+      if (tangentialMagnitude > maximumTangentialMagnitude)
+         cachedForce.scale(maximumTangentialMagnitude / tangentialMagnitude);
+
+      cachedForce.add(cachedNormalForce);
+
+      // The spring force on point one is kp * (touchdown two - touchdown one).
+      tempPoint.scaleAdd(1.0 / kpCollision.getDoubleValue(), cachedForce, touchdownPointOne);
+      externalForcePointTwo.setOffsetWorld(tempPoint);
+   }
+
+   /**
+    * Stores in the manifolds the force applied on link one by the touchdown pair of each contact, to
+    * warm start the pairs that have to be recreated on the next tick.
+    */
+   private void saveContactForcesInManifolds()
+   {
+      for (int i = 0; i < shapesInContactList.size(); i++)
+      {
+         Contacts contacts = shapesInContactList.get(i);
+         if (!(contacts instanceof CachedContactManifold))
+            continue;
+
+         CachedContactManifold cachedManifold = (CachedContactManifold) contacts;
+
+         for (int j = 0; j < cachedManifold.getNumberOfContacts(); j++)
+         {
+            int touchdownIndex = cachedManifold.getTouchdownIndex(j);
+
+            if (touchdownIndex != -1 && allContactingExternalForcePoints.get(touchdownIndex).getIndexOfContactingPair() != -1)
+               allContactingExternalForcePoints.get(touchdownIndex).getForce(cachedForce);
+            else
+               cachedForce.setToZero();
+
+            cachedManifold.setAccumulatedImpulse(j, cachedForce);
+         }
+      }
+   }
+
    private final Vector3D normalComponent = new Vector3D();
 
    private Vector3D subtractOffNormalComponent(Vector3D normal, Vector3D vectorToRemoveNormalComponent)
@@ -994,10 +1111,14 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
 
    }
 
+   private final ArrayList<ContactingExternalForcePoint> pointsThatAreContactingShapeOneList = new ArrayList<>();
+   private final ArrayList<ContactingExternalForcePoint> pointsThatAreContactingShapeTwoList = new ArrayList<>();
+
    private List<ContactingExternalForcePoint> getPointsThatAreContactingOtherLink(List<ContactingExternalForcePoint> contactingExternalForcePointsOne,
-                                                                                       Link linkTwo)
+                                                                                       Link linkTwo,
+                                                                                       ArrayList<ContactingExternalForcePoint> pointsThatAreContactingShapeTwo)
    {
-      ArrayList<ContactingExternalForcePoint> pointsThatAreContactingShapeTwo = new ArrayList<>();
+      pointsThatAreContactingShapeTwo.clear();
 
       for (int k = 0; k < contactingExternalForcePointsOne.size(); k++)
       {
@@ -1098,7 +1219,8 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
    }
 
    private final ArrayList<ContactingExternalForcePoint> allContactingExternalForcePoints = new ArrayList<>();
-   private final ArrayList<String> linkNamesOfForcePoints = new ArrayList<>();
+   private final ArrayList<Link> linksOfForcePoints = new ArrayList<>();
+   private final ArrayList<Link> linksThatAreContacting = new ArrayList<>();
 
    @Override
    public void addContactingExternalForcePoints(Link link, List<ContactingExternalForcePoint> contactingExternalForcePoints)
@@ -1110,7 +1232,7 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
          ContactingExternalForcePoint contactingExternalForcePoint = contactingExternalForcePoints.get(i);
          contactingExternalForcePoint.setIndex(index);
          allContactingExternalForcePoints.add(contactingExternalForcePoint);
-         linkNamesOfForcePoints.add(link.getName());
+         linksOfForcePoints.add(link);
          index++;
       }
 
@@ -1122,7 +1244,7 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
 
    private void detachNonContactingPairs(CollisionDetectionResult results)
    {
-      ArrayList<String> linkNamesOfContacting = new ArrayList<>();
+      linksThatAreContacting.clear();
 
       for (int i = 0; i < results.getNumberOfCollisions(); i++)
       {
@@ -1130,25 +1252,17 @@ public class HybridImpulseSpringDamperCollisionHandler implements CollisionHandl
          CollisionShapeWithLink shapeA = (CollisionShapeWithLink) contact.getShapeA();
          CollisionShapeWithLink shapeB = (CollisionShapeWithLink) contact.getShapeB();
 
-         if (!linkNamesOfContacting.contains(shapeA.getLink().getName()))
-            linkNamesOfContacting.add(shapeA.getLink().getName());
-         if (!linkNamesOfContacting.contains(shapeB.getLink().getName()))
-            linkNamesOfContacting.add(shapeB.getLink().getName());
+         if (!linksThatAreContacting.contains(shapeA.getLink()))
+            linksThatAreContacting.add(shapeA.getLink());
+         if (!linksThatAreContacting.contains(shapeB.getLink()))
+            linksThatAreContacting.add(shapeB.getLink());
       }
 
       for (int i = 0; i < allContactingExternalForcePoints.size(); i++)
       {
          ContactingExternalForcePoint contactingExternalForcePoint = allContactingExternalForcePoints.get(i);
 
-         boolean isContacting = false;
-         for (int j = 0; j < linkNamesOfContacting.size(); j++)
-         {
-            if (linkNamesOfContacting.get(j).equals(linkNamesOfForcePoints.get(i)))
-            {
-               isContacting = true;
-               break;
-            }
-         }
+         boolean isContacting = linksThatAreContacting.contains(linksOfForcePoints.get(i));
 
          if (!isContacting)
          {
@@ -0,0 +1,668 @@
+package us.ihmc.simulationconstructionset.physics.collision;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import us.ihmc.euclid.matrix.Matrix3D;
+import us.ihmc.euclid.matrix.RotationMatrix;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.log.LogTools;
+import us.ihmc.simulationconstructionset.ContactingExternalForcePoint;
+import us.ihmc.simulationconstructionset.ExternalForcePoint;
+import us.ihmc.simulationconstructionset.ExternalTorque;
+import us.ihmc.simulationconstructionset.Link;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SpatialVector;
+import us.ihmc.simulationconstructionset.physics.CollisionHandler;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeWithLink;
+import us.ihmc.simulationconstructionset.physics.Contacts;
+import us.ihmc.simulationconstructionset.physics.collision.simple.CachedContactManifold;
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+/**
+ * Collision handler solving all the contacts of a tick together at the velocity level, with
+ * projected Gauss-Seidel iterations over sequential impulses.
+ * <p>
+ * Each contact point gets an accumulated impulse that is refined at every iteration. The normal
+ * impulse is kept positive and the friction impulse within the friction cone, so that resting
+ * contacts are held without the stiff springs of {@link HybridImpulseSpringDamperCollisionHandler}.
+ * The impulses of the previous tick are used as starting point for the contacts that persist. When
+ * the contacts are {@link CachedContactManifold}s, as given by the
+ * {@code ExperimentalCollisionArbiter}, the impulses are read from and written back to the
+ * manifolds, otherwise the handler matches the contacts of consecutive ticks itself. The response
+ * of the robots to the impulses is the articulated-body response computed by
+ * {@code JointPhysics}.
+ * </p>
+ * <p>
+ * A small part of the penetration is removed every tick through a velocity bias, which is why the
+ * time step of the simulation is needed. The warm starting impulses are not rewindable.
+ * </p>
+ * <p>
+ * Each contact uses one of the {@link ContactingExternalForcePoint}s of its links, the contacts of a
+ * link beyond its number of contacting points are ignored, with a warning the first time it
+ * happens for the link, see {@link #getNumberOfIgnoredContacts()}. The listeners get the points of the
+ * contact with their impulse, the ground side of a contact being a point fixed at the contact
+ * position, and zero torques since the impulses are applied at the points.
+ * </p>
+ */
+public class SequentialImpulseCollisionHandler implements CollisionHandler
+{
+   // Coefficient of restitution
+   private final double epsilon;
+
+   // Coefficient of friction
+   private final double mu;
+
+   private final double dt;
+
+   private int maximumNumberOfIterations = 20;
+   private double impulseTolerance = 1.0e-6;
+   private double penetrationCorrectionFactor = 0.2;
+   private double allowedPenetration = 0.001;
+   private double restitutionVelocityThreshold = 0.1;
+   private double warmStartFactor = 0.8;
+   private double warmStartMatchingDistance = 0.01;
+
+   private final List<CollisionHandlerListener> listeners = new ArrayList<>();
+   // Holds the points and torques given to the listeners for the ground side of the contacts, not added to the robots.
+   private final YoRegistry listenerRegistry = new YoRegistry(getClass().getSimpleName() + "Listener");
+   private final List<Contacts> shapesInContactList = new ArrayList<>();
+
+   private final List<ContactConstraint> constraintPool = new ArrayList<>();
+   private int numberOfConstraints = 0;
+
+   private final List<Robot> involvedRobots = new ArrayList<>();
+   private boolean[] robotVelocitiesAreOutdated = new boolean[0];
+   private final Map<Link, Integer> numberOfUsedPointsPerLink = new IdentityHashMap<>();
+   private final Set<Link> linksWithTooFewPoints = Collections.newSetFromMap(new IdentityHashMap<>());
+   private int numberOfIgnoredContacts = 0;
+
+   private final List<WarmStartImpulse> previousImpulses = new ArrayList<>();
+   private final List<WarmStartImpulse> warmStartImpulsePool = new ArrayList<>();
+
+   private final Point3D pointA = new Point3D();
+   private final Point3D pointB = new Point3D();
+   private final Vector3D normal = new Vector3D();
+   private final Vector3D relativeVelocity = new Vector3D();
+   private final Vector3D impulseChange = new Vector3D();
+   private final Vector3D impulseInWorld = new Vector3D();
+   private final Vector3D tempVector = new Vector3D();
+   private final Vector3D xAxis = new Vector3D(), yAxis = new Vector3D();
+   private final SpatialVector impulseAtCenterOfMass = new SpatialVector();
+   private final SpatialVector tempSpatialVector = new SpatialVector();
+
+   /**
+    * @param epsilon coefficient of restitution.
+    * @param mu      coefficient of friction.
+    * @param dt      time step of the simulation, used to correct the penetrations.
+    */
+   public SequentialImpulseCollisionHandler(double epsilon, double mu, double dt)
+   {
+      this.epsilon = epsilon;
+      this.mu = mu;
+      this.dt = dt;
+   }
+
+   /**
+    * Sets the maximum number of passes over all the contacts per tick, 20 by default. The passes stop
+    * earlier when no impulse changes by more than the impulse tolerance.
+    */
+   public void setMaximumNumberOfIterations(int maximumNumberOfIterations)
+   {
+      this.maximumNumberOfIterations = maximumNumberOfIterations;
+   }
+
+   public void setImpulseTolerance(double impulseTolerance)
+   {
+      this.impulseTolerance = impulseTolerance;
+   }
+
+   /**
+    * @param penetrationCorrectionFactor fraction of the penetration removed per tick, 0.2 by default.
+    * @param allowedPenetration          penetration that is not corrected, 1 mm by default, to avoid
+    *                                    jitter of resting contacts.
+    */
+   public void setPenetrationCorrection(double penetrationCorrectionFactor, double allowedPenetration)
+   {
+      this.penetrationCorrectionFactor = penetrationCorrectionFactor;
+      this.allowedPenetration = allowedPenetration;
+   }
+
+   /**
+    * The impacts slower than this velocity are inelastic, 0.1 m/s by default.
+    */
+   public void setRestitutionVelocityThreshold(double restitutionVelocityThreshold)
+   {
+      this.restitutionVelocityThreshold = restitutionVelocityThreshold;
+   }
+
+   /**
+    * @param warmStartFactor           fraction of the impulse of the previous tick used as starting
+    *                                  point, 0.8 by default, 0 disables warm starting.
+    * @param warmStartMatchingDistance maximum distance between two contact points of consecutive
+    *                                  ticks to be considered the same contact, 1 cm by default.
+    */
+   public void setWarmStarting(double warmStartFactor, double warmStartMatchingDistance)
+   {
+      this.warmStartFactor = warmStartFactor;
+      this.warmStartMatchingDistance = warmStartMatchingDistance;
+   }
+
+   @Override
+   public void maintenanceBeforeCollisionDetection()
+   {
+      shapesInContactList.clear();
+   }
+
+   @Override
+   public void maintenanceAfterCollisionDetection()
+   {
+      numberOfConstraints = 0;
+      numberOfIgnoredContacts = 0;
+      involvedRobots.clear();
+      numberOfUsedPointsPerLink.clear();
+
+      for (int i = 0; i < shapesInContactList.size(); i++)
+         addConstraints(shapesInContactList.get(i));
+
+      if (robotVelocitiesAreOutdated.length < involvedRobots.size())
+         robotVelocitiesAreOutdated = new boolean[involvedRobots.size()];
+
+      // The offsets of the contacting points changed.
+      for (int i = 0; i < involvedRobots.size(); i++)
+      {
+         involvedRobots.get(i).updateVelocities();
+         robotVelocitiesAreOutdated[i] = false;
+      }
+
+      // The targets are computed from the velocities before any impulse, so that they do not depend on the order of the contacts.
+      for (int i = 0; i < numberOfConstraints; i++)
+         initializeConstraint(constraintPool.get(i));
+
+      for (int i = 0; i < numberOfConstraints; i++)
+         warmStartConstraint(constraintPool.get(i));
+
+      for (int iteration = 0; iteration < maximumNumberOfIterations; iteration++)
+      {
+         double largestImpulseChange = 0.0;
+
+         for (int i = 0; i < numberOfConstraints; i++)
+            largestImpulseChange = Math.max(largestImpulseChange, solveConstraint(constraintPool.get(i)));
+
+         if (largestImpulseChange < impulseTolerance)
+            break;
+      }
+
+      for (int i = 0; i < involvedRobots.size(); i++)
+      {
+         if (robotVelocitiesAreOutdated[i])
+            involvedRobots.get(i).updateVelocities();
+      }
+
+      saveImpulsesAndNotifyListeners();
+   }
+
+   private void addConstraints(Contacts contacts)
+   {
+      CollisionShapeWithLink shapeA = (CollisionShapeWithLink) contacts.getShapeA();
+      CollisionShapeWithLink shapeB = (CollisionShapeWithLink) contacts.getShapeB();
+
+      if (shapeA.isGround() && shapeB.isGround())
+         return;
+
+      CachedContactManifold manifold = contacts instanceof CachedContactManifold ? (CachedContactManifold) contacts : null;
+
+      for (int i = 0; i < contacts.getNumberOfContacts(); i++)
+      {
+         double distance = contacts.getDistance(i);
+
+         if (distance > 0.0)
+            continue;
+
+         contacts.getWorldA(i, pointA);
+         contacts.getWorldB(i, pointB);
+         contacts.getWorldNormal(i, normal);
+
+         if (!contacts.isNormalOnA())
+            normal.scale(-1.0);
+
+         // The normal is invalid when a shape is embedded inside the other.
+         if (Double.isNaN(normal.getX()))
+            throw new RuntimeException("Normal is invalid. Contains NaN!");
+
+         ContactingExternalForcePoint pointOnA = shapeA.isGround() ? null : getAvailablePoint(shapeA.getLink());
+         ContactingExternalForcePoint pointOnB = shapeB.isGround() ? null : getAvailablePoint(shapeB.getLink());
+
+         if ((!shapeA.isGround() && pointOnA == null) || (!shapeB.isGround() && pointOnB == null))
+         {
+            numberOfIgnoredContacts++;
+            continue;
+         }
+
+         if (numberOfConstraints == constraintPool.size())
+            constraintPool.add(new ContactConstraint(numberOfConstraints));
+
+         ContactConstraint constraint = constraintPool.get(numberOfConstraints++);
+         constraint.shapeA = shapeA;
+         constraint.shapeB = shapeB;
+         constraint.manifold = manifold;
+         constraint.manifoldContactIndex = i;
+         constraint.penetration = -distance;
+         constraint.positionA.set(pointA);
+         constraint.positionB.set(pointB);
+
+         // The collision frame z-axis pushes A out of B, as in the DefaultCollisionHandler.
+         tempVector.set(normal);
+         tempVector.negate();
+         computeRotationFromNormalVector(constraint.R0_coll, tempVector);
+
+         constraint.sideA.set(pointOnA, pointA);
+         constraint.sideB.set(pointOnB, pointB);
+      }
+   }
+
+   private ContactingExternalForcePoint getAvailablePoint(Link link)
+   {
+      List<ContactingExternalForcePoint> contactingPoints = link.getContactingExternalForcePoints();
+      Integer numberOfUsedPoints = numberOfUsedPointsPerLink.get(link);
+      int index = numberOfUsedPoints == null ? 0 : numberOfUsedPoints;
+
+      if (contactingPoints == null || index >= contactingPoints.size())
+      {
+         // The points are YoVariables of the robot, they cannot be added once the simulation runs.
+         if (linksWithTooFewPoints.add(link))
+         {
+            LogTools.warn("The link " + link.getName() + " has more contacts than contacting points ("
+                  + (contactingPoints == null ? 0 : contactingPoints.size()) + "), the extra contacts are ignored. "
+                  + "Use Link.enableContactingExternalForcePoints to add more points.");
+         }
+
+         return null;
+      }
+
+      numberOfUsedPointsPerLink.put(link, index + 1);
+      return contactingPoints.get(index);
+   }
+
+   private int getRobotIndex(Robot robot)
+   {
+      for (int i = 0; i < involvedRobots.size(); i++)
+      {
+         if (involvedRobots.get(i) == robot)
+            return i;
+      }
+
+      involvedRobots.add(robot);
+      return involvedRobots.size() - 1;
+   }
+
+   private void initializeConstraint(ContactConstraint constraint)
+   {
+      constraint.collisionMatrix.setToZero();
+
+      if (constraint.sideA.point != null)
+      {
+         constraint.sideA.point.computeCollisionMatrix(constraint.R0_coll, constraint.sideA.collisionMatrix, constraint.sideA.unitImpulses);
+         constraint.collisionMatrix.add(constraint.sideA.collisionMatrix);
+      }
+
+      if (constraint.sideB.point != null)
+      {
+         constraint.sideB.point.computeCollisionMatrix(constraint.R0_coll, constraint.sideB.collisionMatrix, constraint.sideB.unitImpulses);
+         constraint.collisionMatrix.add(constraint.sideB.collisionMatrix);
+      }
+
+      constraint.inverseCollisionMatrix.set(constraint.collisionMatrix);
+      constraint.inverseCollisionMatrix.invert();
+
+      computeRelativeVelocity(constraint, relativeVelocity);
+
+      // Target normal velocity: bounce back on impacts, and slowly push out of penetration.
+      double bounceVelocity = relativeVelocity.getZ() < -restitutionVelocityThreshold ? -epsilon * relativeVelocity.getZ() : 0.0;
+      double correctionVelocity = penetrationCorrectionFactor * Math.max(constraint.penetration - allowedPenetration, 0.0) / dt;
+      constraint.targetNormalVelocity = Math.max(bounceVelocity, correctionVelocity);
+   }
+
+   private void warmStartConstraint(ContactConstraint constraint)
+   {
+      constraint.accumulatedImpulse.setToZero();
+
+      if (findWarmStartImpulse(constraint, impulseInWorld))
+      {
+         // From world to the collision frame.
+         constraint.R0_coll.inverseTransform(impulseInWorld, impulseChange);
+         impulseChange.scale(warmStartFactor);
+         projectOnFrictionCone(impulseChange);
+         constraint.accumulatedImpulse.set(impulseChange);
+         applyImpulse(constraint, impulseChange);
+      }
+   }
+
+   /**
+    * @return the magnitude of the change of impulse.
+    */
+   private double solveConstraint(ContactConstraint constraint)
+   {
+      computeRelativeVelocity(constraint, relativeVelocity);
+
+      // Velocity error, the tangential velocities should be zero.
+      relativeVelocity.setZ(relativeVelocity.getZ() - constraint.targetNormalVelocity);
+
+      constraint.inverseCollisionMatrix.transform(relativeVelocity, impulseChange);
+      impulseChange.negate();
+
+      tempVector.add(constraint.accumulatedImpulse, impulseChange);
+      projectOnFrictionCone(tempVector);
+      impulseChange.sub(tempVector, constraint.accumulatedImpulse);
+      constraint.accumulatedImpulse.set(tempVector);
+
+      double magnitude = impulseChange.length();
+
+      if (magnitude > 0.0)
+         applyImpulse(constraint, impulseChange);
+
+      return magnitude;
+   }
+
+   private void projectOnFrictionCone(Vector3D impulse)
+   {
+      if (impulse.getZ() <= 0.0)
+      {
+         impulse.setToZero();
+         return;
+      }
+
+      double tangentialMagnitude = Math.sqrt(impulse.getX() * impulse.getX() + impulse.getY() * impulse.getY());
+      double maximumTangentialMagnitude = mu * impulse.getZ();
+
+      if (tangentialMagnitude > maximumTangentialMagnitude)
+      {
+         double scale = maximumTangentialMagnitude / tangentialMagnitude;
+         impulse.setX(scale * impulse.getX());
+         impulse.setY(scale * impulse.getY());
+      }
+   }
+
+   /**
+    * Velocity of the point of A relative to the point of B, in the collision frame.
+    */
+   private void computeRelativeVelocity(ContactConstraint constraint, Vector3D relativeVelocityToPack)
+   {
+      relativeVelocityToPack.setToZero();
+
+      if (constraint.sideA.point != null)
+      {
+         updateVelocitiesIfNeeded(constraint.sideA.robotIndex);
+         constraint.sideA.point.getVelocity(tempVector);
+         relativeVelocityToPack.add(tempVector);
+      }
+
+      if (constraint.sideB.point != null)
+      {
+         updateVelocitiesIfNeeded(constraint.sideB.robotIndex);
+         constraint.sideB.point.getVelocity(tempVector);
+         relativeVelocityToPack.sub(tempVector);
+      }
+
+      constraint.R0_coll.inverseTransform(relativeVelocityToPack);
+   }
+
+   private void updateVelocitiesIfNeeded(int robotIndex)
+   {
+      if (robotVelocitiesAreOutdated[robotIndex])
+      {
+         involvedRobots.get(robotIndex).updateVelocities();
+         robotVelocitiesAreOutdated[robotIndex] = false;
+      }
+   }
+
+   /**
+    * Applies the impulse, expressed in the collision frame, to A and its opposite to B.
+    */
+   private void applyImpulse(ContactConstraint constraint, Vector3D impulseInCollisionFrame)
+   {
+      if (constraint.sideA.point != null)
+         applyImpulse(constraint.sideA, impulseInCollisionFrame, 1.0);
+      if (constraint.sideB.point != null)
+         applyImpulse(constraint.sideB, impulseInCollisionFrame, -1.0);
+   }
+
+   private void applyImpulse(ContactSide side, Vector3D impulseInCollisionFrame, double sign)
+   {
+      impulseAtCenterOfMass.top.set(0.0, 0.0, 0.0);
+      impulseAtCenterOfMass.bottom.set(0.0, 0.0, 0.0);
+
+      for (int axis = 0; axis < 3; axis++)
+      {
+         double component = sign * (axis == 0 ? impulseInCollisionFrame.getX() : axis == 1 ? impulseInCollisionFrame.getY() : impulseInCollisionFrame.getZ());
+         tempSpatialVector.set(side.unitImpulses[axis]);
+         tempSpatialVector.scale(component);
+         impulseAtCenterOfMass.add(tempSpatialVector);
+      }
+
+      side.point.getParentJoint().physics.applyImpulseAtCenterOfMass(impulseAtCenterOfMass);
+      robotVelocitiesAreOutdated[side.robotIndex] = true;
+   }
+
+   /**
+    * Packs the impulse applied on A at the same contact during the previous tick, in world.
+    *
+    * @return whether the contact was found.
+    */
+   private boolean findWarmStartImpulse(ContactConstraint constraint, Vector3D impulseInWorldToPack)
+   {
+      if (warmStartFactor <= 0.0)
+         return false;
+
+      if (constraint.manifold != null)
+      {
+         constraint.manifold.getAccumulatedImpulse(constraint.manifoldContactIndex, impulseInWorldToPack);
+         return impulseInWorldToPack.getX() != 0.0 || impulseInWorldToPack.getY() != 0.0 || impulseInWorldToPack.getZ() != 0.0;
+      }
+
+      WarmStartImpulse closest = null;
+      double closestDistanceSquared = warmStartMatchingDistance * warmStartMatchingDistance;
+
+      for (int i = 0; i < previousImpulses.size(); i++)
+      {
+         WarmStartImpulse candidate = previousImpulses.get(i);
+
+         if (candidate.shapeA != constraint.shapeA || candidate.shapeB != constraint.shapeB)
+            continue;
+
+         double distanceSquared = candidate.positionA.distanceSquared(constraint.positionA);
+
+         if (distanceSquared <= closestDistanceSquared)
+         {
+            closest = candidate;
+            closestDistanceSquared = distanceSquared;
+         }
+      }
+
+      if (closest == null)
+         return false;
+
+      impulseInWorldToPack.set(closest.impulseInWorld);
+      return true;
+   }
+
+   private void saveImpulsesAndNotifyListeners()
+   {
+      warmStartImpulsePool.addAll(previousImpulses);
+      previousImpulses.clear();
+
+      for (int i = 0; i < numberOfConstraints; i++)
+      {
+         ContactConstraint constraint = constraintPool.get(i);
+         constraint.R0_coll.transform(constraint.accumulatedImpulse, impulseInWorld);
+
+         if (constraint.manifold != null)
+            constraint.manifold.setAccumulatedImpulse(constraint.manifoldContactIndex, impulseInWorld);
+
+         if (constraint.accumulatedImpulse.getZ() <= 0.0)
+            continue;
+
+         if (constraint.manifold == null)
+         {
+            WarmStartImpulse warmStart = warmStartImpulsePool.isEmpty() ? new WarmStartImpulse() : warmStartImpulsePool.remove(warmStartImpulsePool.size() - 1);
+            warmStart.shapeA = constraint.shapeA;
+            warmStart.shapeB = constraint.shapeB;
+            warmStart.positionA.set(constraint.positionA);
+            warmStart.impulseInWorld.set(impulseInWorld);
+            previousImpulses.add(warmStart);
+         }
+
+         constraint.sideA.setImpulse(impulseInWorld, constraint.positionA);
+         tempVector.setAndNegate(impulseInWorld);
+         constraint.sideB.setImpulse(tempVector, constraint.positionB);
+
+         for (int j = 0; j < listeners.size(); j++)
+         {
+            listeners.get(j).collision(constraint.shapeA,
+                                       constraint.shapeB,
+                                       constraint.sideA.getListenerPoint(),
+                                       constraint.sideB.getListenerPoint(),
+                                       constraint.sideA.torque,
+                                       constraint.sideB.torque);
+         }
+      }
+   }
+
+   private void computeRotationFromNormalVector(RotationMatrix rotationToPack, Vector3D normalVector)
+   {
+      // Same frame as the one used by the ExternalForcePoint for its collisions.
+      Vector3D zAxis = normalVector;
+      zAxis.normalize();
+
+      yAxis.set(0.0, 1.0, 0.0);
+      if (Math.abs(zAxis.getY()) > 0.99)
+         yAxis.set(1.0, 0.0, 0.0);
+
+      xAxis.cross(yAxis, zAxis);
+      xAxis.normalize();
+      yAxis.cross(zAxis, xAxis);
+
+      rotationToPack.setColumns(xAxis, yAxis, zAxis);
+   }
+
+   @Override
+   public void handle(Contacts contacts)
+   {
+      shapesInContactList.add(contacts);
+   }
+
+   @Override
+   public void handleCollisions(CollisionDetectionResult results)
+   {
+      maintenanceBeforeCollisionDetection();
+
+      for (int i = 0; i < results.getNumberOfCollisions(); i++)
+         handle(results.getCollision(i));
+
+      maintenanceAfterCollisionDetection();
+   }
+
+   @Override
+   public void addListener(CollisionHandlerListener listener)
+   {
+      listeners.add(listener);
+   }
+
+   /**
+    * @return the number of contacts ignored during the last tick because a link had no contacting
+    *         point left.
+    */
+   public int getNumberOfIgnoredContacts()
+   {
+      return numberOfIgnoredContacts;
+   }
+
+   /**
+    * Nothing to do, the points are taken from {@link Link#getContactingExternalForcePoints()} when
+    * their link is in contact, so the handler does not keep a list of its own.
+    */
+   @Override
+   public void addContactingExternalForcePoints(Link link, List<ContactingExternalForcePoint> contactingExternalForcePoints)
+   {
+   }
+
+   private class ContactSide
+   {
+      private ContactingExternalForcePoint point;
+      private int robotIndex;
+      private final Matrix3D collisionMatrix = new Matrix3D();
+      private final SpatialVector[] unitImpulses = {new SpatialVector(), new SpatialVector(), new SpatialVector()};
+      private final ExternalForcePoint groundPoint;
+      private final ExternalTorque torque;
+
+      private ContactSide(String name)
+      {
+         groundPoint = new ExternalForcePoint(name + "Ground", listenerRegistry);
+         torque = new ExternalTorque(name, listenerRegistry);
+      }
+
+      private void set(ContactingExternalForcePoint point, Point3D positionInWorld)
+      {
+         this.point = point;
+
+         if (point != null)
+         {
+            point.setOffsetWorld(positionInWorld.getX(), positionInWorld.getY(), positionInWorld.getZ());
+            robotIndex = getRobotIndex(point.getParentJoint().getRobot());
+         }
+      }
+
+      private void setImpulse(Vector3D impulseInWorld, Point3D positionInWorld)
+      {
+         if (point != null)
+         {
+            point.setImpulse(impulseInWorld);
+         }
+         else
+         {
+            groundPoint.setPosition(positionInWorld);
+            groundPoint.setImpulse(impulseInWorld);
+         }
+      }
+
+      private ExternalForcePoint getListenerPoint()
+      {
+         return point != null ? point : groundPoint;
+      }
+   }
+
+   private class ContactConstraint
+   {
+      private CollisionShapeWithLink shapeA, shapeB;
+      private CachedContactManifold manifold;
+      private int manifoldContactIndex;
+      private double penetration;
+      private double targetNormalVelocity;
+      private final Point3D positionA = new Point3D();
+      private final Point3D positionB = new Point3D();
+      private final RotationMatrix R0_coll = new RotationMatrix();
+      private final Matrix3D collisionMatrix = new Matrix3D();
+      private final Matrix3D inverseCollisionMatrix = new Matrix3D();
+      private final Vector3D accumulatedImpulse = new Vector3D();
+      private final ContactSide sideA;
+      private final ContactSide sideB;
+
+      private ContactConstraint(int index)
+      {
+         sideA = new ContactSide("contact" + index + "A");
+         sideB = new ContactSide("contact" + index + "B");
+      }
+   }
+
+   private static class WarmStartImpulse
+   {
+      private CollisionShapeWithLink shapeA, shapeB;
+      private final Point3D positionA = new Point3D();
+      private final Vector3D impulseInWorld = new Vector3D();
+   }
+}
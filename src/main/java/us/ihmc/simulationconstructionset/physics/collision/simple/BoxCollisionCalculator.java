@@ -0,0 +1,839 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import us.ihmc.euclid.geometry.LineSegment3D;
+import us.ihmc.euclid.shape.primitives.Cylinder3D;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
+
+/**
+ * Closed-form narrow-phase routines for the pairs involving a {@link BoxShapeDescription}. Where
+ * GJK/EPA only gives the deepest point, these return up to {@link #MAXIMUM_NUMBER_OF_CONTACTS}
+ * points when the shapes rest on each other, so that a box lying on the ground is supported by its
+ * corners instead of by one point switching from corner to corner.
+ * <p>
+ * All the routines report the contacts with the normal pointing from the first shape to the second
+ * one and a negative distance when the shapes are penetrating.
+ * </p>
+ */
+public class BoxCollisionCalculator
+{
+   public static final int MAXIMUM_NUMBER_OF_CONTACTS = 4;
+
+   /** Returned by {@link #doCylinderBoxCollisionDetection} when the contact is not a face contact. */
+   public static final int UNRESOLVED = -1;
+
+   // A face of the second box or an edge pair is only picked over the current best axis when it is
+   // clearly better, this keeps the reference face from flickering between nearly equal axes.
+   private static final double RELATIVE_AXIS_TOLERANCE = 0.95;
+   private static final double ABSOLUTE_AXIS_TOLERANCE = 1.0e-3;
+   private static final double PARALLEL_EDGES_EPSILON = 1.0e-6;
+   private static final double PARALLEL_NORMALS_COSINE = 0.99;
+   private static final double FLAT_CAP_SINE = 0.05;
+   private static final double FACE_EXTENT_EPSILON = 1.0e-6;
+
+   private static final int AXIS_FACE_ONE = 0;
+   private static final int AXIS_FACE_TWO = 1;
+   private static final int AXIS_EDGES = 2;
+
+   private static final int MAXIMUM_NUMBER_OF_CLIPPED_POINTS = 8;
+
+   private final Point3D centerOne = new Point3D();
+   private final Vector3D[] axesOne = {new Vector3D(), new Vector3D(), new Vector3D()};
+   private final double[] halfSizeOne = new double[3];
+
+   private final Point3D centerTwo = new Point3D();
+   private final Vector3D[] axesTwo = {new Vector3D(), new Vector3D(), new Vector3D()};
+   private final double[] halfSizeTwo = new double[3];
+
+   private final Vector3D centerToCenter = new Vector3D();
+   private final Vector3D crossAxis = new Vector3D();
+   private final Vector3D normal = new Vector3D();
+   private final Vector3D referenceNormal = new Vector3D();
+   private final Vector3D tempVector = new Vector3D();
+
+   private final Point3D faceCenter = new Point3D();
+   private final Point3D pointOnA = new Point3D();
+   private final Point3D pointOnB = new Point3D();
+   private final Point3D edgePointOne = new Point3D();
+   private final Point3D edgePointTwo = new Point3D();
+
+   private double[] clipInput = new double[3 * MAXIMUM_NUMBER_OF_CLIPPED_POINTS];
+   private double[] clipOutput = new double[3 * MAXIMUM_NUMBER_OF_CLIPPED_POINTS];
+
+   private final Point3D[] candidatePoints = new Point3D[MAXIMUM_NUMBER_OF_CLIPPED_POINTS];
+   private final double[] candidateDepths = new double[MAXIMUM_NUMBER_OF_CLIPPED_POINTS];
+   private final boolean[] candidateSelected = new boolean[MAXIMUM_NUMBER_OF_CLIPPED_POINTS];
+   private final Point3D[] contactPoints = new Point3D[MAXIMUM_NUMBER_OF_CONTACTS];
+   private final double[] contactDepths = new double[MAXIMUM_NUMBER_OF_CONTACTS];
+
+   // Output of the point to box query:
+   private final Point3D closestPointOnBox = new Point3D();
+   private final Point3D pointOnSphere = new Point3D();
+   private final Vector3D pointToBoxNormal = new Vector3D();
+   private double pointToBoxDistance;
+   private final double[] localPoint = new double[3];
+
+   private final LineSegment3D tempLineSegment = new LineSegment3D();
+   private final Point3D segmentStart = new Point3D();
+   private final Point3D segmentEnd = new Point3D();
+   private final Point3D segmentPoint = new Point3D();
+   private final Vector3D segmentDirection = new Vector3D();
+   private final double[] localStart = new double[3];
+   private final double[] localDirection = new double[3];
+   private final double[] breakpoints = new double[8];
+
+   private final Point3D[] closestPointsOnSphere = new Point3D[MAXIMUM_NUMBER_OF_CONTACTS];
+   private final Point3D[] closestPointsOnBox = new Point3D[MAXIMUM_NUMBER_OF_CONTACTS];
+   private final Vector3D[] contactNormals = new Vector3D[MAXIMUM_NUMBER_OF_CONTACTS];
+   private final double[] contactDistances = new double[MAXIMUM_NUMBER_OF_CONTACTS];
+
+   private final Vector3D cylinderAxis = new Vector3D();
+   private final Vector3D rimDirectionOne = new Vector3D();
+   private final Vector3D rimDirectionTwo = new Vector3D();
+   private final Point3D capCenter = new Point3D();
+
+   public BoxCollisionCalculator()
+   {
+      for (int i = 0; i < MAXIMUM_NUMBER_OF_CLIPPED_POINTS; i++)
+         candidatePoints[i] = new Point3D();
+
+      for (int i = 0; i < MAXIMUM_NUMBER_OF_CONTACTS; i++)
+      {
+         contactPoints[i] = new Point3D();
+         closestPointsOnSphere[i] = new Point3D();
+         closestPointsOnBox[i] = new Point3D();
+         contactNormals[i] = new Vector3D();
+      }
+   }
+
+   /**
+    * Separating axis test on the 15 axes of the two boxes. When the axis of least penetration is a
+    * face normal, the incident face of the other box is clipped against the reference face, giving
+    * up to four contacts. When it is an edge pair, the closest points of the two edges are reported.
+    */
+   public boolean doBoxBoxCollisionDetection(CollisionShape objectOne, BoxShapeDescription<?> boxOne, CollisionShape objectTwo,
+                                             BoxShapeDescription<?> boxTwo, CollisionDetectionResult result)
+   {
+      loadBox(boxOne, centerOne, axesOne, halfSizeOne);
+      loadBox(boxTwo, centerTwo, axesTwo, halfSizeTwo);
+      centerToCenter.sub(centerTwo, centerOne);
+
+      double bestSeparation = Double.NEGATIVE_INFINITY;
+      int bestAxisType = -1;
+      int bestIndexOne = -1;
+      int bestIndexTwo = -1;
+
+      for (int i = 0; i < 3; i++)
+      {
+         double separation = Math.abs(centerToCenter.dot(axesOne[i])) - halfSizeOne[i] - projectedRadius(axesTwo, halfSizeTwo, axesOne[i]);
+         if (separation > 0.0)
+            return false;
+
+         if (separation > bestSeparation)
+         {
+            bestSeparation = separation;
+            bestAxisType = AXIS_FACE_ONE;
+            bestIndexOne = i;
+         }
+      }
+
+      for (int j = 0; j < 3; j++)
+      {
+         double separation = Math.abs(centerToCenter.dot(axesTwo[j])) - halfSizeTwo[j] - projectedRadius(axesOne, halfSizeOne, axesTwo[j]);
+         if (separation > 0.0)
+            return false;
+
+         if (separation > RELATIVE_AXIS_TOLERANCE * bestSeparation + ABSOLUTE_AXIS_TOLERANCE)
+         {
+            bestSeparation = separation;
+            bestAxisType = AXIS_FACE_TWO;
+            bestIndexTwo = j;
+         }
+      }
+
+      for (int i = 0; i < 3; i++)
+      {
+         for (int j = 0; j < 3; j++)
+         {
+            crossAxis.cross(axesOne[i], axesTwo[j]);
+            double length = crossAxis.length();
+
+            // Parallel edges, the face axes already cover this direction.
+            if (length < PARALLEL_EDGES_EPSILON)
+               continue;
+
+            crossAxis.scale(1.0 / length);
+            double separation = Math.abs(centerToCenter.dot(crossAxis)) - projectedRadius(axesOne, halfSizeOne, crossAxis)
+                  - projectedRadius(axesTwo, halfSizeTwo, crossAxis);
+            if (separation > 0.0)
+               return false;
+
+            if (separation > RELATIVE_AXIS_TOLERANCE * bestSeparation + ABSOLUTE_AXIS_TOLERANCE)
+            {
+               bestSeparation = separation;
+               bestAxisType = AXIS_EDGES;
+               bestIndexOne = i;
+               bestIndexTwo = j;
+               normal.set(crossAxis);
+            }
+         }
+      }
+
+      if (bestAxisType == AXIS_FACE_ONE)
+         normal.set(axesOne[bestIndexOne]);
+      else if (bestAxisType == AXIS_FACE_TWO)
+         normal.set(axesTwo[bestIndexTwo]);
+
+      // Normal from box one to box two.
+      if (normal.dot(centerToCenter) < 0.0)
+         normal.negate();
+
+      SimpleContactWrapper contacts = new SimpleContactWrapper(objectOne, objectTwo);
+
+      if (bestAxisType == AXIS_EDGES)
+      {
+         computeEdgeEdgeContact(bestIndexOne, bestIndexTwo);
+         contacts.addContact(pointOnA, pointOnB, normal, bestSeparation);
+      }
+      else
+      {
+         boolean referenceIsOne = bestAxisType == AXIS_FACE_ONE;
+         int numberOfContacts;
+
+         if (referenceIsOne)
+         {
+            referenceNormal.set(normal);
+            numberOfContacts = computeFaceContacts(centerOne, axesOne, halfSizeOne, bestIndexOne, centerTwo, axesTwo, halfSizeTwo);
+         }
+         else
+         {
+            referenceNormal.setAndNegate(normal);
+            numberOfContacts = computeFaceContacts(centerTwo, axesTwo, halfSizeTwo, bestIndexTwo, centerOne, axesOne, halfSizeOne);
+         }
+
+         if (numberOfContacts == 0)
+            return false;
+
+         for (int i = 0; i < numberOfContacts; i++)
+         {
+            // The clipped points are on the incident box, project them on the reference face.
+            Point3D incidentPoint = contactPoints[i];
+            double depth = contactDepths[i];
+
+            if (referenceIsOne)
+            {
+               pointOnA.scaleAdd(-depth, referenceNormal, incidentPoint);
+               pointOnB.set(incidentPoint);
+            }
+            else
+            {
+               pointOnA.set(incidentPoint);
+               pointOnB.scaleAdd(-depth, referenceNormal, incidentPoint);
+            }
+
+            contacts.addContact(pointOnA, pointOnB, normal, depth);
+         }
+      }
+
+      result.addContact(contacts);
+      return true;
+   }
+
+   private static double projectedRadius(Vector3D[] axes, double[] halfSize, Vector3D direction)
+   {
+      return halfSize[0] * Math.abs(axes[0].dot(direction)) + halfSize[1] * Math.abs(axes[1].dot(direction))
+            + halfSize[2] * Math.abs(axes[2].dot(direction));
+   }
+
+   private void computeEdgeEdgeContact(int edgeAxisOne, int edgeAxisTwo)
+   {
+      // Edge of box one that is the furthest along the normal, and edge of box two the furthest against it.
+      edgePointOne.set(centerOne);
+      edgePointTwo.set(centerTwo);
+
+      for (int k = 0; k < 3; k++)
+      {
+         if (k != edgeAxisOne)
+            edgePointOne.scaleAdd(Math.copySign(halfSizeOne[k], axesOne[k].dot(normal)), axesOne[k], edgePointOne);
+         if (k != edgeAxisTwo)
+            edgePointTwo.scaleAdd(-Math.copySign(halfSizeTwo[k], axesTwo[k].dot(normal)), axesTwo[k], edgePointTwo);
+      }
+
+      Vector3D directionOne = axesOne[edgeAxisOne];
+      Vector3D directionTwo = axesTwo[edgeAxisTwo];
+
+      tempVector.sub(edgePointOne, edgePointTwo);
+      double b = directionOne.dot(directionTwo);
+      double d = directionOne.dot(tempVector);
+      double e = directionTwo.dot(tempVector);
+      double denominator = 1.0 - b * b;
+
+      double s = clamp((b * e - d) / denominator, halfSizeOne[edgeAxisOne]);
+      double t = clamp((e - b * d) / denominator, halfSizeTwo[edgeAxisTwo]);
+
+      pointOnA.scaleAdd(s, directionOne, edgePointOne);
+      pointOnB.scaleAdd(t, directionTwo, edgePointTwo);
+   }
+
+   /**
+    * Clips the face of the incident box that is the most anti-parallel to {@link #referenceNormal}
+    * against the side planes of the reference face, and keeps up to four of the points below the
+    * reference face in {@link #contactPoints}.
+    *
+    * @return the number of contacts.
+    */
+   private int computeFaceContacts(Point3D referenceCenter, Vector3D[] referenceAxes, double[] referenceHalfSize, int referenceAxis, Point3D incidentCenter,
+                                   Vector3D[] incidentAxes, double[] incidentHalfSize)
+   {
+      faceCenter.scaleAdd(referenceHalfSize[referenceAxis], referenceNormal, referenceCenter);
+
+      int incidentAxis = 0;
+      double maximumAbsoluteDot = -1.0;
+
+      for (int k = 0; k < 3; k++)
+      {
+         double absoluteDot = Math.abs(incidentAxes[k].dot(referenceNormal));
+
+         if (absoluteDot > maximumAbsoluteDot)
+         {
+            maximumAbsoluteDot = absoluteDot;
+            incidentAxis = k;
+         }
+      }
+
+      // Incident face, with its four vertices wound around its center.
+      Vector3D incidentFaceAxis = incidentAxes[incidentAxis];
+      double incidentFaceOffset = -Math.copySign(incidentHalfSize[incidentAxis], incidentFaceAxis.dot(referenceNormal));
+      int firstTangent = (incidentAxis + 1) % 3;
+      int secondTangent = (incidentAxis + 2) % 3;
+
+      int numberOfPoints = 0;
+      for (int vertex = 0; vertex < 4; vertex++)
+      {
+         double firstSign = (vertex == 0 || vertex == 3) ? 1.0 : -1.0;
+         double secondSign = (vertex < 2) ? 1.0 : -1.0;
+
+         tempVector.set(incidentCenter);
+         tempVector.scaleAdd(incidentFaceOffset, incidentFaceAxis, tempVector);
+         tempVector.scaleAdd(firstSign * incidentHalfSize[firstTangent], incidentAxes[firstTangent], tempVector);
+         tempVector.scaleAdd(secondSign * incidentHalfSize[secondTangent], incidentAxes[secondTangent], tempVector);
+         tempVector.get(3 * numberOfPoints++, clipInput);
+      }
+
+      for (int side = 1; side <= 2; side++)
+      {
+         int tangentAxis = (referenceAxis + side) % 3;
+         Vector3D tangent = referenceAxes[tangentAxis];
+         double centerOffset = tangent.dot(faceCenter);
+         double halfSize = referenceHalfSize[tangentAxis];
+
+         numberOfPoints = clip(numberOfPoints, tangent, 1.0, centerOffset + halfSize);
+         numberOfPoints = clip(numberOfPoints, tangent, -1.0, -centerOffset + halfSize);
+
+         if (numberOfPoints == 0)
+            return 0;
+      }
+
+      double faceOffset = referenceNormal.dot(faceCenter);
+      int numberOfCandidates = 0;
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         Point3D candidate = candidatePoints[numberOfCandidates];
+         candidate.set(3 * i, clipInput);
+         double depth = referenceNormal.dot(candidate) - faceOffset;
+
+         if (depth <= 0.0)
+            candidateDepths[numberOfCandidates++] = depth;
+      }
+
+      return reduceCandidates(numberOfCandidates);
+   }
+
+   /**
+    * Sutherland-Hodgman step keeping the part of the polygon in {@link #clipInput} for which
+    * {@code sign * planeNormal . x <= offset}. The result is swapped back in {@link #clipInput}.
+    */
+   private int clip(int numberOfPoints, Vector3D planeNormal, double sign, double offset)
+   {
+      int numberOfOutputPoints = 0;
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         int next = (i + 1) % numberOfPoints;
+         double distance = sign * dot(planeNormal, clipInput, i) - offset;
+         double nextDistance = sign * dot(planeNormal, clipInput, next) - offset;
+
+         if (distance <= 0.0)
+            copyPoint(clipInput, i, clipOutput, numberOfOutputPoints++);
+
+         if ((distance <= 0.0) != (nextDistance <= 0.0))
+         {
+            double alpha = distance / (distance - nextDistance);
+            for (int k = 0; k < 3; k++)
+            {
+               double start = clipInput[3 * i + k];
+               clipOutput[3 * numberOfOutputPoints + k] = start + alpha * (clipInput[3 * next + k] - start);
+            }
+            numberOfOutputPoints++;
+         }
+      }
+
+      double[] swap = clipInput;
+      clipInput = clipOutput;
+      clipOutput = swap;
+
+      return numberOfOutputPoints;
+   }
+
+   private static double dot(Vector3D vector, double[] points, int index)
+   {
+      return vector.getX() * points[3 * index] + vector.getY() * points[3 * index + 1] + vector.getZ() * points[3 * index + 2];
+   }
+
+   private static void copyPoint(double[] source, int sourceIndex, double[] destination, int destinationIndex)
+   {
+      System.arraycopy(source, 3 * sourceIndex, destination, 3 * destinationIndex, 3);
+   }
+
+   /**
+    * Keeps the deepest candidate, then repeatedly the candidate that is the furthest from the ones
+    * already kept, until {@link #MAXIMUM_NUMBER_OF_CONTACTS} are selected.
+    */
+   private int reduceCandidates(int numberOfCandidates)
+   {
+      if (numberOfCandidates == 0)
+         return 0;
+
+      int deepest = 0;
+      for (int i = 1; i < numberOfCandidates; i++)
+      {
+         if (candidateDepths[i] < candidateDepths[deepest])
+            deepest = i;
+      }
+
+      for (int i = 0; i < numberOfCandidates; i++)
+         candidateSelected[i] = false;
+
+      int numberOfContacts = Math.min(numberOfCandidates, MAXIMUM_NUMBER_OF_CONTACTS);
+      int selected = deepest;
+
+      for (int contact = 0; contact < numberOfContacts; contact++)
+      {
+         candidateSelected[selected] = true;
+         contactPoints[contact].set(candidatePoints[selected]);
+         contactDepths[contact] = candidateDepths[selected];
+
+         double largestDistanceSquared = -1.0;
+
+         for (int i = 0; i < numberOfCandidates; i++)
+         {
+            if (candidateSelected[i])
+               continue;
+
+            double distanceSquared = Double.POSITIVE_INFINITY;
+            for (int j = 0; j <= contact; j++)
+               distanceSquared = Math.min(distanceSquared, candidatePoints[i].distanceSquared(contactPoints[j]));
+
+            if (distanceSquared > largestDistanceSquared)
+            {
+               largestDistanceSquared = distanceSquared;
+               selected = i;
+            }
+         }
+      }
+
+      return numberOfContacts;
+   }
+
+   public boolean doSphereBoxCollisionDetection(CollisionShape sphereShape, SphereShapeDescription<?> sphere, CollisionShape boxShape,
+                                                BoxShapeDescription<?> box, CollisionDetectionResult result)
+   {
+      loadBox(box, centerTwo, axesTwo, halfSizeTwo);
+      sphere.getCenter(segmentPoint);
+
+      if (!computePointBoxContact(segmentPoint, sphere.getRadius()))
+         return false;
+
+      SimpleContactWrapper contacts = new SimpleContactWrapper(sphereShape, boxShape);
+      contacts.addContact(pointOnSphere, closestPointOnBox, pointToBoxNormal, pointToBoxDistance);
+      result.addContact(contacts);
+      return true;
+   }
+
+   /**
+    * Finds the point of the capsule segment closest to the box exactly by minimizing the piecewise
+    * quadratic distance between the breakpoints where the segment crosses the planes of the box
+    * faces. When both ends of the capsule touch the same face, as when it lies on it, the two ends are
+    * reported instead.
+    */
+   public boolean doCapsuleBoxCollisionDetection(CollisionShape capsuleShape, CapsuleShapeDescription<?> capsule, CollisionShape boxShape,
+                                                 BoxShapeDescription<?> box, CollisionDetectionResult result)
+   {
+      loadBox(box, centerTwo, axesTwo, halfSizeTwo);
+      double radius = capsule.getRadius();
+
+      capsule.getLineSegment(tempLineSegment);
+      segmentStart.set(tempLineSegment.getFirstEndpoint());
+      segmentEnd.set(tempLineSegment.getSecondEndpoint());
+      segmentDirection.sub(segmentEnd, segmentStart);
+
+      tempVector.sub(segmentStart, centerTwo);
+      int numberOfBreakpoints = 0;
+      breakpoints[numberOfBreakpoints++] = 0.0;
+
+      for (int k = 0; k < 3; k++)
+      {
+         localStart[k] = tempVector.dot(axesTwo[k]);
+         localDirection[k] = segmentDirection.dot(axesTwo[k]);
+
+         if (localDirection[k] != 0.0)
+         {
+            numberOfBreakpoints = addBreakpoint((halfSizeTwo[k] - localStart[k]) / localDirection[k], numberOfBreakpoints);
+            numberOfBreakpoints = addBreakpoint((-halfSizeTwo[k] - localStart[k]) / localDirection[k], numberOfBreakpoints);
+         }
+      }
+
+      breakpoints[numberOfBreakpoints++] = 1.0;
+      sort(breakpoints, numberOfBreakpoints);
+
+      double bestParameter = 0.0;
+      double bestDistanceSquared = Double.POSITIVE_INFINITY;
+
+      for (int interval = 0; interval < numberOfBreakpoints - 1; interval++)
+      {
+         double lower = breakpoints[interval];
+         double upper = breakpoints[interval + 1];
+         double middle = 0.5 * (lower + upper);
+
+         // Within an interval the same faces are active and the squared distance is a convex quadratic.
+         double numerator = 0.0;
+         double denominator = 0.0;
+
+         for (int k = 0; k < 3; k++)
+         {
+            double coordinate = localStart[k] + middle * localDirection[k];
+            if (Math.abs(coordinate) <= halfSizeTwo[k])
+               continue;
+
+            double bound = Math.copySign(halfSizeTwo[k], coordinate);
+            numerator -= (localStart[k] - bound) * localDirection[k];
+            denominator += localDirection[k] * localDirection[k];
+         }
+
+         double parameter = denominator > 0.0 ? Math.min(upper, Math.max(lower, numerator / denominator)) : lower;
+         double distanceSquared = squaredDistanceToBox(parameter);
+
+         if (distanceSquared < bestDistanceSquared)
+         {
+            bestDistanceSquared = distanceSquared;
+            bestParameter = parameter;
+         }
+      }
+
+      if (bestDistanceSquared > radius * radius)
+         return false;
+
+      if (bestDistanceSquared == 0.0)
+      {
+         // The segment goes through the box, use its point closest to the center of the box.
+         tempVector.sub(centerTwo, segmentStart);
+         double lengthSquared = segmentDirection.lengthSquared();
+         bestParameter = lengthSquared > 0.0 ? Math.min(1.0, Math.max(0.0, tempVector.dot(segmentDirection) / lengthSquared)) : 0.0;
+      }
+
+      segmentPoint.scaleAdd(bestParameter, segmentDirection, segmentStart);
+      if (!computePointBoxContact(segmentPoint, radius))
+         return false;
+
+      storePointBoxContact(0);
+      int numberOfContacts = 1;
+
+      // Capsule lying on a face: report both ends instead.
+      if (computePointBoxContact(segmentStart, radius) && pointToBoxNormal.dot(contactNormals[0]) > PARALLEL_NORMALS_COSINE)
+      {
+         storePointBoxContact(1);
+
+         if (computePointBoxContact(segmentEnd, radius) && pointToBoxNormal.dot(contactNormals[0]) > PARALLEL_NORMALS_COSINE)
+         {
+            storePointBoxContact(2);
+            copyStoredContact(1, 0);
+            copyStoredContact(2, 1);
+            numberOfContacts = 2;
+         }
+      }
+
+      SimpleContactWrapper contacts = new SimpleContactWrapper(capsuleShape, boxShape);
+      for (int i = 0; i < numberOfContacts; i++)
+         contacts.addContact(closestPointsOnSphere[i], closestPointsOnBox[i], contactNormals[i], contactDistances[i]);
+      result.addContact(contacts);
+      return true;
+   }
+
+   private int addBreakpoint(double parameter, int numberOfBreakpoints)
+   {
+      if (parameter > 0.0 && parameter < 1.0)
+         breakpoints[numberOfBreakpoints++] = parameter;
+      return numberOfBreakpoints;
+   }
+
+   private static void sort(double[] values, int length)
+   {
+      for (int i = 1; i < length; i++)
+      {
+         double value = values[i];
+         int j = i - 1;
+         while (j >= 0 && values[j] > value)
+         {
+            values[j + 1] = values[j];
+            j--;
+         }
+         values[j + 1] = value;
+      }
+   }
+
+   private double squaredDistanceToBox(double parameter)
+   {
+      double distanceSquared = 0.0;
+
+      for (int k = 0; k < 3; k++)
+      {
+         double excess = Math.abs(localStart[k] + parameter * localDirection[k]) - halfSizeTwo[k];
+         if (excess > 0.0)
+            distanceSquared += excess * excess;
+      }
+
+      return distanceSquared;
+   }
+
+   private void storePointBoxContact(int index)
+   {
+      closestPointsOnSphere[index].set(pointOnSphere);
+      closestPointsOnBox[index].set(closestPointOnBox);
+      contactNormals[index].set(pointToBoxNormal);
+      contactDistances[index] = pointToBoxDistance;
+   }
+
+   private void copyStoredContact(int from, int to)
+   {
+      closestPointsOnSphere[to].set(closestPointsOnSphere[from]);
+      closestPointsOnBox[to].set(closestPointsOnBox[from]);
+      contactNormals[to].set(contactNormals[from]);
+      contactDistances[to] = contactDistances[from];
+   }
+
+   /**
+    * Contact between a sphere of the given center and radius and the box loaded in
+    * {@link #centerTwo}. Packs {@link #pointOnSphere}, {@link #closestPointOnBox},
+    * {@link #pointToBoxNormal} pointing from the sphere to the box, and {@link #pointToBoxDistance}.
+    *
+    * @return whether the sphere is touching the box.
+    */
+   private boolean computePointBoxContact(Point3D center, double radius)
+   {
+      tempVector.sub(center, centerTwo);
+      boolean isInside = true;
+
+      for (int k = 0; k < 3; k++)
+      {
+         localPoint[k] = tempVector.dot(axesTwo[k]);
+         if (Math.abs(localPoint[k]) > halfSizeTwo[k])
+            isInside = false;
+      }
+
+      if (!isInside)
+      {
+         closestPointOnBox.set(centerTwo);
+         for (int k = 0; k < 3; k++)
+            closestPointOnBox.scaleAdd(clamp(localPoint[k], halfSizeTwo[k]), axesTwo[k], closestPointOnBox);
+
+         pointToBoxNormal.sub(closestPointOnBox, center);
+         double distance = pointToBoxNormal.length();
+         if (distance > radius || distance == 0.0)
+            return false;
+
+         pointToBoxNormal.scale(1.0 / distance);
+         pointToBoxDistance = distance - radius;
+      }
+      else
+      {
+         // The center is inside, push it out through the closest face.
+         int closestFace = 0;
+         double smallestDepth = Double.POSITIVE_INFINITY;
+
+         for (int k = 0; k < 3; k++)
+         {
+            double depth = halfSizeTwo[k] - Math.abs(localPoint[k]);
+            if (depth < smallestDepth)
+            {
+               smallestDepth = depth;
+               closestFace = k;
+            }
+         }
+
+         double faceSign = localPoint[closestFace] >= 0.0 ? 1.0 : -1.0;
+         closestPointOnBox.scaleAdd(faceSign * smallestDepth, axesTwo[closestFace], center);
+         pointToBoxNormal.setAndScale(-faceSign, axesTwo[closestFace]);
+         pointToBoxDistance = -smallestDepth - radius;
+      }
+
+      pointOnSphere.scaleAdd(radius, pointToBoxNormal, center);
+      return true;
+   }
+
+   /**
+    * Cylinder against the planes of the box faces. The face of least penetration is used as the
+    * contact plane and the lowest points of the cylinder rims below it are reported: the four
+    * extreme points of the cap when standing on it, the two ends of the bottom line when lying on it,
+    * and a single rim point otherwise.
+    *
+    * @return the number of contacts added to the result, or {@link #UNRESOLVED} when the cylinder is
+    *         not in contact with the inside of a face, for instance against an edge of the box, in
+    *         which case the caller should fall back to a general algorithm.
+    */
+   public int doCylinderBoxCollisionDetection(CollisionShape cylinderShape, CylinderShapeDescription<?> cylinderDescription, CollisionShape boxShape,
+                                              BoxShapeDescription<?> box, CollisionDetectionResult result)
+   {
+      loadBox(box, centerTwo, axesTwo, halfSizeTwo);
+
+      Cylinder3D cylinder = cylinderDescription.getSupportingVertexHolder();
+      double radius = cylinder.getRadius();
+      double halfLength = 0.5 * cylinder.getLength();
+      double smoothingRadius = cylinderDescription.getSmoothingRadius();
+      centerOne.set(cylinder.getPosition());
+      Vector3D axis = cylinderAxis;
+      axis.set(cylinder.getAxis());
+
+      centerToCenter.sub(centerOne, centerTwo);
+
+      // The cylinder axis can separate the shapes, for instance a cylinder standing next to the box.
+      if (Math.abs(centerToCenter.dot(axis)) - halfLength - smoothingRadius - projectedRadius(axesTwo, halfSizeTwo, axis) > 0.0)
+         return 0;
+
+      double bestSeparation = Double.NEGATIVE_INFINITY;
+      int bestFace = -1;
+
+      for (int k = 0; k < 3; k++)
+      {
+         // Face of the box facing the cylinder along this axis.
+         double faceSign = centerToCenter.dot(axesTwo[k]) >= 0.0 ? 1.0 : -1.0;
+         double axisDot = faceSign * axesTwo[k].dot(axis);
+         double separation = faceSign * centerToCenter.dot(axesTwo[k]) - halfSizeTwo[k] - Math.abs(axisDot) * halfLength
+               - radius * Math.sqrt(Math.max(0.0, 1.0 - axisDot * axisDot)) - smoothingRadius;
+
+         if (separation > 0.0)
+            return 0;
+
+         if (separation > bestSeparation)
+         {
+            bestSeparation = separation;
+            bestFace = k;
+            normal.setAndScale(faceSign, axesTwo[k]);
+         }
+      }
+
+      faceCenter.scaleAdd(halfSizeTwo[bestFace], normal, centerTwo);
+      double faceOffset = normal.dot(faceCenter);
+      double axisDot = normal.dot(axis);
+
+      int numberOfCandidates = 0;
+      rimDirectionOne.set(normal);
+      rimDirectionOne.scaleAdd(-axisDot, axis, rimDirectionOne);
+      double rimLength = rimDirectionOne.length();
+
+      if (rimLength < FLAT_CAP_SINE)
+      {
+         // Standing on the cap, use four points of the rim of the lower cap aligned with the face.
+         capCenter.scaleAdd(-Math.copySign(halfLength, axisDot), axis, centerOne);
+         Vector3D faceTangent = axesTwo[(bestFace + 1) % 3];
+         rimDirectionOne.set(faceTangent);
+         rimDirectionOne.scaleAdd(-faceTangent.dot(axis), axis, rimDirectionOne);
+         rimDirectionOne.normalize();
+         rimDirectionTwo.cross(axis, rimDirectionOne);
+
+         for (int i = 0; i < 4; i++)
+         {
+            Vector3D direction = i < 2 ? rimDirectionOne : rimDirectionTwo;
+            double sign = (i % 2 == 0) ? radius : -radius;
+            candidatePoints[numberOfCandidates++].scaleAdd(sign, direction, capCenter);
+         }
+      }
+      else
+      {
+         // Lowest point of each rim, these are the two ends of the bottom line when lying on the side.
+         rimDirectionOne.scale(1.0 / rimLength);
+
+         for (int i = 0; i < 2; i++)
+         {
+            capCenter.scaleAdd(i == 0 ? halfLength : -halfLength, axis, centerOne);
+            candidatePoints[numberOfCandidates++].scaleAdd(-radius, rimDirectionOne, capCenter);
+         }
+      }
+
+      int numberOfContacts = 0;
+      boolean deepestIsOnFace = false;
+      double deepest = Double.POSITIVE_INFINITY;
+
+      for (int i = 0; i < numberOfCandidates; i++)
+      {
+         Point3D candidate = candidatePoints[i];
+         candidate.scaleAdd(-smoothingRadius, normal, candidate);
+         double depth = normal.dot(candidate) - faceOffset;
+
+         boolean isOnFace = true;
+         for (int side = 1; side <= 2; side++)
+         {
+            int tangentAxis = (bestFace + side) % 3;
+            tempVector.sub(candidate, faceCenter);
+            if (Math.abs(tempVector.dot(axesTwo[tangentAxis])) > halfSizeTwo[tangentAxis] + FACE_EXTENT_EPSILON)
+               isOnFace = false;
+         }
+
+         if (depth < deepest)
+         {
+            deepest = depth;
+            deepestIsOnFace = isOnFace;
+         }
+
+         if (depth <= 0.0 && isOnFace)
+         {
+            contactPoints[numberOfContacts].set(candidate);
+            contactDepths[numberOfContacts++] = depth;
+         }
+      }
+
+      if (!deepestIsOnFace || numberOfContacts == 0)
+         return UNRESOLVED;
+
+      // Normal from the cylinder to the box.
+      referenceNormal.setAndNegate(normal);
+      SimpleContactWrapper contacts = new SimpleContactWrapper(cylinderShape, boxShape);
+
+      for (int i = 0; i < numberOfContacts; i++)
+      {
+         pointOnB.scaleAdd(-contactDepths[i], normal, contactPoints[i]);
+         contacts.addContact(contactPoints[i], pointOnB, referenceNormal, contactDepths[i]);
+      }
+
+      result.addContact(contacts);
+      return numberOfContacts;
+   }
+
+   private static void loadBox(BoxShapeDescription<?> box, Point3D centerToPack, Vector3D[] axesToPack, double[] halfSizeToPack)
+   {
+      box.getCenter(centerToPack);
+
+      for (int k = 0; k < 3; k++)
+      {
+         box.getAxis(k, axesToPack[k]);
+         halfSizeToPack[k] = box.getHalfSize(k);
+      }
+   }
+
+   private static double clamp(double value, double halfRange)
+   {
+      return Math.min(halfRange, Math.max(-halfRange, value));
+   }
+}
@@ -1,9 +1,13 @@
 package us.ihmc.simulationconstructionset.physics.collision.simple;
 
 import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.shape.collision.interfaces.SupportingVertexHolder;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DBasics;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DBasics;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
 import us.ihmc.simulationconstructionset.physics.CollisionShapeDescription;
 
 public class BoxShapeDescription<T extends BoxShapeDescription<T>> implements CollisionShapeDescription<T>
@@ -22,6 +26,23 @@ public class BoxShapeDescription<T extends BoxShapeDescription<T>> implements Co
                                                                Double.POSITIVE_INFINITY);
    private boolean boundingBoxNeedsUpdating = true;
 
+   private final Point3D localPoint = new Point3D();
+
+   private final SupportingVertexHolder supportingVertexHolder = new SupportingVertexHolder()
+   {
+      @Override
+      public boolean getSupportingVertex(Vector3DReadOnly supportDirection, Point3DBasics supportingVertexToPack)
+      {
+         double localX = transform.getM00() * supportDirection.getX() + transform.getM10() * supportDirection.getY() + transform.getM20() * supportDirection.getZ();
+         double localY = transform.getM01() * supportDirection.getX() + transform.getM11() * supportDirection.getY() + transform.getM21() * supportDirection.getZ();
+         double localZ = transform.getM02() * supportDirection.getX() + transform.getM12() * supportDirection.getY() + transform.getM22() * supportDirection.getZ();
+
+         supportingVertexToPack.set(Math.copySign(halfLengthX, localX), Math.copySign(halfWidthY, localY), Math.copySign(halfHeightZ, localZ));
+         transform.transform(supportingVertexToPack);
+         return true;
+      }
+   };
+
    public BoxShapeDescription(double halfLengthX, double halfWidthY, double halfHeightZ)
    {
       this.halfLengthX = halfLengthX;
@@ -36,6 +57,7 @@ public class BoxShapeDescription<T extends BoxShapeDescription<T>> implements Co
       BoxShapeDescription<T> copy = new BoxShapeDescription<>(halfLengthX, halfWidthY, halfHeightZ);
       copy.transform.set(this.transform);
       copy.boundingBox.set(this.boundingBox);
+      copy.boundingBoxNeedsUpdating = this.boundingBoxNeedsUpdating;
       return copy;
    }
 
@@ -54,11 +76,60 @@ public class BoxShapeDescription<T extends BoxShapeDescription<T>> implements Co
       return halfHeightZ;
    }
 
+   public double getHalfSize(int axis)
+   {
+      switch (axis)
+      {
+         case 0:
+            return halfLengthX;
+         case 1:
+            return halfWidthY;
+         case 2:
+            return halfHeightZ;
+         default:
+            throw new IndexOutOfBoundsException("Axis: " + axis);
+      }
+   }
+
    public void getTransform(RigidBodyTransform transformToPack)
    {
       transformToPack.set(transform);
    }
 
+   public void getCenter(Point3DBasics centerToPack)
+   {
+      centerToPack.set(transform.getM03(), transform.getM13(), transform.getM23());
+   }
+
+   /**
+    * Packs the direction in world of the x (0), y (1) or z (2) axis of the box.
+    */
+   public void getAxis(int axis, Vector3DBasics axisToPack)
+   {
+      switch (axis)
+      {
+         case 0:
+            axisToPack.set(transform.getM00(), transform.getM10(), transform.getM20());
+            break;
+         case 1:
+            axisToPack.set(transform.getM01(), transform.getM11(), transform.getM21());
+            break;
+         case 2:
+            axisToPack.set(transform.getM02(), transform.getM12(), transform.getM22());
+            break;
+         default:
+            throw new IndexOutOfBoundsException("Axis: " + axis);
+      }
+   }
+
+   /**
+    * Returns the box as a {@link SupportingVertexHolder} for the pairs which are solved with GJK.
+    */
+   public SupportingVertexHolder getSupportingVertexHolder()
+   {
+      return supportingVertexHolder;
+   }
+
    @Override
    public void applyTransform(RigidBodyTransform transformToWorld)
    {
@@ -90,13 +161,22 @@ public class BoxShapeDescription<T extends BoxShapeDescription<T>> implements Co
 
    private void updateBoundingBox()
    {
-      throw new RuntimeException("Implement Me!");
+      double extentX = Math.abs(transform.getM00()) * halfLengthX + Math.abs(transform.getM01()) * halfWidthY + Math.abs(transform.getM02()) * halfHeightZ;
+      double extentY = Math.abs(transform.getM10()) * halfLengthX + Math.abs(transform.getM11()) * halfWidthY + Math.abs(transform.getM12()) * halfHeightZ;
+      double extentZ = Math.abs(transform.getM20()) * halfLengthX + Math.abs(transform.getM21()) * halfWidthY + Math.abs(transform.getM22()) * halfHeightZ;
+
+      double centerX = transform.getM03();
+      double centerY = transform.getM13();
+      double centerZ = transform.getM23();
+
+      boundingBox.set(centerX - extentX, centerY - extentY, centerZ - extentZ, centerX + extentX, centerY + extentY, centerZ + extentZ);
    }
 
    @Override
    public boolean isPointInside(Point3D pointInWorld)
    {
-      throw new RuntimeException("Implement Me!");
+      transform.inverseTransform(pointInWorld, localPoint);
+      return Math.abs(localPoint.getX()) <= halfLengthX && Math.abs(localPoint.getY()) <= halfWidthY && Math.abs(localPoint.getZ()) <= halfHeightZ;
    }
 
    /**
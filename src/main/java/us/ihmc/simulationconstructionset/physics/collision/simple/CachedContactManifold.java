@@ -0,0 +1,263 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DBasics;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.Contacts;
+
+/**
+ * Contacts between a pair of shapes that persist from one tick to the next in a
+ * {@link ContactManifoldCache}. On top of the geometry reported by the collision detector, each
+ * contact carries the impulse accumulated by the collision handler and the index of the contacting
+ * external force point that was used as spring touchdown, so that handlers can warm start from the
+ * previous tick. The {@code SequentialImpulseCollisionHandler} reads and writes the impulses. The
+ * {@code HybridImpulseSpringDamperCollisionHandler} reads and writes the touchdowns, and stores the
+ * spring force of each contact in place of its impulse. All the data is kept in primitive arrays
+ * which are recycled with the manifold.
+ */
+public class CachedContactManifold implements Contacts
+{
+   private static final int POINT_STRIDE = 3;
+
+   private CollisionShape shapeA;
+   private CollisionShape shapeB;
+   private long pairKey;
+   private int lastUpdateTick;
+
+   private int numberOfContacts;
+   private final double[] worldA;
+   private final double[] worldB;
+   private final double[] normalA;
+   private final double[] distance;
+   private final double[] accumulatedImpulse;
+   private final int[] touchdownIndex;
+
+   private final Point3D tempPointA = new Point3D();
+   private final Point3D tempPointB = new Point3D();
+   private final Vector3D tempNormal = new Vector3D();
+
+   CachedContactManifold(int maximumNumberOfContacts)
+   {
+      worldA = new double[POINT_STRIDE * maximumNumberOfContacts];
+      worldB = new double[POINT_STRIDE * maximumNumberOfContacts];
+      normalA = new double[POINT_STRIDE * maximumNumberOfContacts];
+      distance = new double[maximumNumberOfContacts];
+      accumulatedImpulse = new double[POINT_STRIDE * maximumNumberOfContacts];
+      touchdownIndex = new int[maximumNumberOfContacts];
+   }
+
+   void initialize(CollisionShape shapeA, CollisionShape shapeB, long pairKey)
+   {
+      this.shapeA = shapeA;
+      this.shapeB = shapeB;
+      this.pairKey = pairKey;
+      numberOfContacts = 0;
+   }
+
+   boolean isPairOf(CollisionShape shapeOne, CollisionShape shapeTwo)
+   {
+      return (shapeOne == shapeA && shapeTwo == shapeB) || (shapeOne == shapeB && shapeTwo == shapeA);
+   }
+
+   long getPairKey()
+   {
+      return pairKey;
+   }
+
+   int getLastUpdateTick()
+   {
+      return lastUpdateTick;
+   }
+
+   void setLastUpdateTick(int lastUpdateTick)
+   {
+      this.lastUpdateTick = lastUpdateTick;
+   }
+
+   public int getMaximumNumberOfContacts()
+   {
+      return distance.length;
+   }
+
+   void setNumberOfContacts(int numberOfContacts)
+   {
+      this.numberOfContacts = numberOfContacts;
+   }
+
+   void setContact(int which, Point3D pointA, Point3D pointB, Vector3D normal, double distance)
+   {
+      int offset = POINT_STRIDE * which;
+      pointA.get(offset, worldA);
+      pointB.get(offset, worldB);
+      normal.get(offset, normalA);
+      this.distance[which] = distance;
+      accumulatedImpulse[offset] = 0.0;
+      accumulatedImpulse[offset + 1] = 0.0;
+      accumulatedImpulse[offset + 2] = 0.0;
+      touchdownIndex[which] = -1;
+   }
+
+   /**
+    * Copies the warm starting state of the contact {@code from} in {@code other} to the contact
+    * {@code to} in this manifold.
+    */
+   void copyPersistentState(CachedContactManifold other, int from, int to)
+   {
+      System.arraycopy(other.accumulatedImpulse, POINT_STRIDE * from, accumulatedImpulse, POINT_STRIDE * to, POINT_STRIDE);
+      touchdownIndex[to] = other.touchdownIndex[from];
+   }
+
+   void set(CachedContactManifold other)
+   {
+      shapeA = other.shapeA;
+      shapeB = other.shapeB;
+      pairKey = other.pairKey;
+      lastUpdateTick = other.lastUpdateTick;
+      numberOfContacts = other.numberOfContacts;
+      System.arraycopy(other.worldA, 0, worldA, 0, POINT_STRIDE * numberOfContacts);
+      System.arraycopy(other.worldB, 0, worldB, 0, POINT_STRIDE * numberOfContacts);
+      System.arraycopy(other.normalA, 0, normalA, 0, POINT_STRIDE * numberOfContacts);
+      System.arraycopy(other.distance, 0, distance, 0, numberOfContacts);
+      System.arraycopy(other.accumulatedImpulse, 0, accumulatedImpulse, 0, POINT_STRIDE * numberOfContacts);
+      System.arraycopy(other.touchdownIndex, 0, touchdownIndex, 0, numberOfContacts);
+   }
+
+   double distanceSquaredToWorldA(int which, Point3D point)
+   {
+      int offset = POINT_STRIDE * which;
+      double dx = worldA[offset] - point.getX();
+      double dy = worldA[offset + 1] - point.getY();
+      double dz = worldA[offset + 2] - point.getZ();
+      return dx * dx + dy * dy + dz * dz;
+   }
+
+   /**
+    * Impulse accumulated on shape A at the given contact, carried over from the previous tick if the
+    * contact persisted.
+    */
+   public void getAccumulatedImpulse(int which, Vector3DBasics impulseToPack)
+   {
+      impulseToPack.set(POINT_STRIDE * which, accumulatedImpulse);
+   }
+
+   public void setAccumulatedImpulse(int which, Vector3DReadOnly impulse)
+   {
+      impulse.get(POINT_STRIDE * which, accumulatedImpulse);
+   }
+
+   /**
+    * Index of the contacting external force point used as spring touchdown for the given contact, or
+    * -1 if none has been assigned yet.
+    */
+   public int getTouchdownIndex(int which)
+   {
+      return touchdownIndex[which];
+   }
+
+   public void setTouchdownIndex(int which, int index)
+   {
+      touchdownIndex[which] = index;
+   }
+
+   @Override
+   public CollisionShape getShapeA()
+   {
+      return shapeA;
+   }
+
+   @Override
+   public CollisionShape getShapeB()
+   {
+      return shapeB;
+   }
+
+   @Override
+   public int getNumberOfContacts()
+   {
+      return numberOfContacts;
+   }
+
+   @Override
+   public void getWorldA(int which, Point3D locationAToPack)
+   {
+      locationAToPack.set(POINT_STRIDE * which, worldA);
+   }
+
+   @Override
+   public void getWorldB(int which, Point3D locationBToPack)
+   {
+      locationBToPack.set(POINT_STRIDE * which, worldB);
+   }
+
+   @Override
+   public double getDistance(int which)
+   {
+      return distance[which];
+   }
+
+   @Override
+   public void getWorldNormal(int which, Vector3D normalToPack)
+   {
+      normalToPack.set(POINT_STRIDE * which, normalA);
+   }
+
+   @Override
+   public boolean isNormalOnA()
+   {
+      return true;
+   }
+
+   /**
+    * Replaces the contacts of this manifold with the given ones, which have to be between the same
+    * pair of shapes. The persistent state of the contacts is reset, the {@link ContactManifoldCache}
+    * carries it over when updating the manifold.
+    */
+   @Override
+   public void set(Contacts contacts)
+   {
+      if (contacts == this)
+         return;
+
+      numberOfContacts = 0;
+      addAll(contacts);
+   }
+
+   /**
+    * Adds the given contacts, which have to be between the same pair of shapes, possibly switched.
+    * The contacts beyond {@link #getMaximumNumberOfContacts()} are dropped.
+    */
+   @Override
+   public void addAll(Contacts contacts)
+   {
+      boolean switched = contacts.getShapeA() != shapeA;
+
+      if (switched ? contacts.getShapeA() != shapeB || contacts.getShapeB() != shapeA : contacts.getShapeB() != shapeB)
+         throw new RuntimeException("The contacts are not between the shapes of this manifold.");
+
+      int numberOfContactsToAdd = Math.min(contacts.getNumberOfContacts(), getMaximumNumberOfContacts() - numberOfContacts);
+
+      for (int i = 0; i < numberOfContactsToAdd; i++)
+      {
+         contacts.getWorldA(i, tempPointA);
+         contacts.getWorldB(i, tempPointB);
+         contacts.getWorldNormal(i, tempNormal);
+
+         if (!contacts.isNormalOnA())
+            tempNormal.negate();
+
+         if (switched)
+         {
+            tempNormal.negate();
+            setContact(numberOfContacts, tempPointB, tempPointA, tempNormal, contacts.getDistance(i));
+         }
+         else
+         {
+            setContact(numberOfContacts, tempPointA, tempPointB, tempNormal, contacts.getDistance(i));
+         }
+
+         numberOfContacts++;
+      }
+   }
+}
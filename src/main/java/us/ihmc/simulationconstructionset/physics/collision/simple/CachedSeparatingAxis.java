@@ -0,0 +1,171 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DBasics;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+
+/**
+ * Direction between a pair of shapes found by the last GJK query on the pair, kept in a
+ * {@link SeparatingAxisCache}. When the shapes were apart, the direction is a separating axis that
+ * can prove the shapes are still apart with two support queries. Otherwise it is the contact normal
+ * and is only used to seed the next GJK query.
+ * <p>
+ * The direction goes from shape A to shape B. It is dropped once either shape has moved or rotated
+ * more than the cache thresholds since it was computed.
+ * </p>
+ */
+public class CachedSeparatingAxis
+{
+   private CollisionShape shapeA;
+   private CollisionShape shapeB;
+   private long pairKey;
+   private int lastUpdateTick;
+
+   private boolean hasDirection = false;
+   private boolean isSeparatingAxis = false;
+   private boolean wasLastQuerySkipped = false;
+   private final Vector3D direction = new Vector3D();
+
+   private final RigidBodyTransform currentTransformA = new RigidBodyTransform();
+   private final RigidBodyTransform currentTransformB = new RigidBodyTransform();
+   private final RigidBodyTransform referenceTransformA = new RigidBodyTransform();
+   private final RigidBodyTransform referenceTransformB = new RigidBodyTransform();
+
+   CachedSeparatingAxis()
+   {
+   }
+
+   void initialize(CollisionShape shapeA, CollisionShape shapeB, long pairKey)
+   {
+      this.shapeA = shapeA;
+      this.shapeB = shapeB;
+      this.pairKey = pairKey;
+      invalidate();
+   }
+
+   long getPairKey()
+   {
+      return pairKey;
+   }
+
+   int getLastUpdateTick()
+   {
+      return lastUpdateTick;
+   }
+
+   void setLastUpdateTick(int lastUpdateTick)
+   {
+      this.lastUpdateTick = lastUpdateTick;
+   }
+
+   /**
+    * Stores the current poses of the two shapes and drops the direction if either shape moved too
+    * much since the direction was computed.
+    */
+   void updatePoses(RigidBodyTransform transformA, RigidBodyTransform transformB, double maximumTranslation, double maximumRotation)
+   {
+      currentTransformA.set(transformA);
+      currentTransformB.set(transformB);
+      wasLastQuerySkipped = false;
+
+      if (hasDirection && (hasMoved(referenceTransformA, currentTransformA, maximumTranslation, maximumRotation)
+            || hasMoved(referenceTransformB, currentTransformB, maximumTranslation, maximumRotation)))
+      {
+         invalidate();
+      }
+   }
+
+   public void invalidate()
+   {
+      hasDirection = false;
+      isSeparatingAxis = false;
+   }
+
+   boolean isPairOf(CollisionShape shapeOne, CollisionShape shapeTwo)
+   {
+      return (shapeOne == shapeA && shapeTwo == shapeB) || (shapeOne == shapeB && shapeTwo == shapeA);
+   }
+
+   public CollisionShape getShapeA()
+   {
+      return shapeA;
+   }
+
+   public CollisionShape getShapeB()
+   {
+      return shapeB;
+   }
+
+   public boolean hasDirection()
+   {
+      return hasDirection;
+   }
+
+   public boolean isSeparatingAxis()
+   {
+      return hasDirection && isSeparatingAxis;
+   }
+
+   /**
+    * Whether the last query on the pair was answered with the cached separating axis without
+    * running GJK.
+    */
+   public boolean wasLastQuerySkipped()
+   {
+      return wasLastQuerySkipped;
+   }
+
+   void setLastQuerySkipped()
+   {
+      wasLastQuerySkipped = true;
+   }
+
+   /**
+    * Packs the cached direction, going from {@code fromShape} to the other shape of the pair.
+    */
+   public void getDirection(CollisionShape fromShape, Vector3DBasics directionToPack)
+   {
+      if (fromShape == shapeA)
+         directionToPack.set(direction);
+      else
+         directionToPack.setAndNegate(direction);
+   }
+
+   /**
+    * Stores the direction found by GJK, going from {@code fromShape} to the other shape of the pair,
+    * along with the poses at which it was computed.
+    *
+    * @param isSeparatingAxis whether the shapes were apart along this direction.
+    */
+   void setDirection(CollisionShape fromShape, Vector3DReadOnly newDirection, boolean isSeparatingAxis)
+   {
+      if (fromShape == shapeA)
+         direction.set(newDirection);
+      else
+         direction.setAndNegate(newDirection);
+
+      hasDirection = true;
+      this.isSeparatingAxis = isSeparatingAxis;
+      referenceTransformA.set(currentTransformA);
+      referenceTransformB.set(currentTransformB);
+   }
+
+   private static boolean hasMoved(RigidBodyTransform reference, RigidBodyTransform current, double maximumTranslation, double maximumRotation)
+   {
+      double dx = current.getM03() - reference.getM03();
+      double dy = current.getM13() - reference.getM13();
+      double dz = current.getM23() - reference.getM23();
+
+      if (dx * dx + dy * dy + dz * dz > maximumTranslation * maximumTranslation)
+         return true;
+
+      // trace(R_ref^T R) = 1 + 2 cos(angle)
+      double trace = reference.getM00() * current.getM00() + reference.getM01() * current.getM01() + reference.getM02() * current.getM02()
+            + reference.getM10() * current.getM10() + reference.getM11() * current.getM11() + reference.getM12() * current.getM12()
+            + reference.getM20() * current.getM20() + reference.getM21() * current.getM21() + reference.getM22() * current.getM22();
+
+      return 0.5 * (trace - 1.0) < Math.cos(maximumRotation);
+   }
+}
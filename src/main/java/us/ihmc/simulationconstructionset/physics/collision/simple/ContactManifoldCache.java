@@ -0,0 +1,212 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.Contacts;
+
+/**
+ * Keeps one {@link CachedContactManifold} per pair of shapes in contact. Manifolds are looked up in
+ * a {@link PairKeyTable}, stored densely for iteration and recycled when the pair separates, so
+ * that updating the cache does not allocate once the scene has reached its steady state.
+ * <p>
+ * When a pair is reported again, each new contact inherits the accumulated impulse and the spring
+ * touchdown of the closest previous contact within {@link #setMatchingDistance(double)}.
+ * </p>
+ */
+public class ContactManifoldCache
+{
+   private final int maximumNumberOfContactsPerManifold;
+   private double matchingDistance = 0.003;
+
+   private final ArrayList<CachedContactManifold> manifolds = new ArrayList<>();
+   private int numberOfManifolds = 0;
+   private int currentTick = 0;
+
+   private final PairKeyTable pairKeyTable = new PairKeyTable(64);
+
+   private final CachedContactManifold previousManifold;
+   private boolean[] previousContactMatched;
+
+   private final Point3D tempPointA = new Point3D();
+
+   public ContactManifoldCache()
+   {
+      this(4);
+   }
+
+   public ContactManifoldCache(int maximumNumberOfContactsPerManifold)
+   {
+      this.maximumNumberOfContactsPerManifold = maximumNumberOfContactsPerManifold;
+      previousManifold = new CachedContactManifold(maximumNumberOfContactsPerManifold);
+      previousContactMatched = new boolean[maximumNumberOfContactsPerManifold];
+   }
+
+   public void setMatchingDistance(double matchingDistance)
+   {
+      this.matchingDistance = matchingDistance;
+   }
+
+   /**
+    * Starts a new tick. Manifolds which are not updated before the next call to
+    * {@link #removeStaleManifolds()} are dropped.
+    */
+   public void beginUpdate()
+   {
+      currentTick++;
+   }
+
+   /**
+    * Replaces the contacts of the pair of shapes in {@code collision} with the new ones, carrying
+    * over the persistent state of the contacts that did not move more than the matching distance.
+    */
+   public CachedContactManifold update(Contacts collision)
+   {
+      CollisionShape shapeA = collision.getShapeA();
+      CollisionShape shapeB = collision.getShapeB();
+      long pairKey = pairKeyTable.computePairKey(shapeA, shapeB);
+
+      int slot = pairKeyTable.get(pairKey);
+      CachedContactManifold manifold;
+
+      if (slot == -1)
+      {
+         manifold = addManifold(shapeA, shapeB, pairKey);
+         previousManifold.setNumberOfContacts(0);
+      }
+      else
+      {
+         manifold = manifolds.get(slot);
+
+         // The IDs of a removed shape can be given to a new one.
+         if (manifold.isPairOf(shapeA, shapeB))
+         {
+            previousManifold.set(manifold);
+         }
+         else
+         {
+            manifold.initialize(shapeA, shapeB, pairKey);
+            previousManifold.setNumberOfContacts(0);
+         }
+      }
+
+      manifold.set(collision);
+      manifold.setLastUpdateTick(currentTick);
+
+      matchWithPreviousContacts(manifold);
+
+      return manifold;
+   }
+
+   private void matchWithPreviousContacts(CachedContactManifold manifold)
+   {
+      int numberOfPreviousContacts = previousManifold.getNumberOfContacts();
+      if (numberOfPreviousContacts == 0)
+         return;
+
+      Arrays.fill(previousContactMatched, 0, numberOfPreviousContacts, false);
+      double matchingDistanceSquared = matchingDistance * matchingDistance;
+
+      for (int i = 0; i < manifold.getNumberOfContacts(); i++)
+      {
+         manifold.getWorldA(i, tempPointA);
+
+         int closestPreviousContact = -1;
+         double closestDistanceSquared = matchingDistanceSquared;
+
+         for (int j = 0; j < numberOfPreviousContacts; j++)
+         {
+            if (previousContactMatched[j])
+               continue;
+
+            double distanceSquared = previousManifold.distanceSquaredToWorldA(j, tempPointA);
+            if (distanceSquared < closestDistanceSquared)
+            {
+               closestDistanceSquared = distanceSquared;
+               closestPreviousContact = j;
+            }
+         }
+
+         if (closestPreviousContact != -1)
+         {
+            previousContactMatched[closestPreviousContact] = true;
+            manifold.copyPersistentState(previousManifold, closestPreviousContact, i);
+         }
+      }
+   }
+
+   /**
+    * Removes the manifolds of the pairs that were not reported since the last call to
+    * {@link #beginUpdate()}.
+    */
+   public void removeStaleManifolds()
+   {
+      for (int slot = numberOfManifolds - 1; slot >= 0; slot--)
+      {
+         if (manifolds.get(slot).getLastUpdateTick() != currentTick)
+            removeManifold(slot);
+      }
+   }
+
+   public void clear()
+   {
+      numberOfManifolds = 0;
+      pairKeyTable.clear();
+   }
+
+   public int getNumberOfManifolds()
+   {
+      return numberOfManifolds;
+   }
+
+   public CachedContactManifold getManifold(int index)
+   {
+      if (index >= numberOfManifolds)
+         throw new IndexOutOfBoundsException("Index: " + index + ", number of manifolds: " + numberOfManifolds);
+      return manifolds.get(index);
+   }
+
+   /**
+    * Returns the manifold between the two shapes, or {@code null} if they are not in contact.
+    */
+   public CachedContactManifold getManifold(CollisionShape shapeA, CollisionShape shapeB)
+   {
+      int slot = pairKeyTable.get(pairKeyTable.computePairKey(shapeA, shapeB));
+      if (slot == -1)
+         return null;
+
+      CachedContactManifold manifold = manifolds.get(slot);
+      return manifold.isPairOf(shapeA, shapeB) ? manifold : null;
+   }
+
+   private CachedContactManifold addManifold(CollisionShape shapeA, CollisionShape shapeB, long pairKey)
+   {
+      if (numberOfManifolds == manifolds.size())
+         manifolds.add(new CachedContactManifold(maximumNumberOfContactsPerManifold));
+
+      int slot = numberOfManifolds++;
+      CachedContactManifold manifold = manifolds.get(slot);
+      manifold.initialize(shapeA, shapeB, pairKey);
+      pairKeyTable.put(pairKey, slot);
+      return manifold;
+   }
+
+   private void removeManifold(int slot)
+   {
+      CachedContactManifold removed = manifolds.get(slot);
+      pairKeyTable.remove(removed.getPairKey());
+
+      int lastSlot = --numberOfManifolds;
+
+      if (slot != lastSlot)
+      {
+         // Swap with the last one to keep the manifolds dense, the removed object is kept for reuse.
+         CachedContactManifold last = manifolds.get(lastSlot);
+         manifolds.set(slot, last);
+         manifolds.set(lastSlot, removed);
+         pairKeyTable.put(last.getPairKey(), slot);
+      }
+   }
+}
@@ -1,89 +1,50 @@
 package us.ihmc.simulationconstructionset.physics.collision.simple;
 
-import java.util.Collection;
-import java.util.LinkedHashMap;
-
 import us.ihmc.simulationconstructionset.physics.CollisionArbiter;
-import us.ihmc.simulationconstructionset.physics.CollisionShape;
 import us.ihmc.simulationconstructionset.physics.Contacts;
 import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
 
 public class ExperimentalCollisionArbiter implements CollisionArbiter
 {
-   private final LinkedHashMap<CollisionShape, LinkedHashMap<CollisionShape, SimpleContactWrapper>> contactMap = new LinkedHashMap<>();
+   private final ContactManifoldCache contactManifoldCache = new ContactManifoldCache();
+   private final CollisionDetectionResult cachedCollisions = new CollisionDetectionResult();
 
    @Override
    public void processNewCollisions(CollisionDetectionResult newCollisions)
    {
+      contactManifoldCache.beginUpdate();
+
       int numberOfCollisions = newCollisions.getNumberOfCollisions();
 
       for (int i = 0; i < numberOfCollisions; i++)
       {
          Contacts collision = newCollisions.getCollision(i);
-
-         CollisionShape shapeA = collision.getShapeA();
-         CollisionShape shapeB = collision.getShapeB();
-
-         SimpleContactWrapper shapeABContacts = getOrCreateContacts(shapeA, shapeB);
-
-         //         shapeABContacts.addAllReplaceNearby(collision);
-         //         shapeABContacts.addAll(collision);
-         shapeABContacts.set(collision);
+         contactManifoldCache.update(collision);
       }
+
+      contactManifoldCache.removeStaleManifolds();
    }
 
-   private SimpleContactWrapper getOrCreateContacts(CollisionShape shapeA, CollisionShape shapeB)
+   public ContactManifoldCache getContactManifoldCache()
    {
-      LinkedHashMap<CollisionShape, SimpleContactWrapper> shapeAContacts = contactMap.get(shapeA);
-      LinkedHashMap<CollisionShape, SimpleContactWrapper> shapeBContacts = contactMap.get(shapeB);
-
-      if ((shapeAContacts == null) && (shapeBContacts == null))
-      {
-         shapeAContacts = new LinkedHashMap<>();
-         SimpleContactWrapper contactsBetweenShapesAAndB = new SimpleContactWrapper(shapeA, shapeB);
-         shapeAContacts.put(shapeB, contactsBetweenShapesAAndB);
-         contactMap.put(shapeA, shapeAContacts);
-         return contactsBetweenShapesAAndB;
-      }
-
-      if (shapeAContacts == null)
-      {
-         LinkedHashMap<CollisionShape, SimpleContactWrapper> temp = shapeAContacts;
-         shapeAContacts = shapeBContacts;
-         shapeBContacts = shapeAContacts;
-
-         CollisionShape tempShape = shapeA;
-         shapeA = shapeB;
-         shapeB = shapeA;
-      }
-
-      SimpleContactWrapper contactsBetweenShapesAAndB = shapeAContacts.get(shapeB);
-      if (contactsBetweenShapesAAndB == null)
-      {
-         contactsBetweenShapesAAndB = new SimpleContactWrapper(shapeA, shapeB);
-         shapeAContacts.put(shapeB, contactsBetweenShapesAAndB);
-      }
-
-      return contactsBetweenShapesAAndB;
+      return contactManifoldCache;
    }
 
+   /**
+    * The returned result is reused from one call to the next, and its contacts are the
+    * {@link CachedContactManifold}s of the pairs currently in contact.
+    */
    @Override
    public CollisionDetectionResult getCollisions()
    {
-      CollisionDetectionResult results = new CollisionDetectionResult();
-
-      Collection<LinkedHashMap<CollisionShape, SimpleContactWrapper>> valuesOne = contactMap.values();
+      cachedCollisions.clear();
 
-      for (LinkedHashMap<CollisionShape, SimpleContactWrapper> valueOne : valuesOne)
+      for (int i = 0; i < contactManifoldCache.getNumberOfManifolds(); i++)
       {
-         Collection<SimpleContactWrapper> valuesTwo = valueOne.values();
-         for (SimpleContactWrapper contacts : valuesTwo)
-         {
-            results.addContact(contacts);
-         }
+         cachedCollisions.addContact(contactManifoldCache.getManifold(i));
       }
 
-      return results;
+      return cachedCollisions;
    }
 
 }
@@ -0,0 +1,669 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import us.ihmc.euclid.geometry.LineSegment3D;
+import us.ihmc.euclid.shape.collision.EuclidShape3DCollisionResult;
+import us.ihmc.euclid.shape.collision.epa.ExpandingPolytopeAlgorithm;
+import us.ihmc.euclid.shape.collision.gjk.GilbertJohnsonKeerthiCollisionDetector;
+import us.ihmc.euclid.shape.collision.interfaces.SupportingVertexHolder;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DBasics;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
+
+/**
+ * Narrow-phase routines of the {@link SimpleCollisionDetector}, dispatched on the
+ * {@link SimpleShapeType} of the two shapes. An instance holds all the scratch objects used by the
+ * routines, GJK and EPA included, so it is not thread safe: the detector keeps one per thread
+ * evaluating pairs.
+ */
+public class NarrowPhaseCollisionCalculator
+{
+   // Temporary variables for computation:
+   private final Point3D centerOne = new Point3D();
+   private final Point3D centerTwo = new Point3D();
+   private final Vector3D tempVector = new Vector3D();
+
+   /**
+    * Narrow-phase routine for a pair of shapes, looked up in the {@link #dispatchTable} by the
+    * ordinals of their {@link SimpleShapeType}.
+    */
+   private interface PairCollisionDetector<A extends CollisionShapeDescription<?>, B extends CollisionShapeDescription<?>>
+   {
+      boolean detectCollision(CollisionShape objectOne, A descriptionOne, CollisionShape objectTwo, B descriptionTwo, CollisionDetectionResult result);
+   }
+
+   @SuppressWarnings("rawtypes")
+   private final PairCollisionDetector[][] dispatchTable = new PairCollisionDetector[SimpleShapeType.values.length][SimpleShapeType.values.length];
+
+   private final BoxCollisionCalculator boxCollisionCalculator = new BoxCollisionCalculator();
+
+   /** Cache of the pair being evaluated, {@code null} when the pair is evaluated from scratch. */
+   private CachedSeparatingAxis currentSeparatingAxis = null;
+
+   public NarrowPhaseCollisionCalculator()
+   {
+      registerPairCollisionDetector(SimpleShapeType.SPHERE, SimpleShapeType.SPHERE, this::doSphereSphereCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.CAPSULE, SimpleShapeType.CAPSULE, this::doCapsuleCapsuleCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.CYLINDER, SimpleShapeType.CYLINDER, this::doCylinderCylinderCollisionDetection);
+      this.<PolytopeShapeDescription<?>, PolytopeShapeDescription<?>> registerPairCollisionDetector(SimpleShapeType.POLYTOPE,
+                                                                                                    SimpleShapeType.POLYTOPE,
+                                                                                                    this::doPolytopePolytopeCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.CAPSULE, SimpleShapeType.SPHERE, this::doCapsuleSphereCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.SPHERE, SimpleShapeType.CYLINDER, this::doSphereCylinderCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.SPHERE, SimpleShapeType.POLYTOPE, this::doSpherePolytopeCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.CAPSULE, SimpleShapeType.CYLINDER, this::doCapsuleCylinderCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.CAPSULE, SimpleShapeType.POLYTOPE, this::doCapsulePolytopeCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.CYLINDER, SimpleShapeType.POLYTOPE, this::doCylinderPolytopeCollisionDetection);
+
+      // Closed-form routines returning multi-point manifolds for the pairs involving a box:
+      registerPairCollisionDetector(SimpleShapeType.BOX, SimpleShapeType.BOX, boxCollisionCalculator::doBoxBoxCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.SPHERE, SimpleShapeType.BOX, boxCollisionCalculator::doSphereBoxCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.CAPSULE, SimpleShapeType.BOX, boxCollisionCalculator::doCapsuleBoxCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.CYLINDER, SimpleShapeType.BOX, this::doCylinderBoxCollisionDetection);
+      registerPairCollisionDetector(SimpleShapeType.BOX, SimpleShapeType.POLYTOPE, this::doBoxPolytopeCollisionDetection);
+   }
+
+   /**
+    * Registers the routine for the given pair of types, and the same routine with the shapes swapped
+    * for the reverse pair.
+    */
+   private <A extends CollisionShapeDescription<?>, B extends CollisionShapeDescription<?>> void registerPairCollisionDetector(SimpleShapeType typeOne,
+                                                                                                                                 SimpleShapeType typeTwo,
+                                                                                                                                 PairCollisionDetector<A, B> pairCollisionDetector)
+   {
+      dispatchTable[typeOne.ordinal()][typeTwo.ordinal()] = pairCollisionDetector;
+
+      if (typeOne != typeTwo)
+      {
+         PairCollisionDetector<B, A> swappedPairCollisionDetector = (objectOne, descriptionOne, objectTwo, descriptionTwo,
+                                                                     result) -> pairCollisionDetector.detectCollision(objectTwo,
+                                                                                                                      descriptionTwo,
+                                                                                                                      objectOne,
+                                                                                                                      descriptionOne,
+                                                                                                                      result);
+         dispatchTable[typeTwo.ordinal()][typeOne.ordinal()] = swappedPairCollisionDetector;
+      }
+   }
+
+   /**
+    * Evaluates the collision between the two shapes and adds the contacts, if any, to the result.
+    *
+    * @param shapeTypeOne ordinal of the {@link SimpleShapeType} of the first shape.
+    * @param shapeTypeTwo ordinal of the {@link SimpleShapeType} of the second shape.
+    * @return whether the shapes are colliding.
+    */
+   public boolean evaluateCollision(CollisionShape objectOne, int shapeTypeOne, CollisionShape objectTwo, int shapeTypeTwo, CollisionDetectionResult result)
+   {
+      return evaluateCollision(objectOne, shapeTypeOne, objectTwo, shapeTypeTwo, null, result);
+   }
+
+   /**
+    * Same as {@link #evaluateCollision(CollisionShape, int, CollisionShape, int, CollisionDetectionResult)}
+    * but the GJK query of the pair, if any, starts from the direction cached for the pair and is
+    * skipped when the cached separating axis still separates the shapes. The cache is updated with the
+    * result of the query.
+    *
+    * @param separatingAxis the cache of the pair, or {@code null} to start from scratch.
+    */
+   @SuppressWarnings({"rawtypes", "unchecked"})
+   public boolean evaluateCollision(CollisionShape objectOne, int shapeTypeOne, CollisionShape objectTwo, int shapeTypeTwo,
+                                    CachedSeparatingAxis separatingAxis, CollisionDetectionResult result)
+   {
+      PairCollisionDetector pairCollisionDetector = dispatchTable[shapeTypeOne][shapeTypeTwo];
+
+      if (pairCollisionDetector == null)
+         return false;
+
+      currentSeparatingAxis = separatingAxis;
+
+      try
+      {
+         return pairCollisionDetector.detectCollision(objectOne,
+                                                      objectOne.getTransformedCollisionShapeDescription(),
+                                                      objectTwo,
+                                                      objectTwo.getTransformedCollisionShapeDescription(),
+                                                      result);
+      }
+      finally
+      {
+         currentSeparatingAxis = null;
+      }
+   }
+
+   private boolean doPolytopePolytopeCollisionDetection(CollisionShape objectOne, PolytopeShapeDescription<?> polytopeShapeDescriptionOne,
+                                                        CollisionShape objectTwo, PolytopeShapeDescription<?> polytopeShapeDescriptionTwo,
+                                                        CollisionDetectionResult result)
+   {
+      SupportingVertexHolder polytopeOne = polytopeShapeDescriptionOne.getPolytope();
+      SupportingVertexHolder polytopeTwo = polytopeShapeDescriptionTwo.getPolytope();
+
+      double radiusOne = polytopeShapeDescriptionOne.getSmoothingRadius();
+      double radiusTwo = polytopeShapeDescriptionTwo.getSmoothingRadius();
+
+      return doPolytopePolytopeCollisionDetection(objectOne, polytopeOne, radiusOne, objectTwo, polytopeTwo, radiusTwo, result);
+   }
+
+   private boolean doCylinderPolytopeCollisionDetection(CollisionShape objectOne, CylinderShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                        PolytopeShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      SupportingVertexHolder polytopeOne = descriptionOne.getSupportingVertexHolder();
+      SupportingVertexHolder polytopeTwo = descriptionTwo.getPolytope();
+
+      double radiusOne = descriptionOne.getSmoothingRadius();
+      double radiusTwo = descriptionTwo.getSmoothingRadius();
+
+      return doPolytopePolytopeCollisionDetection(objectOne, polytopeOne, radiusOne, objectTwo, polytopeTwo, radiusTwo, result);
+   }
+
+   private boolean doCylinderCylinderCollisionDetection(CollisionShape objectOne, CylinderShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                        CylinderShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      SupportingVertexHolder polytopeOne = descriptionOne.getSupportingVertexHolder();
+      SupportingVertexHolder polytopeTwo = descriptionTwo.getSupportingVertexHolder();
+
+      double radiusOne = descriptionOne.getSmoothingRadius();
+      double radiusTwo = descriptionTwo.getSmoothingRadius();
+
+      return doPolytopePolytopeCollisionDetection(objectOne, polytopeOne, radiusOne, objectTwo, polytopeTwo, radiusTwo, result);
+   }
+
+   private boolean doCylinderBoxCollisionDetection(CollisionShape objectOne, CylinderShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                   BoxShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      int numberOfContacts = boxCollisionCalculator.doCylinderBoxCollisionDetection(objectOne, descriptionOne, objectTwo, descriptionTwo, result);
+
+      if (numberOfContacts != BoxCollisionCalculator.UNRESOLVED)
+         return numberOfContacts > 0;
+
+      // Not resting on a face of the box, for instance hitting one of its edges.
+      SupportingVertexHolder cylinder = descriptionOne.getSupportingVertexHolder();
+      double radiusOne = descriptionOne.getSmoothingRadius();
+
+      return doPolytopePolytopeCollisionDetection(objectOne, cylinder, radiusOne, objectTwo, descriptionTwo.getSupportingVertexHolder(), 0.0, result);
+   }
+
+   private boolean doBoxPolytopeCollisionDetection(CollisionShape objectOne, BoxShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                   PolytopeShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      SupportingVertexHolder polytopeTwo = descriptionTwo.getPolytope();
+      double radiusTwo = descriptionTwo.getSmoothingRadius();
+
+      return doPolytopePolytopeCollisionDetection(objectOne, descriptionOne.getSupportingVertexHolder(), 0.0, objectTwo, polytopeTwo, radiusTwo, result);
+   }
+
+   private final LineSegment3D lineSegmentOne = new LineSegment3D();
+   private final LineSegment3D lineSegmentTwo = new LineSegment3D();
+   private final Point3D closestPointOnOne = new Point3D();
+   private final Point3D closestPointOnTwo = new Point3D();
+
+   private boolean doCapsuleSphereCollisionDetection(CollisionShape objectOne, CapsuleShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                     SphereShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      double capsuleRadius = descriptionOne.getRadius();
+      descriptionOne.getLineSegment(lineSegmentOne);
+
+      double sphereRadius = descriptionTwo.getRadius();
+      descriptionTwo.getCenter(centerOfSphere);
+
+      lineSegmentOne.orthogonalProjection(centerOfSphere, closestPointOnOne);
+
+      double distanceSquared = centerOfSphere.distanceSquared(closestPointOnOne);
+
+      if (distanceSquared <= (capsuleRadius + sphereRadius) * (capsuleRadius + sphereRadius))
+      {
+         addCollisionPairToResult(closestPointOnOne, centerOfSphere, capsuleRadius, sphereRadius, distanceSquared, objectOne, objectTwo, result);
+         return true;
+      }
+
+      else
+      {
+         return false;
+      }
+   }
+
+   private boolean doSphereCylinderCollisionDetection(CollisionShape objectOne, SphereShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                      CylinderShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      double sphereRadius = descriptionOne.getRadius();
+      descriptionOne.getCenter(centerOfSphere);
+
+      descriptionTwo.getProjection(centerOfSphere, closestPointOnTwo);
+      double cylinderSmoothingRadius = descriptionTwo.getSmoothingRadius();
+
+      double distanceSquared = centerOfSphere.distanceSquared(closestPointOnTwo);
+
+      if (distanceSquared <= (cylinderSmoothingRadius + sphereRadius) * (cylinderSmoothingRadius + sphereRadius))
+      {
+         addCollisionPairToResult(centerOfSphere, closestPointOnTwo, sphereRadius, cylinderSmoothingRadius, distanceSquared, objectOne, objectTwo, result);
+         return true;
+      }
+
+      else
+      {
+         return false;
+      }
+   }
+
+   private boolean doCapsuleCylinderCollisionDetection(CollisionShape capsuleShape, CapsuleShapeDescription<?> capsuleDescription, CollisionShape cylinderShape,
+                                                       CylinderShapeDescription<?> cylinderDescription, CollisionDetectionResult result)
+   {
+      double cylinderSmoothingRadius = cylinderDescription.getSmoothingRadius();
+      SupportingVertexHolder cylinderSupportingVertexHolder = cylinderDescription.getSupportingVertexHolder();
+
+      return doCapsuleSupportingVertexHolderCollisionDetection(capsuleShape,
+                                                               capsuleDescription,
+                                                               cylinderShape,
+                                                               cylinderSupportingVertexHolder,
+                                                               cylinderSmoothingRadius,
+                                                               result);
+   }
+
+   private boolean doCapsuleCapsuleCollisionDetection(CollisionShape objectOne, CapsuleShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                      CapsuleShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      double radiusOne = descriptionOne.getRadius();
+      double radiusTwo = descriptionTwo.getRadius();
+
+      descriptionOne.getLineSegment(lineSegmentOne);
+      descriptionTwo.getLineSegment(lineSegmentTwo);
+
+      getClosestPointsOnLineSegments(lineSegmentOne, lineSegmentTwo, closestPointOnOne, closestPointOnTwo);
+
+      double distanceSquared = closestPointOnOne.distanceSquared(closestPointOnTwo);
+
+      if (distanceSquared <= (radiusOne + radiusTwo) * (radiusOne + radiusTwo))
+      {
+         addCollisionPairToResult(closestPointOnOne, closestPointOnTwo, radiusOne, radiusTwo, distanceSquared, objectOne, objectTwo, result);
+         return true;
+      }
+
+      return false;
+   }
+
+   private void addCollisionPairToResult(Point3D pointOne, Point3D pointTwo, double radiusOne, double radiusTwo, double distanceSquared,
+                                         CollisionShape objectOne, CollisionShape objectTwo, CollisionDetectionResult result)
+   {
+      Vector3D normalVector = new Vector3D();
+
+      normalVector.sub(pointTwo, pointOne);
+
+      // TODO: Get the normal from the features if the points are close.
+      if (normalVector.lengthSquared() < 1e-10)
+         return;
+      normalVector.normalize();
+
+      Point3D pointOnOne = new Point3D(pointOne);
+      tempVector.set(normalVector);
+      tempVector.scale(radiusOne);
+      pointOnOne.add(tempVector);
+
+      Point3D pointOnTwo = new Point3D(pointTwo);
+      tempVector.set(normalVector);
+      tempVector.scale(-radiusTwo);
+      pointOnTwo.add(tempVector);
+
+      double distance = Math.sqrt(distanceSquared) - radiusOne - radiusTwo;
+
+      SimpleContactWrapper contacts = new SimpleContactWrapper(objectOne, objectTwo);
+      contacts.addContact(pointOnOne, pointOnTwo, normalVector, distance);
+
+      result.addContact(contacts);
+   }
+
+   private boolean doSphereSphereCollisionDetection(CollisionShape objectOne, SphereShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                    SphereShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      double radiusOne = descriptionOne.getRadius();
+      double radiusTwo = descriptionTwo.getRadius();
+
+      descriptionOne.getCenter(centerOne);
+      descriptionTwo.getCenter(centerTwo);
+
+      double distanceSquared = centerOne.distanceSquared(centerTwo);
+
+      if (distanceSquared <= (radiusOne + radiusTwo) * (radiusOne + radiusTwo))
+      {
+         addCollisionPairToResult(centerOne, centerTwo, radiusOne, radiusTwo, distanceSquared, objectOne, objectTwo, result);
+         return true;
+      }
+
+      return false;
+   }
+
+   private final GilbertJohnsonKeerthiCollisionDetector gjkCollisionDetector = new GilbertJohnsonKeerthiCollisionDetector();
+   private final ExpandingPolytopeAlgorithm expandingPolytopeAlgorithm = new ExpandingPolytopeAlgorithm();
+   private final Point3D pointOnAToPack = new Point3D();
+   private final Point3D pointOnBToPack = new Point3D();
+
+   private final Vector3D defaultSupportDirection = new Vector3D(0.0, 1.0, 0.0);
+   private final Vector3D supportDirection = new Vector3D();
+   private final Vector3D negatedSupportDirection = new Vector3D();
+   private final Point3D supportingVertexOne = new Point3D();
+   private final Point3D supportingVertexTwo = new Point3D();
+
+   private final Point3D centerOfSphere = new Point3D();
+
+   private boolean doSpherePolytopeCollisionDetection(CollisionShape objectOne, SphereShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                      PolytopeShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      descriptionOne.getCenter(centerOfSphere);
+      double sphereRadius = descriptionOne.getRadius();
+      double polytopeSmoothingRadius = descriptionTwo.getSmoothingRadius();
+
+      //TODO: Remove trash generation...
+      SupportingVertexHolder sphereAsSupportingVertexHolder = new SupportingVertexHolder()
+      {
+         @Override
+         public boolean getSupportingVertex(Vector3DReadOnly supportDirection, Point3DBasics supportingVertexToPack)
+         {
+            supportingVertexToPack.set(centerOfSphere);
+            return true;
+         }
+      };
+
+      return doPolytopePolytopeCollisionDetection(objectOne,
+                                                  sphereAsSupportingVertexHolder,
+                                                  sphereRadius,
+                                                  objectTwo,
+                                                  descriptionTwo.getPolytope(),
+                                                  polytopeSmoothingRadius,
+                                                  result);
+   }
+
+   private final LineSegment3D tempLineSegment = new LineSegment3D();
+   private final Vector3D tempSegmentPointVector = new Vector3D();
+
+   private boolean doCapsulePolytopeCollisionDetection(CollisionShape objectOne, CapsuleShapeDescription<?> descriptionOne, CollisionShape objectTwo,
+                                                       PolytopeShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   {
+      double polytopeSmoothingRadius = descriptionTwo.getSmoothingRadius();
+
+      return doCapsuleSupportingVertexHolderCollisionDetection(objectOne,
+                                                               descriptionOne,
+                                                               objectTwo,
+                                                               descriptionTwo.getPolytope(),
+                                                               polytopeSmoothingRadius,
+                                                               result);
+   }
+
+   private boolean doCapsuleSupportingVertexHolderCollisionDetection(CollisionShape objectOne, CapsuleShapeDescription<?> descriptionOne,
+                                                                     CollisionShape objectTwo, SupportingVertexHolder descriptionTwo, double smoothingRadiusTwo,
+                                                                     CollisionDetectionResult result)
+   {
+      descriptionOne.getLineSegment(tempLineSegment);
+      final Point3DBasics tempSegmentPointOne = tempLineSegment.getFirstEndpoint();
+      final Point3DBasics tempSegmentPointTwo = tempLineSegment.getSecondEndpoint();
+
+      double capsuleRadius = descriptionOne.getRadius();
+
+      //TODO: Recycle object...
+      SupportingVertexHolder capsuleAsSupportingVertexHolder = new SupportingVertexHolder()
+      {
+         @Override
+         public boolean getSupportingVertex(Vector3DReadOnly supportDirection, Point3DBasics supportingVertexToPack)
+         {
+            tempSegmentPointVector.set(tempSegmentPointOne);
+            double dotOne = tempSegmentPointVector.dot(supportDirection);
+
+            tempSegmentPointVector.set(tempSegmentPointTwo);
+            double dotTwo = tempSegmentPointVector.dot(supportDirection);
+
+            if (dotOne > dotTwo)
+               supportingVertexToPack.set(tempSegmentPointOne);
+            else
+               supportingVertexToPack.set(tempSegmentPointTwo);
+            return true;
+         }
+      };
+
+      return doPolytopePolytopeCollisionDetection(objectOne,
+                                                  capsuleAsSupportingVertexHolder,
+                                                  capsuleRadius,
+                                                  objectTwo,
+                                                  descriptionTwo,
+                                                  smoothingRadiusTwo,
+                                                  result);
+   }
+
+   private boolean doPolytopePolytopeCollisionDetection(CollisionShape objectOne, SupportingVertexHolder supportingVertexHolderOne, double radiusOne,
+                                                        CollisionShape objectTwo, SupportingVertexHolder supportingVertexHolderTwo, double radiusTwo,
+                                                        CollisionDetectionResult result)
+   {
+      CachedSeparatingAxis separatingAxis = currentSeparatingAxis;
+
+      if (separatingAxis != null && separatingAxis.hasDirection())
+      {
+         separatingAxis.getDirection(objectOne, supportDirection);
+
+         if (separatingAxis.isSeparatingAxis()
+               && isSeparatedAlong(supportDirection, supportingVertexHolderOne, radiusOne, supportingVertexHolderTwo, radiusTwo))
+         {
+            separatingAxis.setLastQuerySkipped();
+            return false;
+         }
+
+         gjkCollisionDetector.setInitialSupportDirection(supportDirection);
+      }
+      else
+      {
+         // Always reset the seed so that the result of a pair does not depend on the previous query.
+         gjkCollisionDetector.setInitialSupportDirection(defaultSupportDirection);
+      }
+
+      EuclidShape3DCollisionResult collisionResult = gjkCollisionDetector.evaluateCollision(supportingVertexHolderOne, supportingVertexHolderTwo);
+      boolean areColliding = collisionResult.areShapesColliding();
+
+      if (!areColliding)
+      {
+         pointOnAToPack.set(collisionResult.getPointOnA());
+         pointOnBToPack.set(collisionResult.getPointOnB());
+
+         if (separatingAxis != null)
+         {
+            supportDirection.sub(pointOnBToPack, pointOnAToPack);
+
+            if (supportDirection.lengthSquared() > 1.0e-12)
+            {
+               supportDirection.normalize();
+               separatingAxis.setDirection(objectOne, supportDirection, true);
+            }
+            else
+            {
+               separatingAxis.invalidate();
+            }
+         }
+         double separationDistanceForContact = radiusOne + radiusTwo;
+
+         double distanceSquared = pointOnAToPack.distanceSquared(pointOnBToPack);
+         //         System.out.println(distanceSquared);
+
+         if (distanceSquared < separationDistanceForContact * separationDistanceForContact)
+         {
+            //TODO: Find more than one point per object...
+
+            SimpleContactWrapper contacts = new SimpleContactWrapper(objectOne, objectTwo);
+            Vector3D normalVector = new Vector3D();
+            normalVector.sub(pointOnBToPack, pointOnAToPack);
+
+            //TODO: Magic distance number...
+            if (normalVector.lengthSquared() > 1e-6)
+            {
+               normalVector.normalize();
+               double distanceToReport = -pointOnAToPack.distance(pointOnBToPack); //0.001; //TODO: Do we even need this?
+
+               Point3D contactOnA = new Point3D(normalVector);
+               contactOnA.scaleAdd(radiusOne, pointOnAToPack);
+
+               Point3D contactOnB = new Point3D(normalVector);
+               contactOnB.scaleAdd(-radiusTwo, pointOnBToPack);
+
+               contacts.addContact(contactOnA, contactOnB, normalVector, distanceToReport);
+               result.addContact(contacts);
+               return true;
+            }
+         }
+      }
+      else
+      {
+         expandingPolytopeAlgorithm.evaluateCollision(supportingVertexHolderOne,
+                                                      supportingVertexHolderTwo,
+                                                      gjkCollisionDetector.getSimplex().getVertices(),
+                                                      collisionResult);
+         pointOnAToPack.set(collisionResult.getPointOnA());
+         pointOnBToPack.set(collisionResult.getPointOnB());
+
+         if (!collisionResult.areShapesColliding())
+         {
+            if (separatingAxis != null)
+               separatingAxis.invalidate();
+            return false;
+         }
+
+         //TODO: Reduce trash here...
+         Vector3D collisionNormal = new Vector3D(expandingPolytopeAlgorithm.getClosestFace().getClosestPointToOrigin());
+
+         //TODO: Magic number for normalize
+         if (collisionNormal.lengthSquared() > 1e-6)
+         {
+            collisionNormal.normalize();
+
+            if (separatingAxis != null)
+               separatingAxis.setDirection(objectOne, collisionNormal, false);
+
+            SimpleContactWrapper contacts = new SimpleContactWrapper(objectOne, objectTwo);
+
+            double distanceToReport = -pointOnAToPack.distance(pointOnBToPack); //TODO: Do we even need this?
+            contacts.addContact(new Point3D(pointOnAToPack), new Point3D(pointOnBToPack), collisionNormal, distanceToReport);
+            result.addContact(contacts);
+         }
+         else if (separatingAxis != null)
+         {
+            separatingAxis.invalidate();
+         }
+
+         return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * Tests whether the two shapes, inflated by their radius, are apart along the given unit axis
+    * going from the first shape to the second. Two support queries are enough to prove it.
+    */
+   private boolean isSeparatedAlong(Vector3DReadOnly axis, SupportingVertexHolder supportingVertexHolderOne, double radiusOne,
+                                    SupportingVertexHolder supportingVertexHolderTwo, double radiusTwo)
+   {
+      negatedSupportDirection.setAndNegate(axis);
+      supportingVertexHolderOne.getSupportingVertex(axis, supportingVertexOne);
+      supportingVertexHolderTwo.getSupportingVertex(negatedSupportDirection, supportingVertexTwo);
+
+      double separation = axis.dot(supportingVertexTwo) - axis.dot(supportingVertexOne);
+      return separation >= radiusOne + radiusTwo;
+   }
+
+   private final Vector3D uVector = new Vector3D();
+   private final Vector3D vVector = new Vector3D();
+   private final Vector3D w0Vector = new Vector3D();
+
+   public void getClosestPointsOnLineSegments(LineSegment3D segmentOne, LineSegment3D segmentTwo, Point3D closestPointOnOneToPack,
+                                              Point3D closestPointOnTwoToPack)
+   {
+      Point3DBasics p0 = segmentOne.getFirstEndpoint();
+      Point3DBasics p1 = segmentOne.getSecondEndpoint();
+      Point3DBasics q0 = segmentTwo.getFirstEndpoint();
+      Point3DBasics q1 = segmentTwo.getSecondEndpoint();
+
+      uVector.sub(p1, p0);
+      vVector.sub(q1, q0);
+
+      w0Vector.sub(p0, q0);
+
+      double a = uVector.dot(uVector);
+      double b = uVector.dot(vVector);
+      double c = vVector.dot(vVector);
+      double d = uVector.dot(w0Vector);
+      double e = vVector.dot(w0Vector);
+
+      double denominator = a * c - b * b;
+
+      double lambdaOne, numeratorOne, denominatorOne = denominator;
+      double lambdaTwo, numeratorTwo, denominatorTwo = denominator;
+
+      double smallNumber = 1e-7;
+
+      // compute the line parameters of the two closest points
+      if (denominator < smallNumber)
+      {
+         // the lines are almost parallel
+         numeratorOne = 0.0; // force using point P0 on segment S1
+         denominatorOne = 1.0; // to prevent possible division by 0.0 later
+         numeratorTwo = e;
+         denominatorTwo = c;
+      }
+      else
+      {
+         // get the closest points on the infinite lines
+         numeratorOne = (b * e - c * d);
+         numeratorTwo = (a * e - b * d);
+         if (numeratorOne < 0.0)
+         {
+            // sc < 0 => the s=0 edge is visible
+            numeratorOne = 0.0;
+            numeratorTwo = e;
+            denominatorTwo = c;
+         }
+         else if (numeratorOne > denominatorOne)
+         {
+            // sc > 1  => the s=1 edge is visible
+            numeratorOne = denominatorOne;
+            numeratorTwo = e + b;
+            denominatorTwo = c;
+         }
+      }
+
+      if (numeratorTwo < 0.0)
+      {
+         // tc < 0 => the t=0 edge is visible
+         numeratorTwo = 0.0;
+         // recompute sc for this edge
+         if (-d < 0.0)
+            numeratorOne = 0.0;
+         else if (-d > a)
+            numeratorOne = denominatorOne;
+         else
+         {
+            numeratorOne = -d;
+            denominatorOne = a;
+         }
+      }
+      else if (numeratorTwo > denominatorTwo)
+      { // tc > 1  => the t=1 edge is visible
+         numeratorTwo = denominatorTwo;
+         // recompute sc for this edge
+         if ((-d + b) < 0.0)
+            numeratorOne = 0;
+         else if ((-d + b) > a)
+            numeratorOne = denominatorOne;
+         else
+         {
+            numeratorOne = (-d + b);
+            denominatorOne = a;
+         }
+      }
+      // finally do the division to get sc and tc
+      lambdaOne = (Math.abs(numeratorOne) < smallNumber ? 0.0 : numeratorOne / denominatorOne);
+      lambdaTwo = (Math.abs(numeratorTwo) < smallNumber ? 0.0 : numeratorTwo / denominatorTwo);
+
+      // get the difference of the two closest points
+
+      closestPointOnOneToPack.set(uVector);
+      closestPointOnOneToPack.scaleAdd(lambdaOne, p0);
+
+      closestPointOnTwoToPack.set(vVector);
+      closestPointOnTwoToPack.scaleAdd(lambdaTwo, q0);
+   }
+}
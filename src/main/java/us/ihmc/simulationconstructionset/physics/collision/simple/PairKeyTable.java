@@ -0,0 +1,179 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+
+/**
+ * Maps the key of a pair of shapes to the slot where its data is stored, using open addressing
+ * with linear probing on primitive keys so that lookups and updates do not allocate.
+ * <p>
+ * The pair key is made of the IDs of the two shapes. A {@link SimpleCollisionShape} carries its ID,
+ * the other {@link CollisionShape} implementations are numbered by the table the first time they
+ * are seen.
+ * </p>
+ */
+class PairKeyTable
+{
+   private static final long EMPTY_KEY = -1L;
+
+   private long[] tableKeys;
+   private int[] tableSlots;
+   private int tableSize = 0;
+
+   private final IdentityHashMap<CollisionShape, Integer> otherShapeIDs = new IdentityHashMap<>();
+
+   PairKeyTable(int initialCapacity)
+   {
+      allocateTable(Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1);
+   }
+
+   /**
+    * Returns a key which is the same for the two shapes regardless of their order.
+    */
+   long computePairKey(CollisionShape shapeA, CollisionShape shapeB)
+   {
+      int idA = getShapeID(shapeA);
+      int idB = getShapeID(shapeB);
+
+      int min = Math.min(idA, idB);
+      int max = Math.max(idA, idB);
+      return ((long) min << 32) | max;
+   }
+
+   private int getShapeID(CollisionShape shape)
+   {
+      if (shape instanceof SimpleCollisionShape)
+      {
+         int shapeID = ((SimpleCollisionShape) shape).getShapeID();
+         if (shapeID != -1)
+            return shapeID;
+      }
+
+      Integer shapeID = otherShapeIDs.get(shape);
+
+      if (shapeID == null)
+      {
+         shapeID = ShapeIDPool.acquire();
+         otherShapeIDs.put(shape, shapeID);
+      }
+
+      return shapeID;
+   }
+
+   /**
+    * Returns the slot of the given key, or -1 if it is not in the table.
+    */
+   int get(long key)
+   {
+      int index = findTableIndex(key);
+      return index == -1 ? -1 : tableSlots[index];
+   }
+
+   /**
+    * Sets the slot of the given key, adding the key if it is not in the table yet.
+    */
+   void put(long key, int slot)
+   {
+      int index = findTableIndex(key);
+
+      if (index != -1)
+         tableSlots[index] = slot;
+      else
+         insert(key, slot);
+   }
+
+   void remove(long key)
+   {
+      int index = findTableIndex(key);
+      if (index == -1)
+         return;
+
+      int mask = tableKeys.length - 1;
+      tableKeys[index] = EMPTY_KEY;
+      tableSize--;
+
+      // Shift the following entries of the cluster back so that lookups do not stop early.
+      for (int next = (index + 1) & mask; tableKeys[next] != EMPTY_KEY; next = (next + 1) & mask)
+      {
+         long nextKey = tableKeys[next];
+         int nextSlot = tableSlots[next];
+         tableKeys[next] = EMPTY_KEY;
+         tableSize--;
+         insert(nextKey, nextSlot);
+      }
+   }
+
+   void clear()
+   {
+      Arrays.fill(tableKeys, EMPTY_KEY);
+      tableSize = 0;
+
+      for (Integer shapeID : otherShapeIDs.values())
+         ShapeIDPool.release(shapeID);
+      otherShapeIDs.clear();
+   }
+
+   int size()
+   {
+      return tableSize;
+   }
+
+   private void allocateTable(int capacity)
+   {
+      tableKeys = new long[capacity];
+      tableSlots = new int[capacity];
+      Arrays.fill(tableKeys, EMPTY_KEY);
+   }
+
+   private int hashIndex(long key)
+   {
+      long hash = key * 0x9E3779B97F4A7C15L;
+      return (int) (hash >>> 32) & (tableKeys.length - 1);
+   }
+
+   private int findTableIndex(long key)
+   {
+      int mask = tableKeys.length - 1;
+
+      for (int index = hashIndex(key);; index = (index + 1) & mask)
+      {
+         long tableKey = tableKeys[index];
+         if (tableKey == key)
+            return index;
+         if (tableKey == EMPTY_KEY)
+            return -1;
+      }
+   }
+
+   private void insert(long key, int slot)
+   {
+      if (2 * (tableSize + 1) > tableKeys.length)
+         growTable();
+
+      int mask = tableKeys.length - 1;
+      int index = hashIndex(key);
+
+      while (tableKeys[index] != EMPTY_KEY)
+         index = (index + 1) & mask;
+
+      tableKeys[index] = key;
+      tableSlots[index] = slot;
+      tableSize++;
+   }
+
+   private void growTable()
+   {
+      long[] oldKeys = tableKeys;
+      int[] oldSlots = tableSlots;
+      allocateTable(2 * oldKeys.length);
+      tableSize = 0;
+
+      for (int i = 0; i < oldKeys.length; i++)
+      {
+         if (oldKeys[i] != EMPTY_KEY)
+            insert(oldKeys[i], oldSlots[i]);
+      }
+   }
+}
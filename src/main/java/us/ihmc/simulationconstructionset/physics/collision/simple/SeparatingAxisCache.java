@@ -0,0 +1,159 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import java.util.ArrayList;
+
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+
+/**
+ * Keeps one {@link CachedSeparatingAxis} per pair of shapes whose bounding boxes overlap, so that
+ * the GJK queries of the narrow phase can start from the result of the previous tick. Entries are
+ * looked up in a {@link PairKeyTable} and recycled when the bounding boxes of the pair stop
+ * overlapping.
+ * <p>
+ * Each entry only depends on the history of its own pair, so the narrow-phase results do not
+ * depend on the order in which the pairs are evaluated or on the number of threads evaluating them.
+ * </p>
+ */
+public class SeparatingAxisCache
+{
+   private double maximumTranslation = 0.02;
+   private double maximumRotation = 0.1;
+
+   private final ArrayList<CachedSeparatingAxis> entries = new ArrayList<>();
+   private int numberOfEntries = 0;
+   private int currentTick = 0;
+
+   private final PairKeyTable pairKeyTable = new PairKeyTable(64);
+
+   /**
+    * Sets how far either shape of a pair can move, in meters, before the cached direction of the pair
+    * is dropped.
+    */
+   public void setMaximumTranslation(double maximumTranslation)
+   {
+      this.maximumTranslation = maximumTranslation;
+   }
+
+   /**
+    * Sets how much either shape of a pair can rotate, in radians, before the cached direction of the
+    * pair is dropped.
+    */
+   public void setMaximumRotation(double maximumRotation)
+   {
+      this.maximumRotation = maximumRotation;
+   }
+
+   /**
+    * Starts a new tick. Entries which are not updated before the next call to
+    * {@link #removeStaleEntries()} are dropped.
+    */
+   public void beginUpdate()
+   {
+      currentTick++;
+   }
+
+   /**
+    * Returns the entry of the pair, creating it if needed, after checking the motion of the shapes
+    * since its direction was computed.
+    */
+   public CachedSeparatingAxis update(CollisionShape shapeA, RigidBodyTransform transformA, CollisionShape shapeB, RigidBodyTransform transformB)
+   {
+      long pairKey = pairKeyTable.computePairKey(shapeA, shapeB);
+      int slot = pairKeyTable.get(pairKey);
+      CachedSeparatingAxis entry;
+
+      if (slot == -1)
+      {
+         entry = addEntry(shapeA, shapeB, pairKey);
+      }
+      else
+      {
+         entry = entries.get(slot);
+
+         // The IDs of a removed shape can be given to a new one.
+         if (!entry.isPairOf(shapeA, shapeB))
+            entry.initialize(shapeA, shapeB, pairKey);
+      }
+
+      if (shapeA == entry.getShapeA())
+         entry.updatePoses(transformA, transformB, maximumTranslation, maximumRotation);
+      else
+         entry.updatePoses(transformB, transformA, maximumTranslation, maximumRotation);
+
+      entry.setLastUpdateTick(currentTick);
+      return entry;
+   }
+
+   /**
+    * Removes the entries of the pairs that were not updated since the last call to
+    * {@link #beginUpdate()}.
+    */
+   public void removeStaleEntries()
+   {
+      for (int slot = numberOfEntries - 1; slot >= 0; slot--)
+      {
+         if (entries.get(slot).getLastUpdateTick() != currentTick)
+            removeEntry(slot);
+      }
+   }
+
+   public void clear()
+   {
+      numberOfEntries = 0;
+      pairKeyTable.clear();
+   }
+
+   public int getNumberOfEntries()
+   {
+      return numberOfEntries;
+   }
+
+   public CachedSeparatingAxis getEntry(int index)
+   {
+      if (index >= numberOfEntries)
+         throw new IndexOutOfBoundsException("Index: " + index + ", number of entries: " + numberOfEntries);
+      return entries.get(index);
+   }
+
+   /**
+    * Returns the entry of the pair, or {@code null} if the pair was not updated recently.
+    */
+   public CachedSeparatingAxis getEntry(CollisionShape shapeA, CollisionShape shapeB)
+   {
+      int slot = pairKeyTable.get(pairKeyTable.computePairKey(shapeA, shapeB));
+      if (slot == -1)
+         return null;
+
+      CachedSeparatingAxis entry = entries.get(slot);
+      return entry.isPairOf(shapeA, shapeB) ? entry : null;
+   }
+
+   private CachedSeparatingAxis addEntry(CollisionShape shapeA, CollisionShape shapeB, long pairKey)
+   {
+      if (numberOfEntries == entries.size())
+         entries.add(new CachedSeparatingAxis());
+
+      int slot = numberOfEntries++;
+      CachedSeparatingAxis entry = entries.get(slot);
+      entry.initialize(shapeA, shapeB, pairKey);
+      pairKeyTable.put(pairKey, slot);
+      return entry;
+   }
+
+   private void removeEntry(int slot)
+   {
+      CachedSeparatingAxis removed = entries.get(slot);
+      pairKeyTable.remove(removed.getPairKey());
+
+      int lastSlot = --numberOfEntries;
+
+      if (slot != lastSlot)
+      {
+         CachedSeparatingAxis last = entries.get(lastSlot);
+         entries.set(slot, last);
+         entries.set(lastSlot, removed);
+         pairKeyTable.put(last.getPairKey(), slot);
+      }
+   }
+}
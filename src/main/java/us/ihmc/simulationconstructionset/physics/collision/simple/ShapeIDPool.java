@@ -0,0 +1,34 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import java.util.Arrays;
+
+/**
+ * Hands out the integer IDs used by {@link PairKeyTable} to build the keys of the pairs of shapes.
+ * The IDs are kept small by reusing the ones released by the removed shapes.
+ */
+final class ShapeIDPool
+{
+   private static int[] freeIDs = new int[16];
+   private static int numberOfFreeIDs = 0;
+   private static int nextID = 0;
+
+   private ShapeIDPool()
+   {
+   }
+
+   static synchronized int acquire()
+   {
+      if (numberOfFreeIDs > 0)
+         return freeIDs[--numberOfFreeIDs];
+
+      return nextID++;
+   }
+
+   static synchronized void release(int shapeID)
+   {
+      if (numberOfFreeIDs == freeIDs.length)
+         freeIDs = Arrays.copyOf(freeIDs, 2 * freeIDs.length);
+
+      freeIDs[numberOfFreeIDs++] = shapeID;
+   }
+}
@@ -1,21 +1,23 @@
 package us.ihmc.simulationconstructionset.physics.collision.simple;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.geometry.LineSegment3D;
-import us.ihmc.euclid.shape.collision.EuclidShape3DCollisionResult;
-import us.ihmc.euclid.shape.collision.epa.ExpandingPolytopeAlgorithm;
-import us.ihmc.euclid.shape.collision.gjk.GilbertJohnsonKeerthiCollisionDetector;
-import us.ihmc.euclid.shape.collision.interfaces.SupportingVertexHolder;
+import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple3D.Point3D;
-import us.ihmc.euclid.tuple3D.Vector3D;
-import us.ihmc.euclid.tuple3D.interfaces.Point3DBasics;
-import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
 import us.ihmc.simulationconstructionset.physics.CollisionShape;
-import us.ihmc.simulationconstructionset.physics.CollisionShapeDescription;
 import us.ihmc.simulationconstructionset.physics.CollisionShapeFactory;
+import us.ihmc.simulationconstructionset.physics.Contacts;
 import us.ihmc.simulationconstructionset.physics.ScsCollisionDetector;
 import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
 
@@ -23,12 +25,34 @@ public class SimpleCollisionDetector implements ScsCollisionDetector
 {
    private boolean VERBOSE = false;
 
+   private static final int UNKNOWN_SHAPE_TYPE = -1;
+
+   /** Pairs are handed to the narrow-phase threads in blocks of this size. */
+   private static final int NARROW_PHASE_BLOCK_SIZE = 16;
+
    private final ArrayList<CollisionShape> collisionObjects = new ArrayList<>();
+   private int[] shapeTypes = new int[0];
+
+   private final NarrowPhaseCollisionCalculator narrowPhaseCollisionCalculator = new NarrowPhaseCollisionCalculator();
+
+   private boolean useTemporalCoherence = true;
+   private final SeparatingAxisCache separatingAxisCache = new SeparatingAxisCache();
+   private RigidBodyTransform[] shapeTransforms = new RigidBodyTransform[0];
 
-   // Temporary variables for computation:
-   private final Point3D centerOne = new Point3D();
-   private final Point3D centerTwo = new Point3D();
-   private final Vector3D tempVector = new Vector3D();
+   // Pairs which passed the broad phase, in the order in which they are reported:
+   private int numberOfCandidatePairs = 0;
+   private int[] candidatePairsOne = new int[64];
+   private int[] candidatePairsTwo = new int[64];
+   private CachedSeparatingAxis[] candidatePairSeparatingAxes = new CachedSeparatingAxis[64];
+   private Contacts[] candidatePairContacts = new Contacts[64];
+   private boolean[] candidatePairsColliding = new boolean[64];
+
+   private int numberOfNarrowPhaseThreads = 1;
+   private int minimumNumberOfPairsForParallelNarrowPhase = 4 * NARROW_PHASE_BLOCK_SIZE;
+   private ExecutorService narrowPhaseExecutor = null;
+   private final ArrayList<NarrowPhaseWorker> narrowPhaseWorkers = new ArrayList<>();
+   private final ArrayList<Future<Void>> narrowPhaseFutures = new ArrayList<>();
+   private final AtomicInteger nextNarrowPhaseBlock = new AtomicInteger();
 
    public SimpleCollisionDetector()
    {
@@ -60,6 +84,72 @@ public class SimpleCollisionDetector implements ScsCollisionDetector
       useSimpleSpeedupMethod = true;
    }
 
+   /**
+    * Sets whether the GJK queries of a pair start from the direction found at the previous tick, and
+    * are skipped while the previous separating axis still separates the shapes. Enabled by default.
+    */
+   public void setUseTemporalCoherence(boolean useTemporalCoherence)
+   {
+      this.useTemporalCoherence = useTemporalCoherence;
+
+      if (!useTemporalCoherence)
+         separatingAxisCache.clear();
+   }
+
+   public SeparatingAxisCache getSeparatingAxisCache()
+   {
+      return separatingAxisCache;
+   }
+
+   /**
+    * Sets the number of threads evaluating the pairs which passed the bounding box test, the calling
+    * thread included. Each thread has its own {@link NarrowPhaseCollisionCalculator} and the contacts
+    * are reported in the same order as with a single thread, so that the simulation does not depend
+    * on the number of threads.
+    * <p>
+    * The shape descriptions are only read during the narrow phase, but a shape can be part of pairs
+    * evaluated at the same time by different threads.
+    * </p>
+    *
+    * @param numberOfThreads the number of threads, 1 to evaluate all the pairs on the calling thread.
+    */
+   public void setNumberOfNarrowPhaseThreads(int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("The number of narrow-phase threads must be at least 1, was: " + numberOfThreads);
+
+      if (narrowPhaseExecutor != null)
+      {
+         narrowPhaseExecutor.shutdown();
+         narrowPhaseExecutor = null;
+      }
+
+      numberOfNarrowPhaseThreads = numberOfThreads;
+      narrowPhaseWorkers.clear();
+
+      if (numberOfThreads > 1)
+      {
+         narrowPhaseExecutor = createNarrowPhaseExecutor(numberOfThreads - 1);
+
+         for (int i = 0; i < numberOfThreads; i++)
+            narrowPhaseWorkers.add(new NarrowPhaseWorker());
+      }
+   }
+
+   public int getNumberOfNarrowPhaseThreads()
+   {
+      return numberOfNarrowPhaseThreads;
+   }
+
+   /**
+    * Sets the number of candidate pairs from which the narrow phase is split between threads. Below
+    * it, handing the pairs to other threads costs more than it saves.
+    */
+   public void setMinimumNumberOfPairsForParallelNarrowPhase(int minimumNumberOfPairs)
+   {
+      minimumNumberOfPairsForParallelNarrowPhase = minimumNumberOfPairs;
+   }
+
    private final BoundingBox3D boundingBoxOne = new BoundingBox3D(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
    private final BoundingBox3D boundingBoxTwo = new BoundingBox3D(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
 
@@ -67,7 +157,6 @@ public class SimpleCollisionDetector implements ScsCollisionDetector
    public void performCollisionDetection(CollisionDetectionResult result)
    {
       int boundingBoxChecks = 0;
-      int collisionChecks = 0;
       int numberOfCollisions = 0;
 
       int numberOfObjects = collisionObjects.size();
@@ -77,16 +166,38 @@ public class SimpleCollisionDetector implements ScsCollisionDetector
          haveCollided = new boolean[numberOfObjects][numberOfObjects];
       }
 
+      if (shapeTypes.length < numberOfObjects)
+         shapeTypes = new int[numberOfObjects];
+
+      if (useTemporalCoherence && shapeTransforms.length < numberOfObjects)
+      {
+         int oldLength = shapeTransforms.length;
+         shapeTransforms = Arrays.copyOf(shapeTransforms, numberOfObjects);
+
+         for (int i = oldLength; i < numberOfObjects; i++)
+            shapeTransforms[i] = new RigidBodyTransform();
+      }
+
       for (int i = 0; i < numberOfObjects; i++)
       {
          CollisionShape collisionShape = collisionObjects.get(i);
          collisionShape.computeTransformedCollisionShape();
+
+         SimpleShapeType shapeType = SimpleShapeType.getShapeType(collisionShape.getTransformedCollisionShapeDescription());
+         shapeTypes[i] = shapeType == null ? UNKNOWN_SHAPE_TYPE : shapeType.ordinal();
+
+         if (useTemporalCoherence)
+            collisionShape.getTransformToWorld(shapeTransforms[i]);
       }
 
+      numberOfCandidatePairs = 0;
+
+      if (useTemporalCoherence)
+         separatingAxisCache.beginUpdate();
+
       for (int i = 0; i < numberOfObjects; i++)
       {
          CollisionShape objectOne = collisionObjects.get(i);
-         CollisionShapeDescription<?> descriptionOne = objectOne.getTransformedCollisionShapeDescription();
 
          for (int j = i + 1; j < numberOfObjects; j++)
          {
@@ -98,8 +209,6 @@ public class SimpleCollisionDetector implements ScsCollisionDetector
             if (objectOne.isGround() && objectTwo.isGround())
                continue;
 
-            CollisionShapeDescription<?> descriptionTwo = objectTwo.getTransformedCollisionShapeDescription();
-
             if ((objectOne.getCollisionGroup() & objectTwo.getCollisionMask()) == 0x00)
             {
                continue;
@@ -119,638 +228,224 @@ public class SimpleCollisionDetector implements ScsCollisionDetector
                continue;
             }
 
-            collisionChecks++;
-            boolean areColliding = false;
+            if (shapeTypes[i] == UNKNOWN_SHAPE_TYPE || shapeTypes[j] == UNKNOWN_SHAPE_TYPE)
+               continue;
 
-            //TODO: Make this shorter and more efficient...
             //TODO: Add Plane
-            if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
-            {
-               areColliding = doSphereSphereCollisionDetection(objectOne,
-                                                               (SphereShapeDescription<?>) descriptionOne,
-                                                               objectTwo,
-                                                               (SphereShapeDescription<?>) descriptionTwo,
-                                                               result);
-            }
-            else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
-            {
-               areColliding = doCapsuleCapsuleCollisionDetection(objectOne,
-                                                                 (CapsuleShapeDescription<?>) descriptionOne,
-                                                                 objectTwo,
-                                                                 (CapsuleShapeDescription<?>) descriptionTwo,
-                                                                 result);
-            }
-            else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
-            {
-               areColliding = doPolytopePolytopeCollisionDetection(objectOne,
-                                                                   (PolytopeShapeDescription<?>) descriptionOne,
-                                                                   objectTwo,
-                                                                   (PolytopeShapeDescription<?>) descriptionTwo,
-                                                                   result);
-            }
-            else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
-            {
-               areColliding = doCylinderCylinderCollisionDetection(objectOne,
-                                                                   (CylinderShapeDescription<?>) descriptionOne,
-                                                                   objectTwo,
-                                                                   (CylinderShapeDescription<?>) descriptionTwo,
-                                                                   result);
-            }
+            addCandidatePair(i, j);
+         }
+      }
 
-            else if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
-            {
-               areColliding = doCapsuleSphereCollisionDetection(objectTwo,
-                                                                (CapsuleShapeDescription<?>) descriptionTwo,
-                                                                objectOne,
-                                                                (SphereShapeDescription<?>) descriptionOne,
-                                                                result);
-            }
-            else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
-            {
-               areColliding = doCapsuleSphereCollisionDetection(objectOne,
-                                                                (CapsuleShapeDescription<?>) descriptionOne,
-                                                                objectTwo,
-                                                                (SphereShapeDescription<?>) descriptionTwo,
-                                                                result);
-            }
+      if (useTemporalCoherence)
+         separatingAxisCache.removeStaleEntries();
 
-            else if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
-            {
-               areColliding = doSpherePolytopeCollisionDetection(objectOne,
-                                                                 (SphereShapeDescription<?>) descriptionOne,
-                                                                 objectTwo,
-                                                                 (PolytopeShapeDescription<?>) descriptionTwo,
-                                                                 result);
-            }
-            else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
-            {
-               areColliding = doSpherePolytopeCollisionDetection(objectTwo,
-                                                                 (SphereShapeDescription<?>) descriptionTwo,
-                                                                 objectOne,
-                                                                 (PolytopeShapeDescription<?>) descriptionOne,
-                                                                 result);
-            }
+      if (narrowPhaseExecutor != null && numberOfCandidatePairs >= minimumNumberOfPairsForParallelNarrowPhase)
+      {
+         evaluateCandidatePairsInParallel();
 
-            else if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
-            {
-               areColliding = doSphereCylinderCollisionDetection(objectOne,
-                                                                 (SphereShapeDescription<?>) descriptionOne,
-                                                                 objectTwo,
-                                                                 (CylinderShapeDescription<?>) descriptionTwo,
-                                                                 result);
-            }
-            else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
-            {
-               areColliding = doSphereCylinderCollisionDetection(objectTwo,
-                                                                 (SphereShapeDescription<?>) descriptionTwo,
-                                                                 objectOne,
-                                                                 (CylinderShapeDescription<?>) descriptionOne,
-                                                                 result);
-            }
+         // Merge in pair order, as if the pairs had been evaluated one after the other.
+         for (int k = 0; k < numberOfCandidatePairs; k++)
+         {
+            if (candidatePairContacts[k] != null)
+               result.addContact(candidatePairContacts[k]);
+         }
 
-            else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
-            {
-               areColliding = doCapsulePolytopeCollisionDetection(objectOne,
-                                                                  (CapsuleShapeDescription<?>) descriptionOne,
-                                                                  objectTwo,
-                                                                  (PolytopeShapeDescription<?>) descriptionTwo,
-                                                                  result);
-            }
-            else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
-            {
-               areColliding = doCapsulePolytopeCollisionDetection(objectTwo,
-                                                                  (CapsuleShapeDescription<?>) descriptionTwo,
-                                                                  objectOne,
-                                                                  (PolytopeShapeDescription<?>) descriptionOne,
-                                                                  result);
-            }
-            else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
-            {
-               areColliding = doCapsuleCylinderCollisionDetection(objectOne,
-                                                                  (CapsuleShapeDescription<?>) descriptionOne,
-                                                                  objectTwo,
-                                                                  (CylinderShapeDescription<?>) descriptionTwo,
-                                                                  result);
-            }
-            else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
-            {
-               areColliding = doCapsuleCylinderCollisionDetection(objectTwo,
-                                                                  (CapsuleShapeDescription<?>) descriptionTwo,
-                                                                  objectOne,
-                                                                  (CylinderShapeDescription<?>) descriptionOne,
-                                                                  result);
-            }
+         Arrays.fill(candidatePairContacts, 0, numberOfCandidatePairs, null);
+      }
+      else
+      {
+         for (int k = 0; k < numberOfCandidatePairs; k++)
+         {
+            int i = candidatePairsOne[k];
+            int j = candidatePairsTwo[k];
+            candidatePairsColliding[k] = narrowPhaseCollisionCalculator.evaluateCollision(collisionObjects.get(i),
+                                                                                          shapeTypes[i],
+                                                                                          collisionObjects.get(j),
+                                                                                          shapeTypes[j],
+                                                                                          candidatePairSeparatingAxes[k],
+                                                                                          result);
+         }
+      }
 
-            else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
-            {
-               areColliding = doCylinderPolytopeCollisionDetection(objectTwo,
-                                                                   (CylinderShapeDescription<?>) descriptionTwo,
-                                                                   objectOne,
-                                                                   (PolytopeShapeDescription<?>) descriptionOne,
-                                                                   result);
-            }
-            else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
-            {
-               areColliding = doCylinderPolytopeCollisionDetection(objectOne,
-                                                                   (CylinderShapeDescription<?>) descriptionOne,
-                                                                   objectTwo,
-                                                                   (PolytopeShapeDescription<?>) descriptionTwo,
-                                                                   result);
-            }
+      int skippedQueries = 0;
 
-            else if ((descriptionOne instanceof BoxShapeDescription) && (descriptionTwo instanceof BoxShapeDescription))
-            {
-               areColliding = doBoxBoxCollisionDetection(objectOne,
-                                                         (BoxShapeDescription<?>) descriptionOne,
-                                                         objectTwo,
-                                                         (BoxShapeDescription<?>) descriptionTwo,
-                                                         result);
-            }
+      for (int k = 0; k < numberOfCandidatePairs; k++)
+      {
+         if (candidatePairSeparatingAxes[k] != null && candidatePairSeparatingAxes[k].wasLastQuerySkipped())
+            skippedQueries++;
 
-            if (areColliding)
-            {
-               numberOfCollisions++;
-
-               if (useSimpleSpeedupMethod)
-                  haveCollided[i][j] = true;
-               //               ArrayList<CollisionShape> arrayList = collidingPairs.get(objectOne);
-               //               if (arrayList == null)
-               //               {
-               //                  arrayList = new ArrayList<>();
-               //                  collidingPairs.put(objectOne, arrayList);
-               //               }
-               //
-               //               if (!arrayList.contains(objectTwo))
-               //               {
-               //                  arrayList.add(objectTwo);
-               //               }
-            }
+         if (candidatePairsColliding[k])
+         {
+            numberOfCollisions++;
+
+            if (useSimpleSpeedupMethod)
+               haveCollided[candidatePairsOne[k]][candidatePairsTwo[k]] = true;
+            //               ArrayList<CollisionShape> arrayList = collidingPairs.get(objectOne);
+            //               if (arrayList == null)
+            //               {
+            //                  arrayList = new ArrayList<>();
+            //                  collidingPairs.put(objectOne, arrayList);
+            //               }
+            //
+            //               if (!arrayList.contains(objectTwo))
+            //               {
+            //                  arrayList.add(objectTwo);
+            //               }
          }
       }
 
       if (VERBOSE)
       {
          System.out.println("\nboundingBoxChecks = " + boundingBoxChecks);
-         System.out.println("collisionChecks = " + collisionChecks);
+         System.out.println("collisionChecks = " + numberOfCandidatePairs);
          System.out.println("numberOfCollisions = " + numberOfCollisions);
+         System.out.println("skippedQueries = " + skippedQueries);
       }
    }
 
-   public ArrayList<CollisionShape> getCollisionObjects()
-   {
-      return collisionObjects;
-   }
-
-   private boolean doPolytopePolytopeCollisionDetection(CollisionShape objectOne, PolytopeShapeDescription<?> polytopeShapeDescriptionOne,
-                                                        CollisionShape objectTwo, PolytopeShapeDescription<?> polytopeShapeDescriptionTwo,
-                                                        CollisionDetectionResult result)
-   {
-      SupportingVertexHolder polytopeOne = polytopeShapeDescriptionOne.getPolytope();
-      SupportingVertexHolder polytopeTwo = polytopeShapeDescriptionTwo.getPolytope();
-
-      double radiusOne = polytopeShapeDescriptionOne.getSmoothingRadius();
-      double radiusTwo = polytopeShapeDescriptionTwo.getSmoothingRadius();
-
-      return doPolytopePolytopeCollisionDetection(objectOne, polytopeOne, radiusOne, objectTwo, polytopeTwo, radiusTwo, result);
-   }
-
-   private boolean doCylinderPolytopeCollisionDetection(CollisionShape objectOne, CylinderShapeDescription<?> descriptionOne, CollisionShape objectTwo,
-                                                        PolytopeShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
-   {
-      SupportingVertexHolder polytopeOne = descriptionOne.getSupportingVertexHolder();
-      SupportingVertexHolder polytopeTwo = descriptionTwo.getPolytope();
-
-      double radiusOne = descriptionOne.getSmoothingRadius();
-      double radiusTwo = descriptionTwo.getSmoothingRadius();
-
-      return doPolytopePolytopeCollisionDetection(objectOne, polytopeOne, radiusOne, objectTwo, polytopeTwo, radiusTwo, result);
-   }
-
-   private boolean doCylinderCylinderCollisionDetection(CollisionShape objectOne, CylinderShapeDescription<?> descriptionOne, CollisionShape objectTwo,
-                                                        CylinderShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
-   {
-      SupportingVertexHolder polytopeOne = descriptionOne.getSupportingVertexHolder();
-      SupportingVertexHolder polytopeTwo = descriptionTwo.getSupportingVertexHolder();
-
-      double radiusOne = descriptionOne.getSmoothingRadius();
-      double radiusTwo = descriptionTwo.getSmoothingRadius();
-
-      return doPolytopePolytopeCollisionDetection(objectOne, polytopeOne, radiusOne, objectTwo, polytopeTwo, radiusTwo, result);
-   }
-
-   private boolean doBoxBoxCollisionDetection(CollisionShape objectOne, BoxShapeDescription<?> descriptionOne, CollisionShape objectTwo,
-                                              BoxShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
-   {
-      return false;
-   }
-
-   private final LineSegment3D lineSegmentOne = new LineSegment3D();
-   private final LineSegment3D lineSegmentTwo = new LineSegment3D();
-   private final Point3D closestPointOnOne = new Point3D();
-   private final Point3D closestPointOnTwo = new Point3D();
-
-   private boolean doCapsuleSphereCollisionDetection(CollisionShape objectOne, CapsuleShapeDescription<?> descriptionOne, CollisionShape objectTwo,
-                                                     SphereShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   private void addCandidatePair(int indexOne, int indexTwo)
    {
-      double capsuleRadius = descriptionOne.getRadius();
-      descriptionOne.getLineSegment(lineSegmentOne);
-
-      double sphereRadius = descriptionTwo.getRadius();
-      descriptionTwo.getCenter(centerOfSphere);
-
-      lineSegmentOne.orthogonalProjection(centerOfSphere, closestPointOnOne);
+      if (numberOfCandidatePairs == candidatePairsOne.length)
+      {
+         int newLength = 2 * candidatePairsOne.length;
+         candidatePairsOne = Arrays.copyOf(candidatePairsOne, newLength);
+         candidatePairsTwo = Arrays.copyOf(candidatePairsTwo, newLength);
+         candidatePairSeparatingAxes = Arrays.copyOf(candidatePairSeparatingAxes, newLength);
+         candidatePairContacts = Arrays.copyOf(candidatePairContacts, newLength);
+         candidatePairsColliding = Arrays.copyOf(candidatePairsColliding, newLength);
+      }
 
-      double distanceSquared = centerOfSphere.distanceSquared(closestPointOnOne);
+      candidatePairsOne[numberOfCandidatePairs] = indexOne;
+      candidatePairsTwo[numberOfCandidatePairs] = indexTwo;
 
-      if (distanceSquared <= (capsuleRadius + sphereRadius) * (capsuleRadius + sphereRadius))
+      if (useTemporalCoherence)
       {
-         addCollisionPairToResult(closestPointOnOne, centerOfSphere, capsuleRadius, sphereRadius, distanceSquared, objectOne, objectTwo, result);
-         return true;
+         candidatePairSeparatingAxes[numberOfCandidatePairs] = separatingAxisCache.update(collisionObjects.get(indexOne),
+                                                                                          shapeTransforms[indexOne],
+                                                                                          collisionObjects.get(indexTwo),
+                                                                                          shapeTransforms[indexTwo]);
       }
-
       else
       {
-         return false;
+         candidatePairSeparatingAxes[numberOfCandidatePairs] = null;
       }
+
+      numberOfCandidatePairs++;
    }
 
-   private boolean doSphereCylinderCollisionDetection(CollisionShape objectOne, SphereShapeDescription<?> descriptionOne, CollisionShape objectTwo,
-                                                      CylinderShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   private void evaluateCandidatePairsInParallel()
    {
-      double sphereRadius = descriptionOne.getRadius();
-      descriptionOne.getCenter(centerOfSphere);
+      nextNarrowPhaseBlock.set(0);
+      int numberOfBlocks = (numberOfCandidatePairs + NARROW_PHASE_BLOCK_SIZE - 1) / NARROW_PHASE_BLOCK_SIZE;
+      int numberOfWorkers = Math.min(narrowPhaseWorkers.size(), numberOfBlocks);
 
-      descriptionTwo.getProjection(centerOfSphere, closestPointOnTwo);
-      double cylinderSmoothingRadius = descriptionTwo.getSmoothingRadius();
+      narrowPhaseFutures.clear();
+      for (int i = 1; i < numberOfWorkers; i++)
+         narrowPhaseFutures.add(narrowPhaseExecutor.submit(narrowPhaseWorkers.get(i)));
 
-      double distanceSquared = centerOfSphere.distanceSquared(closestPointOnTwo);
+      // The calling thread takes its share of the blocks instead of waiting.
+      narrowPhaseWorkers.get(0).call();
 
-      if (distanceSquared <= (cylinderSmoothingRadius + sphereRadius) * (cylinderSmoothingRadius + sphereRadius))
+      try
       {
-         addCollisionPairToResult(centerOfSphere, closestPointOnTwo, sphereRadius, cylinderSmoothingRadius, distanceSquared, objectOne, objectTwo, result);
-         return true;
+         for (int i = 0; i < narrowPhaseFutures.size(); i++)
+            narrowPhaseFutures.get(i).get();
       }
-
-      else
+      catch (InterruptedException e)
       {
-         return false;
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while waiting for the narrow phase.", e);
       }
-   }
-
-   private boolean doCapsuleCylinderCollisionDetection(CollisionShape capsuleShape, CapsuleShapeDescription<?> capsuleDescription, CollisionShape cylinderShape,
-                                                       CylinderShapeDescription<?> cylinderDescription, CollisionDetectionResult result)
-   {
-      double cylinderSmoothingRadius = cylinderDescription.getSmoothingRadius();
-      SupportingVertexHolder cylinderSupportingVertexHolder = cylinderDescription.getSupportingVertexHolder();
-
-      return doCapsuleSupportingVertexHolderCollisionDetection(capsuleShape,
-                                                               capsuleDescription,
-                                                               cylinderShape,
-                                                               cylinderSupportingVertexHolder,
-                                                               cylinderSmoothingRadius,
-                                                               result);
-   }
-
-   private boolean doCapsuleCapsuleCollisionDetection(CollisionShape objectOne, CapsuleShapeDescription<?> descriptionOne, CollisionShape objectTwo,
-                                                      CapsuleShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
-   {
-      double radiusOne = descriptionOne.getRadius();
-      double radiusTwo = descriptionTwo.getRadius();
-
-      descriptionOne.getLineSegment(lineSegmentOne);
-      descriptionTwo.getLineSegment(lineSegmentTwo);
-
-      getClosestPointsOnLineSegments(lineSegmentOne, lineSegmentTwo, closestPointOnOne, closestPointOnTwo);
-
-      double distanceSquared = closestPointOnOne.distanceSquared(closestPointOnTwo);
-
-      if (distanceSquared <= (radiusOne + radiusTwo) * (radiusOne + radiusTwo))
+      catch (ExecutionException e)
       {
-         addCollisionPairToResult(closestPointOnOne, closestPointOnTwo, radiusOne, radiusTwo, distanceSquared, objectOne, objectTwo, result);
-         return true;
+         throw new RuntimeException("Narrow phase failed.", e.getCause());
       }
-
-      return false;
    }
 
-   private void addCollisionPairToResult(Point3D pointOne, Point3D pointTwo, double radiusOne, double radiusTwo, double distanceSquared,
-                                         CollisionShape objectOne, CollisionShape objectTwo, CollisionDetectionResult result)
+   /**
+    * Takes blocks of candidate pairs until there are none left, and stores the contacts of each pair
+    * in its slot so that they can be merged in pair order.
+    */
+   private class NarrowPhaseWorker implements Callable<Void>
    {
-      Vector3D normalVector = new Vector3D();
-
-      normalVector.sub(pointTwo, pointOne);
-
-      // TODO: Get the normal from the features if the points are close.
-      if (normalVector.lengthSquared() < 1e-10)
-         return;
-      normalVector.normalize();
-
-      Point3D pointOnOne = new Point3D(pointOne);
-      tempVector.set(normalVector);
-      tempVector.scale(radiusOne);
-      pointOnOne.add(tempVector);
-
-      Point3D pointOnTwo = new Point3D(pointTwo);
-      tempVector.set(normalVector);
-      tempVector.scale(-radiusTwo);
-      pointOnTwo.add(tempVector);
-
-      double distance = Math.sqrt(distanceSquared) - radiusOne - radiusTwo;
-
-      SimpleContactWrapper contacts = new SimpleContactWrapper(objectOne, objectTwo);
-      contacts.addContact(pointOnOne, pointOnTwo, normalVector, distance);
-
-      result.addContact(contacts);
-   }
+      private final NarrowPhaseCollisionCalculator calculator = new NarrowPhaseCollisionCalculator();
+      private final CollisionDetectionResult pairResult = new CollisionDetectionResult();
 
-   private boolean doSphereSphereCollisionDetection(CollisionShape objectOne, SphereShapeDescription<?> descriptionOne, CollisionShape objectTwo,
-                                                    SphereShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
-   {
-      double radiusOne = descriptionOne.getRadius();
-      double radiusTwo = descriptionTwo.getRadius();
+      @Override
+      public Void call()
+      {
+         int block;
 
-      descriptionOne.getCenter(centerOne);
-      descriptionTwo.getCenter(centerTwo);
+         while ((block = nextNarrowPhaseBlock.getAndIncrement()) * NARROW_PHASE_BLOCK_SIZE < numberOfCandidatePairs)
+         {
+            int end = Math.min(numberOfCandidatePairs, (block + 1) * NARROW_PHASE_BLOCK_SIZE);
 
-      double distanceSquared = centerOne.distanceSquared(centerTwo);
+            for (int k = block * NARROW_PHASE_BLOCK_SIZE; k < end; k++)
+            {
+               int i = candidatePairsOne[k];
+               int j = candidatePairsTwo[k];
+
+               pairResult.clear();
+               candidatePairsColliding[k] = calculator.evaluateCollision(collisionObjects.get(i),
+                                                                         shapeTypes[i],
+                                                                         collisionObjects.get(j),
+                                                                         shapeTypes[j],
+                                                                         candidatePairSeparatingAxes[k],
+                                                                         pairResult);
+               candidatePairContacts[k] = pairResult.getNumberOfCollisions() > 0 ? pairResult.getCollision(0) : null;
+            }
+         }
 
-      if (distanceSquared <= (radiusOne + radiusTwo) * (radiusOne + radiusTwo))
-      {
-         addCollisionPairToResult(centerOne, centerTwo, radiusOne, radiusTwo, distanceSquared, objectOne, objectTwo, result);
-         return true;
+         return null;
       }
-
-      return false;
    }
 
-   private final GilbertJohnsonKeerthiCollisionDetector gjkCollisionDetector = new GilbertJohnsonKeerthiCollisionDetector();
-   private final ExpandingPolytopeAlgorithm expandingPolytopeAlgorithm = new ExpandingPolytopeAlgorithm();
-   private final Point3D pointOnAToPack = new Point3D();
-   private final Point3D pointOnBToPack = new Point3D();
-
-   private final Point3D centerOfSphere = new Point3D();
-
-   private boolean doSpherePolytopeCollisionDetection(CollisionShape objectOne, SphereShapeDescription<?> descriptionOne, CollisionShape objectTwo,
-                                                      PolytopeShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   private static ExecutorService createNarrowPhaseExecutor(int numberOfThreads)
    {
-      descriptionOne.getCenter(centerOfSphere);
-      double sphereRadius = descriptionOne.getRadius();
-      double polytopeSmoothingRadius = descriptionTwo.getSmoothingRadius();
-
-      //TODO: Remove trash generation...
-      SupportingVertexHolder sphereAsSupportingVertexHolder = new SupportingVertexHolder()
+      AtomicInteger threadIndex = new AtomicInteger();
+      ThreadFactory threadFactory = runnable ->
       {
-         @Override
-         public boolean getSupportingVertex(Vector3DReadOnly supportDirection, Point3DBasics supportingVertexToPack)
-         {
-            supportingVertexToPack.set(centerOfSphere);
-            return true;
-         }
+         Thread thread = new Thread(runnable, "NarrowPhase-" + threadIndex.getAndIncrement());
+         thread.setDaemon(true);
+         return thread;
       };
 
-      return doPolytopePolytopeCollisionDetection(objectOne,
-                                                  sphereAsSupportingVertexHolder,
-                                                  sphereRadius,
-                                                  objectTwo,
-                                                  descriptionTwo.getPolytope(),
-                                                  polytopeSmoothingRadius,
-                                                  result);
+      return Executors.newFixedThreadPool(numberOfThreads, threadFactory);
    }
 
-   private final LineSegment3D tempLineSegment = new LineSegment3D();
-   private final Vector3D tempSegmentPointVector = new Vector3D();
-
-   private boolean doCapsulePolytopeCollisionDetection(CollisionShape objectOne, CapsuleShapeDescription<?> descriptionOne, CollisionShape objectTwo,
-                                                       PolytopeShapeDescription<?> descriptionTwo, CollisionDetectionResult result)
+   public ArrayList<CollisionShape> getCollisionObjects()
    {
-      double polytopeSmoothingRadius = descriptionTwo.getSmoothingRadius();
-
-      return doCapsuleSupportingVertexHolderCollisionDetection(objectOne,
-                                                               descriptionOne,
-                                                               objectTwo,
-                                                               descriptionTwo.getPolytope(),
-                                                               polytopeSmoothingRadius,
-                                                               result);
+      return collisionObjects;
    }
 
-   private boolean doCapsuleSupportingVertexHolderCollisionDetection(CollisionShape objectOne, CapsuleShapeDescription<?> descriptionOne,
-                                                                     CollisionShape objectTwo, SupportingVertexHolder descriptionTwo, double smoothingRadiusTwo,
-                                                                     CollisionDetectionResult result)
+   public void addShape(CollisionShape collisionShape)
    {
-      descriptionOne.getLineSegment(tempLineSegment);
-      final Point3DBasics tempSegmentPointOne = tempLineSegment.getFirstEndpoint();
-      final Point3DBasics tempSegmentPointTwo = tempLineSegment.getSecondEndpoint();
-
-      double capsuleRadius = descriptionOne.getRadius();
-
-      //TODO: Recycle object...
-      SupportingVertexHolder capsuleAsSupportingVertexHolder = new SupportingVertexHolder()
-      {
-         @Override
-         public boolean getSupportingVertex(Vector3DReadOnly supportDirection, Point3DBasics supportingVertexToPack)
-         {
-            tempSegmentPointVector.set(tempSegmentPointOne);
-            double dotOne = tempSegmentPointVector.dot(supportDirection);
-
-            tempSegmentPointVector.set(tempSegmentPointTwo);
-            double dotTwo = tempSegmentPointVector.dot(supportDirection);
-
-            if (dotOne > dotTwo)
-               supportingVertexToPack.set(tempSegmentPointOne);
-            else
-               supportingVertexToPack.set(tempSegmentPointTwo);
-            return true;
-         }
-      };
-
-      return doPolytopePolytopeCollisionDetection(objectOne,
-                                                  capsuleAsSupportingVertexHolder,
-                                                  capsuleRadius,
-                                                  objectTwo,
-                                                  descriptionTwo,
-                                                  smoothingRadiusTwo,
-                                                  result);
+      collisionObjects.add(collisionShape);
    }
 
-   private boolean doPolytopePolytopeCollisionDetection(CollisionShape objectOne, SupportingVertexHolder supportingVertexHolderOne, double radiusOne,
-                                                        CollisionShape objectTwo, SupportingVertexHolder supportingVertexHolderTwo, double radiusTwo,
-                                                        CollisionDetectionResult result)
+   /**
+    * Removes the shape from the detector. Its ID is given back to be reused by the shapes created
+    * afterwards, so the shape should not be used for collisions anymore.
+    *
+    * @return whether the shape was in the detector.
+    */
+   public boolean removeShape(CollisionShape collisionShape)
    {
-      EuclidShape3DCollisionResult collisionResult = gjkCollisionDetector.evaluateCollision(supportingVertexHolderOne, supportingVertexHolderTwo);
-      boolean areColliding = collisionResult.areShapesColliding();
-
-      if (!areColliding)
-      {
-         pointOnAToPack.set(collisionResult.getPointOnA());
-         pointOnBToPack.set(collisionResult.getPointOnB());
-         double separationDistanceForContact = radiusOne + radiusTwo;
-
-         double distanceSquared = pointOnAToPack.distanceSquared(pointOnBToPack);
-         //         System.out.println(distanceSquared);
-
-         if (distanceSquared < separationDistanceForContact * separationDistanceForContact)
-         {
-            //TODO: Find more than one point per object...
-
-            SimpleContactWrapper contacts = new SimpleContactWrapper(objectOne, objectTwo);
-            Vector3D normalVector = new Vector3D();
-            normalVector.sub(pointOnBToPack, pointOnAToPack);
-
-            //TODO: Magic distance number...
-            if (normalVector.lengthSquared() > 1e-6)
-            {
-               normalVector.normalize();
-               double distanceToReport = -pointOnAToPack.distance(pointOnBToPack); //0.001; //TODO: Do we even need this?
-
-               Point3D contactOnA = new Point3D(normalVector);
-               contactOnA.scaleAdd(radiusOne, pointOnAToPack);
-
-               Point3D contactOnB = new Point3D(normalVector);
-               contactOnB.scaleAdd(-radiusTwo, pointOnBToPack);
-
-               contacts.addContact(contactOnA, contactOnB, normalVector, distanceToReport);
-               result.addContact(contacts);
-               return true;
-            }
-         }
-      }
-      else
-      {
-         expandingPolytopeAlgorithm.evaluateCollision(supportingVertexHolderOne,
-                                                      supportingVertexHolderTwo,
-                                                      gjkCollisionDetector.getSimplex().getVertices(),
-                                                      collisionResult);
-         pointOnAToPack.set(collisionResult.getPointOnA());
-         pointOnBToPack.set(collisionResult.getPointOnB());
-
-         if (!collisionResult.areShapesColliding())
-            return false;
-
-         //TODO: Reduce trash here...
-         Vector3D collisionNormal = new Vector3D(expandingPolytopeAlgorithm.getClosestFace().getClosestPointToOrigin());
-
-         //TODO: Magic number for normalize
-         if (collisionNormal.lengthSquared() > 1e-6)
-         {
-            collisionNormal.normalize();
-            SimpleContactWrapper contacts = new SimpleContactWrapper(objectOne, objectTwo);
-
-            double distanceToReport = -pointOnAToPack.distance(pointOnBToPack); //TODO: Do we even need this?
-            contacts.addContact(new Point3D(pointOnAToPack), new Point3D(pointOnBToPack), collisionNormal, distanceToReport);
-            result.addContact(contacts);
-         }
+      if (!collisionObjects.remove(collisionShape))
+         return false;
 
-         return true;
-      }
+      // The indices of the shapes that follow it have changed.
+      haveCollided = null;
 
-      return false;
-   }
+      if (collisionShape instanceof SimpleCollisionShape)
+         ((SimpleCollisionShape) collisionShape).releaseShapeID();
 
-   public void addShape(CollisionShape collisionShape)
-   {
-      collisionObjects.add(collisionShape);
+      return true;
    }
 
-   private final Vector3D uVector = new Vector3D();
-   private final Vector3D vVector = new Vector3D();
-   private final Vector3D w0Vector = new Vector3D();
-
    public void getClosestPointsOnLineSegments(LineSegment3D segmentOne, LineSegment3D segmentTwo, Point3D closestPointOnOneToPack,
                                               Point3D closestPointOnTwoToPack)
    {
-      Point3DBasics p0 = segmentOne.getFirstEndpoint();
-      Point3DBasics p1 = segmentOne.getSecondEndpoint();
-      Point3DBasics q0 = segmentTwo.getFirstEndpoint();
-      Point3DBasics q1 = segmentTwo.getSecondEndpoint();
-
-      uVector.sub(p1, p0);
-      vVector.sub(q1, q0);
-
-      w0Vector.sub(p0, q0);
-
-      double a = uVector.dot(uVector);
-      double b = uVector.dot(vVector);
-      double c = vVector.dot(vVector);
-      double d = uVector.dot(w0Vector);
-      double e = vVector.dot(w0Vector);
-
-      double denominator = a * c - b * b;
-
-      double lambdaOne, numeratorOne, denominatorOne = denominator;
-      double lambdaTwo, numeratorTwo, denominatorTwo = denominator;
-
-      double smallNumber = 1e-7;
-
-      // compute the line parameters of the two closest points
-      if (denominator < smallNumber)
-      {
-         // the lines are almost parallel
-         numeratorOne = 0.0; // force using point P0 on segment S1
-         denominatorOne = 1.0; // to prevent possible division by 0.0 later
-         numeratorTwo = e;
-         denominatorTwo = c;
-      }
-      else
-      {
-         // get the closest points on the infinite lines
-         numeratorOne = (b * e - c * d);
-         numeratorTwo = (a * e - b * d);
-         if (numeratorOne < 0.0)
-         {
-            // sc < 0 => the s=0 edge is visible
-            numeratorOne = 0.0;
-            numeratorTwo = e;
-            denominatorTwo = c;
-         }
-         else if (numeratorOne > denominatorOne)
-         {
-            // sc > 1  => the s=1 edge is visible
-            numeratorOne = denominatorOne;
-            numeratorTwo = e + b;
-            denominatorTwo = c;
-         }
-      }
-
-      if (numeratorTwo < 0.0)
-      {
-         // tc < 0 => the t=0 edge is visible
-         numeratorTwo = 0.0;
-         // recompute sc for this edge
-         if (-d < 0.0)
-            numeratorOne = 0.0;
-         else if (-d > a)
-            numeratorOne = denominatorOne;
-         else
-         {
-            numeratorOne = -d;
-            denominatorOne = a;
-         }
-      }
-      else if (numeratorTwo > denominatorTwo)
-      { // tc > 1  => the t=1 edge is visible
-         numeratorTwo = denominatorTwo;
-         // recompute sc for this edge
-         if ((-d + b) < 0.0)
-            numeratorOne = 0;
-         else if ((-d + b) > a)
-            numeratorOne = denominatorOne;
-         else
-         {
-            numeratorOne = (-d + b);
-            denominatorOne = a;
-         }
-      }
-      // finally do the division to get sc and tc
-      lambdaOne = (Math.abs(numeratorOne) < smallNumber ? 0.0 : numeratorOne / denominatorOne);
-      lambdaTwo = (Math.abs(numeratorTwo) < smallNumber ? 0.0 : numeratorTwo / denominatorTwo);
-
-      // get the difference of the two closest points
-
-      closestPointOnOneToPack.set(uVector);
-      closestPointOnOneToPack.scaleAdd(lambdaOne, p0);
-
-      closestPointOnTwoToPack.set(vVector);
-      closestPointOnTwoToPack.scaleAdd(lambdaTwo, q0);
+      narrowPhaseCollisionCalculator.getClosestPointsOnLineSegments(segmentOne, segmentTwo, closestPointOnOneToPack, closestPointOnTwoToPack);
    }
-
 }
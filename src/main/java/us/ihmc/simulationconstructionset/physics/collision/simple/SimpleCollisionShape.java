@@ -17,12 +17,35 @@ public class SimpleCollisionShape implements CollisionShape
 
    private boolean isGround = false;
 
+   private int shapeID = ShapeIDPool.acquire();
+
    public SimpleCollisionShape(CollisionShapeDescription collisionShapeDescription)
    {
       this.collisionShapeDescription = collisionShapeDescription;
       transformedCollisionShapeDescription = collisionShapeDescription.copy();
    }
 
+   /**
+    * @return the ID used to key the pairs of shapes in the collision caches, or -1 once the shape
+    *         has been removed from its detector.
+    */
+   int getShapeID()
+   {
+      return shapeID;
+   }
+
+   /**
+    * Gives the ID of this shape back so that it can be reused by a new shape.
+    */
+   void releaseShapeID()
+   {
+      if (shapeID == -1)
+         return;
+
+      ShapeIDPool.release(shapeID);
+      shapeID = -1;
+   }
+
    @Override
    public boolean isGround()
    {
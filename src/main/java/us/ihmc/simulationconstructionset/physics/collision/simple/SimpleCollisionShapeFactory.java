@@ -1,13 +1,11 @@
 package us.ihmc.simulationconstructionset.physics.collision.simple;
 
 import java.util.ArrayList;
-import java.util.List;
 
 import us.ihmc.euclid.geometry.LineSegment3D;
 import us.ihmc.euclid.geometry.interfaces.LineSegment3DReadOnly;
 import us.ihmc.euclid.geometry.interfaces.Vertex3DSupplier;
 import us.ihmc.euclid.shape.convexPolytope.ConvexPolytope3D;
-import us.ihmc.euclid.shape.convexPolytope.tools.EuclidPolytopeFactories;
 import us.ihmc.euclid.shape.primitives.Box3D;
 import us.ihmc.euclid.shape.primitives.Capsule3D;
 import us.ihmc.euclid.shape.primitives.Cylinder3D;
@@ -103,10 +101,7 @@ public class SimpleCollisionShapeFactory implements CollisionShapeFactory
    @Override
    public CollisionShapeDescription<?> createBox(double halfLengthX, double halfWidthY, double halfHeightZ)
    {
-      List<Point3D> cubeVertices = EuclidPolytopeFactories.newCubeVertices(2.0);
-      cubeVertices.forEach(vertex -> vertex.scale(halfLengthX, halfWidthY, halfHeightZ));
-      ConvexPolytope3D polytope = new ConvexPolytope3D(Vertex3DSupplier.asVertex3DSupplier(cubeVertices));
-      return new PolytopeShapeDescription<>(polytope);
+      return new BoxShapeDescription<>(halfLengthX, halfWidthY, halfHeightZ);
    }
 
    @Override
@@ -0,0 +1,33 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import us.ihmc.simulationconstructionset.physics.CollisionShapeDescription;
+
+/**
+ * Types of shape descriptions handled by the {@link SimpleCollisionDetector}. The ordinal is used
+ * to look up the narrow-phase routine of a pair of shapes.
+ */
+public enum SimpleShapeType
+{
+   SPHERE, CAPSULE, CYLINDER, BOX, POLYTOPE;
+
+   public static final SimpleShapeType[] values = values();
+
+   /**
+    * Returns the type of the given description, or {@code null} if the simple collision detector
+    * does not know how to handle it.
+    */
+   public static SimpleShapeType getShapeType(CollisionShapeDescription<?> description)
+   {
+      if (description instanceof SphereShapeDescription)
+         return SPHERE;
+      if (description instanceof CapsuleShapeDescription)
+         return CAPSULE;
+      if (description instanceof CylinderShapeDescription)
+         return CYLINDER;
+      if (description instanceof BoxShapeDescription)
+         return BOX;
+      if (description instanceof PolytopeShapeDescription)
+         return POLYTOPE;
+      return null;
+   }
+}
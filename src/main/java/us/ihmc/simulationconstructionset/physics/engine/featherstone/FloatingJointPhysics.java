@@ -1,7 +1,6 @@
 package us.ihmc.simulationconstructionset.physics.engine.featherstone;
 
 import java.util.ArrayList;
-import java.util.Collection;
 
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.dense.row.CommonOps_DDRM;
@@ -13,7 +12,6 @@ import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
 import us.ihmc.euclid.tuple4D.Quaternion;
 import us.ihmc.simulationconstructionset.FloatingJoint;
 import us.ihmc.simulationconstructionset.GroundContactPoint;
-import us.ihmc.simulationconstructionset.GroundContactPointGroup;
 import us.ihmc.simulationconstructionset.Joint;
 import us.ihmc.simulationconstructionset.KinematicPoint;
 import us.ihmc.simulationconstructionset.SpatialVector;
@@ -77,21 +75,11 @@ public class FloatingJointPhysics extends JointPhysics<FloatingJoint>
       R0_i.set(Ri_0);
       R0_i.transpose();
 
-      // +++JEP OPTIMIZE
-      if (groundContactPointGroups != null)
+      // Only the points in contact, the others are updated once per tick by recursiveUpdateAllGroundContactPointVelocities().
+      for (int i = 0; i < numberOfGroundContactPointsInContact; i++)
       {
-         Collection<GroundContactPointGroup> groups = groundContactPointGroups.values();
-         for (GroundContactPointGroup groundContactPointGroup : groups)
-         {
-            ArrayList<GroundContactPoint> groundContactPoints = groundContactPointGroup.getGroundContactPointsInContact();
-
-            for (int i = 0; i < groundContactPoints.size(); i++)
-            {
-               GroundContactPoint point = groundContactPoints.get(i);
-
-               point.updatePointVelocity(R0_i, owner.link.comOffset, v_i, w_i);
-            }
-         }
+         GroundContactPoint point = groundContactPoints[groundContactPointIndicesInContact[i]];
+         point.updatePointVelocity(R0_i, owner.link.comOffset, v_i, w_i);
       }
 
       if (kinematicPoints != null)
@@ -1,6 +1,7 @@
 package us.ihmc.simulationconstructionset.physics.engine.featherstone;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 
@@ -63,6 +64,14 @@ public abstract class JointPhysics<J extends Joint>
    public LinkedHashMap<Integer, GroundContactPointGroup> groundContactPointGroups;
    public List<GroundContactPointGroup> groundContactPointGroupList;
 
+   // Compiled layout of the ground contact points of all the groups, in the order of the groups, so the physics passes don't have to walk the groups.
+   protected GroundContactPoint[] groundContactPoints = new GroundContactPoint[0];
+   // Indices in groundContactPoints of the points in contact, only the first numberOfGroundContactPointsInContact are valid. Not ordered.
+   protected int[] groundContactPointIndicesInContact = new int[0];
+   protected int numberOfGroundContactPointsInContact = 0;
+   // Position of each point in groundContactPointIndicesInContact, -1 if the point is not in contact.
+   private int[] groundContactPointPositionsInContact = new int[0];
+
    protected JointWrenchSensor jointWrenchSensor;
    private SpatialVector tempJointWrenchVector;
    private Vector3D tempVectorForWrenchTranslation, tempOffsetForWrenchTranslation;
@@ -150,18 +159,9 @@ public abstract class JointPhysics<J extends Joint>
       R0_i.set(Ri_0);
       R0_i.transpose();
 
-      // Do not iterate over the groundContactPointGroups hashmap here, has a very large overhead!
-      if (groundContactPointGroupList != null)
+      for (int i = 0; i < groundContactPoints.length; i++)
       {
-         for (int i = 0; i < groundContactPointGroupList.size(); i++)
-         {
-            List<GroundContactPoint> groundContactPoints = groundContactPointGroupList.get(i).getGroundContactPoints();
-            for (int y = 0; y < groundContactPoints.size(); y++)
-            {
-               GroundContactPoint point = groundContactPoints.get(y);
-               point.updatePointVelocity(R0_i, this.owner.link.comOffset, v_i, w_i);
-            }
-         }
+         groundContactPoints[i].updatePointVelocity(R0_i, this.owner.link.comOffset, v_i, w_i);
       }
 
       if (kinematicPoints != null)
@@ -221,18 +221,10 @@ public abstract class JointPhysics<J extends Joint>
       I_hat_i.setInitArticulatedInertia(owner.link.getMass(), owner.link.Inertia);
 
       // Put ground contact point effects in Z_hat:
-      // Do not iterate over the groundContactPointGroups hashmap here, has a very large overhead!
-      if (groundContactPointGroupList != null)
+      // All the points, not only the ones in contact, as a force can be set on a point that is not in contact.
+      for (int i = 0; i < groundContactPoints.length; i++)
       {
-         for (int i = 0; i < groundContactPointGroupList.size(); i++)
-         {
-            List<GroundContactPoint> groundContactPoints = groundContactPointGroupList.get(i).getGroundContactPoints();
-            for (int y = 0; y < groundContactPoints.size(); y++)
-            {
-               GroundContactPoint point = groundContactPoints.get(y);
-               applyForcesAndMomentsFromExternalForcePoints(point);
-            }
-         }
+         applyForcesAndMomentsFromExternalForcePoints(groundContactPoints[i]);
       }
 
       // Put external force effects in Z_hat:
@@ -739,6 +731,60 @@ public abstract class JointPhysics<J extends Joint>
       applyImpulse(p_coll);
    }
 
+   /**
+    * Computes the impulse that resolves the specified collision event like
+    * {@link #resolveCollision(Vector3DReadOnly, RotationMatrixReadOnly, Vector3DReadOnly, double, double, Vector3DBasics)}
+    * but does not apply it. Instead, the impulse expressed at the center of mass of this link is added
+    * to {@code impulseAtCenterOfMassToAddTo} so that the impulses of several collision points can be
+    * applied at once with {@link #applyImpulseAtCenterOfMass(SpatialVector)}.
+    *
+    * @param offsetFromCOM                Vector describing the distance between the link center of
+    *                                     mass and the point of collision.
+    * @param Rk_coll                      Rotation matrix from joint k to collision space.
+    * @param u_coll                       Vector representing the velocity at the collision point.
+    * @param epsilon                      The coefficent of restitution.
+    * @param mu                           The coefficent of friction.
+    * @param p_coll                       Vector to store the collision impulse, in collision space.
+    * @param impulseAtCenterOfMassToAddTo the spatial impulse at the center of mass of this link to
+    *                                     which the collision impulse is added.
+    */
+   public void computeCollisionImpulse(Vector3DReadOnly offsetFromCOM, RotationMatrixReadOnly Rk_coll, Vector3DReadOnly u_coll, double epsilon, double mu,
+                                       Vector3DBasics p_coll, SpatialVector impulseAtCenterOfMassToAddTo)
+   {
+      computeKiCollision(offsetFromCOM, Rk_coll);
+      integrateCollision(Ki, u_coll, epsilon, mu, p_coll);
+
+      transformCollisionImpulseToCenterOfMass(p_coll, p_hat_k);
+      impulseAtCenterOfMassToAddTo.add(p_hat_k);
+   }
+
+   /**
+    * Converts an impulse expressed in the collision space of the last call to
+    * {@link #computeKiCollision(Vector3DReadOnly, RotationMatrixReadOnly)} into the equivalent impulse
+    * at the center of mass of this link.
+    *
+    * @param p_coll                      the impulse in collision space.
+    * @param impulseAtCenterOfMassToPack the force and torque impulse at the center of mass of this
+    *                                    link.
+    */
+   public void transformCollisionImpulseToCenterOfMass(Vector3DReadOnly p_coll, SpatialVector impulseAtCenterOfMassToPack)
+   {
+      impulseAtCenterOfMassToPack.top.set(p_coll);
+      impulseAtCenterOfMassToPack.bottom.set(0.0, 0.0, 0.0);
+      k_X_hat_coll.transform(impulseAtCenterOfMassToPack);
+   }
+
+   /**
+    * Applies a spatial impulse expressed at the center of mass of this link and propagates the
+    * resulting change of velocity to all the links of the robot.
+    *
+    * @param impulseAtCenterOfMass the force and torque impulse at the center of mass of this link.
+    */
+   public void applyImpulseAtCenterOfMass(SpatialVector impulseAtCenterOfMass)
+   {
+      propagateImpulse(impulseAtCenterOfMass);
+   }
+
    /**
     * Micro collisions are used to simulate static contact. They prevent simulation failure when the
     * separation distance and time between collisions approaches zero (static contact). This micro
@@ -1392,12 +1438,27 @@ public abstract class JointPhysics<J extends Joint>
     */
    public void recursiveDecideGroundContactPointsInContact()
    {
-      if (groundContactPointGroups != null)
+      // Only the points that entered or left contact since the last call are moved.
+      for (int i = 0; i < groundContactPoints.length; i++)
       {
-         for (int i = 0; i < groundContactPointGroupList.size(); i++)
+         boolean isInContact = groundContactPoints[i].isInContact();
+         boolean wasInContact = groundContactPointPositionsInContact[i] != -1;
+
+         if (isInContact && !wasInContact)
+         {
+            groundContactPointPositionsInContact[i] = numberOfGroundContactPointsInContact;
+            groundContactPointIndicesInContact[numberOfGroundContactPointsInContact] = i;
+            numberOfGroundContactPointsInContact++;
+         }
+         else if (!isInContact && wasInContact)
          {
-            GroundContactPointGroup groundContactGroup = groundContactPointGroupList.get(i);
-            groundContactGroup.decideGroundContactPointsInContact();
+            // Move the last point in contact to the position of the point leaving contact.
+            int position = groundContactPointPositionsInContact[i];
+            numberOfGroundContactPointsInContact--;
+            int lastIndex = groundContactPointIndicesInContact[numberOfGroundContactPointsInContact];
+            groundContactPointIndicesInContact[position] = lastIndex;
+            groundContactPointPositionsInContact[lastIndex] = position;
+            groundContactPointPositionsInContact[i] = -1;
          }
       }
 
@@ -1414,23 +1475,15 @@ public abstract class JointPhysics<J extends Joint>
     */
    public void recursiveUpdateAllGroundContactPointVelocities()
    {
-      // +++JEP OPTIMIZE
-
-      if (groundContactPointGroupList != null)
+      if (groundContactPoints.length > 0)
       {
          R0_i.set(Ri_0);
          R0_i.transpose();
 
-         for (int i = 0; i < groundContactPointGroupList.size(); i++)
+         for (int i = 0; i < groundContactPoints.length; i++)
          {
-            List<GroundContactPoint> groundContactPoints = groundContactPointGroupList.get(i).getGroundContactPoints();
-            for (int y = 0; y < groundContactPoints.size(); y++)
-            {
-               GroundContactPoint point = groundContactPoints.get(y);
-               point.updatePointVelocity(R0_i, owner.link.comOffset, v_i, w_i);
-            }
+            groundContactPoints[i].updatePointVelocity(R0_i, owner.link.comOffset, v_i, w_i);
          }
-
       }
 
       for (int i = 0; i < owner.childrenJoints.size(); i++)
@@ -1778,6 +1831,29 @@ public abstract class JointPhysics<J extends Joint>
       groundContactPointGroup.addGroundContactPoint(point);
 
       point.setParentJoint(owner);
+
+      compileGroundContactPoints();
+   }
+
+   /**
+    * Rebuilds the flat arrays of ground contact points from the groups. All the points are
+    * considered out of contact until the next call to
+    * {@link #recursiveDecideGroundContactPointsInContact()}.
+    */
+   private void compileGroundContactPoints()
+   {
+      List<GroundContactPoint> allGroundContactPoints = new ArrayList<>();
+
+      for (int i = 0; i < groundContactPointGroupList.size(); i++)
+      {
+         allGroundContactPoints.addAll(groundContactPointGroupList.get(i).getGroundContactPoints());
+      }
+
+      groundContactPoints = allGroundContactPoints.toArray(new GroundContactPoint[allGroundContactPoints.size()]);
+      groundContactPointIndicesInContact = new int[groundContactPoints.length];
+      groundContactPointPositionsInContact = new int[groundContactPoints.length];
+      Arrays.fill(groundContactPointPositionsInContact, -1);
+      numberOfGroundContactPointsInContact = 0;
    }
 
    public GroundContactPointGroup getGroundContactPointGroup()
@@ -97,18 +97,9 @@ public class RigidJointPhysics extends JointPhysics<RigidJoint>
       R0_i.set(Ri_0);
       R0_i.transpose();
 
-      // Do not iterate over the groundContactPointGroups hashmap here, has a very large overhead!
-      if (groundContactPointGroupList != null)
+      for (int i = 0; i < groundContactPoints.length; i++)
       {
-         for (int i = 0; i < groundContactPointGroupList.size(); i++)
-         {
-            ArrayList<GroundContactPoint> groundContactPoints = groundContactPointGroupList.get(i).getGroundContactPoints();
-            for (int y = 0; y < groundContactPoints.size(); y++)
-            {
-               GroundContactPoint point = groundContactPoints.get(y);
-               point.updatePointVelocity(R0_i, owner.link.comOffset, v_i, w_i);
-            }
-         }
+         groundContactPoints[i].updatePointVelocity(R0_i, owner.link.comOffset, v_i, w_i);
       }
 
       if (kinematicPoints != null)
@@ -0,0 +1,429 @@
+package us.ihmc.simulationconstructionset.scripts;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Script that combines time and conditional entries and only does the work that is due at each
+ * tick:
+ * <ul>
+ * <li>{@link TimeScriptEntry}s and the start times of conditional entries are kept in a list sorted
+ * by trigger time, with the index of the next event in a {@link YoInteger} as in
+ * {@link TimeScript}, so only the next event is looked at until it is due.
+ * <li>A {@link ConditionalScriptEntry} can be added with the variables its start condition depends
+ * on. Their values are compared to the previous tick and the start condition is only evaluated
+ * when one of them, or the state of the entry, changed. Entries added without watched variables
+ * are evaluated at every tick as in {@link ConditionalScript}.
+ * </ul>
+ * The progress of the script is only kept in YoVariables: the index of the next event and the
+ * {@code event_state} of the conditional entries, from which it is derived whether an entry has
+ * been released by its start time and whether it is active. The script therefore resumes correctly
+ * after the simulation is rewound. When a rewind is detected, all the released entries are
+ * evaluated again.
+ * <p>
+ * The variables are handled directly, the name lookups being done when the entries are created,
+ * for instance by {@link TimeScript#readTimeScript(us.ihmc.yoVariables.registry.YoVariableHolder, java.io.BufferedReader)}.
+ * Unlike {@link TimeScript} which applies one entry per tick, all the time entries that are due
+ * are applied in the same tick, in order of time.
+ * </p>
+ */
+public class CompiledScript implements Script
+{
+   // Rep invariant: sortedEvents is sorted by time, then by order of addition.
+   private final List<ScheduledEvent> sortedEvents = new ArrayList<>();
+   private final YoInteger nextEventIndex;
+
+   private final List<CompiledConditionalEntry> conditionalEntries = new ArrayList<>();
+   private final Map<ConditionalScriptEntry, CompiledConditionalEntry> conditionalEntryMap = new IdentityHashMap<>();
+
+   private YoVariable[] watchedVariables = new YoVariable[0];
+   private long[] previousValues = new long[0];
+   private int[][] dependentEntries = new int[0][];
+
+   /** Entries to evaluate, an entry stays pending until it is evaluated. */
+   private boolean[] pendingEntries = new boolean[0];
+
+   /** Used to detect that the simulation was rewound. */
+   private int expectedNextEventIndex = 0;
+   private double previousTime = Double.NEGATIVE_INFINITY;
+
+   private boolean needsCompile = false;
+
+   /**
+    * @param registry the registry of the index of the next event, which has to be recorded in the data
+    *                 buffer for the script to support rewinding.
+    */
+   public CompiledScript(YoRegistry registry)
+   {
+      nextEventIndex = new YoInteger("nextCompiledScriptEventIndex", registry);
+      nextEventIndex.set(0);
+   }
+
+   /**
+    * Adds all the entries of the given time script.
+    */
+   public void addTimeScript(TimeScript timeScript)
+   {
+      List<TimeScriptEntry> entries = timeScript.getEntries();
+
+      for (int i = 0; i < entries.size(); i++)
+         addEntry(entries.get(i));
+   }
+
+   /**
+    * Adds a time entry. An entry added before the current position of the script, that is with a
+    * time earlier than the last event applied, is considered as already applied.
+    */
+   public void addEntry(TimeScriptEntry timeScriptEntry)
+   {
+      if (timeScriptEntry == null)
+         return;
+
+      schedule(new ScheduledEvent(timeScriptEntry.getTime(), timeScriptEntry, null));
+   }
+
+   public void removeEntry(TimeScriptEntry timeScriptEntry)
+   {
+      for (int i = 0; i < sortedEvents.size(); i++)
+      {
+         if (sortedEvents.get(i).timeScriptEntry == timeScriptEntry)
+         {
+            sortedEvents.remove(i);
+
+            if (i < nextEventIndex.getIntegerValue())
+            {
+               nextEventIndex.decrement();
+               expectedNextEventIndex--;
+            }
+
+            updateStartEventIndices(i);
+            return;
+         }
+      }
+   }
+
+   /**
+    * Adds an entry evaluated at every tick.
+    */
+   public void addEntry(ConditionalScriptEntry entry)
+   {
+      addEntry(entry, Double.NEGATIVE_INFINITY, (YoVariable[]) null);
+   }
+
+   /**
+    * Adds an entry which start condition only depends on the given variables.
+    */
+   public void addEntry(ConditionalScriptEntry entry, YoVariable... watchedVariables)
+   {
+      addEntry(entry, Double.NEGATIVE_INFINITY, watchedVariables);
+   }
+
+   /**
+    * Adds an entry that is not considered before {@code startTime} and which start condition only
+    * depends on the given variables. If {@code watchedVariables} is {@code null}, the entry is
+    * evaluated at every tick after the start time.
+    */
+   public void addEntry(ConditionalScriptEntry entry, double startTime, YoVariable... watchedVariables)
+   {
+      if (entry == null)
+         return;
+      if (conditionalEntryMap.containsKey(entry))
+         throw new IllegalArgumentException("The entry has already been added.");
+
+      CompiledConditionalEntry compiledEntry = new CompiledConditionalEntry(conditionalEntries.size(), entry, watchedVariables);
+      conditionalEntries.add(compiledEntry);
+      conditionalEntryMap.put(entry, compiledEntry);
+
+      if (startTime > Double.NEGATIVE_INFINITY)
+         schedule(new ScheduledEvent(startTime, null, compiledEntry));
+
+      needsCompile = true;
+   }
+
+   private void schedule(ScheduledEvent event)
+   {
+      // Binary search for the first event after the new one, the events with the same time stay in order of addition.
+      int low = 0;
+      int high = sortedEvents.size();
+
+      while (low < high)
+      {
+         int middle = (low + high) >>> 1;
+
+         if (sortedEvents.get(middle).time <= event.time)
+            low = middle + 1;
+         else
+            high = middle;
+      }
+
+      sortedEvents.add(low, event);
+
+      if (low < nextEventIndex.getIntegerValue())
+      {
+         nextEventIndex.increment();
+         expectedNextEventIndex++;
+      }
+
+      updateStartEventIndices(low);
+   }
+
+   private void updateStartEventIndices(int fromIndex)
+   {
+      for (int i = fromIndex; i < sortedEvents.size(); i++)
+      {
+         CompiledConditionalEntry compiledEntry = sortedEvents.get(i).conditionalEntry;
+
+         if (compiledEntry != null)
+            compiledEntry.startEventIndex = i;
+      }
+   }
+
+   @Override
+   public void doScript(double t)
+   {
+      if (needsCompile)
+         compile();
+
+      int eventIndex = nextEventIndex.getIntegerValue();
+
+      if (eventIndex != expectedNextEventIndex || t < previousTime)
+      {
+         // The state of the entries and the watched variables were restored from the data buffer.
+         markReleasedEntriesPending();
+      }
+
+      while (eventIndex < sortedEvents.size() && t >= sortedEvents.get(eventIndex).time)
+      {
+         ScheduledEvent event = sortedEvents.get(eventIndex++);
+         nextEventIndex.set(eventIndex);
+
+         if (event.timeScriptEntry != null)
+         {
+            event.timeScriptEntry.setVarsToValues();
+            event.timeScriptEntry.doCommands();
+         }
+         else
+         {
+            pendingEntries[event.conditionalEntry.index] = true;
+         }
+      }
+
+      expectedNextEventIndex = eventIndex;
+      previousTime = t;
+
+      for (int i = 0; i < watchedVariables.length; i++)
+      {
+         long value = watchedVariables[i].getValueAsLongBits();
+
+         if (value != previousValues[i])
+         {
+            previousValues[i] = value;
+            int[] dependents = dependentEntries[i];
+
+            for (int j = 0; j < dependents.length; j++)
+            {
+               if (isReleased(conditionalEntries.get(dependents[j])))
+                  pendingEntries[dependents[j]] = true;
+            }
+         }
+      }
+
+      for (int i = 0; i < conditionalEntries.size(); i++)
+      {
+         CompiledConditionalEntry compiledEntry = conditionalEntries.get(i);
+
+         if (pendingEntries[i] || compiledEntry.entry.isActive() || (compiledEntry.watchedVariables == null && isReleased(compiledEntry)))
+         {
+            pendingEntries[i] = false;
+            evaluate(compiledEntry);
+         }
+      }
+   }
+
+   private void evaluate(CompiledConditionalEntry compiledEntry)
+   {
+      ConditionalScriptEntry entry = compiledEntry.entry;
+
+      if (entry.isActive())
+      {
+         entry.doActivity();
+
+         if (entry.finishCondition())
+         {
+            entry.event_state.set(ConditionalScriptEntry.FINISHED);
+            entry.deactivate();
+            entry.considerArmingChildren();
+            markChildrenPending(entry);
+         }
+      }
+      else if (entry.isArmed())
+      {
+         if (entry.startCondition())
+         {
+            entry.event_state.set(ConditionalScriptEntry.ACTIVE);
+            entry.activate();
+         }
+      }
+   }
+
+   /**
+    * The children added after their parent are evaluated in the same tick, as with
+    * {@link ConditionalScript}, the others at the next tick.
+    */
+   private void markChildrenPending(ConditionalScriptEntry entry)
+   {
+      List<ConditionalScriptEntry> children = entry.getChildEntries();
+
+      if (children == null)
+         return;
+
+      for (int i = 0; i < children.size(); i++)
+      {
+         CompiledConditionalEntry child = conditionalEntryMap.get(children.get(i));
+
+         if (child != null && isReleased(child))
+            pendingEntries[child.index] = true;
+      }
+   }
+
+   /**
+    * An entry is released once the event of its start time has been passed, or right away if it has
+    * no start time.
+    */
+   private boolean isReleased(CompiledConditionalEntry compiledEntry)
+   {
+      return compiledEntry.startEventIndex < nextEventIndex.getIntegerValue();
+   }
+
+   private void markReleasedEntriesPending()
+   {
+      for (int i = 0; i < conditionalEntries.size(); i++)
+      {
+         if (isReleased(conditionalEntries.get(i)))
+            pendingEntries[i] = true;
+      }
+
+      for (int i = 0; i < watchedVariables.length; i++)
+         previousValues[i] = watchedVariables[i].getValueAsLongBits();
+   }
+
+   /**
+    * Resolves the watched variables shared by the entries into a table and records their current
+    * values.
+    */
+   private void compile()
+   {
+      Map<YoVariable, List<CompiledConditionalEntry>> dependents = new IdentityHashMap<>();
+      List<YoVariable> variables = new ArrayList<>();
+
+      for (int i = 0; i < conditionalEntries.size(); i++)
+      {
+         CompiledConditionalEntry compiledEntry = conditionalEntries.get(i);
+
+         if (compiledEntry.watchedVariables == null)
+            continue;
+
+         for (YoVariable variable : compiledEntry.watchedVariables)
+         {
+            List<CompiledConditionalEntry> variableDependents = dependents.get(variable);
+
+            if (variableDependents == null)
+            {
+               variableDependents = new ArrayList<>();
+               dependents.put(variable, variableDependents);
+               variables.add(variable);
+            }
+
+            if (!variableDependents.contains(compiledEntry))
+               variableDependents.add(compiledEntry);
+         }
+      }
+
+      watchedVariables = variables.toArray(new YoVariable[variables.size()]);
+      previousValues = new long[watchedVariables.length];
+      dependentEntries = new int[watchedVariables.length][];
+
+      for (int i = 0; i < watchedVariables.length; i++)
+      {
+         List<CompiledConditionalEntry> variableDependents = dependents.get(watchedVariables[i]);
+         dependentEntries[i] = new int[variableDependents.size()];
+
+         for (int j = 0; j < variableDependents.size(); j++)
+            dependentEntries[i][j] = variableDependents.get(j).index;
+      }
+
+      boolean[] newPendingEntries = new boolean[conditionalEntries.size()];
+      System.arraycopy(pendingEntries, 0, newPendingEntries, 0, pendingEntries.length);
+      pendingEntries = newPendingEntries;
+
+      markReleasedEntriesPending();
+      needsCompile = false;
+   }
+
+   /**
+    * Resets the conditional entries and goes back to the first event.
+    */
+   public void reset()
+   {
+      nextEventIndex.set(0);
+      expectedNextEventIndex = 0;
+      previousTime = Double.NEGATIVE_INFINITY;
+
+      for (int i = 0; i < conditionalEntries.size(); i++)
+         conditionalEntries.get(i).entry.reset();
+
+      needsCompile = true;
+   }
+
+   public int getNumberOfPendingEvents()
+   {
+      return sortedEvents.size() - nextEventIndex.getIntegerValue();
+   }
+
+   private static class CompiledConditionalEntry
+   {
+      private final int index;
+      private final ConditionalScriptEntry entry;
+      /** Includes the state of the entry, {@code null} if evaluated at every tick. */
+      private final YoVariable[] watchedVariables;
+      /** Index of the event of the start time in the sorted events, -1 if there is none. */
+      private int startEventIndex = -1;
+
+      public CompiledConditionalEntry(int index, ConditionalScriptEntry entry, YoVariable[] watchedVariables)
+      {
+         this.index = index;
+         this.entry = entry;
+
+         if (watchedVariables == null)
+         {
+            this.watchedVariables = null;
+         }
+         else
+         {
+            this.watchedVariables = new YoVariable[watchedVariables.length + 1];
+            this.watchedVariables[0] = entry.getEventState();
+            System.arraycopy(watchedVariables, 0, this.watchedVariables, 1, watchedVariables.length);
+         }
+      }
+   }
+
+   private static class ScheduledEvent
+   {
+      private final double time;
+      private final TimeScriptEntry timeScriptEntry;
+      private final CompiledConditionalEntry conditionalEntry;
+
+      public ScheduledEvent(double time, TimeScriptEntry timeScriptEntry, CompiledConditionalEntry conditionalEntry)
+      {
+         this.time = time;
+         this.timeScriptEntry = timeScriptEntry;
+         this.conditionalEntry = conditionalEntry;
+      }
+   }
+}
@@ -1,6 +1,7 @@
 package us.ihmc.simulationconstructionset.scripts;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import us.ihmc.yoVariables.registry.YoRegistry;
 import us.ihmc.yoVariables.variable.YoDouble;
@@ -132,6 +133,19 @@ public abstract class ConditionalScriptEntry
       return true;
    }
 
+   /**
+    * Returns the entries armed when this one finishes, or {@code null} if there are none.
+    */
+   List<ConditionalScriptEntry> getChildEntries()
+   {
+      return childEntries;
+   }
+
+   YoDouble getEventState()
+   {
+      return event_state;
+   }
+
    protected void removeChild(ConditionalScriptEntry childEntry)
    {
       childEntries.remove(childEntry);
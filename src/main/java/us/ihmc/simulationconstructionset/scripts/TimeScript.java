@@ -10,6 +10,7 @@ import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import us.ihmc.yoVariables.registry.YoRegistry;
 import us.ihmc.yoVariables.registry.YoVariableHolder;
@@ -61,6 +62,14 @@ public class TimeScript implements Script
       sortedTimeScriptEntryList.remove(timeScriptEntry);
    }
 
+   /**
+    * Returns the entries of this script sorted by time.
+    */
+   public List<TimeScriptEntry> getEntries()
+   {
+      return Collections.unmodifiableList(sortedTimeScriptEntryList);
+   }
+
    public void readTimeScript(YoVariableHolder holder, String pathname)
    {
       readTimeScript(holder, new File(pathname));
@@ -0,0 +1,130 @@
+package us.ihmc.simulationconstructionset.sharedMemory;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import sun.misc.Unsafe;
+
+/**
+ * Binary layout of the memory-mapped file shared by {@link SharedMemoryYoVariablePublisher} and
+ * {@link SharedMemoryYoVariableReader}.
+ * <p>
+ * The file starts with a header holding the number of variables, the capacity of the ring, the
+ * record DT, the number of samples published so far and the full names of the variables. It is
+ * followed by a ring of sample slots, each slot being the sample number plus one, or
+ * {@link #SLOT_BEING_WRITTEN}, followed by the values of the variables as doubles. Everything is
+ * big-endian, the default byte order of {@link ByteBuffer}.
+ * </p>
+ */
+final class SharedMemoryYoVariableLayout
+{
+   static final int MAGIC = 0x53435359; // "SCSY"
+   static final int VERSION = 1;
+
+   static final int MAGIC_OFFSET = 0;
+   static final int VERSION_OFFSET = 4;
+   static final int NUMBER_OF_VARIABLES_OFFSET = 8;
+   static final int RING_CAPACITY_OFFSET = 12;
+   static final int RECORD_DT_OFFSET = 16;
+   static final int NUMBER_OF_PUBLISHED_SAMPLES_OFFSET = 24;
+   static final int PUBLISHER_CLOSED_OFFSET = 32;
+   static final int NAMES_LENGTH_OFFSET = 36;
+   static final int NAMES_OFFSET = 40;
+
+   static final long SLOT_BEING_WRITTEN = -1L;
+
+   private static final char NAME_SEPARATOR = '\n';
+
+   /**
+    * Provides the memory fences, this code base targets Java 8 which does not have
+    * {@code VarHandle}. {@code null} if it cannot be accessed.
+    */
+   private static final Unsafe UNSAFE = getUnsafe();
+   /**
+    * Fallback when {@link #UNSAFE} is not available, its read-modify-write is a full fence on the
+    * usual JVMs.
+    */
+   private static final AtomicLong FALLBACK_FENCE = new AtomicLong();
+
+   private SharedMemoryYoVariableLayout()
+   {
+   }
+
+   static byte[] encodeNames(List<String> fullNames)
+   {
+      return String.join(String.valueOf(NAME_SEPARATOR), fullNames).getBytes(StandardCharsets.UTF_8);
+   }
+
+   static List<String> decodeNames(byte[] names, int numberOfVariables)
+   {
+      if (numberOfVariables == 0)
+         return new ArrayList<>();
+
+      List<String> fullNames = Arrays.asList(new String(names, StandardCharsets.UTF_8).split(String.valueOf(NAME_SEPARATOR), -1));
+
+      if (fullNames.size() != numberOfVariables)
+         throw new RuntimeException("Expected " + numberOfVariables + " variable names, found " + fullNames.size());
+
+      return fullNames;
+   }
+
+   static int computeDataOffset(int namesLength)
+   {
+      // Keeps the slots aligned on 8 bytes.
+      return (NAMES_OFFSET + namesLength + 7) & ~7;
+   }
+
+   static int computeSlotSize(int numberOfVariables)
+   {
+      return Long.BYTES + numberOfVariables * Double.BYTES;
+   }
+
+   static long computeFileSize(int namesLength, int numberOfVariables, int ringCapacity)
+   {
+      return computeDataOffset(namesLength) + (long) ringCapacity * computeSlotSize(numberOfVariables);
+   }
+
+   /**
+    * Keeps the accesses to the mapped file made before this call from being reordered with the writes
+    * made after it. The accesses to a mapped buffer are plain memory accesses, this is what keeps a
+    * sample from being flagged as published before all its values are written.
+    */
+   static void releaseFence()
+   {
+      if (UNSAFE != null)
+         UNSAFE.storeFence();
+      else
+         FALLBACK_FENCE.incrementAndGet();
+   }
+
+   /**
+    * Keeps the reads of the mapped file made before this call from being reordered with the accesses
+    * made after it, the counterpart of {@link #releaseFence()} on the reader side.
+    */
+   static void acquireFence()
+   {
+      if (UNSAFE != null)
+         UNSAFE.loadFence();
+      else
+         FALLBACK_FENCE.incrementAndGet();
+   }
+
+   private static Unsafe getUnsafe()
+   {
+      try
+      {
+         Field field = Unsafe.class.getDeclaredField("theUnsafe");
+         field.setAccessible(true);
+         return (Unsafe) field.get(null);
+      }
+      catch (ReflectiveOperationException | SecurityException e)
+      {
+         return null;
+      }
+   }
+}
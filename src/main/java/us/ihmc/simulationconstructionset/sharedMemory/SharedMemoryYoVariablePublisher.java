@@ -0,0 +1,156 @@
+package us.ihmc.simulationconstructionset.sharedMemory;
+
+import static us.ihmc.simulationconstructionset.sharedMemory.SharedMemoryYoVariableLayout.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import us.ihmc.simulationconstructionset.DataRecordedListener;
+import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Publishes the values of a set of variables into a memory-mapped ring file, so that another
+ * process, for instance a {@link SharedMemoryYoVariableViewer}, can display them without loading
+ * the simulation JVM with the rendering.
+ * <p>
+ * Publishing a sample only copies the values of the variables into the mapped file, the publisher
+ * never waits for the readers. A reader falling behind by more than the capacity of the ring loses
+ * the oldest samples.
+ * </p>
+ */
+public class SharedMemoryYoVariablePublisher implements DataRecordedListener, Closeable
+{
+   public static final int DEFAULT_RING_CAPACITY = 1024;
+
+   private final YoVariable[] variables;
+   private final int ringCapacity;
+   private final int dataOffset;
+   private final int slotSize;
+
+   private final FileChannel channel;
+   private final MappedByteBuffer buffer;
+
+   private long numberOfPublishedSamples = 0;
+
+   /**
+    * Creates a publisher for all the variables of the given simulation and registers it so that a
+    * sample is published every time the simulation records a data point.
+    *
+    * @param scs  the simulation to publish, typically created without a GUI.
+    * @param file the file to share with the viewer, replaced if it exists.
+    * @return the publisher, to close once the simulation is done.
+    */
+   public static SharedMemoryYoVariablePublisher publish(SimulationConstructionSet scs, File file) throws IOException
+   {
+      double recordDT = scs.getDT() * scs.getRecordFreq();
+      SharedMemoryYoVariablePublisher publisher = new SharedMemoryYoVariablePublisher(file,
+                                                                                      scs.getRootRegistry().collectSubtreeVariables(),
+                                                                                      recordDT,
+                                                                                      DEFAULT_RING_CAPACITY);
+      publisher.publish();
+      scs.addDataRecordedListener(publisher);
+
+      return publisher;
+   }
+
+   public SharedMemoryYoVariablePublisher(File file, List<YoVariable> variables, double recordDT, int ringCapacity) throws IOException
+   {
+      if (ringCapacity < 1)
+         throw new IllegalArgumentException("ringCapacity must be at least 1, was: " + ringCapacity);
+
+      this.variables = variables.toArray(new YoVariable[variables.size()]);
+      this.ringCapacity = ringCapacity;
+
+      List<String> fullNames = new ArrayList<>();
+      for (YoVariable variable : variables)
+         fullNames.add(variable.getFullNameString());
+
+      byte[] names = encodeNames(fullNames);
+      long fileSize = computeFileSize(names.length, this.variables.length, ringCapacity);
+
+      if (fileSize > Integer.MAX_VALUE)
+         throw new IllegalArgumentException("A ring of " + ringCapacity + " samples of " + this.variables.length + " variables does not fit in a mapped file.");
+
+      dataOffset = computeDataOffset(names.length);
+      slotSize = computeSlotSize(this.variables.length);
+
+      // A new file rather than a truncated one, as truncating a file still mapped by a reader crashes the reader.
+      Files.deleteIfExists(file.toPath());
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      buffer = channel.map(MapMode.READ_WRITE, 0, fileSize);
+
+      // The magic number is written last so that a reader never attaches to a partially written header.
+      buffer.putInt(VERSION_OFFSET, VERSION);
+      buffer.putInt(NUMBER_OF_VARIABLES_OFFSET, this.variables.length);
+      buffer.putInt(RING_CAPACITY_OFFSET, ringCapacity);
+      buffer.putDouble(RECORD_DT_OFFSET, recordDT);
+      buffer.putLong(NUMBER_OF_PUBLISHED_SAMPLES_OFFSET, 0L);
+      buffer.putInt(PUBLISHER_CLOSED_OFFSET, 0);
+      buffer.putInt(NAMES_LENGTH_OFFSET, names.length);
+
+      for (int i = 0; i < names.length; i++)
+         buffer.put(NAMES_OFFSET + i, names[i]);
+
+      releaseFence();
+      buffer.putInt(MAGIC_OFFSET, MAGIC);
+   }
+
+   @Override
+   public void dataRecorded()
+   {
+      publish();
+   }
+
+   /**
+    * Writes the current values of the variables into the next slot of the ring.
+    */
+   public void publish()
+   {
+      long sampleNumber = numberOfPublishedSamples;
+      int slotOffset = dataOffset + (int) (sampleNumber % ringCapacity) * slotSize;
+
+      buffer.putLong(slotOffset, SLOT_BEING_WRITTEN);
+      releaseFence();
+
+      int valueOffset = slotOffset + Long.BYTES;
+
+      for (int i = 0; i < variables.length; i++)
+      {
+         buffer.putDouble(valueOffset, variables[i].getValueAsDouble());
+         valueOffset += Double.BYTES;
+      }
+
+      releaseFence();
+      buffer.putLong(slotOffset, sampleNumber + 1);
+      // The readers look for the slot once they see the new number of samples.
+      releaseFence();
+      numberOfPublishedSamples++;
+      buffer.putLong(NUMBER_OF_PUBLISHED_SAMPLES_OFFSET, numberOfPublishedSamples);
+   }
+
+   public long getNumberOfPublishedSamples()
+   {
+      return numberOfPublishedSamples;
+   }
+
+   /**
+    * Flags the file as closed for the readers. The mapping itself is released when the publisher is
+    * garbage collected.
+    */
+   @Override
+   public void close() throws IOException
+   {
+      releaseFence();
+      buffer.putInt(PUBLISHER_CLOSED_OFFSET, 1);
+      channel.close();
+   }
+}
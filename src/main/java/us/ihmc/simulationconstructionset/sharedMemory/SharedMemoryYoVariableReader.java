@@ -0,0 +1,215 @@
+package us.ihmc.simulationconstructionset.sharedMemory;
+
+import static us.ihmc.simulationconstructionset.sharedMemory.SharedMemoryYoVariableLayout.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import us.ihmc.yoVariables.registry.YoNamespace;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.tools.YoFactories;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Reads the samples written by a {@link SharedMemoryYoVariablePublisher} into the variables of a
+ * registry.
+ * <p>
+ * The published variables are matched by full name with the variables of the given root registry,
+ * the ones that do not exist yet are created as {@link YoDouble}s, as when reading a data file.
+ * </p>
+ */
+public class SharedMemoryYoVariableReader implements Closeable
+{
+   private final FileChannel channel;
+   private final MappedByteBuffer buffer;
+
+   private final int numberOfVariables;
+   private final int ringCapacity;
+   private final int dataOffset;
+   private final int slotSize;
+   private final double recordDT;
+
+   private final YoVariable[] variables;
+   private final List<YoVariable> createdVariables = new ArrayList<>();
+   private final double[] sampleValues;
+
+   private long nextSampleNumber = 0;
+   private long numberOfSamplesRead = 0;
+   private long numberOfLostSamples = 0;
+
+   public SharedMemoryYoVariableReader(File file, YoRegistry rootRegistry) throws IOException
+   {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+
+      if (buffer.capacity() < NAMES_OFFSET || buffer.getInt(MAGIC_OFFSET) != MAGIC)
+      {
+         channel.close();
+         throw new IOException(file + " is not a shared memory file, or it has not been written yet.");
+      }
+
+      acquireFence();
+
+      if (buffer.getInt(VERSION_OFFSET) != VERSION)
+      {
+         channel.close();
+         throw new IOException("Unsupported shared memory file version " + buffer.getInt(VERSION_OFFSET) + " in " + file);
+      }
+
+      numberOfVariables = buffer.getInt(NUMBER_OF_VARIABLES_OFFSET);
+      ringCapacity = buffer.getInt(RING_CAPACITY_OFFSET);
+      recordDT = buffer.getDouble(RECORD_DT_OFFSET);
+
+      byte[] names = new byte[buffer.getInt(NAMES_LENGTH_OFFSET)];
+      for (int i = 0; i < names.length; i++)
+         names[i] = buffer.get(NAMES_OFFSET + i);
+
+      dataOffset = computeDataOffset(names.length);
+      slotSize = computeSlotSize(numberOfVariables);
+
+      List<String> fullNames = decodeNames(names, numberOfVariables);
+      variables = new YoVariable[numberOfVariables];
+      sampleValues = new double[numberOfVariables];
+
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         variables[i] = findOrCreateVariable(fullNames.get(i), rootRegistry);
+      }
+   }
+
+   private YoVariable findOrCreateVariable(String fullName, YoRegistry rootRegistry)
+   {
+      YoNamespace namespace = new YoNamespace(fullName).getParent();
+      String variableName = new YoNamespace(fullName).getShortName();
+
+      YoVariable variable = rootRegistry.findVariable(namespace.getName(), variableName);
+
+      if (variable == null)
+      {
+         YoRegistry registry = YoFactories.findOrCreateRegistry(rootRegistry, namespace);
+         variable = new YoDouble(variableName, "Created Variable in SharedMemoryYoVariableReader", registry);
+         createdVariables.add(variable);
+      }
+
+      return variable;
+   }
+
+   /**
+    * Reads the oldest sample not read yet into the variables. If the publisher got ahead by more than
+    * the capacity of the ring, the samples that have been overwritten are skipped and counted as
+    * lost.
+    *
+    * @return {@code true} if a sample was read, {@code false} if there is no new sample.
+    */
+   public boolean readNextSample()
+   {
+      while (true)
+      {
+         long numberOfPublishedSamples = buffer.getLong(NUMBER_OF_PUBLISHED_SAMPLES_OFFSET);
+         acquireFence();
+
+         if (nextSampleNumber == numberOfPublishedSamples)
+            return false;
+
+         if (numberOfPublishedSamples - nextSampleNumber > ringCapacity)
+         {
+            numberOfLostSamples += numberOfPublishedSamples - ringCapacity - nextSampleNumber;
+            nextSampleNumber = numberOfPublishedSamples - ringCapacity;
+         }
+
+         if (readSample(nextSampleNumber))
+         {
+            nextSampleNumber++;
+            numberOfSamplesRead++;
+
+            for (int i = 0; i < numberOfVariables; i++)
+               variables[i].setValueFromDouble(sampleValues[i]);
+
+            return true;
+         }
+
+         // The slot was overwritten while being read, the publisher is a full ring ahead.
+         numberOfLostSamples++;
+         nextSampleNumber++;
+      }
+   }
+
+   private boolean readSample(long sampleNumber)
+   {
+      int slotOffset = dataOffset + (int) (sampleNumber % ringCapacity) * slotSize;
+
+      if (buffer.getLong(slotOffset) != sampleNumber + 1)
+         return false;
+
+      acquireFence();
+
+      int valueOffset = slotOffset + Long.BYTES;
+
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         sampleValues[i] = buffer.getDouble(valueOffset);
+         valueOffset += Double.BYTES;
+      }
+
+      acquireFence();
+
+      return buffer.getLong(slotOffset) == sampleNumber + 1;
+   }
+
+   /**
+    * @return whether the publisher has been closed. The samples published before closing can still
+    *         be read.
+    */
+   public boolean isPublisherClosed()
+   {
+      boolean isPublisherClosed = buffer.getInt(PUBLISHER_CLOSED_OFFSET) != 0;
+      acquireFence();
+      return isPublisherClosed;
+   }
+
+   public double getRecordDT()
+   {
+      return recordDT;
+   }
+
+   /**
+    * @return the published variables, in the order they are published.
+    */
+   public YoVariable[] getVariables()
+   {
+      return variables;
+   }
+
+   /**
+    * @return the variables that did not exist in the root registry and were created by this reader.
+    */
+   public List<YoVariable> getCreatedVariables()
+   {
+      return Collections.unmodifiableList(createdVariables);
+   }
+
+   public long getNumberOfSamplesRead()
+   {
+      return numberOfSamplesRead;
+   }
+
+   public long getNumberOfLostSamples()
+   {
+      return numberOfLostSamples;
+   }
+
+   @Override
+   public void close() throws IOException
+   {
+      channel.close();
+   }
+}
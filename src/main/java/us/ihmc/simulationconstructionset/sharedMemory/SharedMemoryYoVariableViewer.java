@@ -0,0 +1,148 @@
+package us.ihmc.simulationconstructionset.sharedMemory;
+
+import java.io.File;
+import java.io.IOException;
+
+import us.ihmc.log.LogTools;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.simulationconstructionset.SimulationConstructionSetParameters;
+import us.ihmc.yoVariables.buffer.YoBuffer;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Displays in a {@link SimulationConstructionSet} the variables published by a
+ * {@link SharedMemoryYoVariablePublisher} from another process.
+ * <p>
+ * The simulation runs headless in its own JVM and publishes each recorded data point, this viewer
+ * copies the new samples into the variables of its own {@code SimulationConstructionSet} and
+ * records them, so that the graphs, the 3D view and the playback work as if the simulation was
+ * running in the viewer. The viewer's {@code SimulationConstructionSet} should be created with the
+ * same robots as the simulation, their variables are then updated by full name, and should not be
+ * simulated.
+ * </p>
+ */
+public class SharedMemoryYoVariableViewer
+{
+   private static final long POLLING_PERIOD_MILLIS = 1;
+
+   private final SimulationConstructionSet scs;
+   private final SharedMemoryYoVariableReader reader;
+
+   private volatile boolean running = false;
+   private Thread thread;
+
+   /**
+    * Attaches the given simulation to a shared memory file. Has to be called before the simulation
+    * is started so that the published variables missing from the simulation are added to its GUI.
+    */
+   public SharedMemoryYoVariableViewer(SimulationConstructionSet scs, File file) throws IOException
+   {
+      this.scs = scs;
+      reader = new SharedMemoryYoVariableReader(file, scs.getRootRegistry());
+
+      YoBuffer dataBuffer = scs.getDataBuffer();
+
+      for (YoVariable createdVariable : reader.getCreatedVariables())
+      {
+         if (dataBuffer.getEntry(createdVariable) == null)
+            dataBuffer.addVariable(createdVariable);
+      }
+
+      if (reader.getRecordDT() > 0.0)
+         scs.setRecordDT(reader.getRecordDT());
+   }
+
+   /**
+    * Copies all the samples published since the last update into the simulation.
+    *
+    * @return the number of samples copied.
+    */
+   public int update()
+   {
+      int numberOfSamples = 0;
+
+      while (reader.readNextSample())
+      {
+         Robot[] robots = scs.getRobots();
+
+         if (robots != null)
+         {
+            for (Robot robot : robots)
+               robot.updateForPlayback();
+         }
+
+         scs.tickAndUpdate();
+         numberOfSamples++;
+      }
+
+      return numberOfSamples;
+   }
+
+   /**
+    * Starts a daemon thread polling the shared memory file for new samples.
+    */
+   public void start()
+   {
+      if (running)
+         return;
+
+      running = true;
+      thread = new Thread(() ->
+      {
+         while (running)
+         {
+            if (update() == 0)
+            {
+               if (reader.isPublisherClosed() && update() == 0)
+               {
+                  LogTools.info("The publisher has been closed.");
+                  running = false;
+                  break;
+               }
+
+               try
+               {
+                  Thread.sleep(POLLING_PERIOD_MILLIS);
+               }
+               catch (InterruptedException e)
+               {
+                  running = false;
+               }
+            }
+         }
+      }, getClass().getSimpleName());
+      thread.setDaemon(true);
+      thread.start();
+   }
+
+   public void stop()
+   {
+      running = false;
+
+      if (thread != null)
+         thread.interrupt();
+   }
+
+   public SharedMemoryYoVariableReader getReader()
+   {
+      return reader;
+   }
+
+   /**
+    * Opens a viewer on the shared memory file given as argument, with no robot.
+    */
+   public static void main(String[] args) throws IOException
+   {
+      if (args.length != 1)
+      {
+         System.err.println("Usage: SharedMemoryYoVariableViewer <shared memory file>");
+         return;
+      }
+
+      SimulationConstructionSet scs = new SimulationConstructionSet(new SimulationConstructionSetParameters());
+      SharedMemoryYoVariableViewer viewer = new SharedMemoryYoVariableViewer(scs, new File(args[0]));
+      scs.startOnAThread();
+      viewer.start();
+   }
+}
@@ -0,0 +1,146 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+/**
+ * Generates standard normal samples by blocks, from a counter based SplitMix64 stream.
+ * <p>
+ * The samples are drawn with the Box-Muller transform a block at a time, so that generating the
+ * noise of many sensors costs one tight loop per block rather than one call per sample. Each
+ * sample only depends on the seed and on its position in the sequence, so the generator can be
+ * moved to any position with {@link #setPosition(long)}. Storing the position in a YoVariable
+ * therefore makes the samples follow the rewinds of the simulation. {@link #split()} gives
+ * independent generators, for instance one per robot, that are as reproducible as the parent.
+ * </p>
+ */
+public class BlockGaussianRandomGenerator
+{
+   public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+   private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+   private final long seed;
+   private final double[] block;
+   // The position of the first sample of the block, the block is empty until the first sample is drawn.
+   private long blockStart;
+   private long position = 0;
+
+   public BlockGaussianRandomGenerator(long seed)
+   {
+      this(seed, DEFAULT_BLOCK_SIZE);
+   }
+
+   /**
+    * @param seed      the seed of the sequence.
+    * @param blockSize the number of samples generated at once, rounded up to an even number.
+    */
+   public BlockGaussianRandomGenerator(long seed, int blockSize)
+   {
+      if (blockSize < 1)
+         throw new IllegalArgumentException("blockSize must be at least 1, was: " + blockSize);
+
+      this.seed = seed;
+      block = new double[blockSize + (blockSize & 1)];
+      blockStart = -block.length;
+   }
+
+   /**
+    * Returns a new generator, with the same block size, whose samples are independent from the ones
+    * of this generator. The new generator depends on the position of this one, which is advanced by
+    * one pair of samples so that the next split differs.
+    *
+    * @return the new generator.
+    */
+   public BlockGaussianRandomGenerator split()
+   {
+      BlockGaussianRandomGenerator split = new BlockGaussianRandomGenerator(mix64(mix64(seed) + position * GOLDEN_GAMMA), block.length);
+      position = (position & ~1L) + 2;
+      return split;
+   }
+
+   /**
+    * @return the position of the next sample in the sequence, that is the number of samples drawn
+    *         since the start.
+    */
+   public long getPosition()
+   {
+      return position;
+   }
+
+   /**
+    * Moves the generator so that the next sample is the one at the given position. Moving within
+    * the current block is free, otherwise the block containing the position is generated.
+    *
+    * @param position the position of the next sample, not negative.
+    */
+   public void setPosition(long position)
+   {
+      if (position < 0)
+         throw new IllegalArgumentException("position must not be negative, was: " + position);
+
+      this.position = position;
+   }
+
+   public double nextGaussian()
+   {
+      if (position - blockStart >= block.length || position < blockStart)
+         fillBlock();
+
+      return block[(int) (position++ - blockStart)];
+   }
+
+   /**
+    * Packs the next samples into the given array.
+    *
+    * @param samplesToPack the array to pack.
+    * @param offset        the index of the first sample to pack.
+    * @param length        the number of samples to pack.
+    */
+   public void nextGaussians(double[] samplesToPack, int offset, int length)
+   {
+      while (length > 0)
+      {
+         if (position - blockStart >= block.length || position < blockStart)
+            fillBlock();
+
+         int index = (int) (position - blockStart);
+         int count = Math.min(length, block.length - index);
+         System.arraycopy(block, index, samplesToPack, offset, count);
+         position += count;
+         offset += count;
+         length -= count;
+      }
+   }
+
+   /**
+    * Generates the block starting at the pair of samples containing the current position. The pair
+    * of samples {@code k} is made of the uniform samples {@code 2k} and {@code 2k + 1}.
+    */
+   private void fillBlock()
+   {
+      blockStart = position & ~1L;
+
+      for (int i = 0; i < block.length; i += 2)
+      {
+         long uniformIndex = blockStart + i;
+         // 1.0 - uniform is in (0, 1], which keeps the log finite.
+         double radius = Math.sqrt(-2.0 * Math.log(1.0 - uniform(uniformIndex)));
+         double angle = 2.0 * Math.PI * uniform(uniformIndex + 1);
+         block[i] = radius * Math.cos(angle);
+         block[i + 1] = radius * Math.sin(angle);
+      }
+   }
+
+   /**
+    * @return the uniform sample in [0, 1) at the given index of the sequence.
+    */
+   private double uniform(long index)
+   {
+      return (mix64(seed + (index + 1) * GOLDEN_GAMMA) >>> 11) * 0x1.0p-53;
+   }
+
+   private static long mix64(long z)
+   {
+      z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+      z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+      return z ^ (z >>> 31);
+   }
+}
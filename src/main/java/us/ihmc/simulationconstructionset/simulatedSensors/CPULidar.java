@@ -0,0 +1,366 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.transform.interfaces.RigidBodyTransformReadOnly;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.jMonkeyEngineToolkit.GPULidarListener;
+import us.ihmc.jMonkeyEngineToolkit.GroundProfile3D;
+import us.ihmc.jMonkeyEngineToolkit.HeightMapWithNormals;
+import us.ihmc.robotics.robotDescription.LidarSensorDescription;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+
+/**
+ * Lidar simulated by casting rays on the CPU, for simulations running without a graphics adapter.
+ * The rays follow the scan pattern of a {@link LidarSensorDescription} and are cast against a height
+ * map, typically the ground profile of the simulation, and against collision shapes, typically the
+ * ones of the collision detector. The shapes are put in a {@link CollisionShapeBoundingVolumeHierarchy}
+ * rebuilt at each scan, and the scan lines are spread over a pool of threads owned by the lidar,
+ * stopped with {@link #shutdown()}.
+ * <p>
+ * The threads query the terrain at the same time. A terrain that is not thread safe, such as a
+ * {@code CachedHeightMapWithNormals}, has to be given with {@link #setTerrainFactory(Supplier)} so
+ * that each thread gets its own, or the lidar has to use a single thread.
+ * </p>
+ * <p>
+ * Scans are reported to {@link GPULidarListener}s like the ones of a GPU lidar: the ranges are in a
+ * row-major array with {@code pointsPerSweep} ranges per scan line, from the minimum to the maximum
+ * yaw, and {@code scanHeight} scan lines, from the minimum to the maximum pitch. A positive pitch
+ * looks down. The rays start at the minimum range, so that what is closer, like the housing of the
+ * lidar, is not seen and does not hide what is behind. Rays hitting nothing between the minimum and
+ * maximum range report {@link Float#POSITIVE_INFINITY}. The array is reused from one scan to the
+ * next.
+ * </p>
+ */
+public class CPULidar
+{
+   private final int pointsPerSweep;
+   private final int scanHeight;
+   private final double minRange;
+   private final double maxRange;
+
+   /** Unit direction of each ray in the sensor frame, 3 per ray. */
+   private final double[] rayDirections;
+   private final float[] scan;
+
+   private final RigidBodyTransform transformToWorld = new RigidBodyTransform();
+   private double scanPeriod = 0.025;
+   private double nextScanTime = Double.NEGATIVE_INFINITY;
+
+   private HeightMapWithNormals terrain = null;
+   private Supplier<? extends HeightMapWithNormals> terrainFactory = null;
+   private List<? extends CollisionShape> collisionShapes = Collections.emptyList();
+   private boolean computeTransformedCollisionShapes = false;
+
+   private final CollisionShapeBoundingVolumeHierarchy boundingVolumeHierarchy = new CollisionShapeBoundingVolumeHierarchy();
+   private final HeightMapRayCaster heightMapRayCaster = new HeightMapRayCaster();
+
+   private final ArrayList<GPULidarListener> listeners = new ArrayList<>();
+
+   private ExecutorService executor = null;
+   private final ArrayList<ScanLineWorker> workers = new ArrayList<>();
+   private final ArrayList<Future<Void>> futures = new ArrayList<>();
+   private final AtomicInteger nextScanLine = new AtomicInteger();
+
+   public CPULidar(LidarSensorDescription description)
+   {
+      this(description.getPointsPerSweep(),
+           description.getSweepYawMin(),
+           description.getSweepYawMax(),
+           description.getScanHeight(),
+           description.getHeightPitchMin(),
+           description.getHeightPitchMax(),
+           description.getMinRange(),
+           description.getMaxRange());
+   }
+
+   public CPULidar(int pointsPerSweep, double sweepYawMin, double sweepYawMax, int scanHeight, double heightPitchMin, double heightPitchMax, double minRange,
+                   double maxRange)
+   {
+      if (pointsPerSweep < 1 || scanHeight < 1)
+         throw new IllegalArgumentException("A lidar needs at least one point per sweep and one scan line, got: " + pointsPerSweep + " x " + scanHeight);
+
+      this.pointsPerSweep = pointsPerSweep;
+      this.scanHeight = scanHeight;
+      this.minRange = minRange;
+      this.maxRange = maxRange;
+
+      rayDirections = new double[3 * pointsPerSweep * scanHeight];
+      scan = new float[pointsPerSweep * scanHeight];
+
+      for (int line = 0; line < scanHeight; line++)
+      {
+         double pitch = interpolate(heightPitchMin, heightPitchMax, line, scanHeight);
+
+         for (int point = 0; point < pointsPerSweep; point++)
+         {
+            double yaw = interpolate(sweepYawMin, sweepYawMax, point, pointsPerSweep);
+            int offset = 3 * (line * pointsPerSweep + point);
+            rayDirections[offset] = Math.cos(pitch) * Math.cos(yaw);
+            rayDirections[offset + 1] = Math.cos(pitch) * Math.sin(yaw);
+            rayDirections[offset + 2] = -Math.sin(pitch);
+         }
+      }
+
+      setNumberOfThreads(Runtime.getRuntime().availableProcessors());
+   }
+
+   private static double interpolate(double min, double max, int index, int count)
+   {
+      return count == 1 ? min : min + (max - min) * index / (count - 1);
+   }
+
+   /**
+    * Sets the terrain to cast the rays against from the height map of the ground profile, if it has
+    * one.
+    */
+   public void setGroundProfile(GroundProfile3D groundProfile)
+   {
+      setTerrain(groundProfile == null ? null : groundProfile.getHeightMapIfAvailable());
+   }
+
+   /**
+    * Sets the terrain to cast the rays against, queried by all the threads of the lidar.
+    */
+   public void setTerrain(HeightMapWithNormals terrain)
+   {
+      this.terrain = terrain;
+      terrainFactory = null;
+      updateWorkerTerrains();
+   }
+
+   /**
+    * Sets the terrain to cast the rays against from a factory called once per thread, for terrains
+    * that are not thread safe.
+    */
+   public void setTerrainFactory(Supplier<? extends HeightMapWithNormals> terrainFactory)
+   {
+      this.terrainFactory = terrainFactory;
+      terrain = null;
+      updateWorkerTerrains();
+   }
+
+   private void updateWorkerTerrains()
+   {
+      for (int i = 0; i < workers.size(); i++)
+         workers.get(i).terrain = terrainFactory == null ? terrain : terrainFactory.get();
+   }
+
+   /**
+    * Sets the shapes to cast the rays against, for instance
+    * {@code SimpleCollisionDetector.getCollisionObjects()}. The list is read at each scan.
+    */
+   public void setCollisionShapes(List<? extends CollisionShape> collisionShapes)
+   {
+      this.collisionShapes = collisionShapes;
+   }
+
+   /**
+    * The rays are cast against the transformed descriptions of the collision shapes, which the
+    * collision detector updates at every tick. When the shapes are not given to a collision detector,
+    * the lidar has to update them itself before each scan.
+    */
+   public void setComputeTransformedCollisionShapes(boolean computeTransformedCollisionShapes)
+   {
+      this.computeTransformedCollisionShapes = computeTransformedCollisionShapes;
+   }
+
+   /**
+    * Sets the time between two scans, in seconds.
+    */
+   public void setScanPeriod(double scanPeriod)
+   {
+      this.scanPeriod = scanPeriod;
+   }
+
+   public HeightMapRayCaster getHeightMapRayCaster()
+   {
+      return heightMapRayCaster;
+   }
+
+   public void addGPULidarListener(GPULidarListener listener)
+   {
+      listeners.add(listener);
+   }
+
+   /**
+    * Sets the number of threads casting the scan lines, the calling thread included.
+    */
+   public void setNumberOfThreads(int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("The number of threads must be at least 1, was: " + numberOfThreads);
+
+      if (executor != null)
+      {
+         executor.shutdown();
+         executor = null;
+      }
+
+      workers.clear();
+      int usefulNumberOfThreads = Math.min(numberOfThreads, scanHeight);
+
+      for (int i = 0; i < usefulNumberOfThreads; i++)
+         workers.add(new ScanLineWorker());
+      updateWorkerTerrains();
+
+      if (usefulNumberOfThreads > 1)
+         executor = createExecutor(usefulNumberOfThreads - 1);
+   }
+
+   /**
+    * Stops the threads of the lidar, the next scans are cast on the calling thread only.
+    */
+   public void shutdown()
+   {
+      setNumberOfThreads(1);
+   }
+
+   /**
+    * Updates the pose of the lidar and scans if the scan period has elapsed since the previous scan,
+    * notifying the listeners.
+    */
+   public void setTransformFromWorld(RigidBodyTransformReadOnly transformToWorld, double time)
+   {
+      if (time < nextScanTime)
+         return;
+
+      // Keep a steady rate, unless the lidar was not updated for more than a period.
+      if (time - nextScanTime >= scanPeriod)
+         nextScanTime = time;
+      nextScanTime += scanPeriod;
+
+      scan(transformToWorld);
+
+      for (int i = 0; i < listeners.size(); i++)
+         listeners.get(i).scan(scan, this.transformToWorld, time);
+   }
+
+   /**
+    * Scans from the given pose. The returned array is reused by the next scan.
+    */
+   public float[] scan(RigidBodyTransformReadOnly transformToWorld)
+   {
+      this.transformToWorld.set(transformToWorld);
+
+      if (computeTransformedCollisionShapes)
+      {
+         for (int i = 0; i < collisionShapes.size(); i++)
+            collisionShapes.get(i).computeTransformedCollisionShape();
+      }
+
+      boundingVolumeHierarchy.build(collisionShapes);
+      nextScanLine.set(0);
+
+      if (executor == null)
+      {
+         workers.get(0).call();
+         return scan;
+      }
+
+      futures.clear();
+      for (int i = 1; i < workers.size(); i++)
+         futures.add(executor.submit(workers.get(i)));
+
+      workers.get(0).call();
+
+      try
+      {
+         for (int i = 0; i < futures.size(); i++)
+            futures.get(i).get();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while waiting for the lidar scan.", e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException("Lidar scan failed.", e.getCause());
+      }
+
+      return scan;
+   }
+
+   public int getPointsPerSweep()
+   {
+      return pointsPerSweep;
+   }
+
+   public int getScanHeight()
+   {
+      return scanHeight;
+   }
+
+   /**
+    * Takes scan lines until there are none left. Each worker has its own scratch objects.
+    */
+   private class ScanLineWorker implements Callable<Void>
+   {
+      private final CollisionShapeRayIntersector intersector = new CollisionShapeRayIntersector();
+      private HeightMapWithNormals terrain;
+      private final Point3D origin = new Point3D();
+      private final Point3D start = new Point3D();
+      private final Vector3D direction = new Vector3D();
+      private int[] stack = new int[0];
+
+      @Override
+      public Void call()
+      {
+         if (stack.length < boundingVolumeHierarchy.getTraversalStackSize())
+            stack = new int[boundingVolumeHierarchy.getTraversalStackSize()];
+
+         origin.set(transformToWorld.getTranslation());
+
+         int line;
+         while ((line = nextScanLine.getAndIncrement()) < scanHeight)
+         {
+            for (int point = 0; point < pointsPerSweep; point++)
+            {
+               int rayIndex = line * pointsPerSweep + point;
+               direction.set(rayDirections[3 * rayIndex], rayDirections[3 * rayIndex + 1], rayDirections[3 * rayIndex + 2]);
+               transformToWorld.transform(direction);
+               start.scaleAdd(minRange, direction, origin);
+
+               // Distance from the start of the ray.
+               double maximumDistance = maxRange - minRange;
+               double distance = maximumDistance;
+
+               if (terrain != null)
+                  distance = Math.min(distance, heightMapRayCaster.castRay(terrain, start, direction, distance));
+
+               distance = Math.min(distance, boundingVolumeHierarchy.castRay(start, direction, distance, intersector, stack));
+
+               scan[rayIndex] = distance >= maximumDistance ? Float.POSITIVE_INFINITY : (float) (minRange + distance);
+            }
+         }
+
+         return null;
+      }
+   }
+
+   private static ExecutorService createExecutor(int numberOfThreads)
+   {
+      AtomicInteger threadIndex = new AtomicInteger();
+      ThreadFactory threadFactory = runnable ->
+      {
+         Thread thread = new Thread(runnable, "CPULidar-" + threadIndex.getAndIncrement());
+         thread.setDaemon(true);
+         return thread;
+      };
+
+      return Executors.newFixedThreadPool(numberOfThreads, threadFactory);
+   }
+}
@@ -31,8 +31,6 @@ public class CollisionShapeBasedWrenchCalculator implements WrenchCalculatorInte
    private final RigidBodyTransform transformToOriginFrame = new RigidBodyTransform();
    private final Vector3D force = new Vector3D();
    private final Point3D contactPointOriginFrame = new Point3D();
-   private final Vector3D contactVectorOriginFrame = new Vector3D();
-   private final Vector3D tau = new Vector3D();
 
    public CollisionShapeBasedWrenchCalculator(String forceSensorName, List<ExternalForcePoint> contactPoints, Joint forceTorqueSensorJoint,
                                               RigidBodyTransform transformToParentJoint, YoRegistry registry)
@@ -64,48 +62,42 @@ public class CollisionShapeBasedWrenchCalculator implements WrenchCalculatorInte
       transformToPack.set(transformToParentJoint);
    }
 
+   /**
+    * Sums the wrenches of the contact points. The torques are expressed in the sensor frame while
+    * the forces are summed as reported by the contact points. Does not allocate.
+    */
    @Override
    public void calculate()
    {
-      wrenchMatrix.zero();
-
       forceTorqueSensorJoint.getTransformToWorld(transformToOriginFrame);
       transformToOriginFrame.multiply(transformToParentJoint);
       sensorFrame.update();
       transformToOriginFrame.invert();
 
+      double torqueX = 0.0, torqueY = 0.0, torqueZ = 0.0;
+      double forceX = 0.0, forceY = 0.0, forceZ = 0.0;
+
       for (int i = 0; i < contactPoints.size(); i++)
       {
          ExternalForcePoint contactPoint = contactPoints.get(i);
-         Point3D tempContactPoint = new Point3D();
-
          contactPoint.getForce(force);
 
-         wrenchMatrix.set(3, 0, wrenchMatrix.get(3, 0) + force.getX());
-         wrenchMatrix.set(4, 0, wrenchMatrix.get(4, 0) + force.getY());
-         wrenchMatrix.set(5, 0, wrenchMatrix.get(5, 0) + force.getZ());
+         forceX += force.getX();
+         forceY += force.getY();
+         forceZ += force.getZ();
 
          transformToOriginFrame.transform(force);
 
-         contactPointOriginFrame.set(0.0, 0.0, 0.0);
-
-         contactPoint.getPosition(tempContactPoint);
-         transformToOriginFrame.transform(tempContactPoint, contactPointOriginFrame);
-         contactVectorOriginFrame.set(contactPointOriginFrame);
-         tau.cross(contactVectorOriginFrame, force);
+         contactPoint.getPosition(contactPointOriginFrame);
+         transformToOriginFrame.transform(contactPointOriginFrame);
 
-         wrenchMatrix.set(0, 0, wrenchMatrix.get(0, 0) + tau.getX());
-         wrenchMatrix.set(1, 0, wrenchMatrix.get(1, 0) + tau.getY());
-         wrenchMatrix.set(2, 0, wrenchMatrix.get(2, 0) + tau.getZ());
+         // tau = r x f
+         torqueX += contactPointOriginFrame.getY() * force.getZ() - contactPointOriginFrame.getZ() * force.getY();
+         torqueY += contactPointOriginFrame.getZ() * force.getX() - contactPointOriginFrame.getX() * force.getZ();
+         torqueZ += contactPointOriginFrame.getX() * force.getY() - contactPointOriginFrame.getY() * force.getX();
       }
 
-      if (doWrenchCorruption)
-      {
-         for (int i = 0; i < WRENCH_SIZE; i++)
-         {
-            wrenchMatrix.add(i, 0, corruptionMatrix.get(i, 0));
-         }
-      }
+      WrenchCalculatorTools.packWrench(torqueX, torqueY, torqueZ, forceX, forceY, forceZ, doWrenchCorruption ? corruptionMatrix : null, wrenchMatrix);
    }
 
    @Override
@@ -0,0 +1,297 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+
+/**
+ * Binary tree of axis-aligned bounding boxes over a set of collision shapes, used to find the first
+ * shape hit by a ray without testing all the shapes. The tree is rebuilt from the current bounding
+ * boxes of the shapes by {@link #build(List)}, splitting the shapes at the median of their centers
+ * along the longest axis. It is stored in flat arrays which are reused from one build to the next.
+ * <p>
+ * Once built, the tree can be traversed by several threads at the same time as long as each uses
+ * its own {@link CollisionShapeRayIntersector} and traversal stack.
+ * </p>
+ */
+public class CollisionShapeBoundingVolumeHierarchy
+{
+   private static final int MAXIMUM_SHAPES_PER_LEAF = 4;
+   private static final int BOUNDS_STRIDE = 6;
+
+   private final ArrayList<CollisionShape> shapes = new ArrayList<>();
+   private double[] shapeBounds = new double[0];
+   private int[] shapeOrder = new int[0];
+
+   private int numberOfNodes = 0;
+   private int depth = 0;
+   private double[] nodeBounds = new double[0];
+   /** First shape of a leaf in {@link #shapeOrder}, or first child of an internal node. */
+   private int[] nodeStart = new int[0];
+   /** Number of shapes of a leaf, 0 for an internal node. */
+   private int[] nodeCount = new int[0];
+
+   private final BoundingBox3D tempBoundingBox = new BoundingBox3D(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+   private final double[] centerMin = new double[3];
+   private final double[] centerMax = new double[3];
+
+   /**
+    * Rebuilds the tree from the current bounding boxes of the given shapes.
+    */
+   public void build(List<? extends CollisionShape> collisionShapes)
+   {
+      int numberOfShapes = collisionShapes.size();
+      shapes.clear();
+
+      if (shapeOrder.length < numberOfShapes)
+      {
+         shapeBounds = new double[BOUNDS_STRIDE * numberOfShapes];
+         shapeOrder = new int[numberOfShapes];
+
+         int maximumNumberOfNodes = 2 * numberOfShapes;
+         nodeBounds = new double[BOUNDS_STRIDE * maximumNumberOfNodes];
+         nodeStart = new int[maximumNumberOfNodes];
+         nodeCount = new int[maximumNumberOfNodes];
+      }
+
+      for (int i = 0; i < numberOfShapes; i++)
+      {
+         CollisionShape shape = collisionShapes.get(i);
+         shapes.add(shape);
+         shape.getBoundingBox(tempBoundingBox);
+
+         int offset = BOUNDS_STRIDE * i;
+         shapeBounds[offset] = tempBoundingBox.getMinX();
+         shapeBounds[offset + 1] = tempBoundingBox.getMinY();
+         shapeBounds[offset + 2] = tempBoundingBox.getMinZ();
+         shapeBounds[offset + 3] = tempBoundingBox.getMaxX();
+         shapeBounds[offset + 4] = tempBoundingBox.getMaxY();
+         shapeBounds[offset + 5] = tempBoundingBox.getMaxZ();
+         shapeOrder[i] = i;
+      }
+
+      numberOfNodes = 0;
+      depth = 0;
+
+      if (numberOfShapes == 0)
+         return;
+
+      numberOfNodes = 1;
+      buildNode(0, 0, numberOfShapes, 1);
+   }
+
+   public int getNumberOfShapes()
+   {
+      return shapes.size();
+   }
+
+   public int getNumberOfNodes()
+   {
+      return numberOfNodes;
+   }
+
+   /**
+    * Returns the size of the stack needed to traverse the tree as currently built.
+    */
+   public int getTraversalStackSize()
+   {
+      return depth + 2;
+   }
+
+   /**
+    * Returns the distance along the ray to the first shape it enters within {@code maximumDistance},
+    * or {@link Double#POSITIVE_INFINITY} if there is none.
+    *
+    * @param direction unit direction of the ray.
+    * @param stack     traversal stack of at least {@link #getTraversalStackSize()} elements.
+    */
+   public double castRay(Point3DReadOnly origin, Vector3DReadOnly direction, double maximumDistance, CollisionShapeRayIntersector intersector, int[] stack)
+   {
+      if (numberOfNodes == 0)
+         return Double.POSITIVE_INFINITY;
+
+      double ox = origin.getX();
+      double oy = origin.getY();
+      double oz = origin.getZ();
+      double inverseDx = 1.0 / direction.getX();
+      double inverseDy = 1.0 / direction.getY();
+      double inverseDz = 1.0 / direction.getZ();
+
+      double closestDistance = Double.POSITIVE_INFINITY;
+      double searchDistance = maximumDistance;
+
+      int stackSize = 0;
+      stack[stackSize++] = 0;
+
+      while (stackSize > 0)
+      {
+         int node = stack[--stackSize];
+
+         if (!intersectsBounds(nodeBounds, BOUNDS_STRIDE * node, ox, oy, oz, inverseDx, inverseDy, inverseDz, searchDistance))
+            continue;
+
+         int count = nodeCount[node];
+
+         if (count == 0)
+         {
+            stack[stackSize++] = nodeStart[node];
+            stack[stackSize++] = nodeStart[node] + 1;
+            continue;
+         }
+
+         for (int i = nodeStart[node]; i < nodeStart[node] + count; i++)
+         {
+            int shapeIndex = shapeOrder[i];
+
+            if (!intersectsBounds(shapeBounds, BOUNDS_STRIDE * shapeIndex, ox, oy, oz, inverseDx, inverseDy, inverseDz, searchDistance))
+               continue;
+
+            double distance = intersector.intersect(shapes.get(shapeIndex).getTransformedCollisionShapeDescription(), origin, direction);
+
+            if (distance <= searchDistance && distance < closestDistance)
+            {
+               closestDistance = distance;
+               searchDistance = distance;
+            }
+         }
+      }
+
+      return closestDistance;
+   }
+
+   /**
+    * Slab test of the ray against the box stored at {@code offset}, limited to
+    * {@code maximumDistance}.
+    */
+   private static boolean intersectsBounds(double[] bounds, int offset, double ox, double oy, double oz, double inverseDx, double inverseDy,
+                                           double inverseDz, double maximumDistance)
+   {
+      double entering = 0.0;
+      double exiting = maximumDistance;
+
+      double t1 = (bounds[offset] - ox) * inverseDx;
+      double t2 = (bounds[offset + 3] - ox) * inverseDx;
+      entering = Math.max(entering, Math.min(t1, t2));
+      exiting = Math.min(exiting, Math.max(t1, t2));
+
+      t1 = (bounds[offset + 1] - oy) * inverseDy;
+      t2 = (bounds[offset + 4] - oy) * inverseDy;
+      entering = Math.max(entering, Math.min(t1, t2));
+      exiting = Math.min(exiting, Math.max(t1, t2));
+
+      t1 = (bounds[offset + 2] - oz) * inverseDz;
+      t2 = (bounds[offset + 5] - oz) * inverseDz;
+      entering = Math.max(entering, Math.min(t1, t2));
+      exiting = Math.min(exiting, Math.max(t1, t2));
+
+      return entering <= exiting;
+   }
+
+   private void buildNode(int node, int start, int end, int nodeDepth)
+   {
+      depth = Math.max(depth, nodeDepth);
+
+      int nodeOffset = BOUNDS_STRIDE * node;
+      Arrays.fill(nodeBounds, nodeOffset, nodeOffset + 3, Double.POSITIVE_INFINITY);
+      Arrays.fill(nodeBounds, nodeOffset + 3, nodeOffset + 6, Double.NEGATIVE_INFINITY);
+
+      Arrays.fill(centerMin, Double.POSITIVE_INFINITY);
+      Arrays.fill(centerMax, Double.NEGATIVE_INFINITY);
+
+      for (int i = start; i < end; i++)
+      {
+         int shapeOffset = BOUNDS_STRIDE * shapeOrder[i];
+
+         for (int axis = 0; axis < 3; axis++)
+         {
+            double min = shapeBounds[shapeOffset + axis];
+            double max = shapeBounds[shapeOffset + axis + 3];
+            nodeBounds[nodeOffset + axis] = Math.min(nodeBounds[nodeOffset + axis], min);
+            nodeBounds[nodeOffset + axis + 3] = Math.max(nodeBounds[nodeOffset + axis + 3], max);
+
+            double center = 0.5 * (min + max);
+            centerMin[axis] = Math.min(centerMin[axis], center);
+            centerMax[axis] = Math.max(centerMax[axis], center);
+         }
+      }
+
+      int splitAxis = 0;
+      for (int axis = 1; axis < 3; axis++)
+      {
+         if (centerMax[axis] - centerMin[axis] > centerMax[splitAxis] - centerMin[splitAxis])
+            splitAxis = axis;
+      }
+
+      // Shapes with the same center cannot be told apart, they all go in one leaf.
+      if (end - start <= MAXIMUM_SHAPES_PER_LEAF || !(centerMax[splitAxis] > centerMin[splitAxis]))
+      {
+         nodeStart[node] = start;
+         nodeCount[node] = end - start;
+         return;
+      }
+
+      int middle = (start + end) >>> 1;
+      selectNthCenter(start, end, middle, splitAxis);
+
+      int firstChild = numberOfNodes;
+      numberOfNodes += 2;
+      nodeStart[node] = firstChild;
+      nodeCount[node] = 0;
+
+      buildNode(firstChild, start, middle, nodeDepth + 1);
+      buildNode(firstChild + 1, middle, end, nodeDepth + 1);
+   }
+
+   /**
+    * Reorders {@link #shapeOrder} between {@code start} and {@code end} so that the shape at
+    * {@code n} has the n-th smallest center along the axis, with smaller ones before and larger ones
+    * after it.
+    */
+   private void selectNthCenter(int start, int end, int n, int axis)
+   {
+      int low = start;
+      int high = end - 1;
+
+      while (low < high)
+      {
+         double pivot = getCenter(shapeOrder[(low + high) >>> 1], axis);
+         int i = low;
+         int j = high;
+
+         while (i <= j)
+         {
+            while (getCenter(shapeOrder[i], axis) < pivot)
+               i++;
+            while (getCenter(shapeOrder[j], axis) > pivot)
+               j--;
+
+            if (i <= j)
+            {
+               int swap = shapeOrder[i];
+               shapeOrder[i] = shapeOrder[j];
+               shapeOrder[j] = swap;
+               i++;
+               j--;
+            }
+         }
+
+         if (n <= j)
+            high = j;
+         else if (n >= i)
+            low = i;
+         else
+            return;
+      }
+   }
+
+   private double getCenter(int shapeIndex, int axis)
+   {
+      int offset = BOUNDS_STRIDE * shapeIndex + axis;
+      return 0.5 * (shapeBounds[offset] + shapeBounds[offset + 3]);
+   }
+}
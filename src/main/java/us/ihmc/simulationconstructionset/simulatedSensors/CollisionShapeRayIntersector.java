@@ -0,0 +1,291 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+import us.ihmc.euclid.geometry.LineSegment3D;
+import us.ihmc.euclid.shape.convexPolytope.ConvexPolytope3D;
+import us.ihmc.euclid.shape.convexPolytope.Face3D;
+import us.ihmc.euclid.shape.primitives.Cylinder3D;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.BoxShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.CapsuleShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.CylinderShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.PolytopeShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SimpleShapeType;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SphereShapeDescription;
+
+/**
+ * Computes where a ray enters the transformed description of a collision shape. The ray is given
+ * by its origin and its unit direction, and the distance returned is the distance from the origin
+ * to the entry point, or {@link Double#POSITIVE_INFINITY} if the ray does not enter the shape.
+ * <p>
+ * A ray starting inside a shape does not see that shape, so that a sensor mounted inside the
+ * collision shape of its own link sees through it. The smoothing radius of the shapes is ignored.
+ * </p>
+ * <p>
+ * An instance holds scratch objects and is not thread safe.
+ * </p>
+ */
+public class CollisionShapeRayIntersector
+{
+   private final Point3D tempPoint = new Point3D();
+   private final Vector3D tempAxis = new Vector3D();
+   private final LineSegment3D tempLineSegment = new LineSegment3D();
+
+   /**
+    * Returns the distance along the ray to where it enters the shape, or
+    * {@link Double#POSITIVE_INFINITY} if it does not. Shapes which are not handled are not hit.
+    */
+   public double intersect(CollisionShapeDescription<?> description, Point3DReadOnly origin, Vector3DReadOnly direction)
+   {
+      SimpleShapeType shapeType = SimpleShapeType.getShapeType(description);
+
+      if (shapeType == null)
+         return Double.POSITIVE_INFINITY;
+
+      switch (shapeType)
+      {
+         case SPHERE:
+            return intersectSphere((SphereShapeDescription<?>) description, origin, direction);
+         case CAPSULE:
+            return intersectCapsule((CapsuleShapeDescription<?>) description, origin, direction);
+         case CYLINDER:
+            return intersectCylinder((CylinderShapeDescription<?>) description, origin, direction);
+         case BOX:
+            return intersectBox((BoxShapeDescription<?>) description, origin, direction);
+         case POLYTOPE:
+            return intersectPolytope((PolytopeShapeDescription<?>) description, origin, direction);
+         default:
+            return Double.POSITIVE_INFINITY;
+      }
+   }
+
+   private double intersectSphere(SphereShapeDescription<?> sphere, Point3DReadOnly origin, Vector3DReadOnly direction)
+   {
+      sphere.getCenter(tempPoint);
+      return intersectSphere(tempPoint, sphere.getRadius(), origin, direction);
+   }
+
+   private double intersectCapsule(CapsuleShapeDescription<?> capsule, Point3DReadOnly origin, Vector3DReadOnly direction)
+   {
+      capsule.getLineSegment(tempLineSegment);
+      Point3DReadOnly first = tempLineSegment.getFirstEndpoint();
+      Point3DReadOnly second = tempLineSegment.getSecondEndpoint();
+      double radius = capsule.getRadius();
+
+      tempAxis.sub(second, first);
+      double length = tempAxis.length();
+
+      if (length < 1.0e-12)
+         return intersectSphere(first, radius, origin, direction);
+
+      tempAxis.scale(1.0 / length);
+
+      if (isInsideCylinder(first, tempAxis, 0.0, length, radius, origin) || isInsideSphere(first, radius, origin) || isInsideSphere(second, radius, origin))
+         return Double.POSITIVE_INFINITY;
+
+      double distance = intersectCylinderSide(first, tempAxis, 0.0, length, radius, origin, direction);
+      distance = Math.min(distance, intersectSphere(first, radius, origin, direction));
+      distance = Math.min(distance, intersectSphere(second, radius, origin, direction));
+      return distance;
+   }
+
+   private double intersectCylinder(CylinderShapeDescription<?> description, Point3DReadOnly origin, Vector3DReadOnly direction)
+   {
+      Cylinder3D cylinder = description.getSupportingVertexHolder();
+      Point3DReadOnly center = cylinder.getPosition();
+      Vector3DReadOnly axis = cylinder.getAxis();
+      double halfLength = 0.5 * cylinder.getLength();
+      double radius = cylinder.getRadius();
+
+      if (isInsideCylinder(center, axis, -halfLength, halfLength, radius, origin))
+         return Double.POSITIVE_INFINITY;
+
+      double distance = intersectCylinderSide(center, axis, -halfLength, halfLength, radius, origin, direction);
+
+      // Caps
+      double originAlongAxis = axis.dot(origin) - axis.dot(center);
+      double directionAlongAxis = axis.dot(direction);
+
+      if (Math.abs(directionAlongAxis) > 1.0e-12)
+      {
+         double capOffset = directionAlongAxis > 0.0 ? -halfLength : halfLength; // The ray can only enter through the cap facing it.
+         double t = (capOffset - originAlongAxis) / directionAlongAxis;
+
+         if (t >= 0.0 && t < distance)
+         {
+            double x = origin.getX() + t * direction.getX() - center.getX();
+            double y = origin.getY() + t * direction.getY() - center.getY();
+            double z = origin.getZ() + t * direction.getZ() - center.getZ();
+            double alongAxis = x * axis.getX() + y * axis.getY() + z * axis.getZ();
+            double radialSquared = x * x + y * y + z * z - alongAxis * alongAxis;
+
+            if (radialSquared <= radius * radius)
+               distance = t;
+         }
+      }
+
+      return distance;
+   }
+
+   private double intersectBox(BoxShapeDescription<?> box, Point3DReadOnly origin, Vector3DReadOnly direction)
+   {
+      box.getCenter(tempPoint);
+
+      double entering = Double.NEGATIVE_INFINITY;
+      double exiting = Double.POSITIVE_INFINITY;
+
+      // Slabs along the axes of the box.
+      for (int axisIndex = 0; axisIndex < 3; axisIndex++)
+      {
+         box.getAxis(axisIndex, tempAxis);
+         double halfSize = box.getHalfSize(axisIndex);
+         double originAlongAxis = tempAxis.dot(origin) - tempAxis.dot(tempPoint);
+         double directionAlongAxis = tempAxis.dot(direction);
+
+         if (Math.abs(directionAlongAxis) < 1.0e-12)
+         {
+            if (Math.abs(originAlongAxis) > halfSize)
+               return Double.POSITIVE_INFINITY;
+            continue;
+         }
+
+         double t1 = (-halfSize - originAlongAxis) / directionAlongAxis;
+         double t2 = (halfSize - originAlongAxis) / directionAlongAxis;
+
+         entering = Math.max(entering, Math.min(t1, t2));
+         exiting = Math.min(exiting, Math.max(t1, t2));
+
+         if (entering > exiting)
+            return Double.POSITIVE_INFINITY;
+      }
+
+      return entering >= 0.0 ? entering : Double.POSITIVE_INFINITY;
+   }
+
+   private double intersectPolytope(PolytopeShapeDescription<?> description, Point3DReadOnly origin, Vector3DReadOnly direction)
+   {
+      ConvexPolytope3D polytope = description.getPolytope();
+
+      double entering = Double.NEGATIVE_INFINITY;
+      double exiting = Double.POSITIVE_INFINITY;
+
+      // Clip the ray against the half-space of each face.
+      for (int faceIndex = 0; faceIndex < polytope.getNumberOfFaces(); faceIndex++)
+      {
+         Face3D face = polytope.getFace(faceIndex);
+         Vector3DReadOnly normal = face.getNormal();
+         double distanceToPlane = normal.dot(face.getCentroid()) - normal.dot(origin);
+         double directionAlongNormal = normal.dot(direction);
+
+         if (Math.abs(directionAlongNormal) < 1.0e-12)
+         {
+            if (distanceToPlane < 0.0)
+               return Double.POSITIVE_INFINITY;
+            continue;
+         }
+
+         double t = distanceToPlane / directionAlongNormal;
+
+         if (directionAlongNormal < 0.0)
+            entering = Math.max(entering, t);
+         else
+            exiting = Math.min(exiting, t);
+
+         if (entering > exiting)
+            return Double.POSITIVE_INFINITY;
+      }
+
+      return entering >= 0.0 ? entering : Double.POSITIVE_INFINITY;
+   }
+
+   private static double intersectSphere(Point3DReadOnly center, double radius, Point3DReadOnly origin, Vector3DReadOnly direction)
+   {
+      double x = origin.getX() - center.getX();
+      double y = origin.getY() - center.getY();
+      double z = origin.getZ() - center.getZ();
+
+      double c = x * x + y * y + z * z - radius * radius;
+      if (c <= 0.0)
+         return Double.POSITIVE_INFINITY;
+
+      double b = x * direction.getX() + y * direction.getY() + z * direction.getZ();
+      if (b >= 0.0)
+         return Double.POSITIVE_INFINITY;
+
+      double discriminant = b * b - c;
+      if (discriminant < 0.0)
+         return Double.POSITIVE_INFINITY;
+
+      return -b - Math.sqrt(discriminant);
+   }
+
+   private static boolean isInsideSphere(Point3DReadOnly center, double radius, Point3DReadOnly point)
+   {
+      return center.distanceSquared(point) <= radius * radius;
+   }
+
+   /**
+    * Whether the point is inside the cylinder going from {@code minimumAlongAxis} to
+    * {@code maximumAlongAxis} along the unit axis, measured from {@code base}.
+    */
+   private static boolean isInsideCylinder(Point3DReadOnly base, Vector3DReadOnly axis, double minimumAlongAxis, double maximumAlongAxis, double radius,
+                                           Point3DReadOnly point)
+   {
+      double x = point.getX() - base.getX();
+      double y = point.getY() - base.getY();
+      double z = point.getZ() - base.getZ();
+      double alongAxis = x * axis.getX() + y * axis.getY() + z * axis.getZ();
+
+      if (alongAxis < minimumAlongAxis || alongAxis > maximumAlongAxis)
+         return false;
+
+      return x * x + y * y + z * z - alongAxis * alongAxis <= radius * radius;
+   }
+
+   /**
+    * Returns where the ray enters the side of the cylinder going from {@code minimumAlongAxis} to
+    * {@code maximumAlongAxis} along the unit axis, measured from {@code base}, ignoring the caps.
+    */
+   private static double intersectCylinderSide(Point3DReadOnly base, Vector3DReadOnly axis, double minimumAlongAxis, double maximumAlongAxis, double radius,
+                                               Point3DReadOnly origin, Vector3DReadOnly direction)
+   {
+      double x = origin.getX() - base.getX();
+      double y = origin.getY() - base.getY();
+      double z = origin.getZ() - base.getZ();
+
+      double originAlongAxis = x * axis.getX() + y * axis.getY() + z * axis.getZ();
+      double directionAlongAxis = direction.getX() * axis.getX() + direction.getY() * axis.getY() + direction.getZ() * axis.getZ();
+
+      // Components orthogonal to the axis.
+      double ox = x - originAlongAxis * axis.getX();
+      double oy = y - originAlongAxis * axis.getY();
+      double oz = z - originAlongAxis * axis.getZ();
+      double dx = direction.getX() - directionAlongAxis * axis.getX();
+      double dy = direction.getY() - directionAlongAxis * axis.getY();
+      double dz = direction.getZ() - directionAlongAxis * axis.getZ();
+
+      double a = dx * dx + dy * dy + dz * dz;
+      if (a < 1.0e-12)
+         return Double.POSITIVE_INFINITY;
+
+      double b = ox * dx + oy * dy + oz * dz;
+      double c = ox * ox + oy * oy + oz * oz - radius * radius;
+      double discriminant = b * b - a * c;
+
+      if (discriminant < 0.0)
+         return Double.POSITIVE_INFINITY;
+
+      double t = (-b - Math.sqrt(discriminant)) / a;
+      if (t < 0.0)
+         return Double.POSITIVE_INFINITY;
+
+      double hitAlongAxis = originAlongAxis + t * directionAlongAxis;
+      if (hitAlongAxis < minimumAlongAxis || hitAlongAxis > maximumAlongAxis)
+         return Double.POSITIVE_INFINITY;
+
+      return t;
+   }
+}
@@ -30,8 +30,8 @@ public class FeatherStoneJointBasedWrenchCalculator implements WrenchCalculatorI
       return forceSensorName;
    }
 
-   private Vector3D force = new Vector3D();
-   private Vector3D tau = new Vector3D();
+   private final Vector3D force = new Vector3D();
+   private final Vector3D tau = new Vector3D();
 
    @Override
    public void calculate()
@@ -41,23 +41,14 @@ public class FeatherStoneJointBasedWrenchCalculator implements WrenchCalculatorI
       sensor.getJointForce(force);
       sensor.getJointTorque(tau);
 
-      wrenchMatrix.zero();
-
-      wrenchMatrix.set(0, 0, tau.getX());
-      wrenchMatrix.set(1, 0, tau.getY());
-      wrenchMatrix.set(2, 0, tau.getZ());
-
-      wrenchMatrix.set(3, 0, force.getX());
-      wrenchMatrix.set(4, 0, force.getY());
-      wrenchMatrix.set(5, 0, force.getZ());
-
-      if (doWrenchCorruption)
-      {
-         for (int i = 0; i < WRENCH_SIZE; i++)
-         {
-            wrenchMatrix.add(i, 0, corruptionMatrix.get(i, 0));
-         }
-      }
+      WrenchCalculatorTools.packWrench(tau.getX(),
+                                       tau.getY(),
+                                       tau.getZ(),
+                                       force.getX(),
+                                       force.getY(),
+                                       force.getZ(),
+                                       doWrenchCorruption ? corruptionMatrix : null,
+                                       wrenchMatrix);
    }
 
    @Override
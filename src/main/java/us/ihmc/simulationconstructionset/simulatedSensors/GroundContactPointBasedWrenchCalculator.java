@@ -28,7 +28,8 @@ public class GroundContactPointBasedWrenchCalculator implements WrenchCalculator
    private boolean doWrenchCorruption = false;
    private final DMatrixRMaj wrenchMatrix = new DMatrixRMaj(WRENCH_SIZE, 1);
    private final DMatrixRMaj corruptionMatrix = new DMatrixRMaj(WRENCH_SIZE, 1);
-   private final Map<String, YoFrameVector3D> yoContactForceInSensorFrame = new HashMap<>();
+   /** Variable of each contact point, in the same order as the contact points, {@code null} if none. */
+   private final YoFrameVector3D[] yoContactForceInSensorFrame;
    private final ReferenceFrame sensorFrame;
 
    public GroundContactPointBasedWrenchCalculator(String forceSensorName, List<GroundContactPoint> contactPoints, Joint forceTorqueSensorJoint,
@@ -47,6 +48,9 @@ public class GroundContactPointBasedWrenchCalculator implements WrenchCalculator
          }
       };
 
+      Map<String, YoFrameVector3D> yoContactForceByName = new HashMap<>();
+      yoContactForceInSensorFrame = new YoFrameVector3D[this.contactPoints.size()];
+
       for (int i = 0; i < this.contactPoints.size(); i++)
       {
          if (registry != null)
@@ -55,9 +59,15 @@ public class GroundContactPointBasedWrenchCalculator implements WrenchCalculator
             String namePrefix = contactPointName + "_ForceInSensorFrame";
             // Checking if that variable does already exist for some reason.
             if (registry.findVariable(namePrefix + "X") == null)
-               yoContactForceInSensorFrame.put(contactPointName, new YoFrameVector3D(namePrefix, sensorFrame, registry));
+               yoContactForceByName.put(contactPointName, new YoFrameVector3D(namePrefix, sensorFrame, registry));
          }
       }
+
+      // Resolved once here so that the calculation does not look up the names.
+      for (int i = 0; i < this.contactPoints.size(); i++)
+      {
+         yoContactForceInSensorFrame[i] = yoContactForceByName.get(contactPoints.get(i).getName());
+      }
    }
 
    @Override
@@ -69,56 +79,47 @@ public class GroundContactPointBasedWrenchCalculator implements WrenchCalculator
    private final RigidBodyTransform transformToOriginFrame = new RigidBodyTransform();
    private final Vector3D force = new Vector3D();
    private final Point3D contactPointOriginFrame = new Point3D();
-   private final Vector3D contactVectorOriginFrame = new Vector3D();
-   private final Vector3D tau = new Vector3D();
-
-   private final Point3D tempContactPoint = new Point3D();
 
+   /**
+    * Sums the wrenches of the contact points in the sensor frame. Does not allocate.
+    */
    @Override
    public void calculate()
    {
       //OriginaFrame : sensorFrame
-      wrenchMatrix.zero();
       forceTorqueSensorJoint.getTransformToWorld(transformToOriginFrame);
       transformToOriginFrame.multiply(transformToParentJoint);
       sensorFrame.update();
       transformToOriginFrame.invert();
 
+      double torqueX = 0.0, torqueY = 0.0, torqueZ = 0.0;
+      double forceX = 0.0, forceY = 0.0, forceZ = 0.0;
+
       for (int i = 0; i < contactPoints.size(); i++)
       {
          GroundContactPoint contactPoint = contactPoints.get(i);
          contactPoint.getForce(force);
-
          transformToOriginFrame.transform(force);
 
-         contactPointOriginFrame.set(0.0, 0.0, 0.0);
-
-         contactPoint.getPosition(tempContactPoint);
-         transformToOriginFrame.transform(tempContactPoint, contactPointOriginFrame);
-         contactVectorOriginFrame.set(contactPointOriginFrame);
-         tau.cross(contactVectorOriginFrame, force);
+         contactPoint.getPosition(contactPointOriginFrame);
+         transformToOriginFrame.transform(contactPointOriginFrame);
 
-         wrenchMatrix.set(0, 0, wrenchMatrix.get(0, 0) + tau.getX());
-         wrenchMatrix.set(1, 0, wrenchMatrix.get(1, 0) + tau.getY());
-         wrenchMatrix.set(2, 0, wrenchMatrix.get(2, 0) + tau.getZ());
+         // tau = r x f
+         torqueX += contactPointOriginFrame.getY() * force.getZ() - contactPointOriginFrame.getZ() * force.getY();
+         torqueY += contactPointOriginFrame.getZ() * force.getX() - contactPointOriginFrame.getX() * force.getZ();
+         torqueZ += contactPointOriginFrame.getX() * force.getY() - contactPointOriginFrame.getY() * force.getX();
 
-         wrenchMatrix.set(3, 0, wrenchMatrix.get(3, 0) + force.getX());
-         wrenchMatrix.set(4, 0, wrenchMatrix.get(4, 0) + force.getY());
-         wrenchMatrix.set(5, 0, wrenchMatrix.get(5, 0) + force.getZ());
+         forceX += force.getX();
+         forceY += force.getY();
+         forceZ += force.getZ();
 
-         if (yoContactForceInSensorFrame.containsKey(contactPoint.getName()))
+         if (i < yoContactForceInSensorFrame.length && yoContactForceInSensorFrame[i] != null)
          {
-            yoContactForceInSensorFrame.get(contactPoint.getName()).set(force);
+            yoContactForceInSensorFrame[i].set(force);
          }
       }
 
-      if (doWrenchCorruption)
-      {
-         for (int i = 0; i < WRENCH_SIZE; i++)
-         {
-            wrenchMatrix.add(i, 0, corruptionMatrix.get(i, 0));
-         }
-      }
+      WrenchCalculatorTools.packWrench(torqueX, torqueY, torqueZ, forceX, forceY, forceZ, doWrenchCorruption ? corruptionMatrix : null, wrenchMatrix);
    }
 
    @Override
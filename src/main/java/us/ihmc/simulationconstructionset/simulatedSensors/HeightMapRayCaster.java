@@ -0,0 +1,119 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
+import us.ihmc.jMonkeyEngineToolkit.HeightMapWithNormals;
+
+/**
+ * Finds where a ray first goes below a height map. The ray is marched with steps bounded by the
+ * clearance above the terrain divided by how fast the clearance can decrease along the ray given
+ * the maximum slope of the terrain, so that the steps are long far from the terrain and short close
+ * to it. The crossing is then refined by bisection.
+ * <p>
+ * Steps are also limited to {@link #setMaximumStep(double)}, so that steeper features such as steps
+ * are found as long as they are thicker than that. The height map is only queried and must support
+ * queries from several threads when the caster is used by several threads.
+ * </p>
+ */
+public class HeightMapRayCaster
+{
+   private double maximumSlope = 2.0;
+   private double minimumStep = 1.0e-3;
+   private double maximumStep = 0.25;
+   private double tolerance = 1.0e-4;
+   private int maximumNumberOfSteps = 2000;
+
+   /**
+    * Sets the maximum slope of the terrain, height over horizontal distance, used to bound the steps.
+    */
+   public void setMaximumSlope(double maximumSlope)
+   {
+      this.maximumSlope = maximumSlope;
+   }
+
+   public void setMaximumStep(double maximumStep)
+   {
+      this.maximumStep = maximumStep;
+   }
+
+   public void setMinimumStep(double minimumStep)
+   {
+      this.minimumStep = minimumStep;
+   }
+
+   /**
+    * Sets the accuracy of the distance returned, in meters.
+    */
+   public void setTolerance(double tolerance)
+   {
+      this.tolerance = tolerance;
+   }
+
+   /**
+    * Returns the distance along the ray to the first point below the terrain, or
+    * {@link Double#POSITIVE_INFINITY} if there is none within {@code maximumDistance} or if the ray
+    * starts below the terrain.
+    *
+    * @param direction unit direction of the ray.
+    */
+   public double castRay(HeightMapWithNormals heightMap, Point3DReadOnly origin, Vector3DReadOnly direction, double maximumDistance)
+   {
+      double horizontal = Math.sqrt(direction.getX() * direction.getX() + direction.getY() * direction.getY());
+      double clearanceRate = Math.abs(direction.getZ()) + maximumSlope * horizontal;
+
+      double distance = 0.0;
+      double clearance = computeClearance(heightMap, origin, direction, distance);
+
+      if (clearance < 0.0)
+         return Double.POSITIVE_INFINITY;
+
+      for (int i = 0; i < maximumNumberOfSteps; i++)
+      {
+         if (clearance <= tolerance)
+            return distance;
+
+         if (distance >= maximumDistance)
+            return Double.POSITIVE_INFINITY;
+
+         double step = clearanceRate > 0.0 ? clearance / clearanceRate : maximumStep;
+         step = Math.max(minimumStep, Math.min(maximumStep, step));
+
+         double nextDistance = Math.min(distance + step, maximumDistance);
+         double nextClearance = computeClearance(heightMap, origin, direction, nextDistance);
+
+         if (nextClearance < 0.0)
+            return bisect(heightMap, origin, direction, distance, nextDistance);
+
+         distance = nextDistance;
+         clearance = nextClearance;
+      }
+
+      return Double.POSITIVE_INFINITY;
+   }
+
+   private double bisect(HeightMapWithNormals heightMap, Point3DReadOnly origin, Vector3DReadOnly direction, double above, double below)
+   {
+      while (below - above > tolerance)
+      {
+         double middle = 0.5 * (above + below);
+
+         if (computeClearance(heightMap, origin, direction, middle) < 0.0)
+            below = middle;
+         else
+            above = middle;
+      }
+
+      return above;
+   }
+
+   private static double computeClearance(HeightMapWithNormals heightMap, Point3DReadOnly origin, Vector3DReadOnly direction, double distance)
+   {
+      double x = origin.getX() + distance * direction.getX();
+      double y = origin.getY() + distance * direction.getY();
+      double z = origin.getZ() + distance * direction.getZ();
+
+      double clearance = z - heightMap.heightAt(x, y, z);
+      // Places without terrain are never hit.
+      return Double.isNaN(clearance) ? Double.POSITIVE_INFINITY : clearance;
+   }
+}
@@ -14,6 +14,7 @@ public class LidarMount implements SimulatedSensor
    protected RigidBodyTransform transformToHere = new RigidBodyTransform();
    private final RigidBodyTransform transformFromJoint;
    private GPULidar lidar;
+   private CPULidar cpuLidar;
    private final String lidarName;
 
    private Joint parentJoint;
@@ -35,6 +36,11 @@ public class LidarMount implements SimulatedSensor
       {
          lidar.setTransformFromWorld(this.transformToHere, time);
       }
+
+      if (cpuLidar != null)
+      {
+         cpuLidar.setTransformFromWorld(this.transformToHere, time);
+      }
    }
 
    @Override
@@ -48,6 +54,30 @@ public class LidarMount implements SimulatedSensor
       this.lidar = lidar;
    }
 
+   /**
+    * Uses a lidar ray-casting on the CPU, which does not need a graphics adapter. The lidar scans at
+    * its own rate as the mount is updated by the simulation.
+    */
+   public void setLidar(CPULidar cpuLidar)
+   {
+      this.cpuLidar = cpuLidar;
+   }
+
+   /**
+    * Creates a {@link CPULidar} from the description of this mount and uses it.
+    */
+   public CPULidar createCPULidar()
+   {
+      CPULidar cpuLidar = new CPULidar(description);
+      setLidar(cpuLidar);
+      return cpuLidar;
+   }
+
+   public CPULidar getCPULidar()
+   {
+      return cpuLidar;
+   }
+
    public LidarSensorDescription getDescription()
    {
       return description;
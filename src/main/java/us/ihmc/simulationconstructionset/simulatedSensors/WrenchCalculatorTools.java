@@ -0,0 +1,34 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+import org.ejml.data.DMatrixRMaj;
+
+public class WrenchCalculatorTools
+{
+   private WrenchCalculatorTools()
+   {
+   }
+
+   /**
+    * Writes the wrench, torque first, into the 6-by-1 matrix in one pass over its data, adding the
+    * corruption if not {@code null}.
+    */
+   public static void packWrench(double torqueX, double torqueY, double torqueZ, double forceX, double forceY, double forceZ, DMatrixRMaj corruption,
+                                 DMatrixRMaj wrenchToPack)
+   {
+      double[] wrench = wrenchToPack.data;
+      wrench[0] = torqueX;
+      wrench[1] = torqueY;
+      wrench[2] = torqueZ;
+      wrench[3] = forceX;
+      wrench[4] = forceY;
+      wrench[5] = forceZ;
+
+      if (corruption != null)
+      {
+         double[] offset = corruption.data;
+
+         for (int i = 0; i < 6; i++)
+            wrench[i] += offset[i];
+      }
+   }
+}
@@ -1,21 +1,35 @@
 package us.ihmc.simulationconstructionset.util;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.Vector3D;
 import us.ihmc.jMonkeyEngineToolkit.GroundProfile3D;
+import us.ihmc.simulationconstructionset.ExternalForcePoint;
 import us.ihmc.simulationconstructionset.GroundContactModel;
 import us.ihmc.simulationconstructionset.GroundContactPoint;
+import us.ihmc.simulationconstructionset.Joint;
 import us.ihmc.simulationconstructionset.MovingGroundContactModel;
 import us.ihmc.simulationconstructionset.MovingGroundProfile;
 import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SpatialVector;
 import us.ihmc.yoVariables.registry.YoRegistry;
 import us.ihmc.yoVariables.variable.YoBoolean;
 import us.ihmc.yoVariables.variable.YoDouble;
 
+/**
+ * Ground contact model resolving the contacts with impulses.
+ * <p>
+ * The state of each contact point is stored in arrays indexed by the position of the point in the
+ * list given at construction. The diagnostic variables can be turned off with
+ * {@link #setDiagnosticsEnabled(boolean)}. In the batch impulse resolution mode, see
+ * {@link #setBatchImpulseResolution(boolean)}, the impulses of the colliding points of each link are
+ * combined and propagated through the robot once per link instead of once per point.
+ * </p>
+ */
 public class CollisionGroundContactModel implements GroundContactModel, MovingGroundContactModel
 {
    private static final long serialVersionUID = -1038863972028441303L;
@@ -33,12 +47,25 @@ public class CollisionGroundContactModel implements GroundContactModel, MovingGr
    private final Vector3D tempForceOne = new Vector3D();
    private final Vector3D tempForceTwo = new Vector3D();
    // private boolean movingGround = false;
-   private boolean microCollision;
 
-   private Map<GroundContactPoint, YoBoolean> isInsideSpies = new HashMap<>();
-   private Map<GroundContactPoint, YoBoolean> microCollisionSpies = new HashMap<>();
-   private Map<GroundContactPoint, YoDouble> closestIntersectionSpies = new HashMap<>();
-   private Map<GroundContactPoint, YoBoolean> contactIsCloseToGround = new HashMap<>();
+   // Per contact point state, indexed by the position of the point in gcPoints.
+   private final boolean[] microCollisions;
+   private final boolean[] isCloseToGround;
+   private final Point3D[] closestIntersections;
+   private final Vector3D[] normals;
+
+   private final YoBoolean[] isInsideSpies;
+   private final YoBoolean[] microCollisionSpies;
+   private final YoDouble[] closestIntersectionSpies;
+   private final YoBoolean[] contactIsCloseToGround;
+   private boolean diagnosticsEnabled = true;
+
+   private boolean batchImpulseResolution = false;
+   /** Indices of the contact points sorted by parent joint, computed at the first batch resolution. */
+   private int[] indicesSortedByLink = null;
+   /** Indices of the points of the link being resolved whose impulse was computed in this pass. */
+   private int[] collidedIndices = null;
+   private final SpatialVector linkImpulse = new SpatialVector();
 
    public CollisionGroundContactModel(Robot rob, YoRegistry parentRegistry)
    {
@@ -64,12 +91,25 @@ public class CollisionGroundContactModel implements GroundContactModel, MovingGr
    {
       this.gcPoints = gcPoints;
 
-      for (GroundContactPoint groundContactPoint : gcPoints)
+      int numberOfPoints = gcPoints.size();
+      microCollisions = new boolean[numberOfPoints];
+      isCloseToGround = new boolean[numberOfPoints];
+      closestIntersections = new Point3D[numberOfPoints];
+      normals = new Vector3D[numberOfPoints];
+      isInsideSpies = new YoBoolean[numberOfPoints];
+      microCollisionSpies = new YoBoolean[numberOfPoints];
+      closestIntersectionSpies = new YoDouble[numberOfPoints];
+      contactIsCloseToGround = new YoBoolean[numberOfPoints];
+
+      for (int i = 0; i < numberOfPoints; i++)
       {
-         isInsideSpies.put(groundContactPoint, new YoBoolean(groundContactPoint.getName() + "_isInsideSpy", registry));
-         microCollisionSpies.put(groundContactPoint, new YoBoolean(groundContactPoint.getName() + "_microCollisionSpy", registry));
-         closestIntersectionSpies.put(groundContactPoint, new YoDouble(groundContactPoint.getName() + "_closestIntersectionZ", registry));
-         contactIsCloseToGround.put(groundContactPoint, new YoBoolean(groundContactPoint.getName() + "_isCloseToGround", registry));
+         GroundContactPoint groundContactPoint = gcPoints.get(i);
+         closestIntersections[i] = new Point3D();
+         normals[i] = new Vector3D(0.0, 0.0, 1.0);
+         isInsideSpies[i] = new YoBoolean(groundContactPoint.getName() + "_isInsideSpy", registry);
+         microCollisionSpies[i] = new YoBoolean(groundContactPoint.getName() + "_microCollisionSpy", registry);
+         closestIntersectionSpies[i] = new YoDouble(groundContactPoint.getName() + "_closestIntersectionZ", registry);
+         contactIsCloseToGround[i] = new YoBoolean(groundContactPoint.getName() + "_isCloseToGround", registry);
       }
 
       groundRestitution = new YoDouble("groundRestitution", "CollisionGroundContactModel coefficient Of Restitution", registry);
@@ -107,7 +147,26 @@ public class CollisionGroundContactModel implements GroundContactModel, MovingGr
    {
    }
 
-   private Vector3D normalVector = new Vector3D(0.0, 0.0, 1.0);
+   /**
+    * Whether the diagnostic variables of the contact points are updated, {@code true} by default.
+    */
+   public void setDiagnosticsEnabled(boolean diagnosticsEnabled)
+   {
+      this.diagnosticsEnabled = diagnosticsEnabled;
+   }
+
+   /**
+    * In the batch mode, the impulse of each colliding point is computed from the velocities at the
+    * beginning of the tick, and the average impulse of the colliding points of each link is applied
+    * once. This is faster for links with many contact points, at the cost of accuracy when several
+    * points of a link hit the ground at the same time. {@code false} by default, in which case the
+    * points are resolved one after the other.
+    */
+   public void setBatchImpulseResolution(boolean batchImpulseResolution)
+   {
+      this.batchImpulseResolution = batchImpulseResolution;
+   }
+
    private Vector3D velocityVector = new Vector3D(0.0, 0.0, 0.0);
    private Vector3D p_world = new Vector3D();
 
@@ -123,14 +182,19 @@ public class CollisionGroundContactModel implements GroundContactModel, MovingGr
    @Override
    public void doGroundContact()
    {
+      if (batchImpulseResolution)
+      {
+         doGroundContactInBatch();
+         return;
+      }
+
       iterateForward = !iterateForward;
 
       if (iterateForward)
       {
          for (int i = 0; i < gcPoints.size(); i++)
          {
-            GroundContactPoint gc = gcPoints.get(i);
-            doGroundContact(gc);
+            doGroundContact(i);
          }
       }
 
@@ -138,62 +202,24 @@ public class CollisionGroundContactModel implements GroundContactModel, MovingGr
       {
          for (int i = gcPoints.size() - 1; i >= 0; i--)
          {
-            GroundContactPoint gc = gcPoints.get(i);
-            doGroundContact(gc);
+            doGroundContact(i);
          }
       }
 
    }
 
-   private final Point3D closestIntersection = new Point3D();
-
-   private void doGroundContact(GroundContactPoint gc)
+   private void doGroundContact(int index)
    {
       // First, do the callback if a point has it:
       // ExternalForcePointUpdater externalForcePointUpdater = gc.getExternalForcePointUpdater();
       // if (externalForcePointUpdater != null) externalForcePointUpdater.updateExternalForcePoint(gc);
 
-      // If the point is turned off (fs is set to -1 or less), then no forces:
-      if (gc.isDisabled())
-      {
-         gc.setForce(0.0, 0.0, 0.0);
-
+      if (!updateContactState(index))
          return;
-      }
-
-      // See if point hit the ground or not:
-      boolean isInside = false;
-      if (profile3D != null)
-      {
-         isInside = profile3D.checkIfInside(gc.getX(), gc.getY(), gc.getZ(), closestIntersection, normalVector);
-         closestIntersectionSpies.get(gc).set(closestIntersection.getZ());
-      }
-      isInsideSpies.get(gc).set(isInside);
-
-      if (isInside)
-      {
-         if (!gc.isInContact())
-         {
-            microCollision = false;
-            gc.setInContact();
-            gc.setTouchdownToCurrentLocation();
-
-            // System.out.println(gc + " hit the ground");
-         }
-
-         else
-         {
-            microCollision = true;
-         }
-         microCollisionSpies.get(gc).set(microCollision);
-      }
 
-      else
-         gc.setNotInContact();
-
-      contactIsCloseToGround.get(gc).set((profile3D != null) && (profile3D.isClose(gc.getX(), gc.getY(), gc.getZ())));
-      if (!contactIsCloseToGround.get(gc).getBooleanValue())
-         return;
+      GroundContactPoint gc = gcPoints.get(index);
+      Point3D closestIntersection = closestIntersections[index];
+      Vector3D normalVector = normals[index];
 
       // If the foot hit, then y an impulse:
 
@@ -206,26 +232,11 @@ public class CollisionGroundContactModel implements GroundContactModel, MovingGr
          //         else
          //            normalVector.set(0.0, 0.0, 1.0);
 
-         if (movingProfile != null)
-         {
-            movingProfile.velocityAt(gc.getX(), gc.getY(), gc.getZ(), velocityVector);
-         }
-         else
-            velocityVector.set(0.0, 0.0, 0.0);
+         updateGroundVelocity(gc);
 
-         if (microCollision)
+         if (microCollisions[index])
          {
-            double penetration_squared;
-            if (profile3D != null)
-            {
-               penetration_squared = (gc.getX() - closestIntersection.getX()) * (gc.getX() - closestIntersection.getX())
-                     + (gc.getY() - closestIntersection.getY()) * (gc.getY() - closestIntersection.getY())
-                     + (gc.getZ() - closestIntersection.getZ()) * (gc.getZ() - closestIntersection.getZ());
-            }
-            else
-               penetration_squared = gc.getZ() * gc.getZ();
-
-            gc.resolveMicroCollision(penetration_squared,
+            gc.resolveMicroCollision(computePenetrationSquared(gc, closestIntersection),
                                      velocityVector,
                                      normalVector,
                                      groundRestitution.getDoubleValue(),
@@ -258,13 +269,6 @@ public class CollisionGroundContactModel implements GroundContactModel, MovingGr
           * gc.fx.set(p_world.x); gc.fy.set(p_world.y); gc.fz.set(p_world.z);
           */
 
-         if (p_world.getZ() < 0.0)
-         {
-            // System.out.println("Negative impulse!!!");
-            // System.out.println("p_world = " + p_world);
-            // System.exit(0);
-         }
-
          /*
           * gc.fx.set(K_XY * (gc.tdx.getDoubleValue()- gc.getX()) - B_XY * gc.getXVelocity()); gc.fy.set(K_XY
           * * (gc.tdy.getDoubleValue()- gc.getY()) - B_XY * gc.getYVelocity()); if (NOMLEN + (gc.getZ() -
@@ -282,6 +286,185 @@ public class CollisionGroundContactModel implements GroundContactModel, MovingGr
       }
    }
 
+   /**
+    * Updates the contact state of a point, checking whether it is inside the ground.
+    *
+    * @return whether the point is close to the ground and its contact has to be resolved.
+    */
+   private boolean updateContactState(int index)
+   {
+      GroundContactPoint gc = gcPoints.get(index);
+
+      // If the point is turned off (fs is set to -1 or less), then no forces:
+      if (gc.isDisabled())
+      {
+         gc.setForce(0.0, 0.0, 0.0);
+
+         return false;
+      }
+
+      // See if point hit the ground or not:
+      boolean isInside = false;
+      Point3D closestIntersection = closestIntersections[index];
+      if (profile3D != null)
+      {
+         isInside = profile3D.checkIfInside(gc.getX(), gc.getY(), gc.getZ(), closestIntersection, normals[index]);
+         if (diagnosticsEnabled)
+            closestIntersectionSpies[index].set(closestIntersection.getZ());
+      }
+      if (diagnosticsEnabled)
+         isInsideSpies[index].set(isInside);
+
+      if (isInside)
+      {
+         if (!gc.isInContact())
+         {
+            microCollisions[index] = false;
+            gc.setInContact();
+            gc.setTouchdownToCurrentLocation();
+
+            // System.out.println(gc + " hit the ground");
+         }
+
+         else
+         {
+            microCollisions[index] = true;
+         }
+         if (diagnosticsEnabled)
+            microCollisionSpies[index].set(microCollisions[index]);
+      }
+
+      else
+         gc.setNotInContact();
+
+      isCloseToGround[index] = (profile3D != null) && (profile3D.isClose(gc.getX(), gc.getY(), gc.getZ()));
+      if (diagnosticsEnabled)
+         contactIsCloseToGround[index].set(isCloseToGround[index]);
+      return isCloseToGround[index];
+   }
+
+   private void updateGroundVelocity(GroundContactPoint gc)
+   {
+      if (movingProfile != null)
+      {
+         movingProfile.velocityAt(gc.getX(), gc.getY(), gc.getZ(), velocityVector);
+      }
+      else
+         velocityVector.set(0.0, 0.0, 0.0);
+   }
+
+   private double computePenetrationSquared(GroundContactPoint gc, Point3D closestIntersection)
+   {
+      if (profile3D != null)
+      {
+         return (gc.getX() - closestIntersection.getX()) * (gc.getX() - closestIntersection.getX())
+               + (gc.getY() - closestIntersection.getY()) * (gc.getY() - closestIntersection.getY())
+               + (gc.getZ() - closestIntersection.getZ()) * (gc.getZ() - closestIntersection.getZ());
+      }
+      else
+         return gc.getZ() * gc.getZ();
+   }
+
+   private void doGroundContactInBatch()
+   {
+      if (indicesSortedByLink == null)
+      {
+         indicesSortedByLink = sortIndicesByLink();
+         collidedIndices = new int[indicesSortedByLink.length];
+      }
+
+      int start = 0;
+
+      while (start < indicesSortedByLink.length)
+      {
+         Joint parentJoint = gcPoints.get(indicesSortedByLink[start]).getParentJoint();
+         int end = start + 1;
+         while (end < indicesSortedByLink.length && gcPoints.get(indicesSortedByLink[end]).getParentJoint() == parentJoint)
+            end++;
+
+         resolveLinkContacts(parentJoint, start, end);
+         start = end;
+      }
+   }
+
+   private void resolveLinkContacts(Joint parentJoint, int start, int end)
+   {
+      linkImpulse.top.set(0.0, 0.0, 0.0);
+      linkImpulse.bottom.set(0.0, 0.0, 0.0);
+      int numberOfCollisions = 0;
+
+      for (int i = start; i < end; i++)
+      {
+         int index = indicesSortedByLink[i];
+         GroundContactPoint gc = gcPoints.get(index);
+
+         if (!updateContactState(index))
+            continue;
+
+         if (!gc.isInContact())
+         {
+            gc.setForce(0.0, 0.0, 0.0);
+            gc.setImpulse(0.0, 0.0, 0.0);
+            continue;
+         }
+
+         gc.incrementCollisionCount();
+
+         if (parentJoint == null)
+            continue;
+
+         updateGroundVelocity(gc);
+
+         double epsilon = groundRestitution.getDoubleValue();
+         if (microCollisions[index])
+            epsilon = ExternalForcePoint.computeMicroCollisionRestitution(epsilon, computePenetrationSquared(gc, closestIntersections[index]));
+
+         if (gc.computeCollisionImpulse(velocityVector, normals[index], epsilon, groundFriction.getDoubleValue(), p_world, linkImpulse))
+            collidedIndices[numberOfCollisions++] = index;
+      }
+
+      if (numberOfCollisions == 0)
+         return;
+
+      double scale = 1.0 / numberOfCollisions;
+
+      if (numberOfCollisions > 1)
+      {
+         linkImpulse.scale(scale);
+
+         // The other points in contact still hold the impulse of a previous tick.
+         for (int i = 0; i < numberOfCollisions; i++)
+            gcPoints.get(collidedIndices[i]).getYoImpulse().scale(scale);
+      }
+
+      parentJoint.physics.applyImpulseAtCenterOfMass(linkImpulse);
+
+      // The points of the next links need the velocities after this impulse.
+      parentJoint.rob.updateVelocities();
+   }
+
+   private int[] sortIndicesByLink()
+   {
+      Map<Joint, Integer> linkIndices = new IdentityHashMap<>();
+      Integer[] indices = new Integer[gcPoints.size()];
+
+      for (int i = 0; i < indices.length; i++)
+      {
+         indices[i] = i;
+         Joint parentJoint = gcPoints.get(i).getParentJoint();
+         if (!linkIndices.containsKey(parentJoint))
+            linkIndices.put(parentJoint, linkIndices.size());
+      }
+
+      // Stable, so the points of a link keep their order.
+      Arrays.sort(indices, (a, b) -> Integer.compare(linkIndices.get(gcPoints.get(a).getParentJoint()), linkIndices.get(gcPoints.get(b).getParentJoint())));
+
+      int[] sortedIndices = new int[indices.length];
+      for (int i = 0; i < indices.length; i++)
+         sortedIndices[i] = indices[i];
+      return sortedIndices;
+   }
+
    private void addRegistryToParent(YoRegistry parentRegistry)
    {
       if (parentRegistry != null)
@@ -0,0 +1,286 @@
+package us.ihmc.simulationconstructionset.util;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import us.ihmc.euclid.matrix.Matrix3D;
+import us.ihmc.euclid.matrix.RotationMatrix;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.GroundContactPoint;
+import us.ihmc.simulationconstructionset.GroundContactPointsHolder;
+import us.ihmc.simulationconstructionset.Joint;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+/**
+ * Same spring-damper contact as {@link LinearStickSlipGroundContactModel}, but integrated linearly
+ * implicitly so that stiff contacts remain stable at larger time steps.
+ * <p>
+ * The force of each point is computed from its position and velocity at the end of the tick,
+ * predicted by linearizing the spring-damper and using the collision matrix of the point, i.e. the
+ * change of velocity of the point due to a unit impulse applied at it. The collision matrix is
+ * scaled by the number of points of the same link in contact, which bounds the response of the link
+ * to the forces of all its points, while interactions between the points of different links are
+ * ignored. A robot standing still gets the same contact forces as with
+ * {@link LinearStickSlipGroundContactModel}, since they balance the same load, but its points rest
+ * deeper in the ground, by a factor {@code 1 + dt * K * (b + dt * k)} that vanishes as the time step
+ * goes to zero. Points that are not attached to a joint, or whose robot has not computed its
+ * dynamics yet or is not simulated, fall back to the explicit force.
+ * </p>
+ * <p>
+ * The contact forces are held constant during the tick, as with the other ground contact models. The
+ * time step is the one the robot of each point is integrated with, see
+ * {@link Robot#getIntegrationDT()}, so that it follows the DT of
+ * the simulation and the substeps of the robot.
+ * </p>
+ */
+public class ImplicitLinearStickSlipGroundContactModel extends LinearStickSlipGroundContactModel
+{
+   private static final long serialVersionUID = 6103497720254139261L;
+
+   private static final double MINIMUM_STIFFENING_GAP = 0.002;
+
+   private boolean[] isInContact;
+   /** Index of the parent joint of each point, among the distinct parent joints of the points. */
+   private int[] linkIndices;
+   private int[] numberOfPointsInContactPerLink;
+
+   public ImplicitLinearStickSlipGroundContactModel(GroundContactPointsHolder groundContactPointsHolder, YoRegistry parentRegistry)
+   {
+      super(groundContactPointsHolder, parentRegistry);
+   }
+
+   public ImplicitLinearStickSlipGroundContactModel(GroundContactPointsHolder groundContactPointsHolder, double groundKxy, double groundBxy, double groundKz,
+                                                    double groundBz, YoRegistry parentRegistry)
+   {
+      super(groundContactPointsHolder, 0, groundKxy, groundBxy, groundKz, groundBz, parentRegistry);
+   }
+
+   public ImplicitLinearStickSlipGroundContactModel(GroundContactPointsHolder groundContactPointsHolder, int groundContactGroupIdentifier, double groundKxy,
+                                                    double groundBxy, double groundKz, double groundBz, double groundAlphaSlip, double groundAlphaStick,
+                                                    YoRegistry parentRegistry)
+   {
+      super(groundContactPointsHolder,
+            groundContactGroupIdentifier,
+            groundKxy,
+            groundBxy,
+            groundKz,
+            groundBz,
+            groundAlphaSlip,
+            groundAlphaStick,
+            parentRegistry);
+   }
+
+   @Override
+   public void doGroundContact()
+   {
+      checkAlphaStickSlip();
+
+      int numberOfPoints = groundContactPoints.size();
+
+      if (isInContact == null || isInContact.length != numberOfPoints)
+         computeLinkIndices();
+
+      Arrays.fill(numberOfPointsInContactPerLink, 0);
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         isInContact[i] = updateContactState(groundContactPoints.get(i));
+
+         if (isInContact[i])
+            numberOfPointsInContactPerLink[linkIndices[i]]++;
+      }
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         if (!isInContact[i])
+            continue;
+
+         GroundContactPoint groundContactPoint = groundContactPoints.get(i);
+         resolveContactForce(groundContactPoint, numberOfPointsInContactPerLink[linkIndices[i]]);
+         checkIfSlipping(groundContactPoint);
+      }
+
+      zeroOutTemporaryVariables();
+   }
+
+   private void computeLinkIndices()
+   {
+      int numberOfPoints = groundContactPoints.size();
+      isInContact = new boolean[numberOfPoints];
+      linkIndices = new int[numberOfPoints];
+
+      IdentityHashMap<Joint, Integer> jointIndices = new IdentityHashMap<>();
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         Joint parentJoint = groundContactPoints.get(i).getParentJoint();
+         Integer jointIndex = jointIndices.get(parentJoint);
+
+         if (jointIndex == null)
+         {
+            jointIndex = jointIndices.size();
+            jointIndices.put(parentJoint, jointIndex);
+         }
+
+         linkIndices[i] = jointIndex;
+      }
+
+      numberOfPointsInContactPerLink = new int[jointIndices.size()];
+   }
+
+   private final Point3D touchdownLocation = new Point3D();
+   private final Point3D position = new Point3D();
+   private final Vector3D deltaPositionFromTouchdown = new Vector3D();
+   private final Vector3D velocity = new Vector3D();
+   private final Vector3D surfaceNormal = new Vector3D();
+
+   private final Vector3D tempVector = new Vector3D();
+   private final Vector3D inPlaneVector1 = new Vector3D();
+   private final Vector3D inPlaneVector2 = new Vector3D();
+   private final RotationMatrix contactFrameToWorld = new RotationMatrix();
+
+   private final Vector3D forceInContactFrame = new Vector3D();
+   private final Vector3D forceWorld = new Vector3D();
+   private final Matrix3D collisionMatrix = new Matrix3D();
+   private final Matrix3D implicitMatrix = new Matrix3D();
+
+   private void resolveContactForce(GroundContactPoint groundContactPoint, int numberOfPointsOnSameLink)
+   {
+      groundContactPoint.getTouchdownLocation(touchdownLocation);
+      groundContactPoint.getPosition(position);
+      groundContactPoint.getVelocity(velocity);
+
+      if (groundEnableSurfaceNormal.getBooleanValue())
+         groundContactPoint.getSurfaceNormal(surfaceNormal);
+      else
+         surfaceNormal.set(0.0, 0.0, 1.0);
+
+      deltaPositionFromTouchdown.sub(touchdownLocation, position);
+
+      // Contact frame, with the surface normal as z axis.
+      tempVector.set(0.0, 1.0, 0.0);
+
+      if ((tempVector.dot(surfaceNormal) == 1.0) || (tempVector.dot(surfaceNormal) == -1.0)) // check if they are parallel, in which case UNIT_X will do.
+      {
+         tempVector.set(1.0, 0.0, 0.0);
+      }
+
+      inPlaneVector1.cross(tempVector, surfaceNormal);
+      inPlaneVector1.normalize();
+
+      inPlaneVector2.cross(surfaceNormal, inPlaneVector1);
+      inPlaneVector2.normalize();
+
+      contactFrameToWorld.setColumns(inPlaneVector1, inPlaneVector2, surfaceNormal);
+
+      contactFrameToWorld.inverseTransform(deltaPositionFromTouchdown);
+      contactFrameToWorld.inverseTransform(velocity);
+
+      // Spring part, and its stiffness linearized at the current penetration.
+      double kxy = groundKxy.getDoubleValue();
+      double kz = groundKz.getDoubleValue();
+      double penetration = deltaPositionFromTouchdown.getZ();
+      double stiffeningLength = groundStiffeningLength.getDoubleValue();
+      double normalSpringForce, normalStiffness;
+
+      if (stiffeningLength - penetration > MINIMUM_STIFFENING_GAP)
+      {
+         double gap = stiffeningLength - penetration;
+         normalSpringForce = kz * penetration / gap;
+         normalStiffness = kz * stiffeningLength / (gap * gap);
+      }
+      else
+      {
+         normalSpringForce = kz * penetration / MINIMUM_STIFFENING_GAP;
+         normalStiffness = kz / MINIMUM_STIFFENING_GAP;
+      }
+
+      double dt = computeCollisionMatrix(groundContactPoint) ? getIntegrationDT(groundContactPoint) : 0.0;
+
+      // The spring is evaluated at the position predicted at the end of the tick, so it acts as an
+      // extra damping of dt times its stiffness.
+      double xyDamping = groundBxy.getDoubleValue() + dt * kxy;
+      double zDamping = groundBz.getDoubleValue() + dt * normalStiffness;
+
+      forceInContactFrame.set(kxy * deltaPositionFromTouchdown.getX() - xyDamping * velocity.getX(),
+                              kxy * deltaPositionFromTouchdown.getY() - xyDamping * velocity.getY(),
+                              normalSpringForce - zDamping * velocity.getZ());
+
+      // The velocity at the end of the tick is v + dt * K * f, which gives (I + dt * D * K) f = spring - D v.
+      if (dt > 0.0)
+      {
+         collisionMatrix.scale(numberOfPointsOnSameLink);
+         double a0 = dt * xyDamping, a1 = dt * xyDamping, a2 = dt * zDamping;
+         implicitMatrix.set(1.0 + a0 * collisionMatrix.getM00(),
+                            a0 * collisionMatrix.getM01(),
+                            a0 * collisionMatrix.getM02(),
+                            a1 * collisionMatrix.getM10(),
+                            1.0 + a1 * collisionMatrix.getM11(),
+                            a1 * collisionMatrix.getM12(),
+                            a2 * collisionMatrix.getM20(),
+                            a2 * collisionMatrix.getM21(),
+                            1.0 + a2 * collisionMatrix.getM22());
+         implicitMatrix.invert();
+         implicitMatrix.transform(forceInContactFrame);
+      }
+
+      if (forceInContactFrame.getZ() < 0.0)
+      {
+         // Same as LinearStickSlipGroundContactModel, the ground is pulling the point in. If the point is
+         // higher than the touchdown point, set not in contact so that the touchdown point can be reset.
+         if (penetration < 0.0)
+         {
+            forceInContactFrame.setToZero();
+            groundContactPoint.setNotInContact();
+         }
+         else
+         {
+            forceInContactFrame.setZ(0.0);
+         }
+      }
+
+      contactFrameToWorld.transform(forceInContactFrame, forceWorld);
+      groundContactPoint.setForce(forceWorld);
+   }
+
+   /**
+    * Computes the collision matrix of the point in the contact frame.
+    *
+    * @return {@code false} if it is not available, in which case the explicit force is used.
+    */
+   private boolean computeCollisionMatrix(GroundContactPoint groundContactPoint)
+   {
+      if (groundContactPoint.getParentJoint() == null)
+         return false;
+
+      groundContactPoint.computeCollisionMatrix(contactFrameToWorld, collisionMatrix);
+
+      // The articulated inertias are not computed until the robot has done its dynamics once.
+      return !collisionMatrix.containsNaN() && collisionMatrix.getM22() > 0.0 && Double.isFinite(collisionMatrix.getM22());
+   }
+
+   /**
+    * @return the time step of the robot of the point, or 0 if the robot is not simulated.
+    */
+   private static double getIntegrationDT(GroundContactPoint groundContactPoint)
+   {
+      Robot robot = groundContactPoint.getParentJoint().getRobot();
+      if (robot == null || Double.isNaN(robot.getIntegrationDT()))
+         return 0.0;
+
+      return robot.getIntegrationDT();
+   }
+
+   @Override
+   protected void zeroOutTemporaryVariables()
+   {
+      super.zeroOutTemporaryVariables();
+
+      surfaceNormal.set(0.0, 0.0, 0.0);
+      tempVector.set(0.0, 0.0, 0.0);
+      forceWorld.set(0.0, 0.0, 0.0);
+      forceInContactFrame.set(0.0, 0.0, 0.0);
+   }
+}
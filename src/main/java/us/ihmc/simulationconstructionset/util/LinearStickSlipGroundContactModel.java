@@ -22,11 +22,11 @@ public class LinearStickSlipGroundContactModel implements GroundContactModel
    private static final double DEFAULT_ALPHA_SLIP = 0.7;
    private static final double DEFAULT_ALPHA_STICK = 0.7;
 
-   private final YoDouble groundKxy = new YoDouble("groundKxy", "LinearStickSlipGroundContactModel x and y spring constant", registry);
-   private final YoDouble groundBxy = new YoDouble("groundBxy", "LinearStickSlipGroundContactModel x and y damping constant", registry);
-   private final YoDouble groundKz = new YoDouble("groundKz", "LinearStickSlipGroundContactModel z spring constant", registry);
-   private final YoDouble groundBz = new YoDouble("groundBz", "LinearStickSlipGroundContactModel z damping constant", registry);
-   private final YoDouble groundStiffeningLength = new YoDouble("groundStiffeningLength",
+   protected final YoDouble groundKxy = new YoDouble("groundKxy", "LinearStickSlipGroundContactModel x and y spring constant", registry);
+   protected final YoDouble groundBxy = new YoDouble("groundBxy", "LinearStickSlipGroundContactModel x and y damping constant", registry);
+   protected final YoDouble groundKz = new YoDouble("groundKz", "LinearStickSlipGroundContactModel z spring constant", registry);
+   protected final YoDouble groundBz = new YoDouble("groundBz", "LinearStickSlipGroundContactModel z damping constant", registry);
+   protected final YoDouble groundStiffeningLength = new YoDouble("groundStiffeningLength",
                                                                 "LinearStickSlipGroundContactModel z spring nominal stiffening length",
                                                                 registry);
    private final YoDouble groundAlphaSlip = new YoDouble("groundAlphaSlip", "LinearStickSlipGroundContactModel slip coefficient of friction", registry);
@@ -34,11 +34,11 @@ public class LinearStickSlipGroundContactModel implements GroundContactModel
 
    private final YoBoolean groundEnableSlip = new YoBoolean("groundEnableSlip", "LinearStickSlipGroundContactModel. If true can slip", registry);
 
-   private final YoBoolean groundEnableSurfaceNormal = new YoBoolean("groundEnableSurfaceNormal",
+   protected final YoBoolean groundEnableSurfaceNormal = new YoBoolean("groundEnableSurfaceNormal",
                                                                      "LinearStickSlipGroundContactModel. If true will take into account surface normals in computations.",
                                                                      registry);
 
-   private List<GroundContactPoint> groundContactPoints;
+   protected final List<GroundContactPoint> groundContactPoints;
    private GroundProfile3D groundProfile3D;
 
    public LinearStickSlipGroundContactModel(GroundContactPointsHolder groundContactPointsHolder, YoRegistry parentRegistry)
@@ -151,8 +151,7 @@ public class LinearStickSlipGroundContactModel implements GroundContactModel
    @Override
    public void doGroundContact()
    {
-      if (groundAlphaStick.getDoubleValue() < groundAlphaSlip.getDoubleValue())
-         throw new RuntimeException("alpha stick < alpha slip!");
+      checkAlphaStickSlip();
 
       for (int i = 0; i < groundContactPoints.size(); i++)
       {
@@ -163,6 +162,12 @@ public class LinearStickSlipGroundContactModel implements GroundContactModel
       zeroOutTemporaryVariables();
    }
 
+   protected void checkAlphaStickSlip()
+   {
+      if (groundAlphaStick.getDoubleValue() < groundAlphaSlip.getDoubleValue())
+         throw new RuntimeException("alpha stick < alpha slip!");
+   }
+
    private final Point3D intersectionPositionInWorld = new Point3D();
    private final Vector3D surfaceNormalTemp = new Vector3D();
 
@@ -204,13 +209,29 @@ public class LinearStickSlipGroundContactModel implements GroundContactModel
    }
 
    private void doGroundContact(GroundContactPoint groundContactPoint)
+   {
+      if (!updateContactState(groundContactPoint))
+         return;
+
+      // If the foot hit, then apply a reaction force:
+      resolveContactForce(groundContactPoint);
+      checkIfSlipping(groundContactPoint);
+   }
+
+   /**
+    * Sets the touchdown of the points that hit the ground, and zeroes the force of the points that
+    * are disabled or not in contact.
+    *
+    * @return whether the point is in contact.
+    */
+   protected boolean updateContactState(GroundContactPoint groundContactPoint)
    {
       // If the point is disabled, then no forces:
       if (groundContactPoint.isDisabled())
       {
          groundContactPoint.setForce(0.0, 0.0, 0.0);
 
-         return;
+         return false;
       }
 
       boolean inContact = checkIfInContactUsingProfile3D(groundContactPoint);
@@ -221,12 +242,10 @@ public class LinearStickSlipGroundContactModel implements GroundContactModel
          groundContactPoint.setIsSlipping(false);
          groundContactPoint.setForce(0.0, 0.0, 0.0);
 
-         return;
+         return false;
       }
 
-      // If the foot hit, then apply a reaction force:
-      resolveContactForce(groundContactPoint);
-      checkIfSlipping(groundContactPoint);
+      return true;
    }
 
    private final Point3D touchdownLocation = new Point3D();
@@ -369,7 +388,10 @@ public class LinearStickSlipGroundContactModel implements GroundContactModel
    private final Vector3D tempVector = new Vector3D();
    private final Vector3D forceWorld = new Vector3D(), forceNormal = new Vector3D(), forceParallel = new Vector3D();
 
-   private void checkIfSlipping(GroundContactPoint groundContactPoint)
+   /**
+    * Limits the force of the point to the friction cone and moves its touchdown when it slips.
+    */
+   protected void checkIfSlipping(GroundContactPoint groundContactPoint)
    {
       if (!groundEnableSlip.getBooleanValue())
       {
@@ -454,7 +476,7 @@ public class LinearStickSlipGroundContactModel implements GroundContactModel
       }
    }
 
-   private void zeroOutTemporaryVariables()
+   protected void zeroOutTemporaryVariables()
    {
       // Zero these temporary variables out so that rewindability tests which use reflection don't pick them up as changed state variables.
       intersectionPositionInWorld.set(0.0, 0.0, 0.0);
@@ -0,0 +1,409 @@
+package us.ihmc.simulationconstructionset.util.ground;
+
+import java.util.Arrays;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DBasics;
+import us.ihmc.jMonkeyEngineToolkit.HeightMapWithNormals;
+
+/**
+ * Wraps a height map that is expensive to evaluate, for instance an analytic profile such as
+ * {@link BumpyGroundProfile} or {@link RandomRockyGroundProfile}, and answers the queries from a
+ * lookup table instead.
+ * <p>
+ * The plane is split in square tiles of {@code samplesPerTileSide} cells. A tile is rasterized the
+ * first time a query falls in it by sampling the height and normal of the source at each corner of
+ * its cells, and the queries are answered by bilinear interpolation. At most
+ * {@code maximumNumberOfTiles} are kept, the least recently used one being replaced when a new one
+ * is needed, so the memory used is bounded whatever the distance travelled.
+ * </p>
+ * <p>
+ * The interpolation smooths sharp features smaller than the resolution such as steps. In validation
+ * mode, see {@link #enableValidation(double, double)}, every query is also evaluated on the source
+ * and compared to the interpolated values, and the source values are returned when the error is out
+ * of bounds.
+ * </p>
+ * <p>
+ * The height of the source should not depend on the z coordinate of the query, the source being
+ * sampled at the top of its bounding box. This class is not thread safe.
+ * </p>
+ */
+public class CachedHeightMapWithNormals extends GroundProfileFromHeightMap
+{
+   private static final int EMPTY = -1;
+
+   private final HeightMapWithNormals source;
+   private final double resolution;
+   private final double inverseResolution;
+   private final int samplesPerTileSide;
+   private final int samplesPerTileRow;
+   private final double samplingHeight;
+
+   private final Tile[] tiles;
+   private int numberOfTiles = 0;
+   private long accessCounter = 0;
+   private Tile lastTile = null;
+   private long numberOfRasterizedTiles = 0;
+
+   /** Open addressing table from the tile key to its index in {@link #tiles}. */
+   private final long[] slotKeys;
+   private final int[] slotTiles;
+   private final int slotMask;
+   private final int slotShift;
+
+   private boolean validate = false;
+   private double heightTolerance;
+   private double normalAngleTolerance;
+   private double maximumHeightError;
+   private double maximumNormalAngleError;
+   private long numberOfValidatedQueries;
+   private long numberOfViolations;
+   private final Vector3D sourceNormal = new Vector3D();
+   private final Vector3D interpolatedNormal = new Vector3D();
+
+   /**
+    * @param source               the height map to sample.
+    * @param resolution           size of the cells of the lookup table.
+    * @param samplesPerTileSide   number of cells along the side of a tile.
+    * @param maximumNumberOfTiles maximum number of tiles in memory.
+    */
+   public CachedHeightMapWithNormals(HeightMapWithNormals source, double resolution, int samplesPerTileSide, int maximumNumberOfTiles)
+   {
+      if (resolution <= 0.0)
+         throw new IllegalArgumentException("The resolution must be positive, was: " + resolution);
+      if (samplesPerTileSide < 1)
+         throw new IllegalArgumentException("A tile needs at least one cell per side, was: " + samplesPerTileSide);
+      if (maximumNumberOfTiles < 1)
+         throw new IllegalArgumentException("Need at least one tile, was: " + maximumNumberOfTiles);
+
+      this.source = source;
+      this.resolution = resolution;
+      inverseResolution = 1.0 / resolution;
+      this.samplesPerTileSide = samplesPerTileSide;
+      samplesPerTileRow = samplesPerTileSide + 1;
+      samplingHeight = source.getBoundingBox().getMaxZ();
+
+      tiles = new Tile[maximumNumberOfTiles];
+
+      int numberOfSlots = Integer.highestOneBit(Math.max(2, 2 * maximumNumberOfTiles - 1)) << 1;
+      slotKeys = new long[numberOfSlots];
+      slotTiles = new int[numberOfSlots];
+      Arrays.fill(slotTiles, EMPTY);
+      slotMask = numberOfSlots - 1;
+      slotShift = 64 - Integer.numberOfTrailingZeros(numberOfSlots);
+   }
+
+   /**
+    * Creates a cache with tiles of 64 by 64 cells, keeping up to 64 tiles.
+    */
+   public CachedHeightMapWithNormals(HeightMapWithNormals source, double resolution)
+   {
+      this(source, resolution, 64, 64);
+   }
+
+   @Override
+   public double heightAndNormalAt(double x, double y, double z, Vector3DBasics normalToPack)
+   {
+      double gridX = x * inverseResolution;
+      double gridY = y * inverseResolution;
+      long cellX = (long) Math.floor(gridX);
+      long cellY = (long) Math.floor(gridY);
+      long tileX = Math.floorDiv(cellX, samplesPerTileSide);
+      long tileY = Math.floorDiv(cellY, samplesPerTileSide);
+
+      Tile tile = getTile(tileX, tileY);
+
+      int localX = (int) (cellX - tileX * samplesPerTileSide);
+      int localY = (int) (cellY - tileY * samplesPerTileSide);
+      double u = gridX - cellX;
+      double v = gridY - cellY;
+
+      int index00 = localY * samplesPerTileRow + localX;
+      int index10 = index00 + 1;
+      int index01 = index00 + samplesPerTileRow;
+      int index11 = index01 + 1;
+
+      double weight00 = (1.0 - u) * (1.0 - v);
+      double weight10 = u * (1.0 - v);
+      double weight01 = (1.0 - u) * v;
+      double weight11 = u * v;
+
+      double height = weight00 * tile.heights[index00] + weight10 * tile.heights[index10] + weight01 * tile.heights[index01]
+            + weight11 * tile.heights[index11];
+
+      if (normalToPack != null || validate)
+      {
+         double normalX = weight00 * tile.normalXs[index00] + weight10 * tile.normalXs[index10] + weight01 * tile.normalXs[index01]
+               + weight11 * tile.normalXs[index11];
+         double normalY = weight00 * tile.normalYs[index00] + weight10 * tile.normalYs[index10] + weight01 * tile.normalYs[index01]
+               + weight11 * tile.normalYs[index11];
+         double normalZ = weight00 * tile.normalZs[index00] + weight10 * tile.normalZs[index10] + weight01 * tile.normalZs[index01]
+               + weight11 * tile.normalZs[index11];
+         interpolatedNormal.set(normalX, normalY, normalZ);
+         interpolatedNormal.normalize();
+      }
+
+      if (validate)
+      {
+         double sourceHeight = source.heightAndNormalAt(x, y, z, sourceNormal);
+         double heightError = Math.abs(sourceHeight - height);
+         double normalAngleError = sourceNormal.angle(interpolatedNormal);
+         numberOfValidatedQueries++;
+         maximumHeightError = Math.max(maximumHeightError, heightError);
+         maximumNormalAngleError = Math.max(maximumNormalAngleError, normalAngleError);
+
+         if (heightError > heightTolerance || normalAngleError > normalAngleTolerance)
+         {
+            numberOfViolations++;
+            height = sourceHeight;
+            interpolatedNormal.set(sourceNormal);
+         }
+      }
+
+      if (normalToPack != null)
+         normalToPack.set(interpolatedNormal);
+
+      return height;
+   }
+
+   @Override
+   public double heightAt(double x, double y, double z)
+   {
+      return heightAndNormalAt(x, y, z, null);
+   }
+
+   @Override
+   public BoundingBox3D getBoundingBox()
+   {
+      return source.getBoundingBox();
+   }
+
+   private Tile getTile(long tileX, long tileY)
+   {
+      Tile tile = lastTile;
+
+      if (tile == null || tile.tileX != tileX || tile.tileY != tileY)
+      {
+         long key = computeKey(tileX, tileY);
+         int slot = findSlot(key);
+
+         if (slotTiles[slot] != EMPTY)
+         {
+            tile = tiles[slotTiles[slot]];
+         }
+         else
+         {
+            tile = rasterizeTile(tileX, tileY, key);
+         }
+
+         lastTile = tile;
+      }
+
+      tile.lastAccess = ++accessCounter;
+      return tile;
+   }
+
+   private Tile rasterizeTile(long tileX, long tileY, long key)
+   {
+      int tileIndex;
+
+      if (numberOfTiles < tiles.length)
+      {
+         tileIndex = numberOfTiles++;
+         tiles[tileIndex] = new Tile(samplesPerTileRow * samplesPerTileRow);
+      }
+      else
+      {
+         tileIndex = 0;
+
+         for (int i = 1; i < tiles.length; i++)
+         {
+            if (tiles[i].lastAccess < tiles[tileIndex].lastAccess)
+               tileIndex = i;
+         }
+
+         removeSlot(findSlot(tiles[tileIndex].key));
+      }
+
+      Tile tile = tiles[tileIndex];
+      tile.tileX = tileX;
+      tile.tileY = tileY;
+      tile.key = key;
+
+      double xStart = tileX * samplesPerTileSide * resolution;
+      double yStart = tileY * samplesPerTileSide * resolution;
+
+      for (int j = 0; j < samplesPerTileRow; j++)
+      {
+         for (int i = 0; i < samplesPerTileRow; i++)
+         {
+            int index = j * samplesPerTileRow + i;
+            tile.heights[index] = source.heightAndNormalAt(xStart + i * resolution, yStart + j * resolution, samplingHeight, sourceNormal);
+            tile.normalXs[index] = sourceNormal.getX();
+            tile.normalYs[index] = sourceNormal.getY();
+            tile.normalZs[index] = sourceNormal.getZ();
+         }
+      }
+
+      int slot = findSlot(key);
+      slotKeys[slot] = key;
+      slotTiles[slot] = tileIndex;
+      numberOfRasterizedTiles++;
+
+      return tile;
+   }
+
+   private static long computeKey(long tileX, long tileY)
+   {
+      return (tileX << 32) ^ (tileY & 0xFFFFFFFFL);
+   }
+
+   private int homeSlot(long key)
+   {
+      return (int) ((key * 0x9E3779B97F4A7C15L) >>> slotShift);
+   }
+
+   /**
+    * Returns the slot holding the key, or the empty slot where it would be inserted.
+    */
+   private int findSlot(long key)
+   {
+      int slot = homeSlot(key);
+
+      while (slotTiles[slot] != EMPTY && slotKeys[slot] != key)
+         slot = (slot + 1) & slotMask;
+
+      return slot;
+   }
+
+   /**
+    * Empties the slot and moves back the following entries of the probe sequence so that no
+    * tombstone is needed.
+    */
+   private void removeSlot(int slot)
+   {
+      int hole = slot;
+      int next = slot;
+
+      while (true)
+      {
+         next = (next + 1) & slotMask;
+
+         if (slotTiles[next] == EMPTY)
+            break;
+
+         int home = homeSlot(slotKeys[next]);
+         boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+
+         if (!stays)
+         {
+            slotKeys[hole] = slotKeys[next];
+            slotTiles[hole] = slotTiles[next];
+            hole = next;
+         }
+      }
+
+      slotTiles[hole] = EMPTY;
+   }
+
+   /**
+    * Drops all the tiles, for instance after the source has changed.
+    */
+   public void clear()
+   {
+      for (int i = 0; i < numberOfTiles; i++)
+         removeSlot(findSlot(tiles[i].key));
+
+      numberOfTiles = 0;
+      lastTile = null;
+   }
+
+   /**
+    * Evaluates every query on the source as well, keeping track of the largest errors, and returns
+    * the source values when the error is larger than the given tolerances.
+    *
+    * @param heightTolerance      tolerance on the height.
+    * @param normalAngleTolerance tolerance on the angle between the normals in radians.
+    */
+   public void enableValidation(double heightTolerance, double normalAngleTolerance)
+   {
+      validate = true;
+      this.heightTolerance = heightTolerance;
+      this.normalAngleTolerance = normalAngleTolerance;
+      resetValidationStatistics();
+   }
+
+   public void disableValidation()
+   {
+      validate = false;
+   }
+
+   public void resetValidationStatistics()
+   {
+      maximumHeightError = 0.0;
+      maximumNormalAngleError = 0.0;
+      numberOfValidatedQueries = 0;
+      numberOfViolations = 0;
+   }
+
+   public double getMaximumHeightError()
+   {
+      return maximumHeightError;
+   }
+
+   public double getMaximumNormalAngleError()
+   {
+      return maximumNormalAngleError;
+   }
+
+   public long getNumberOfValidatedQueries()
+   {
+      return numberOfValidatedQueries;
+   }
+
+   /** Number of validated queries that were out of the tolerances. */
+   public long getNumberOfViolations()
+   {
+      return numberOfViolations;
+   }
+
+   /** Number of tiles rasterized so far, including the ones rasterized again after eviction. */
+   public long getNumberOfRasterizedTiles()
+   {
+      return numberOfRasterizedTiles;
+   }
+
+   public int getNumberOfTiles()
+   {
+      return numberOfTiles;
+   }
+
+   public double getResolution()
+   {
+      return resolution;
+   }
+
+   public HeightMapWithNormals getSource()
+   {
+      return source;
+   }
+
+   private static class Tile
+   {
+      private long tileX, tileY, key;
+      private long lastAccess;
+      private final double[] heights;
+      private final double[] normalXs;
+      private final double[] normalYs;
+      private final double[] normalZs;
+
+      public Tile(int numberOfSamples)
+      {
+         heights = new double[numberOfSamples];
+         normalXs = new double[numberOfSamples];
+         normalYs = new double[numberOfSamples];
+         normalZs = new double[numberOfSamples];
+      }
+   }
+}
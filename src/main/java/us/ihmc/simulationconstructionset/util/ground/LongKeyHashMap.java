@@ -0,0 +1,176 @@
+package us.ihmc.simulationconstructionset.util.ground;
+
+/**
+ * Hash map with primitive {@code long} keys, so that looking up a tile by its key does not box it.
+ * <p>
+ * The entries are kept in open addressing with linear probing, and a removal moves back the
+ * following entries of the probe sequence instead of leaving a tombstone. The table doubles when
+ * it gets half full. The {@code null} value is not allowed. This class is not thread safe.
+ * </p>
+ */
+class LongKeyHashMap<V>
+{
+   private static final int MINIMUM_NUMBER_OF_SLOTS = 16;
+
+   private long[] slotKeys;
+   private Object[] slotValues;
+   private int slotMask;
+   private int slotShift;
+   private int size = 0;
+
+   LongKeyHashMap()
+   {
+      allocate(MINIMUM_NUMBER_OF_SLOTS);
+   }
+
+   private void allocate(int numberOfSlots)
+   {
+      slotKeys = new long[numberOfSlots];
+      slotValues = new Object[numberOfSlots];
+      slotMask = numberOfSlots - 1;
+      slotShift = 64 - Integer.numberOfTrailingZeros(numberOfSlots);
+   }
+
+   int size()
+   {
+      return size;
+   }
+
+   boolean isEmpty()
+   {
+      return size == 0;
+   }
+
+   boolean containsKey(long key)
+   {
+      return slotValues[findSlot(key)] != null;
+   }
+
+   @SuppressWarnings("unchecked")
+   V get(long key)
+   {
+      return (V) slotValues[findSlot(key)];
+   }
+
+   /**
+    * @return the previous value of the key, or {@code null} if it was not in the map.
+    */
+   @SuppressWarnings("unchecked")
+   V put(long key, V value)
+   {
+      if (value == null)
+         throw new IllegalArgumentException("The value cannot be null.");
+
+      int slot = findSlot(key);
+      V previousValue = (V) slotValues[slot];
+      slotKeys[slot] = key;
+      slotValues[slot] = value;
+
+      if (previousValue == null && ++size > slotValues.length / 2)
+         grow();
+
+      return previousValue;
+   }
+
+   /**
+    * @return the value the key had, or {@code null} if it was not in the map.
+    */
+   @SuppressWarnings("unchecked")
+   V remove(long key)
+   {
+      int slot = findSlot(key);
+      V previousValue = (V) slotValues[slot];
+
+      if (previousValue != null)
+      {
+         removeSlot(slot);
+         size--;
+      }
+
+      return previousValue;
+   }
+
+   /**
+    * Copies the values into the array, which has to hold at least {@link #size()} elements.
+    *
+    * @return the array.
+    */
+   @SuppressWarnings("unchecked")
+   V[] copyValues(V[] valuesToPack)
+   {
+      int index = 0;
+
+      for (int slot = 0; slot < slotValues.length; slot++)
+      {
+         if (slotValues[slot] != null)
+            valuesToPack[index++] = (V) slotValues[slot];
+      }
+
+      return valuesToPack;
+   }
+
+   private void grow()
+   {
+      long[] oldKeys = slotKeys;
+      Object[] oldValues = slotValues;
+      allocate(2 * oldValues.length);
+
+      for (int slot = 0; slot < oldValues.length; slot++)
+      {
+         if (oldValues[slot] != null)
+         {
+            int newSlot = findSlot(oldKeys[slot]);
+            slotKeys[newSlot] = oldKeys[slot];
+            slotValues[newSlot] = oldValues[slot];
+         }
+      }
+   }
+
+   private int homeSlot(long key)
+   {
+      return (int) ((key * 0x9E3779B97F4A7C15L) >>> slotShift);
+   }
+
+   /**
+    * Returns the slot holding the key, or the empty slot where it would be inserted.
+    */
+   private int findSlot(long key)
+   {
+      int slot = homeSlot(key);
+
+      while (slotValues[slot] != null && slotKeys[slot] != key)
+         slot = (slot + 1) & slotMask;
+
+      return slot;
+   }
+
+   /**
+    * Empties the slot and moves back the following entries of the probe sequence so that no
+    * tombstone is needed.
+    */
+   private void removeSlot(int slot)
+   {
+      int hole = slot;
+      int next = slot;
+
+      while (true)
+      {
+         next = (next + 1) & slotMask;
+
+         if (slotValues[next] == null)
+            break;
+
+         int home = homeSlot(slotKeys[next]);
+         boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+
+         if (!stays)
+         {
+            slotKeys[hole] = slotKeys[next];
+            slotValues[hole] = slotValues[next];
+            hole = next;
+         }
+      }
+
+      slotValues[hole] = null;
+   }
+}
@@ -0,0 +1,504 @@
+package us.ihmc.simulationconstructionset.util.ground;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DBasics;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DBasics;
+import us.ihmc.jMonkeyEngineToolkit.GroundProfile3D;
+import us.ihmc.jMonkeyEngineToolkit.HeightMapWithNormals;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.scripts.Script;
+
+/**
+ * Ground profile made of square tiles that are created around the robots as they move, so that
+ * arbitrarily large worlds can be simulated with a bounded number of tiles in memory.
+ * <p>
+ * The tiles are {@link TerrainObject3D}s created by a {@link TerrainTileProvider}, for instance
+ * generated procedurally or loaded from files. Each call to {@link #update()} loads the tile under
+ * each tracked robot and position and its neighbors right away, requests the other tiles within
+ * the load radius on a background thread, adds the tiles that finished loading, and removes the
+ * tiles beyond the eviction radius of all of them. The tiles near the robots are therefore always
+ * there when the contacts are evaluated, whatever the speed of the loading thread, and a run only
+ * depends on the tiles the provider creates, which should be the same for the same tile index. A
+ * load radius of at least 2 prefetches the tiles before they have to be loaded synchronously. The
+ * {@link TerrainTileListener}s are notified of the tiles added and
+ * removed, see {@link TerrainTileGraphicsUpdater} to keep the graphics in sync. The profile is
+ * also a {@link Script} so that it can be updated every tick with
+ * {@code SimulationConstructionSet.addScript(Script)}, and since the contact models query it
+ * directly they do not need to be set again when the tiles change.
+ * </p>
+ * <p>
+ * A query is answered by the tile under it only, so the terrain objects of a tile should not extend
+ * beyond its footprint. Where no tile is loaded yet, the optional fallback profile is used. The
+ * updates and the queries are expected to come from the simulation thread.
+ * </p>
+ */
+public class StreamingTerrainProfile implements GroundProfile3D, Script
+{
+   public interface TerrainTileProvider
+   {
+      /**
+       * Creates the terrain of the tile covering [xMin, xMin + tileSize] x [yMin, yMin + tileSize].
+       * Called from the background thread or from the thread calling {@link #update()}, but never
+       * from both at the same time.
+       */
+      TerrainObject3D createTile(int tileX, int tileY, double xMin, double yMin, double tileSize);
+   }
+
+   public interface TerrainTileListener
+   {
+      void tileAdded(TerrainObject3D tile);
+
+      void tileRemoved(TerrainObject3D tile);
+   }
+
+   private final TerrainTileProvider tileProvider;
+   private final double tileSize;
+   private final int loadRadius;
+   private final int evictionRadius;
+   private final GroundProfile3D fallbackProfile;
+
+   private final ExecutorService loadingExecutor;
+   private final ConcurrentLinkedQueue<LoadedTile> loadedTiles = new ConcurrentLinkedQueue<>();
+   // Keyed by primitive longs as they are checked for every tile around the tracked positions each tick.
+   private final LongKeyHashMap<Boolean> pendingTiles = new LongKeyHashMap<>();
+   // The pending tiles that were loaded synchronously in the meantime, the background thread skips them.
+   private final Set<Long> cancelledTiles = ConcurrentHashMap.newKeySet();
+   private final Object tileProviderLock = new Object();
+   private final LongKeyHashMap<LoadedTile> tileMap = new LongKeyHashMap<>();
+
+   /** Tiles in use by the queries, read without allocation. */
+   private LoadedTile[] activeTiles = new LoadedTile[0];
+   private LoadedTile[] tilesToCheckForEviction = new LoadedTile[0];
+   private LoadedTile lastTile = null;
+
+   private final List<Point3DReadOnly> trackedPositions = new ArrayList<>();
+   private final List<Robot> trackedRobots = new ArrayList<>();
+   private final List<TerrainTileListener> listeners = new ArrayList<>();
+   private final Point3D robotCenterOfMass = new Point3D();
+
+   // The tiles of the tracked positions and robots, computed once per update.
+   private int numberOfTrackedTiles = 0;
+   private int[] trackedTileXs = new int[0];
+   private int[] trackedTileYs = new int[0];
+
+   private final BoundingBox3D boundingBox = new BoundingBox3D(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+   private final StreamingHeightMap heightMap = new StreamingHeightMap();
+
+   /**
+    * @param tileProvider    creates the terrain of each tile.
+    * @param tileSize        side of the tiles.
+    * @param loadRadius      the tiles up to this number of tiles away from a tracked position are
+    *                        loaded.
+    * @param evictionRadius  the tiles further than this number of tiles from all the tracked
+    *                        positions are removed, should be larger than the load radius to avoid
+    *                        reloading tiles when going back and forth along a border.
+    * @param fallbackProfile used where no tile is loaded, may be {@code null}.
+    */
+   public StreamingTerrainProfile(TerrainTileProvider tileProvider, double tileSize, int loadRadius, int evictionRadius, GroundProfile3D fallbackProfile)
+   {
+      if (tileSize <= 0.0)
+         throw new IllegalArgumentException("The tile size must be positive, was: " + tileSize);
+      if (loadRadius < 0 || evictionRadius < loadRadius)
+         throw new IllegalArgumentException("Need 0 <= loadRadius <= evictionRadius, were: " + loadRadius + ", " + evictionRadius);
+
+      this.tileProvider = tileProvider;
+      this.tileSize = tileSize;
+      this.loadRadius = loadRadius;
+      this.evictionRadius = evictionRadius;
+      this.fallbackProfile = fallbackProfile;
+
+      loadingExecutor = Executors.newSingleThreadExecutor(runnable ->
+      {
+         Thread thread = new Thread(runnable, "TerrainStreaming");
+         thread.setDaemon(true);
+         return thread;
+      });
+
+      updateBoundingBox();
+   }
+
+   public void addTrackedPosition(Point3DReadOnly position)
+   {
+      trackedPositions.add(position);
+   }
+
+   /**
+    * Loads the terrain around the center of mass of the robot.
+    */
+   public void addTrackedRobot(Robot robot)
+   {
+      trackedRobots.add(robot);
+   }
+
+   public void addTerrainTileListener(TerrainTileListener listener)
+   {
+      listeners.add(listener);
+   }
+
+   /**
+    * Adds the tiles that finished loading, removes the distant ones, loads the tiles around the
+    * tracked positions and requests the other missing ones.
+    */
+   public void update()
+   {
+      updateTrackedTiles();
+
+      boolean changed = false;
+
+      LoadedTile loadedTile;
+      while ((loadedTile = loadedTiles.poll()) != null)
+      {
+         pendingTiles.remove(loadedTile.key);
+         cancelledTiles.remove(loadedTile.key);
+
+         if (loadedTile.terrain == null || tileMap.containsKey(loadedTile.key) || !isWithinRadius(loadedTile.tileX, loadedTile.tileY, evictionRadius))
+            continue;
+
+         addTile(loadedTile);
+         changed = true;
+      }
+
+      int numberOfTiles = tileMap.size();
+
+      if (tilesToCheckForEviction.length < numberOfTiles)
+         tilesToCheckForEviction = new LoadedTile[2 * numberOfTiles];
+
+      tileMap.copyValues(tilesToCheckForEviction);
+
+      for (int tileIndex = 0; tileIndex < numberOfTiles; tileIndex++)
+      {
+         LoadedTile tile = tilesToCheckForEviction[tileIndex];
+         tilesToCheckForEviction[tileIndex] = null;
+
+         if (!isWithinRadius(tile.tileX, tile.tileY, evictionRadius))
+         {
+            tileMap.remove(tile.key);
+            changed = true;
+
+            for (int i = 0; i < listeners.size(); i++)
+               listeners.get(i).tileRemoved(tile.terrain);
+         }
+      }
+
+      int synchronousRadius = Math.min(loadRadius, 1);
+
+      for (int i = 0; i < numberOfTrackedTiles; i++)
+      {
+         for (int tileX = trackedTileXs[i] - synchronousRadius; tileX <= trackedTileXs[i] + synchronousRadius; tileX++)
+         {
+            for (int tileY = trackedTileYs[i] - synchronousRadius; tileY <= trackedTileYs[i] + synchronousRadius; tileY++)
+               changed |= loadTileNow(tileX, tileY);
+         }
+      }
+
+      for (int i = 0; i < numberOfTrackedTiles; i++)
+         requestTilesAround(trackedTileXs[i], trackedTileYs[i]);
+
+      if (changed)
+      {
+         activeTiles = tileMap.copyValues(new LoadedTile[tileMap.size()]);
+         lastTile = null;
+         updateBoundingBox();
+      }
+   }
+
+   @Override
+   public void doScript(double t)
+   {
+      update();
+   }
+
+   private void updateTrackedTiles()
+   {
+      int numberOfTracked = trackedPositions.size() + trackedRobots.size();
+
+      if (trackedTileXs.length < numberOfTracked)
+      {
+         trackedTileXs = new int[numberOfTracked];
+         trackedTileYs = new int[numberOfTracked];
+      }
+
+      numberOfTrackedTiles = 0;
+
+      for (int i = 0; i < trackedPositions.size(); i++)
+         addTrackedTile(trackedPositions.get(i));
+
+      for (int i = 0; i < trackedRobots.size(); i++)
+      {
+         trackedRobots.get(i).computeCenterOfMass(robotCenterOfMass);
+         addTrackedTile(robotCenterOfMass);
+      }
+   }
+
+   private void addTrackedTile(Point3DReadOnly position)
+   {
+      trackedTileXs[numberOfTrackedTiles] = toTileIndex(position.getX());
+      trackedTileYs[numberOfTrackedTiles] = toTileIndex(position.getY());
+      numberOfTrackedTiles++;
+   }
+
+   private void addTile(LoadedTile tile)
+   {
+      tileMap.put(tile.key, tile);
+
+      for (int i = 0; i < listeners.size(); i++)
+         listeners.get(i).tileAdded(tile.terrain);
+   }
+
+   /**
+    * Creates the tile on this thread if it is not loaded yet, cancelling its background loading.
+    *
+    * @return whether the tile was created.
+    */
+   private boolean loadTileNow(int tileX, int tileY)
+   {
+      long key = computeKey(tileX, tileY);
+
+      if (tileMap.containsKey(key))
+         return false;
+
+      if (pendingTiles.containsKey(key))
+         cancelledTiles.add(key);
+
+      TerrainObject3D terrain;
+
+      synchronized (tileProviderLock)
+      {
+         terrain = tileProvider.createTile(tileX, tileY, tileX * tileSize, tileY * tileSize, tileSize);
+      }
+
+      if (terrain == null)
+         throw new RuntimeException("The tile provider did not create the tile: (" + tileX + ", " + tileY + ")");
+
+      addTile(new LoadedTile(tileX, tileY, key, terrain));
+      return true;
+   }
+
+   private void requestTilesAround(int centerX, int centerY)
+   {
+      for (int tileX = centerX - loadRadius; tileX <= centerX + loadRadius; tileX++)
+      {
+         for (int tileY = centerY - loadRadius; tileY <= centerY + loadRadius; tileY++)
+         {
+            long key = computeKey(tileX, tileY);
+
+            if (tileMap.containsKey(key) || pendingTiles.put(key, Boolean.TRUE) != null)
+               continue;
+
+            int requestedX = tileX;
+            int requestedY = tileY;
+            loadingExecutor.execute(() ->
+            {
+               TerrainObject3D terrain = null;
+
+               try
+               {
+                  synchronized (tileProviderLock)
+                  {
+                     if (!cancelledTiles.remove(key))
+                        terrain = tileProvider.createTile(requestedX, requestedY, requestedX * tileSize, requestedY * tileSize, tileSize);
+                  }
+               }
+               catch (RuntimeException e)
+               {
+                  e.printStackTrace();
+               }
+
+               // Queued even when it failed so that it can be requested again.
+               loadedTiles.add(new LoadedTile(requestedX, requestedY, key, terrain));
+            });
+         }
+      }
+   }
+
+   private boolean isWithinRadius(int tileX, int tileY, int radius)
+   {
+      for (int i = 0; i < numberOfTrackedTiles; i++)
+      {
+         if (Math.abs(trackedTileXs[i] - tileX) <= radius && Math.abs(trackedTileYs[i] - tileY) <= radius)
+            return true;
+      }
+
+      return false;
+   }
+
+   private int toTileIndex(double coordinate)
+   {
+      return (int) Math.floor(coordinate / tileSize);
+   }
+
+   private static long computeKey(int tileX, int tileY)
+   {
+      return ((long) tileX << 32) | (tileY & 0xFFFFFFFFL);
+   }
+
+   private void updateBoundingBox()
+   {
+      BoundingBox3D union = fallbackProfile == null ? null : fallbackProfile.getBoundingBox();
+
+      for (LoadedTile tile : activeTiles)
+      {
+         BoundingBox3D tileBoundingBox = tile.terrain.getBoundingBox();
+         union = union == null ? tileBoundingBox : BoundingBox3D.union(union, tileBoundingBox);
+      }
+
+      if (union == null)
+         boundingBox.set(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+      else
+         boundingBox.set(union);
+   }
+
+   /**
+    * Returns the terrain under the given point, or {@code null} if its tile is not loaded.
+    */
+   private TerrainObject3D getTerrain(double x, double y)
+   {
+      int tileX = toTileIndex(x);
+      int tileY = toTileIndex(y);
+      LoadedTile tile = lastTile;
+
+      if (tile == null || tile.tileX != tileX || tile.tileY != tileY)
+      {
+         tile = null;
+
+         for (LoadedTile activeTile : activeTiles)
+         {
+            if (activeTile.tileX == tileX && activeTile.tileY == tileY)
+            {
+               tile = activeTile;
+               lastTile = tile;
+               break;
+            }
+         }
+
+         if (tile == null)
+            return null;
+      }
+
+      return tile.terrain;
+   }
+
+   @Override
+   public boolean checkIfInside(double x, double y, double z, Point3DBasics intersectionToPack, Vector3DBasics normalToPack)
+   {
+      TerrainObject3D terrain = getTerrain(x, y);
+
+      if (terrain != null)
+         return terrain.isClose(x, y, z) && terrain.checkIfInside(x, y, z, intersectionToPack, normalToPack);
+      if (fallbackProfile != null)
+         return fallbackProfile.isClose(x, y, z) && fallbackProfile.checkIfInside(x, y, z, intersectionToPack, normalToPack);
+      return false;
+   }
+
+   @Override
+   public boolean isClose(double x, double y, double z)
+   {
+      TerrainObject3D terrain = getTerrain(x, y);
+
+      if (terrain != null)
+         return terrain.isClose(x, y, z);
+      if (fallbackProfile != null)
+         return fallbackProfile.isClose(x, y, z);
+      return false;
+   }
+
+   @Override
+   public BoundingBox3D getBoundingBox()
+   {
+      return boundingBox;
+   }
+
+   @Override
+   public HeightMapWithNormals getHeightMapIfAvailable()
+   {
+      return heightMap;
+   }
+
+   public int getNumberOfLoadedTiles()
+   {
+      return activeTiles.length;
+   }
+
+   public int getNumberOfPendingTiles()
+   {
+      return pendingTiles.size();
+   }
+
+   public double getTileSize()
+   {
+      return tileSize;
+   }
+
+   /**
+    * Stops the background thread, the tiles already loaded remain available.
+    */
+   public void shutdown()
+   {
+      loadingExecutor.shutdownNow();
+   }
+
+   private class StreamingHeightMap implements HeightMapWithNormals
+   {
+      @Override
+      public double heightAndNormalAt(double x, double y, double z, Vector3DBasics normalToPack)
+      {
+         HeightMapWithNormals tileHeightMap = getTileHeightMap(x, y);
+
+         if (tileHeightMap != null)
+            return tileHeightMap.heightAndNormalAt(x, y, z, normalToPack);
+
+         if (normalToPack != null)
+            normalToPack.set(0.0, 0.0, 1.0);
+         return Double.NEGATIVE_INFINITY;
+      }
+
+      @Override
+      public double heightAt(double x, double y, double z)
+      {
+         HeightMapWithNormals tileHeightMap = getTileHeightMap(x, y);
+         return tileHeightMap != null ? tileHeightMap.heightAt(x, y, z) : Double.NEGATIVE_INFINITY;
+      }
+
+      private HeightMapWithNormals getTileHeightMap(double x, double y)
+      {
+         TerrainObject3D terrain = getTerrain(x, y);
+
+         if (terrain != null)
+            return terrain.getHeightMapIfAvailable();
+         if (fallbackProfile != null)
+            return fallbackProfile.getHeightMapIfAvailable();
+         return null;
+      }
+
+      @Override
+      public BoundingBox3D getBoundingBox()
+      {
+         return boundingBox;
+      }
+   }
+
+   private static class LoadedTile
+   {
+      private final int tileX, tileY;
+      private final long key;
+      private final TerrainObject3D terrain;
+
+      public LoadedTile(int tileX, int tileY, long key, TerrainObject3D terrain)
+      {
+         this.tileX = tileX;
+         this.tileY = tileY;
+         this.key = key;
+         this.terrain = terrain;
+      }
+   }
+}
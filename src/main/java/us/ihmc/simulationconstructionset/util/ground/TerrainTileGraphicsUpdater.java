@@ -0,0 +1,52 @@
+package us.ihmc.simulationconstructionset.util.ground;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import us.ihmc.graphicsDescription.Graphics3DObject;
+import us.ihmc.graphicsDescription.structure.Graphics3DNode;
+import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.simulationconstructionset.util.ground.StreamingTerrainProfile.TerrainTileListener;
+
+/**
+ * Adds the graphics of the tiles of a {@link StreamingTerrainProfile} to the scene when they are
+ * loaded and removes them when they are evicted.
+ */
+public class TerrainTileGraphicsUpdater implements TerrainTileListener
+{
+   private final SimulationConstructionSet scs;
+   private final Map<TerrainObject3D, Graphics3DNode> tileNodes = new IdentityHashMap<>();
+
+   public TerrainTileGraphicsUpdater(SimulationConstructionSet scs)
+   {
+      this.scs = scs;
+   }
+
+   @Override
+   public void tileAdded(TerrainObject3D tile)
+   {
+      Graphics3DObject linkGraphics = tile.getLinkGraphics();
+      if (linkGraphics == null)
+         return;
+
+      Graphics3DNode node = scs.addStaticLinkGraphics(linkGraphics);
+
+      // null when there is no GUI.
+      if (node != null)
+         tileNodes.put(tile, node);
+   }
+
+   @Override
+   public void tileRemoved(TerrainObject3D tile)
+   {
+      Graphics3DNode node = tileNodes.remove(tile);
+
+      if (node != null)
+         scs.removeGraphics3dNode(node);
+   }
+
+   public int getNumberOfTileNodes()
+   {
+      return tileNodes.size();
+   }
+}
@@ -0,0 +1,115 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import java.util.List;
+
+/**
+ * Summary of the differences found by {@link StreamingLogComparer} for one variable over a whole
+ * pair of logs.
+ */
+public class LogVariableDifference
+{
+   private final String variableName;
+
+   private final int numberOfDifferences;
+
+   private final double timeOfFirstDifference;
+   private final double firstValueOne;
+   private final double firstValueTwo;
+
+   private final double timeOfWorstDifference;
+   private final double worstValueOne;
+   private final double worstValueTwo;
+   private final double worstDifference;
+
+   public LogVariableDifference(String variableName, int numberOfDifferences, double timeOfFirstDifference, double firstValueOne, double firstValueTwo,
+                                double timeOfWorstDifference, double worstValueOne, double worstValueTwo, double worstDifference)
+   {
+      this.variableName = variableName;
+      this.numberOfDifferences = numberOfDifferences;
+      this.timeOfFirstDifference = timeOfFirstDifference;
+      this.firstValueOne = firstValueOne;
+      this.firstValueTwo = firstValueTwo;
+      this.timeOfWorstDifference = timeOfWorstDifference;
+      this.worstValueOne = worstValueOne;
+      this.worstValueTwo = worstValueTwo;
+      this.worstDifference = worstDifference;
+   }
+
+   /**
+    * @return the full name of the variable, as written in the header of the logs.
+    */
+   public String getVariableName()
+   {
+      return variableName;
+   }
+
+   /**
+    * @return the number of aligned samples for which the variable differs by more than the
+    *         tolerance.
+    */
+   public int getNumberOfDifferences()
+   {
+      return numberOfDifferences;
+   }
+
+   public double getTimeOfFirstDifference()
+   {
+      return timeOfFirstDifference;
+   }
+
+   public double getFirstValueOne()
+   {
+      return firstValueOne;
+   }
+
+   public double getFirstValueTwo()
+   {
+      return firstValueTwo;
+   }
+
+   public double getTimeOfWorstDifference()
+   {
+      return timeOfWorstDifference;
+   }
+
+   public double getWorstValueOne()
+   {
+      return worstValueOne;
+   }
+
+   public double getWorstValueTwo()
+   {
+      return worstValueTwo;
+   }
+
+   /**
+    * @return the largest absolute or percent difference, depending on how the logs were compared.
+    *         Infinite if the values of only one of the logs were NaN.
+    */
+   public double getWorstDifference()
+   {
+      return worstDifference;
+   }
+
+   @Override
+   public String toString()
+   {
+      String ret = variableName + " differs " + numberOfDifferences + " times";
+      ret = ret + ", first at time = " + timeOfFirstDifference + " -> " + firstValueOne + ", " + firstValueTwo;
+      ret = ret + ", worst at time = " + timeOfWorstDifference + " -> " + worstValueOne + ", " + worstValueTwo + " (" + worstDifference + ")";
+
+      return ret;
+   }
+
+   public static String allLogVariableDifferencesToString(List<LogVariableDifference> logVariableDifferences)
+   {
+      StringBuilder ret = new StringBuilder();
+
+      for (LogVariableDifference logVariableDifference : logVariableDifferences)
+      {
+         ret.append(logVariableDifference.toString()).append("\n");
+      }
+
+      return ret.toString();
+   }
+}
@@ -0,0 +1,276 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.simulationconstructionset.UnreasonableAccelerationException;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Fast determinism and rewindability checker for long simulations.
+ * <p>
+ * Instead of recording every variable change like {@link SimulationRewindabilityVerifierWithStackTracing},
+ * this hashes the values of all the variables that should match, registry by registry, after each
+ * tick of the two simulations. The tick hashes are chained and stored in primitive arrays, so that
+ * checking a run of 100k ticks only costs one pass over the variables per tick. Once the first
+ * divergent tick is found, {@link #traceFirstDivergentTick()} replays only that tick with stack
+ * tracing.
+ * </p>
+ * <p>
+ * Since the hashes are chained, the chained hashes of two runs differ from the first divergent tick
+ * on, which lets {@link #findFirstDivergentTick(long[], long[], int)} bisect the hashes of runs that
+ * were not done side by side, for instance a reference run saved by a previous build.
+ * </p>
+ */
+public class SimulationDeterminismVerifier
+{
+   private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+   private final SimulationConstructionSet[] simulations;
+   private final List<String> exceptions;
+
+   private final YoVariable[] variablesOne;
+   private final YoVariable[] variablesTwo;
+   /** Index in {@link #variablesOne} of the first variable of each registry, the last entry is the number of variables. */
+   private final int[] registryStartIndices;
+   private final String[] registryNames;
+
+   private final long[] registryHashesOne;
+   private final long[] registryHashesTwo;
+   private long[] chainedHashesOne = new long[0];
+   private long[] chainedHashesTwo = new long[0];
+   private int numberOfHashedTicks = 0;
+
+   private int firstDivergentTick = -1;
+   private final List<String> divergentRegistryNames = new ArrayList<>();
+
+   public SimulationDeterminismVerifier(SimulationConstructionSet simulationOne, SimulationConstructionSet simulationTwo, List<String> exceptions)
+   {
+      simulations = new SimulationConstructionSet[] {simulationOne, simulationTwo};
+      this.exceptions = exceptions;
+
+      VariablesThatShouldMatchList variablesThatShouldMatchList = new VariablesThatShouldMatchList(simulationOne.getRootRegistry(),
+                                                                                                   simulationTwo.getRootRegistry(),
+                                                                                                   exceptions);
+
+      // Group the variables by registry so that the hash of each registry is computed over a contiguous range.
+      LinkedHashMap<YoRegistry, List<YoVariable[]>> variablesPerRegistry = new LinkedHashMap<>();
+
+      for (YoVariable[] variablesToMatch : variablesThatShouldMatchList.getVariablesThatShouldMatch())
+      {
+         variablesPerRegistry.computeIfAbsent(variablesToMatch[0].getRegistry(), registry -> new ArrayList<>()).add(variablesToMatch);
+      }
+
+      int numberOfVariables = variablesThatShouldMatchList.getVariablesThatShouldMatch().size();
+      variablesOne = new YoVariable[numberOfVariables];
+      variablesTwo = new YoVariable[numberOfVariables];
+      registryStartIndices = new int[variablesPerRegistry.size() + 1];
+      registryNames = new String[variablesPerRegistry.size()];
+
+      int variableIndex = 0;
+      int registryIndex = 0;
+
+      for (YoRegistry registry : variablesPerRegistry.keySet())
+      {
+         registryStartIndices[registryIndex] = variableIndex;
+         registryNames[registryIndex] = registry.getNamespace().getName();
+
+         for (YoVariable[] variablesToMatch : variablesPerRegistry.get(registry))
+         {
+            variablesOne[variableIndex] = variablesToMatch[0];
+            variablesTwo[variableIndex] = variablesToMatch[1];
+            variableIndex++;
+         }
+
+         registryIndex++;
+      }
+
+      registryStartIndices[registryIndex] = variableIndex;
+
+      registryHashesOne = new long[registryNames.length];
+      registryHashesTwo = new long[registryNames.length];
+   }
+
+   /**
+    * Simulates both simulations side by side and stops at the first tick after which their
+    * variables differ.
+    * <p>
+    * The second simulation can be made to simulate ahead and rewind before each tick, as in
+    * {@link SimulationRewindabilityVerifier#checkRewindabilityWithRigorousMethod(int, int, int, double)},
+    * which turns this into a rewindability check. With no tick ahead, this checks that the two
+    * simulations are deterministic.
+    * </p>
+    *
+    * @param numberOfTicks                the number of ticks to check.
+    * @param numberOfTicksToSimulateAhead the number of ticks the second simulation simulates and
+    *                                     rewinds before each tick.
+    * @return the index of the first divergent tick, or {@code -1} if the simulations matched for all
+    *         the ticks.
+    */
+   public int findFirstDivergentTick(int numberOfTicks, int numberOfTicksToSimulateAhead) throws UnreasonableAccelerationException
+   {
+      chainedHashesOne = new long[numberOfTicks];
+      chainedHashesTwo = new long[numberOfTicks];
+      numberOfHashedTicks = 0;
+      firstDivergentTick = -1;
+      divergentRegistryNames.clear();
+
+      long chainedHashOne = 0L;
+      long chainedHashTwo = 0L;
+
+      for (int tickIndex = 0; tickIndex < numberOfTicks; tickIndex++)
+      {
+         simulations[0].simulateOneRecordStepNow();
+
+         for (int i = 0; i < numberOfTicksToSimulateAhead; i++)
+            simulations[1].simulateOneRecordStepNow();
+         for (int i = 0; i < numberOfTicksToSimulateAhead; i++)
+            simulations[1].stepBackwardNow();
+
+         simulations[1].simulateOneRecordStepNow();
+
+         chainedHashOne = mix(chainedHashOne, computeRegistryHashes(variablesOne, registryHashesOne));
+         chainedHashTwo = mix(chainedHashTwo, computeRegistryHashes(variablesTwo, registryHashesTwo));
+         chainedHashesOne[tickIndex] = chainedHashOne;
+         chainedHashesTwo[tickIndex] = chainedHashTwo;
+         numberOfHashedTicks++;
+
+         if (chainedHashOne != chainedHashTwo)
+         {
+            firstDivergentTick = tickIndex;
+
+            for (int registryIndex = 0; registryIndex < registryNames.length; registryIndex++)
+            {
+               if (registryHashesOne[registryIndex] != registryHashesTwo[registryIndex])
+                  divergentRegistryNames.add(registryNames[registryIndex]);
+            }
+
+            return tickIndex;
+         }
+      }
+
+      return -1;
+   }
+
+   /**
+    * Rewinds both simulations by one tick, which has to be the first divergent tick, and simulates it
+    * again while recording the stack traces of the variable changes.
+    *
+    * @return the helper holding the recorded changes, see
+    *         {@link SimulationRewindabilityVerifierWithStackTracing#printOutStackTracesOfFirstChangedVariable()}.
+    */
+   public SimulationRewindabilityVerifierWithStackTracing traceFirstDivergentTick() throws UnreasonableAccelerationException
+   {
+      if (firstDivergentTick < 0)
+         throw new RuntimeException("No divergent tick to trace, call findFirstDivergentTick first.");
+
+      simulations[0].stepBackwardNow();
+      simulations[1].stepBackwardNow();
+
+      // The listeners are only added now so that they don't slow down the hashing.
+      SimulationRewindabilityVerifierWithStackTracing helper = new SimulationRewindabilityVerifierWithStackTracing(simulations[0],
+                                                                                                                   simulations[1],
+                                                                                                                   exceptions == null ? null : new ArrayList<>(exceptions));
+
+      helper.setRecordDifferencesForSimOne(true);
+      simulations[0].simulateOneRecordStepNow();
+      helper.setRecordDifferencesForSimOne(false);
+
+      helper.setRecordDifferencesForSimTwo(true);
+      simulations[1].simulateOneRecordStepNow();
+      helper.setRecordDifferencesForSimTwo(false);
+
+      return helper;
+   }
+
+   public int getFirstDivergentTick()
+   {
+      return firstDivergentTick;
+   }
+
+   /**
+    * @return the full names of the registries that have a variable that differs at the first
+    *         divergent tick.
+    */
+   public List<String> getDivergentRegistryNames()
+   {
+      return divergentRegistryNames;
+   }
+
+   public int getNumberOfHashedTicks()
+   {
+      return numberOfHashedTicks;
+   }
+
+   /**
+    * @return the chained hash of the first simulation after each tick, only the first
+    *         {@link #getNumberOfHashedTicks()} are set.
+    */
+   public long[] getChainedHashesForSimulationOne()
+   {
+      return chainedHashesOne;
+   }
+
+   public long[] getChainedHashesForSimulationTwo()
+   {
+      return chainedHashesTwo;
+   }
+
+   /**
+    * Bisects two arrays of chained hashes for the first tick at which they differ. Because each
+    * chained hash depends on all the previous ticks, the hashes of two runs differ from their first
+    * divergent tick on.
+    *
+    * @param chainedHashesOne the chained hashes of the first run.
+    * @param chainedHashesTwo the chained hashes of the second run.
+    * @param numberOfTicks    the number of ticks to compare.
+    * @return the index of the first divergent tick, or {@code -1} if all the hashes match.
+    */
+   public static int findFirstDivergentTick(long[] chainedHashesOne, long[] chainedHashesTwo, int numberOfTicks)
+   {
+      if (numberOfTicks == 0 || chainedHashesOne[numberOfTicks - 1] == chainedHashesTwo[numberOfTicks - 1])
+         return -1;
+
+      int low = 0;
+      int high = numberOfTicks - 1;
+
+      while (low < high)
+      {
+         int middle = (low + high) >>> 1;
+
+         if (chainedHashesOne[middle] == chainedHashesTwo[middle])
+            low = middle + 1;
+         else
+            high = middle;
+      }
+
+      return low;
+   }
+
+   private long computeRegistryHashes(YoVariable[] variables, long[] registryHashesToPack)
+   {
+      long tickHash = 0L;
+
+      for (int registryIndex = 0; registryIndex < registryHashesToPack.length; registryIndex++)
+      {
+         long registryHash = 0L;
+
+         for (int i = registryStartIndices[registryIndex]; i < registryStartIndices[registryIndex + 1]; i++)
+            registryHash = mix(registryHash, variables[i].getValueAsLongBits());
+
+         registryHashesToPack[registryIndex] = registryHash;
+         tickHash = mix(tickHash, registryHash);
+      }
+
+      return tickHash;
+   }
+
+   private static long mix(long hash, long value)
+   {
+      hash = (hash ^ value) * HASH_MULTIPLIER;
+      return hash ^ (hash >>> 32);
+   }
+}
@@ -1,6 +1,7 @@
 package us.ihmc.simulationconstructionset.util.simulationRunner;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -130,6 +131,40 @@ public class StateFileComparer
       return variableDifferences;
    }
 
+   /**
+    * Compares two data logs sample by sample, streaming them from disk. See
+    * {@link StreamingLogComparer} for the alignment of the samples and the tuning options.
+    *
+    * @param fileOne         first data file
+    * @param fileTwo         second data file
+    * @param maxAbsoluteDiff max absolute difference between the values of a variable in two aligned
+    *                        samples
+    * @param exceptions      variables to skip while comparing the data files
+    * @return the first and worst differences of each variable that differs in at least one sample
+    */
+   public static List<LogVariableDifference> absoluteCompareDataFiles(File fileOne, File fileTwo, double maxAbsoluteDiff, List<String> exceptions)
+         throws IOException
+   {
+      return new StreamingLogComparer(fileOne, fileTwo, exceptions).compare(maxAbsoluteDiff, false);
+   }
+
+   /**
+    * Compares two data logs sample by sample, streaming them from disk. See
+    * {@link StreamingLogComparer} for the alignment of the samples and the tuning options.
+    *
+    * @param fileOne        first data file
+    * @param fileTwo        second data file
+    * @param maxPercentDiff max difference percentage between the values of a variable in two aligned
+    *                       samples
+    * @param exceptions     variables to skip while comparing the data files
+    * @return the first and worst differences of each variable that differs in at least one sample
+    */
+   public static List<LogVariableDifference> percentualCompareDataFiles(File fileOne, File fileTwo, double maxPercentDiff, List<String> exceptions)
+         throws IOException
+   {
+      return new StreamingLogComparer(fileOne, fileTwo, exceptions).compare(maxPercentDiff, true);
+   }
+
    public static void main(String[] args)
    {
       //    String filenameOne = "Tests/test_2.2999.state";
@@ -0,0 +1,636 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import us.ihmc.simulationconstructionset.DataFileStreamReader;
+
+/**
+ * Compares two data logs sample by sample without loading either of them in memory.
+ * <p>
+ * Where {@link StateFileComparer} compares the values of two state files, this compares every
+ * sample of two logs readable by {@link DataFileStreamReader}. Each log is read a chunk at a time by
+ * its own thread, the samples of the two logs are aligned on their time variable, and the aligned
+ * samples are compared in batches, the variables being split between the comparison threads. Only a
+ * few chunks of each log are in memory at any time.
+ * </p>
+ * <p>
+ * The variables are matched by full name and the exceptions are applied as in
+ * {@link VariablesThatShouldMatchList}. The time of both logs is expected to increase, a sample with
+ * no sample of the other log within the time tolerance is counted as unmatched and skipped.
+ * </p>
+ */
+public class StreamingLogComparer
+{
+   private static final int VALUES_PER_CHUNK = 1 << 20;
+   private static final int NUMBER_OF_PREFETCHED_CHUNKS = 2;
+   private static final int SAMPLES_PER_BATCH = 1 << 12;
+
+   private final File fileOne;
+   private final File fileTwo;
+   private final List<String> exceptions;
+
+   private String timeVariableName = "t";
+   private double timeTolerance = Double.NaN;
+   private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+   private final Map<String, Double> variableTolerances = new HashMap<>();
+
+   private int timeIndexOne;
+   private int timeIndexTwo;
+   private final List<String> variableNames = new ArrayList<>();
+   private int[] indicesOne = new int[0];
+   private int[] indicesTwo = new int[0];
+   private final List<String> variablesInOneButNotInTwo = new ArrayList<>();
+   private final List<String> variablesInTwoButNotInOne = new ArrayList<>();
+
+   private boolean checkForPercentDifference;
+   private double[] tolerances;
+   private int[] numberOfDifferences;
+   private double[] timesOfFirstDifference;
+   private double[] firstValuesOne;
+   private double[] firstValuesTwo;
+   private double[] timesOfWorstDifference;
+   private double[] worstValuesOne;
+   private double[] worstValuesTwo;
+   private double[] worstDifferences;
+
+   private final float[][] batchValuesOne = new float[SAMPLES_PER_BATCH][];
+   private final float[][] batchValuesTwo = new float[SAMPLES_PER_BATCH][];
+   private final int[] batchOffsetsOne = new int[SAMPLES_PER_BATCH];
+   private final int[] batchOffsetsTwo = new int[SAMPLES_PER_BATCH];
+   private final double[] batchTimes = new double[SAMPLES_PER_BATCH];
+   private int batchSize;
+
+   private long numberOfComparedSamples;
+   private long numberOfUnmatchedSamplesInOne;
+   private long numberOfUnmatchedSamplesInTwo;
+   private final List<LogVariableDifference> logVariableDifferences = new ArrayList<>();
+
+   public StreamingLogComparer(File fileOne, File fileTwo, List<String> exceptions)
+   {
+      this.fileOne = fileOne;
+      this.fileTwo = fileTwo;
+      this.exceptions = exceptions;
+   }
+
+   /**
+    * Sets the short name of the variable the two logs are aligned on, {@code "t"} by default.
+    */
+   public void setTimeVariableName(String timeVariableName)
+   {
+      this.timeVariableName = timeVariableName;
+   }
+
+   /**
+    * Sets the maximum time difference between two samples considered simultaneous. By default, half
+    * the record DT of the first log.
+    */
+   public void setTimeTolerance(double timeTolerance)
+   {
+      this.timeTolerance = timeTolerance;
+   }
+
+   public void setNumberOfThreads(int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("numberOfThreads must be at least 1, was: " + numberOfThreads);
+
+      this.numberOfThreads = numberOfThreads;
+   }
+
+   /**
+    * Overrides the maximum difference allowed for one variable.
+    *
+    * @param fullVariableName the full name of the variable, as written in the header of the logs.
+    * @param maxDifference    the maximum absolute or percent difference allowed for this variable.
+    */
+   public void setVariableTolerance(String fullVariableName, double maxDifference)
+   {
+      variableTolerances.put(fullVariableName, maxDifference);
+   }
+
+   /**
+    * Compares the two logs.
+    *
+    * @param maxDifferenceAllowed      the maximum difference allowed between the values of a variable
+    *                                  in two aligned samples.
+    * @param checkForPercentDifference whether the difference is relative to the largest of the two
+    *                                  values, as in
+    *                                  {@link VariablesThatShouldMatchList#doVariableValuesMatch(List, double, double, boolean)},
+    *                                  or absolute.
+    * @return the differences of the variables that differ in at least one sample, in the order of
+    *         the variables in the first log.
+    */
+   public List<LogVariableDifference> compare(double maxDifferenceAllowed, boolean checkForPercentDifference) throws IOException
+   {
+      this.checkForPercentDifference = checkForPercentDifference;
+      numberOfComparedSamples = 0;
+      numberOfUnmatchedSamplesInOne = 0;
+      numberOfUnmatchedSamplesInTwo = 0;
+      logVariableDifferences.clear();
+
+      try (DataFileStreamReader readerOne = new DataFileStreamReader(fileOne); DataFileStreamReader readerTwo = new DataFileStreamReader(fileTwo))
+      {
+         matchVariables(readerOne.getVariableNames(), readerTwo.getVariableNames());
+         resetStatistics(maxDifferenceAllowed);
+
+         double timeTolerance = Double.isNaN(this.timeTolerance) ? 0.5 * readerOne.getRecordDT() : this.timeTolerance;
+
+         // Two more threads for the readers, which block when their queue is full.
+         ExecutorService executor = createExecutor(numberOfThreads + 2);
+
+         try
+         {
+            LogCursor cursorOne = new LogCursor(readerOne, fileOne, timeIndexOne, executor);
+            LogCursor cursorTwo = new LogCursor(readerTwo, fileTwo, timeIndexTwo, executor);
+
+            boolean hasSampleOne = cursorOne.next();
+            boolean hasSampleTwo = cursorTwo.next();
+
+            while (hasSampleOne && hasSampleTwo)
+            {
+               double timeOne = cursorOne.getTime();
+               double timeTwo = cursorTwo.getTime();
+
+               if (Math.abs(timeTwo - timeOne) <= timeTolerance)
+               {
+                  addToBatch(cursorOne, cursorTwo, timeOne);
+
+                  if (batchSize == SAMPLES_PER_BATCH)
+                     compareBatch(executor);
+
+                  hasSampleOne = cursorOne.next();
+                  hasSampleTwo = cursorTwo.next();
+               }
+               else if (timeOne < timeTwo)
+               {
+                  numberOfUnmatchedSamplesInOne++;
+                  hasSampleOne = cursorOne.next();
+               }
+               else
+               {
+                  numberOfUnmatchedSamplesInTwo++;
+                  hasSampleTwo = cursorTwo.next();
+               }
+            }
+
+            compareBatch(executor);
+
+            while (hasSampleOne)
+            {
+               numberOfUnmatchedSamplesInOne++;
+               hasSampleOne = cursorOne.next();
+            }
+
+            while (hasSampleTwo)
+            {
+               numberOfUnmatchedSamplesInTwo++;
+               hasSampleTwo = cursorTwo.next();
+            }
+         }
+         finally
+         {
+            executor.shutdownNow();
+         }
+      }
+
+      collectDifferences();
+
+      return logVariableDifferences;
+   }
+
+   public List<LogVariableDifference> getLogVariableDifferences()
+   {
+      return logVariableDifferences;
+   }
+
+   /**
+    * @return the difference of the variable that differed first, or {@code null} if no variable
+    *         differed.
+    */
+   public LogVariableDifference getFirstDifference()
+   {
+      LogVariableDifference firstDifference = null;
+
+      for (LogVariableDifference logVariableDifference : logVariableDifferences)
+      {
+         if (firstDifference == null || logVariableDifference.getTimeOfFirstDifference() < firstDifference.getTimeOfFirstDifference())
+            firstDifference = logVariableDifference;
+      }
+
+      return firstDifference;
+   }
+
+   /**
+    * @return the full names of the variables compared, the time variable and the exceptions
+    *         excluded.
+    */
+   public List<String> getVariableNames()
+   {
+      return variableNames;
+   }
+
+   public List<String> getVariablesInOneButNotInTwo()
+   {
+      return variablesInOneButNotInTwo;
+   }
+
+   public List<String> getVariablesInTwoButNotInOne()
+   {
+      return variablesInTwoButNotInOne;
+   }
+
+   /**
+    * @return the number of pairs of aligned samples that were compared.
+    */
+   public long getNumberOfComparedSamples()
+   {
+      return numberOfComparedSamples;
+   }
+
+   public long getNumberOfUnmatchedSamplesInOne()
+   {
+      return numberOfUnmatchedSamplesInOne;
+   }
+
+   public long getNumberOfUnmatchedSamplesInTwo()
+   {
+      return numberOfUnmatchedSamplesInTwo;
+   }
+
+   private void matchVariables(List<String> namesOne, List<String> namesTwo)
+   {
+      variableNames.clear();
+      variablesInOneButNotInTwo.clear();
+      variablesInTwoButNotInOne.clear();
+
+      timeIndexOne = findTimeVariable(namesOne, fileOne);
+      timeIndexTwo = findTimeVariable(namesTwo, fileTwo);
+
+      LinkedHashMap<String, Integer> indicesInTwo = new LinkedHashMap<>();
+
+      for (int i = 0; i < namesTwo.size(); i++)
+      {
+         if (i != timeIndexTwo && !isException(namesTwo.get(i)))
+            indicesInTwo.put(namesTwo.get(i), i);
+      }
+
+      List<Integer> matchedIndicesOne = new ArrayList<>();
+      List<Integer> matchedIndicesTwo = new ArrayList<>();
+
+      for (int i = 0; i < namesOne.size(); i++)
+      {
+         String name = namesOne.get(i);
+
+         if (i == timeIndexOne || isException(name))
+            continue;
+
+         Integer indexInTwo = indicesInTwo.remove(name);
+
+         if (indexInTwo == null)
+         {
+            variablesInOneButNotInTwo.add(name);
+         }
+         else
+         {
+            variableNames.add(name);
+            matchedIndicesOne.add(i);
+            matchedIndicesTwo.add(indexInTwo);
+         }
+      }
+
+      variablesInTwoButNotInOne.addAll(indicesInTwo.keySet());
+
+      indicesOne = matchedIndicesOne.stream().mapToInt(Integer::intValue).toArray();
+      indicesTwo = matchedIndicesTwo.stream().mapToInt(Integer::intValue).toArray();
+   }
+
+   private int findTimeVariable(List<String> names, File file)
+   {
+      for (int i = 0; i < names.size(); i++)
+      {
+         if (getShortName(names.get(i)).equals(timeVariableName))
+            return i;
+      }
+
+      throw new RuntimeException("Could not find the time variable " + timeVariableName + " in " + file);
+   }
+
+   private boolean isException(String fullName)
+   {
+      if (exceptions == null)
+         return false;
+
+      String lowerCaseVariableName = getShortName(fullName).toLowerCase();
+
+      for (String exceptionName : exceptions)
+      {
+         if (lowerCaseVariableName.contains(exceptionName.toLowerCase()))
+            return true;
+      }
+
+      return false;
+   }
+
+   private static String getShortName(String fullName)
+   {
+      return fullName.substring(fullName.lastIndexOf('.') + 1);
+   }
+
+   private void resetStatistics(double maxDifferenceAllowed)
+   {
+      int numberOfVariables = variableNames.size();
+
+      tolerances = new double[numberOfVariables];
+      numberOfDifferences = new int[numberOfVariables];
+      timesOfFirstDifference = new double[numberOfVariables];
+      firstValuesOne = new double[numberOfVariables];
+      firstValuesTwo = new double[numberOfVariables];
+      timesOfWorstDifference = new double[numberOfVariables];
+      worstValuesOne = new double[numberOfVariables];
+      worstValuesTwo = new double[numberOfVariables];
+      worstDifferences = new double[numberOfVariables];
+      Arrays.fill(worstDifferences, Double.NEGATIVE_INFINITY);
+
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         Double variableTolerance = variableTolerances.get(variableNames.get(i));
+         tolerances[i] = variableTolerance == null ? maxDifferenceAllowed : variableTolerance;
+      }
+   }
+
+   private void addToBatch(LogCursor cursorOne, LogCursor cursorTwo, double time)
+   {
+      batchValuesOne[batchSize] = cursorOne.getValues();
+      batchOffsetsOne[batchSize] = cursorOne.getOffset();
+      batchValuesTwo[batchSize] = cursorTwo.getValues();
+      batchOffsetsTwo[batchSize] = cursorTwo.getOffset();
+      batchTimes[batchSize] = time;
+      batchSize++;
+   }
+
+   private void compareBatch(ExecutorService executor) throws IOException
+   {
+      if (batchSize == 0)
+         return;
+
+      int numberOfVariables = variableNames.size();
+      int numberOfBlocks = Math.min(numberOfThreads, numberOfVariables);
+      List<Callable<Void>> tasks = new ArrayList<>();
+
+      // Each task owns a block of variables, so the statistics are never written by two threads.
+      for (int block = 0; block < numberOfBlocks; block++)
+      {
+         int firstVariable = (int) ((long) block * numberOfVariables / numberOfBlocks);
+         int lastVariable = (int) ((long) (block + 1) * numberOfVariables / numberOfBlocks);
+
+         tasks.add(() ->
+         {
+            compareVariables(firstVariable, lastVariable);
+            return null;
+         });
+      }
+
+      try
+      {
+         for (Future<Void> task : executor.invokeAll(tasks))
+            task.get();
+      }
+      catch (InterruptedException e)
+      {
+         throw new RuntimeException(e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException(e.getCause());
+      }
+
+      numberOfComparedSamples += batchSize;
+      Arrays.fill(batchValuesOne, 0, batchSize, null);
+      Arrays.fill(batchValuesTwo, 0, batchSize, null);
+      batchSize = 0;
+   }
+
+   private void compareVariables(int firstVariable, int lastVariable)
+   {
+      for (int sample = 0; sample < batchSize; sample++)
+      {
+         float[] valuesOne = batchValuesOne[sample];
+         float[] valuesTwo = batchValuesTwo[sample];
+         int offsetOne = batchOffsetsOne[sample];
+         int offsetTwo = batchOffsetsTwo[sample];
+
+         for (int variable = firstVariable; variable < lastVariable; variable++)
+         {
+            double valueOne = valuesOne[offsetOne + indicesOne[variable]];
+            double valueTwo = valuesTwo[offsetTwo + indicesTwo[variable]];
+
+            if (valueOne == valueTwo || (Double.isNaN(valueOne) && Double.isNaN(valueTwo)))
+               continue;
+
+            double difference;
+
+            if (Double.isNaN(valueOne) || Double.isNaN(valueTwo))
+            {
+               difference = Double.POSITIVE_INFINITY;
+            }
+            else
+            {
+               difference = Math.abs(valueTwo - valueOne);
+
+               if (checkForPercentDifference)
+                  difference /= Math.max(Math.abs(valueOne), Math.abs(valueTwo));
+            }
+
+            if (difference <= tolerances[variable])
+               continue;
+
+            if (numberOfDifferences[variable] == 0)
+            {
+               timesOfFirstDifference[variable] = batchTimes[sample];
+               firstValuesOne[variable] = valueOne;
+               firstValuesTwo[variable] = valueTwo;
+            }
+
+            numberOfDifferences[variable]++;
+
+            if (difference > worstDifferences[variable])
+            {
+               timesOfWorstDifference[variable] = batchTimes[sample];
+               worstValuesOne[variable] = valueOne;
+               worstValuesTwo[variable] = valueTwo;
+               worstDifferences[variable] = difference;
+            }
+         }
+      }
+   }
+
+   private void collectDifferences()
+   {
+      for (int i = 0; i < variableNames.size(); i++)
+      {
+         if (numberOfDifferences[i] == 0)
+            continue;
+
+         logVariableDifferences.add(new LogVariableDifference(variableNames.get(i),
+                                                              numberOfDifferences[i],
+                                                              timesOfFirstDifference[i],
+                                                              firstValuesOne[i],
+                                                              firstValuesTwo[i],
+                                                              timesOfWorstDifference[i],
+                                                              worstValuesOne[i],
+                                                              worstValuesTwo[i],
+                                                              worstDifferences[i]));
+      }
+   }
+
+   private static ExecutorService createExecutor(int numberOfThreads)
+   {
+      AtomicInteger threadIndex = new AtomicInteger();
+      ThreadFactory threadFactory = runnable ->
+      {
+         Thread thread = new Thread(runnable, "StreamingLogComparer-" + threadIndex.getAndIncrement());
+         thread.setDaemon(true);
+         return thread;
+      };
+
+      return Executors.newFixedThreadPool(numberOfThreads, threadFactory);
+   }
+
+   private static class Chunk
+   {
+      private final float[] values;
+      private final int numberOfSamples;
+      private final Exception failure;
+
+      public Chunk(float[] values, int numberOfSamples, Exception failure)
+      {
+         this.values = values;
+         this.numberOfSamples = numberOfSamples;
+         this.failure = failure;
+      }
+   }
+
+   /**
+    * Iterates over the samples of one log, the chunks being read ahead on a separate thread.
+    */
+   private static class LogCursor
+   {
+      private final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(NUMBER_OF_PREFETCHED_CHUNKS);
+      private final File file;
+      private final int numberOfVariables;
+      private final int timeIndex;
+
+      private Chunk chunk = null;
+      private int sample = -1;
+
+      public LogCursor(DataFileStreamReader reader, File file, int timeIndex, ExecutorService executor)
+      {
+         this.file = file;
+         this.timeIndex = timeIndex;
+         numberOfVariables = reader.getNumberOfVariables();
+
+         int samplesPerChunk = Math.max(1, VALUES_PER_CHUNK / Math.max(1, numberOfVariables));
+         executor.execute(() -> readChunks(reader, samplesPerChunk));
+      }
+
+      private void readChunks(DataFileStreamReader reader, int samplesPerChunk)
+      {
+         Chunk lastChunk;
+
+         try
+         {
+            while (true)
+            {
+               // A new array for each chunk, as the previous ones can still be referenced by the batch being compared.
+               float[] values = new float[samplesPerChunk * numberOfVariables];
+               int numberOfSamples = reader.readChunk(values, samplesPerChunk);
+
+               if (numberOfSamples == 0)
+                  break;
+
+               chunks.put(new Chunk(values, numberOfSamples, null));
+            }
+
+            lastChunk = new Chunk(null, 0, null);
+         }
+         catch (InterruptedException e)
+         {
+            return;
+         }
+         catch (IOException | RuntimeException e)
+         {
+            lastChunk = new Chunk(null, 0, e);
+         }
+
+         try
+         {
+            chunks.put(lastChunk);
+         }
+         catch (InterruptedException e)
+         {
+         }
+      }
+
+      /**
+       * Moves to the next sample.
+       *
+       * @return {@code false} once the end of the log has been reached.
+       */
+      public boolean next() throws IOException
+      {
+         if (chunk != null && chunk.numberOfSamples == 0)
+            return false;
+
+         sample++;
+
+         if (chunk != null && sample < chunk.numberOfSamples)
+            return true;
+
+         try
+         {
+            chunk = chunks.take();
+         }
+         catch (InterruptedException e)
+         {
+            throw new RuntimeException(e);
+         }
+
+         if (chunk.failure != null)
+            throw new IOException("Failed to read " + file, chunk.failure);
+
+         sample = 0;
+         return chunk.numberOfSamples > 0;
+      }
+
+      public double getTime()
+      {
+         return chunk.values[getOffset() + timeIndex];
+      }
+
+      public float[] getValues()
+      {
+         return chunk.values;
+      }
+
+      public int getOffset()
+      {
+         return sample * numberOfVariables;
+      }
+   }
+}
@@ -31,6 +31,9 @@ public class ExportVideo implements ExportVideoCommandExecutor
 {
    private final static boolean DEBUG = false;
 
+   /** Number of rendered frames that can wait for the encoder in the frame-stepped export. */
+   private static final int FRAME_QUEUE_CAPACITY = 8;
+
    private final TimeHolder timeHolder;
    private final StandardSimulationGUI standardSimulationGUI;
 
@@ -43,6 +46,8 @@ public class ExportVideo implements ExportVideoCommandExecutor
    private final GotoInPointCommandExecutor gotoInPointCommandExecutor;
    private final GotoOutPointCommandExecutor gotoOutPointCommandExecutor;
 
+   private boolean useFrameSteppedExport = true;
+
    public ExportVideo(TimeHolder timeHolder, StandardSimulationGUI standardSimulationGUI, YoBufferReader dataBufferCommandsExecutor,
                       GotoInPointCommandExecutor gotoInPointCommandExecutor, GotoOutPointCommandExecutor gotoOutPointCommandExecutor,
                       RunCommandsExecutor runCommandsExecutor, GUIEnablerAndDisabler guiEnablerAndDisabler, ActiveCanvas3DHolder activeCanvas3DHolder,
@@ -59,6 +64,17 @@ public class ExportVideo implements ExportVideoCommandExecutor
       this.guiEnablerAndDisabler = guiEnablerAndDisabler;
    }
 
+   /**
+    * Selects how videos are exported. When frame-stepped, which is the default, the buffer is stepped
+    * to the exact sample of each frame and each frame is rendered and encoded as fast as possible.
+    * Otherwise, the frames are grabbed during a real-time playback of the buffer, which can drop or
+    * repeat frames.
+    */
+   public void setUseFrameSteppedExport(boolean useFrameSteppedExport)
+   {
+      this.useFrameSteppedExport = useFrameSteppedExport;
+   }
+
    @Override
    public void createVideo(File selectedFile)
    {
@@ -123,6 +139,17 @@ public class ExportVideo implements ExportVideoCommandExecutor
       runCommandsExecutor.stop();
       gotoOutPointCommandExecutor.gotoOutPoint();
 
+      // The frame-stepped export goes to the in point itself and renders each frame on demand.
+      if (useFrameSteppedExport && !isSequenceSelected)
+      {
+         frameSteppedPlaybackAsBufferedImage(selectedFile.getAbsolutePath(), captureDevice, playBackRate, frameRate);
+
+         runCommandsExecutor.setPlaybackRealTimeRate(realTimePlaybackRate);
+         guiEnablerAndDisabler.enableGUIComponents();
+
+         return;
+      }
+
       // go to the start
       gotoInPointCommandExecutor.gotoInPoint();
 
@@ -210,11 +237,7 @@ public class ExportVideo implements ExportVideoCommandExecutor
       MP4H264MovieBuilder movieBuilder = null;
       try
       {
-         H264Settings settings = new H264Settings();
-         settings.setBitrate(bufferedImage.getWidth() * bufferedImage.getHeight() / 100);
-         settings.setUsageType(EUsageType.CAMERA_VIDEO_REAL_TIME);
-         settings.setProfileIdc(EProfileIdc.PRO_HIGH);
-
+         H264Settings settings = createH264Settings(bufferedImage);
          movieBuilder = new MP4H264MovieBuilder(new File(file), bufferedImage.getWidth(), bufferedImage.getHeight(), (int) frameRate, settings);
 
          movieBuilder.encodeFrame(bufferedImage);
@@ -265,6 +288,88 @@ public class ExportVideo implements ExportVideoCommandExecutor
       }
    }
 
+   /**
+    * Exports the video one frame at a time instead of during a real-time playback. For each frame, the
+    * buffer is stepped by a {@link FrameStepper} to the sample of the frame, then the frame is rendered
+    * and queued to a {@link QueuedMovieEncoder}. No frame is dropped or repeated and the export takes
+    * as long as it takes to render and encode the frames.
+    */
+   public void frameSteppedPlaybackAsBufferedImage(String file, CaptureDevice captureDevice, double playBackRate, double frameRate)
+   {
+      FrameStepper frameStepper;
+
+      synchronized (simulationSynchronizer)
+      {
+         // The move to the in point is only done by allowTickUpdatesNow, it has to be done before reading the start time.
+         gotoInPointCommandExecutor.gotoInPoint();
+         standardSimulationGUI.allowTickUpdatesNow();
+         standardSimulationGUI.updateRobots();
+         frameStepper = new FrameStepper(timeHolder, dataBufferCommandsExecutor, playBackRate, frameRate);
+      }
+
+      BufferedImage bufferedImage = captureDevice.exportSnapshotAsBufferedImage();
+
+      QueuedMovieEncoder movieEncoder = null;
+      try
+      {
+         movieEncoder = new QueuedMovieEncoder(new File(file),
+                                               bufferedImage.getWidth(),
+                                               bufferedImage.getHeight(),
+                                               (int) frameRate,
+                                               createH264Settings(bufferedImage),
+                                               FRAME_QUEUE_CAPACITY);
+         movieEncoder.encodeFrame(bufferedImage);
+
+         boolean hasNextFrame = true;
+
+         while (hasNextFrame)
+         {
+            synchronized (simulationSynchronizer) // Synched so we don't update during a graphics redraw...
+            {
+               hasNextFrame = frameStepper.stepToNextFrame();
+               standardSimulationGUI.updateRobots();
+               standardSimulationGUI.allowTickUpdatesNow();
+            }
+
+            // Once the out point is reached the buffer has wrapped back to the in point.
+            if (hasNextFrame)
+            {
+               printIfDebug("ExportVideo: Capturing Frame " + frameStepper.getFrameIndex());
+               movieEncoder.encodeFrame(captureDevice.exportSnapshotAsBufferedImage());
+            }
+         }
+      }
+      catch (IOException e)
+      {
+         LogTools.error("Could not create movie.  " + e.getMessage());
+      }
+      finally
+      {
+         if (movieEncoder != null)
+         {
+            try
+            {
+               movieEncoder.close();
+            }
+            catch (IOException e)
+            {
+               LogTools.error("Could not finish movie.  " + e.getMessage());
+            }
+         }
+      }
+
+      standardSimulationGUI.updateGraphs();
+   }
+
+   private static H264Settings createH264Settings(BufferedImage firstFrame)
+   {
+      H264Settings settings = new H264Settings();
+      settings.setBitrate(firstFrame.getWidth() * firstFrame.getHeight() / 100);
+      settings.setUsageType(EUsageType.CAMERA_VIDEO_REAL_TIME);
+      settings.setProfileIdc(EProfileIdc.PRO_HIGH);
+      return settings;
+   }
+
    public Vector<File> saveSimulationAsSequenceOfImages(String path, String NameNoExtension, CaptureDevice captureDevice)
    {
       standardSimulationGUI.updateGraphs();
@@ -0,0 +1,61 @@
+package us.ihmc.simulationconstructionset.videos;
+
+import us.ihmc.simulationconstructionset.TimeHolder;
+import us.ihmc.yoVariables.buffer.interfaces.YoBufferReader;
+
+/**
+ * Steps a data buffer through the frames of a video, from its in point to its out point. The time
+ * of each frame is computed from the time at the in point so that no error accumulates, and the
+ * buffer is stepped to the first sample at or after it.
+ */
+class FrameStepper
+{
+   private final TimeHolder timeHolder;
+   private final YoBufferReader dataBuffer;
+   private final double timePerFrame;
+   private final double startTime;
+
+   private int frameIndex = 0;
+   private boolean reachedEndPoint = false;
+
+   /**
+    * Creates a stepper whose first frame is the current sample, the buffer should be at its in point.
+    */
+   FrameStepper(TimeHolder timeHolder, YoBufferReader dataBuffer, double playBackRate, double frameRate)
+   {
+      this.timeHolder = timeHolder;
+      this.dataBuffer = dataBuffer;
+      timePerFrame = playBackRate / frameRate;
+      startTime = timeHolder.getTime();
+   }
+
+   /**
+    * Steps the buffer to the sample of the next frame.
+    *
+    * @return whether there is a next frame, {@code false} once the buffer has gone past its out point
+    *         and wrapped back to its in point.
+    */
+   boolean stepToNextFrame()
+   {
+      if (reachedEndPoint)
+         return false;
+
+      frameIndex++;
+      double frameTime = startTime + frameIndex * timePerFrame;
+
+      while (timeHolder.getTime() < frameTime && !reachedEndPoint)
+      {
+         reachedEndPoint = dataBuffer.tickAndReadFromBuffer(1);
+      }
+
+      return !reachedEndPoint;
+   }
+
+   /**
+    * @return the index of the current frame, the first frame being {@code 0}.
+    */
+   int getFrameIndex()
+   {
+      return frameIndex;
+   }
+}
@@ -0,0 +1,148 @@
+package us.ihmc.simulationconstructionset.videos;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import us.ihmc.codecs.builder.H264Settings;
+import us.ihmc.codecs.builder.MP4H264MovieBuilder;
+
+/**
+ * Encodes frames into an MP4 file on a separate thread. Frames are handed over through a bounded
+ * queue, so that rendering the next frame overlaps with encoding the previous ones while the memory
+ * used by pending frames stays bounded: {@link #encodeFrame(BufferedImage)} blocks when the encoder
+ * falls behind.
+ * <p>
+ * Frames are encoded in the order they are queued and must not be modified once queued.
+ * </p>
+ */
+public class QueuedMovieEncoder
+{
+   private static final BufferedImage END_OF_STREAM = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+   private static final long QUEUE_POLL_PERIOD_MS = 100;
+
+   private final MP4H264MovieBuilder movieBuilder;
+   private final BlockingQueue<BufferedImage> frameQueue;
+   private final Thread encoderThread;
+   private volatile IOException encoderException = null;
+
+   public QueuedMovieEncoder(File file, int width, int height, int frameRate, H264Settings settings, int queueCapacity) throws IOException
+   {
+      movieBuilder = new MP4H264MovieBuilder(file, width, height, frameRate, settings);
+      frameQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+      encoderThread = new Thread(this::encodeQueuedFrames, "VideoEncoder");
+      encoderThread.setDaemon(true);
+      encoderThread.start();
+   }
+
+   /**
+    * Queues the frame for encoding, waiting for room in the queue if needed.
+    *
+    * @throws IOException if the encoder failed on a previous frame.
+    */
+   public void encodeFrame(BufferedImage frame) throws IOException
+   {
+      queue(frame);
+   }
+
+   /**
+    * Waits for the queued frames to be encoded and closes the file.
+    * <p>
+    * When interrupted, the frames still queued are dropped, but the file is only closed once the
+    * encoder thread is done with it, and the interrupt flag is then set back.
+    * </p>
+    *
+    * @throws IOException if the encoder failed on one of the frames or the wait was interrupted.
+    */
+   public void close() throws IOException
+   {
+      try
+      {
+         if (encoderException == null)
+            queue(END_OF_STREAM);
+      }
+      catch (IOException e)
+      {
+         // The encoder failed or this thread was interrupted, in both cases the encoder has to stop.
+         encoderThread.interrupt();
+      }
+
+      boolean interrupted = false;
+
+      while (encoderThread.isAlive())
+      {
+         try
+         {
+            encoderThread.join();
+         }
+         catch (InterruptedException e)
+         {
+            interrupted = true;
+            encoderThread.interrupt();
+         }
+      }
+
+      movieBuilder.close();
+
+      if (interrupted)
+      {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while waiting for the video encoder.");
+      }
+
+      throwIfEncoderFailed();
+   }
+
+   private void queue(BufferedImage frame) throws IOException
+   {
+      try
+      {
+         // Poll so that a failure of the encoder is noticed even when the queue stays full.
+         while (!frameQueue.offer(frame, QUEUE_POLL_PERIOD_MS, TimeUnit.MILLISECONDS))
+            throwIfEncoderFailed();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while queuing a frame.", e);
+      }
+
+      throwIfEncoderFailed();
+   }
+
+   private void throwIfEncoderFailed() throws IOException
+   {
+      IOException exception = encoderException;
+
+      if (exception != null)
+         throw exception;
+   }
+
+   private void encodeQueuedFrames()
+   {
+      try
+      {
+         while (true)
+         {
+            BufferedImage frame = frameQueue.take();
+
+            if (frame == END_OF_STREAM)
+               return;
+
+            movieBuilder.encodeFrame(frame);
+         }
+      }
+      catch (IOException e)
+      {
+         encoderException = e;
+      }
+      catch (InterruptedException e)
+      {
+         encoderException = new IOException("Video encoder interrupted.", e);
+      }
+   }
+}
@@ -0,0 +1,82 @@
+package us.ihmc.simulationconstructionset;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.yoVariables.buffer.YoBuffer;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.registry.YoVariableList;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+public class AsynchronousDataFileReaderTest
+{
+   @Test
+   public void testAsynchronousReadMatchesSynchronousRead() throws IOException, InterruptedException, ExecutionException
+   {
+      Random random = new Random(1776L);
+      int numberOfDataPoints = 5000;
+      int numberOfVariables = 37;
+
+      YoBuffer dataBuffer = new YoBuffer(numberOfDataPoints);
+      YoRegistry rootRegistry = new YoRegistry("rootRegistry");
+      YoRegistry childRegistry = new YoRegistry("childRegistry");
+      rootRegistry.addChild(childRegistry);
+
+      YoDouble[] variables = new YoDouble[numberOfVariables];
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         variables[i] = new YoDouble("variable" + i, i % 2 == 0 ? rootRegistry : childRegistry);
+         dataBuffer.addVariable(variables[i]);
+      }
+
+      for (int i = 0; i < numberOfDataPoints - 1; i++)
+      {
+         for (YoDouble variable : variables)
+            variable.set(random.nextDouble());
+
+         dataBuffer.tickAndWriteIntoBuffer();
+      }
+
+      List<YoVariable> allVariables = rootRegistry.collectSubtreeVariables();
+      Robot robot = new Robot("testRobot");
+
+      for (boolean compress : new boolean[] {false, true})
+      {
+         File testFile = File.createTempFile("asynchronousDataFileReaderTest", compress ? ".data.gz" : ".data");
+         testFile.deleteOnExit();
+         new DataFileWriter(testFile).writeData("testModel", 0.001, dataBuffer, allVariables, true, compress, robot);
+
+         YoBuffer expectedBuffer = new YoBuffer(dataBuffer.getBufferSize());
+         int expectedNumberOfPoints = new DataFileReader(testFile).readData(new YoVariableList("newVars"), new YoRegistry("rootRegistry"), expectedBuffer);
+
+         for (int numberOfThreads : new int[] {1, 3, 8})
+         {
+            YoBuffer readBackBuffer = new YoBuffer(dataBuffer.getBufferSize());
+            AtomicInteger numberOfColumnsPublished = new AtomicInteger();
+            AsynchronousDataFileReader reader = new AsynchronousDataFileReader(new DataFileReader(testFile), numberOfThreads);
+
+            int numberOfPoints = reader.readData(new YoVariableList("newVars"),
+                                                 new YoRegistry("rootRegistry"),
+                                                 readBackBuffer,
+                                                 null,
+                                                 (entry, loaded, total) -> numberOfColumnsPublished.incrementAndGet())
+                                       .get();
+
+            assertEquals(expectedNumberOfPoints, numberOfPoints);
+            assertEquals(numberOfVariables, numberOfColumnsPublished.get());
+            assertEquals(0.001, reader.getRecordDT(), 1e-12);
+            assertTrue(readBackBuffer.epsilonEquals(expectedBuffer, 0.0));
+         }
+      }
+   }
+}
@@ -0,0 +1,252 @@
+package us.ihmc.simulationconstructionset;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.simulatedSensors.BlockGaussianRandomGenerator;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+public class IMUSensorStageTest
+{
+   private static final double EPSILON = 1.0e-12;
+   private static final double DT = 0.001;
+
+   @Test // timeout=300000
+   public void testWithoutNoiseTheMeasurementsAreTheIdealValues()
+   {
+      Robot robot = createRobotWithIMUs(3);
+      robot.getIMUSensorStage().update();
+
+      assertMeasurementsEqualIdealValues(robot, 0.0);
+   }
+
+   @Test // timeout=300000
+   public void testConstantBiasIsAdded()
+   {
+      Robot robot = createRobotWithIMUs(2);
+      IMUSensorStage stage = robot.getIMUSensorStage();
+
+      for (IMUMount mount : stage.getIMUMounts())
+      {
+         mount.setAngularVelocityBiasParameters(0.1, 0.0);
+         mount.setAccelerationBiasParameters(0.1, 0.0);
+      }
+
+      stage.resetBiases();
+      stage.update();
+      stage.update();
+
+      assertMeasurementsEqualIdealValues(robot, 0.1);
+   }
+
+   @Test // timeout=300000
+   public void testNoiseIsReproduciblePerSeed()
+   {
+      Vector3D[] first = simulateNoisyMeasurements(42L);
+      Vector3D[] second = simulateNoisyMeasurements(42L);
+      Vector3D[] other = simulateNoisyMeasurements(43L);
+
+      boolean differentSeedDiffers = false;
+
+      for (int i = 0; i < first.length; i++)
+      {
+         assertTrue(first[i].equals(second[i]));
+         differentSeedDiffers |= !first[i].equals(other[i]);
+      }
+
+      assertTrue(differentSeedDiffers);
+   }
+
+   @Test // timeout=300000
+   public void testBlockGaussianRandomGeneratorStatistics()
+   {
+      BlockGaussianRandomGenerator random = new BlockGaussianRandomGenerator(1234L);
+      int numberOfSamples = 200000;
+      double[] samples = new double[numberOfSamples];
+      // Not a multiple of the block size, to go across the blocks.
+      random.nextGaussians(samples, 0, 1001);
+      random.nextGaussians(samples, 1001, numberOfSamples - 1001);
+
+      double mean = 0.0;
+      for (double sample : samples)
+         mean += sample;
+      mean /= numberOfSamples;
+
+      double variance = 0.0;
+      for (double sample : samples)
+         variance += (sample - mean) * (sample - mean);
+      variance /= numberOfSamples;
+
+      assertEquals(0.0, mean, 0.01);
+      assertEquals(1.0, variance, 0.02);
+
+      BlockGaussianRandomGenerator sameSeed = new BlockGaussianRandomGenerator(1234L);
+      for (int i = 0; i < 5000; i++)
+         assertEquals(samples[i], sameSeed.nextGaussian(), 0.0);
+
+      assertFalse(random.split().nextGaussian() == random.nextGaussian());
+   }
+
+   @Test // timeout=300000
+   public void testBlockGaussianRandomGeneratorSetPosition()
+   {
+      BlockGaussianRandomGenerator random = new BlockGaussianRandomGenerator(77L, 16);
+      double[] samples = new double[100];
+      random.nextGaussians(samples, 0, samples.length);
+      assertEquals(samples.length, random.getPosition());
+
+      // Backward within a block, across blocks, and to an odd position.
+      int[] positions = {99, 3, 50, 17, 0, 64};
+
+      for (int position : positions)
+      {
+         random.setPosition(position);
+         assertEquals(samples[position], random.nextGaussian(), 0.0);
+         assertEquals(position + 1, random.getPosition());
+      }
+   }
+
+   @Test // timeout=300000
+   public void testMeasurementsAreReplayedAfterRewind()
+   {
+      Robot robot = new Robot("Test");
+      FloatingJoint rootJoint = createFloatingJoint(robot);
+      IMUMount mount = new IMUMount("imu", new RigidBodyTransform(), robot);
+      mount.setAngularVelocityNoiseParameters(0.0, 0.01);
+      mount.setAngularVelocityBiasParameters(0.0, 0.1);
+      mount.setAccelerationNoiseParameters(0.0, 0.1);
+      mount.setAccelerationBiasParameters(0.0, 0.1);
+      rootJoint.addIMUMount(mount);
+      robot.update();
+      IMUSensorStage stage = robot.createIMUSensorStage(5L, DT);
+
+      for (int i = 0; i < 10; i++)
+         robot.updateIMUMountAccelerations();
+
+      List<YoVariable> variables = robot.getRobotsYoRegistry().collectSubtreeVariables();
+      double[] savedValues = new double[variables.size()];
+      for (int i = 0; i < variables.size(); i++)
+         savedValues[i] = variables.get(i).getValueAsDouble();
+
+      Vector3D[] firstRun = new Vector3D[10];
+      for (int i = 0; i < firstRun.length; i++)
+      {
+         robot.updateIMUMountAccelerations();
+         firstRun[i] = new Vector3D();
+         stage.getMeasuredLinearAcceleration(0, firstRun[i]);
+      }
+
+      // Rewinding restores the variables, the stage has to continue from them.
+      for (int i = 0; i < variables.size(); i++)
+         variables.get(i).setValueFromDouble(savedValues[i]);
+
+      Vector3D measured = new Vector3D();
+      for (int i = 0; i < firstRun.length; i++)
+      {
+         robot.updateIMUMountAccelerations();
+         stage.getMeasuredLinearAcceleration(0, measured);
+         assertTrue(firstRun[i].equals(measured));
+      }
+   }
+
+   @Test // timeout=300000
+   public void testStageIsCreatedOncePerRobot()
+   {
+      Robot robot = createRobotWithIMUs(1);
+
+      IMUSensorStage stage = robot.getIMUSensorStage();
+
+      Assertions.assertThrows(RuntimeException.class, () -> robot.createIMUSensorStage(1L, DT));
+      assertTrue(robot.getIMUSensorStage() == stage);
+   }
+
+   private static Vector3D[] simulateNoisyMeasurements(long seed)
+   {
+      Robot robot = new Robot("Test");
+      FloatingJoint rootJoint = createFloatingJoint(robot);
+      IMUMount mount = new IMUMount("imu", new RigidBodyTransform(), robot);
+      mount.setAngularVelocityNoiseParameters(0.0, 0.01);
+      mount.setAngularVelocityBiasParameters(0.0, 0.001);
+      mount.setAccelerationNoiseParameters(0.0, 0.1);
+      mount.setAccelerationBiasParameters(0.0, 0.01);
+      rootJoint.addIMUMount(mount);
+      robot.update();
+
+      IMUSensorStage stage = robot.createIMUSensorStage(seed, DT);
+      Vector3D[] measurements = new Vector3D[20];
+
+      for (int i = 0; i < measurements.length; i += 2)
+      {
+         robot.updateIMUMountAccelerations();
+         measurements[i] = new Vector3D();
+         measurements[i + 1] = new Vector3D();
+         stage.getMeasuredAngularVelocity(0, measurements[i]);
+         stage.getMeasuredLinearAcceleration(0, measurements[i + 1]);
+      }
+
+      return measurements;
+   }
+
+   private static Robot createRobotWithIMUs(int numberOfIMUs)
+   {
+      Robot robot = new Robot("Test");
+      FloatingJoint rootJoint = createFloatingJoint(robot);
+      rootJoint.setAngularVelocityInBody(new Vector3D(0.1, -0.2, 0.3));
+
+      for (int i = 0; i < numberOfIMUs; i++)
+      {
+         RigidBodyTransform transformToJoint = new RigidBodyTransform();
+         transformToJoint.getTranslation().set(0.1 * i, 0.0, 0.05);
+         rootJoint.addIMUMount(new IMUMount("imu" + i, transformToJoint, robot));
+      }
+
+      robot.update();
+      robot.createIMUSensorStage(0L, DT);
+
+      return robot;
+   }
+
+   private static FloatingJoint createFloatingJoint(Robot robot)
+   {
+      FloatingJoint rootJoint = new FloatingJoint("root", new Vector3D(), robot);
+      Link link = new Link("body");
+      link.setMass(1.0);
+      link.setMomentOfInertia(0.1, 0.1, 0.1);
+      rootJoint.setLink(link);
+      robot.addRootJoint(rootJoint);
+
+      return rootJoint;
+   }
+
+   private static void assertMeasurementsEqualIdealValues(Robot robot, double bias)
+   {
+      IMUSensorStage stage = robot.getIMUSensorStage();
+      Vector3D ideal = new Vector3D();
+      Vector3D measured = new Vector3D();
+
+      for (int i = 0; i < stage.getIMUMounts().size(); i++)
+      {
+         IMUMount mount = stage.getIMUMounts().get(i);
+
+         mount.getAngularVelocityInBody(ideal);
+         stage.getMeasuredAngularVelocity(i, measured);
+         assertEquals(ideal.getX() + bias, measured.getX(), EPSILON);
+         assertEquals(ideal.getY() + bias, measured.getY(), EPSILON);
+         assertEquals(ideal.getZ() + bias, measured.getZ(), EPSILON);
+
+         mount.getLinearAccelerationInBody(ideal);
+         stage.getMeasuredLinearAcceleration(i, measured);
+         assertEquals(ideal.getX() + bias, measured.getX(), EPSILON);
+         assertEquals(ideal.getY() + bias, measured.getY(), EPSILON);
+         assertEquals(ideal.getZ() + bias, measured.getZ(), EPSILON);
+      }
+   }
+}
@@ -0,0 +1,169 @@
+package us.ihmc.simulationconstructionset;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.tools.EuclidCoreTestTools;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.synchronization.SimulationSynchronizer;
+import us.ihmc.simulationconstructionset.util.ImplicitLinearStickSlipGroundContactModel;
+import us.ihmc.simulationconstructionset.util.LinearStickSlipGroundContactModel;
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+public class ImplicitLinearStickSlipGroundContactModelTest
+{
+   private static final double MASS = 1.0;
+
+   @Test // timeout=300000
+   public void testSameForceAsExplicitModelForPointsAtRest()
+   {
+      YoRegistry registry = new YoRegistry("TestRegistry");
+
+      GroundContactPoint explicitPoint = new GroundContactPoint("explicitPoint", registry);
+      GroundContactPoint implicitPoint = new GroundContactPoint("implicitPoint", registry);
+
+      LinearStickSlipGroundContactModel explicitModel = new LinearStickSlipGroundContactModel(createGroundContactPointsHolder(explicitPoint),
+                                                                                              new YoRegistry("Explicit"));
+      ImplicitLinearStickSlipGroundContactModel implicitModel = new ImplicitLinearStickSlipGroundContactModel(createGroundContactPointsHolder(implicitPoint),
+                                                                                                              new YoRegistry("Implicit"));
+
+      Random random = new Random(1776L);
+      Vector3D explicitForce = new Vector3D();
+      Vector3D implicitForce = new Vector3D();
+
+      for (int i = 0; i < 1000; i++)
+      {
+         Point3D position = EuclidCoreRandomTools.nextPoint3D(random, 0.01, 0.01, 0.01);
+
+         explicitPoint.setPosition(position);
+         explicitPoint.setVelocity(new Vector3D());
+         implicitPoint.setPosition(position);
+         implicitPoint.setVelocity(new Vector3D());
+
+         explicitModel.doGroundContact();
+         implicitModel.doGroundContact();
+
+         explicitPoint.getForce(explicitForce);
+         implicitPoint.getForce(implicitForce);
+
+         EuclidCoreTestTools.assertTuple3DEquals(explicitForce, implicitForce, 1.0e-7);
+         assertTrue(explicitPoint.isInContact() == implicitPoint.isInContact());
+      }
+   }
+
+   @Test // timeout=300000
+   public void testStiffContactIsStableAndMatchesTheExplicitModelAtRest() throws UnreasonableAccelerationException
+   {
+      double groundKxy = 50000.0, groundBxy = 2000.0, groundKz = 2000.0, groundBz = 2000.0;
+
+      // Reference: explicit model with a time step small enough for these stiffnesses.
+      List<GroundContactPoint> explicitPoints = new ArrayList<>();
+      Robot explicitRobot = createBox("explicitBox", explicitPoints);
+      explicitRobot.setGroundContactModel(new LinearStickSlipGroundContactModel(explicitRobot,
+                                                                                groundKxy,
+                                                                                groundBxy,
+                                                                                groundKz,
+                                                                                groundBz,
+                                                                                0.7,
+                                                                                0.7,
+                                                                                explicitRobot.getRobotsYoRegistry()));
+      simulate(explicitRobot, 1.0e-5, 1.0);
+
+      List<GroundContactPoint> implicitPoints = new ArrayList<>();
+      Robot implicitRobot = createBox("implicitBox", implicitPoints);
+      double dt = 0.001;
+      implicitRobot.setGroundContactModel(new ImplicitLinearStickSlipGroundContactModel(implicitRobot,
+                                                                                        groundKxy,
+                                                                                        groundBxy,
+                                                                                        groundKz,
+                                                                                        groundBz,
+                                                                                        implicitRobot.getRobotsYoRegistry()));
+      simulate(implicitRobot, dt, 1.0);
+
+      FloatingJoint implicitJoint = (FloatingJoint) implicitRobot.getRootJoints().get(0);
+      Vector3D velocity = new Vector3D();
+      implicitJoint.getVelocity(velocity);
+      assertEquals(0.0, velocity.length(), 1.0e-3);
+
+      Vector3D explicitForce = new Vector3D();
+      Vector3D implicitForce = new Vector3D();
+      double totalVerticalForce = 0.0;
+
+      for (int i = 0; i < implicitPoints.size(); i++)
+      {
+         explicitPoints.get(i).getForce(explicitForce);
+         implicitPoints.get(i).getForce(implicitForce);
+
+         EuclidCoreTestTools.assertTuple3DEquals(explicitForce, implicitForce, 0.01);
+         totalVerticalForce += implicitForce.getZ();
+      }
+
+      assertEquals(MASS * 9.81, totalVerticalForce, 0.01);
+   }
+
+   @Test // timeout=300000
+   public void testIntegrationDTFollowsTheSimulatorAndTheSubsteps()
+   {
+      Robot robot = createBox("box", new ArrayList<>());
+      assertTrue(Double.isNaN(robot.getIntegrationDT()));
+
+      Simulator simulator = new Simulator(new SimulationSynchronizer(), new Robot[] {robot}, 0.002);
+      assertEquals(0.002, robot.getIntegrationDT(), 1.0e-15);
+
+      robot.setNumberOfSubsteps(4);
+      assertEquals(0.0005, robot.getIntegrationDT(), 1.0e-15);
+
+      simulator.setDT(0.004);
+      assertEquals(0.001, robot.getIntegrationDT(), 1.0e-15);
+   }
+
+   private static Robot createBox(String name, List<GroundContactPoint> groundContactPointsToPack)
+   {
+      Robot robot = new Robot(name);
+      FloatingJoint floatingJoint = new FloatingJoint(name + "Root", new Vector3D(), robot);
+      Link link = new Link(name + "Link");
+      link.setMass(MASS);
+      link.setMomentOfInertia(0.004, 0.004, 0.007);
+      floatingJoint.setLink(link);
+      robot.addRootJoint(floatingJoint);
+
+      for (double x : new double[] {-0.1, 0.1})
+      {
+         for (double y : new double[] {-0.1, 0.1})
+         {
+            GroundContactPoint groundContactPoint = new GroundContactPoint(name + "Point" + groundContactPointsToPack.size(), new Vector3D(x, y, -0.05), robot);
+            floatingJoint.addGroundContactPoint(groundContactPoint);
+            groundContactPointsToPack.add(groundContactPoint);
+         }
+      }
+
+      floatingJoint.setPosition(0.0, 0.0, 0.06);
+
+      return robot;
+   }
+
+   private static void simulate(Robot robot, double dt, double duration) throws UnreasonableAccelerationException
+   {
+      Simulator simulator = new Simulator(new SimulationSynchronizer(), new Robot[] {robot}, dt);
+      int numberOfTicks = (int) Math.round(duration / dt);
+
+      for (int i = 0; i < numberOfTicks; i++)
+         simulator.simulate();
+   }
+
+   private static GroundContactPointsHolder createGroundContactPointsHolder(GroundContactPoint groundContactPoint)
+   {
+      final ArrayList<GroundContactPoint> groundContactPoints = new ArrayList<>();
+      groundContactPoints.add(groundContactPoint);
+
+      return groundContactGroupIdentifier -> groundContactPoints;
+   }
+}
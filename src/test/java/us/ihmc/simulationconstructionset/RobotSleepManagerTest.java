@@ -0,0 +1,226 @@
+package us.ihmc.simulationconstructionset;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.Axis3D;
+import us.ihmc.euclid.tools.EuclidCoreTestTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeFactory;
+import us.ihmc.simulationconstructionset.physics.ScsCollisionDetector;
+import us.ihmc.simulationconstructionset.physics.SimpleCollisionShapeWithLink;
+import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
+import us.ihmc.simulationconstructionset.physics.collision.SequentialImpulseCollisionHandler;
+import us.ihmc.simulationconstructionset.physics.collision.simple.DoNothingCollisionArbiter;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SimpleContactWrapper;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SphereShapeDescription;
+import us.ihmc.simulationconstructionset.synchronization.SimulationSynchronizer;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+public class RobotSleepManagerTest
+{
+   private static final double DT = 0.001;
+
+   @Test // timeout=300000
+   public void testRestingPendulumFallsAsleepAndWakesUp() throws UnreasonableAccelerationException
+   {
+      Robot robot = new Robot("pendulum");
+      PinJoint pin = new PinJoint("pin", new Vector3D(), robot, Axis3D.Y);
+      Link link = new Link("link");
+      link.setMass(1.0);
+      link.setComOffset(0.0, 0.0, -1.0);
+      link.setMomentOfInertia(0.1, 0.1, 0.1);
+      pin.setLink(link);
+      robot.addRootJoint(pin);
+
+      RobotSleepManager sleepManager = robot.enableSleeping(1.0e-3, 1.0e-3, 0.1);
+      Simulator simulator = new Simulator(new SimulationSynchronizer(), new Robot[] {robot}, DT);
+
+      // Hanging straight down, the pendulum is at rest from the start.
+      for (int i = 0; i < 200; i++)
+         simulator.simulate();
+
+      assertTrue(sleepManager.isSleeping());
+      assertEquals(200 * DT, robot.getTime(), 1.0e-9);
+      assertEquals(0.0, pin.getQYoVariable().getDoubleValue(), 1.0e-12);
+
+      // The time keeps advancing while sleeping.
+      simulator.simulate();
+      assertTrue(sleepManager.isSleeping());
+      assertEquals(201 * DT, robot.getTime(), 1.0e-9);
+
+      // Applying a torque is a change of one of the robot variables.
+      pin.setTau(5.0);
+      simulator.simulate();
+      assertFalse(sleepManager.isSleeping());
+      assertEquals(1, sleepManager.getNumberOfWakeUps());
+
+      for (int i = 0; i < 100; i++)
+         simulator.simulate();
+
+      assertFalse(sleepManager.isSleeping());
+      assertTrue(pin.getQYoVariable().getDoubleValue() > 1.0e-3);
+   }
+
+   @Test // timeout=300000
+   public void testSleepingStateIsRestoredOnRewind() throws UnreasonableAccelerationException
+   {
+      Robot robot = createPendulum("pendulum");
+      // A robot that does not sleep has none of the variables of the sleep manager.
+      assertTrue(robot.getSleepManager() == null);
+      assertTrue(robot.getRobotsYoRegistry().findVariable("pendulumIsSleeping") == null);
+
+      RobotSleepManager sleepManager = robot.enableSleeping(1.0e-3, 1.0e-3, 0.1);
+      assertTrue(robot.getSleepManager() == sleepManager);
+      assertTrue(robot.getRobotsYoRegistry().findVariable("pendulumIsSleeping") != null);
+      Simulator simulator = new Simulator(new SimulationSynchronizer(), new Robot[] {robot}, DT);
+
+      for (int i = 0; i < 200; i++)
+         simulator.simulate();
+
+      assertTrue(sleepManager.isSleeping());
+
+      List<YoVariable> variables = robot.getRobotsYoRegistry().collectSubtreeVariables();
+      double[] savedValues = new double[variables.size()];
+      for (int i = 0; i < variables.size(); i++)
+         savedValues[i] = variables.get(i).getValueAsDouble();
+
+      for (int i = 0; i < 50; i++)
+         simulator.simulate();
+
+      // Rewinding restores the time and the tick counter, the robot keeps sleeping.
+      for (int i = 0; i < variables.size(); i++)
+         variables.get(i).setValueFromDouble(savedValues[i]);
+
+      simulator.simulate();
+      assertTrue(sleepManager.isSleeping());
+      assertEquals(0, sleepManager.getNumberOfWakeUps());
+   }
+
+   @Test // timeout=300000
+   public void testSleepingRobotWakesUpWhenTouchingMovingBody() throws UnreasonableAccelerationException
+   {
+      Robot sleeper = createPendulum("sleeper");
+      Robot support = createPendulum("support");
+      RobotSleepManager sleeperSleepManager = sleeper.enableSleeping(1.0e-3, 1.0e-3, 0.1);
+      RobotSleepManager supportSleepManager = support.enableSleeping(1.0e-3, 1.0e-3, 0.1);
+      PinJoint supportPin = (PinJoint) support.getRootJoints().get(0);
+
+      SimpleCollisionShapeWithLink sleeperShape = new SimpleCollisionShapeWithLink(sleeper.getRootJoints().get(0).getLink(), new SphereShapeDescription<>(0.1, new Point3D()), null);
+      SimpleCollisionShapeWithLink supportShape = new SimpleCollisionShapeWithLink(supportPin.getLink(), new SphereShapeDescription<>(0.1, new Point3D()), null);
+      boolean[] inContact = {false};
+
+      Simulator simulator = new Simulator(new SimulationSynchronizer(), new Robot[] {sleeper, support}, DT);
+      simulator.setCollisions(new ScsCollisionDetector()
+      {
+         @Override
+         public void initialize()
+         {
+         }
+
+         @Override
+         public CollisionShapeFactory getShapeFactory()
+         {
+            return null;
+         }
+
+         @Override
+         public void performCollisionDetection(CollisionDetectionResult result)
+         {
+            if (inContact[0])
+               result.addContact(new SimpleContactWrapper(sleeperShape, supportShape));
+         }
+      }, new DoNothingCollisionArbiter(), new SequentialImpulseCollisionHandler(0.0, 0.5, DT), null);
+
+      for (int i = 0; i < 200; i++)
+         simulator.simulate();
+
+      assertTrue(sleeperSleepManager.isSleeping());
+      assertTrue(supportSleepManager.isSleeping());
+
+      // Touching a sleeping body does not wake up.
+      inContact[0] = true;
+      simulator.simulate();
+      assertTrue(sleeperSleepManager.isSleeping());
+
+      // The support starts moving.
+      supportPin.getQDYoVariable().set(1.0);
+      simulator.simulate();
+      assertFalse(supportSleepManager.isSleeping());
+      assertFalse(sleeperSleepManager.isSleeping());
+   }
+
+   @Test // timeout=300000
+   public void testIMUOfSleepingRobotMeasuresGravityOnly() throws UnreasonableAccelerationException
+   {
+      Robot robot = createPendulum("pendulum");
+      PinJoint pin = (PinJoint) robot.getRootJoints().get(0);
+      IMUMount imuMount = new IMUMount("imu", new RigidBodyTransform(), robot);
+      pin.addIMUMount(imuMount);
+
+      RobotSleepManager sleepManager = robot.enableSleeping(1.0e-3, 1.0e-3, 0.1);
+      Simulator simulator = new Simulator(new SimulationSynchronizer(), new Robot[] {robot}, DT);
+
+      for (int i = 0; i < 200; i++)
+         simulator.simulate();
+
+      assertTrue(sleepManager.isSleeping());
+
+      // Accelerations left over from before a rewind, they are not recorded.
+      pin.physics.a_hat_i.top.set(1.0, 2.0, 3.0);
+      pin.physics.a_hat_i.bottom.set(4.0, 5.0, 6.0);
+      simulator.simulate();
+      assertTrue(sleepManager.isSleeping());
+
+      Vector3D linearAcceleration = new Vector3D();
+      Vector3D angularAcceleration = new Vector3D();
+      imuMount.getLinearAccelerationInBody(linearAcceleration);
+      imuMount.getAngularAccelerationInBody(angularAcceleration);
+
+      EuclidCoreTestTools.assertTuple3DEquals(new Vector3D(0.0, 0.0, 9.81), linearAcceleration, 1.0e-9);
+      EuclidCoreTestTools.assertTuple3DEquals(new Vector3D(), angularAcceleration, 1.0e-9);
+   }
+
+   private static Robot createPendulum(String name)
+   {
+      Robot robot = new Robot(name);
+      PinJoint pin = new PinJoint("pin", new Vector3D(), robot, Axis3D.Y);
+      Link link = new Link("link");
+      link.setMass(1.0);
+      link.setComOffset(0.0, 0.0, -1.0);
+      link.setMomentOfInertia(0.1, 0.1, 0.1);
+      pin.setLink(link);
+      robot.addRootJoint(pin);
+      return robot;
+   }
+
+   @Test // timeout=300000
+   public void testSwingingPendulumStaysAwake() throws UnreasonableAccelerationException
+   {
+      Robot robot = new Robot("pendulum");
+      PinJoint pin = new PinJoint("pin", new Vector3D(), robot, Axis3D.Y);
+      Link link = new Link("link");
+      link.setMass(1.0);
+      link.setComOffset(0.0, 0.0, -1.0);
+      link.setMomentOfInertia(0.1, 0.1, 0.1);
+      pin.setLink(link);
+      robot.addRootJoint(pin);
+      pin.setQ(0.5);
+
+      RobotSleepManager sleepManager = robot.enableSleeping(1.0e-3, 1.0e-3, 0.1);
+      Simulator simulator = new Simulator(new SimulationSynchronizer(), new Robot[] {robot}, DT);
+
+      for (int i = 0; i < 1000; i++)
+      {
+         simulator.simulate();
+         assertFalse(sleepManager.isSleeping());
+      }
+   }
+}
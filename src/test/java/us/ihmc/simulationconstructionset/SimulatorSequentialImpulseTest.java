@@ -0,0 +1,95 @@
+package us.ihmc.simulationconstructionset;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeFactory;
+import us.ihmc.simulationconstructionset.physics.collision.SequentialImpulseCollisionHandler;
+import us.ihmc.simulationconstructionset.physics.collision.simple.DoNothingCollisionArbiter;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SimpleCollisionDetector;
+import us.ihmc.simulationconstructionset.synchronization.SimulationSynchronizer;
+
+public class SimulatorSequentialImpulseTest
+{
+   private static final double MASS = 1.0;
+
+   @Test // timeout = 300000
+   public void testBoxStackIsStableAtLargeTimeSteps() throws UnreasonableAccelerationException
+   {
+      // 5 and 10 times the 1 ms usually needed by the penalty based collision handlers.
+      for (double dt : new double[] {0.005, 0.01})
+      {
+         SimpleCollisionDetector collisionDetector = new SimpleCollisionDetector();
+         CollisionShapeFactory shapeFactory = collisionDetector.getShapeFactory();
+
+         CollisionShape ground = shapeFactory.addShape(shapeFactory.createBox(2.0, 2.0, 0.1));
+         ground.setIsGround(true);
+         RigidBodyTransform groundTransform = new RigidBodyTransform();
+         groundTransform.getTranslation().set(0.0, 0.0, -0.1);
+         ground.setTransformToWorld(groundTransform);
+
+         // Dropped from 1 cm above their resting heights.
+         FloatingJoint bottomBox = createFallingBox("bottom", 0.06, shapeFactory);
+         FloatingJoint topBox = createFallingBox("top", 0.16, shapeFactory);
+         Robot[] robots = {bottomBox.getRobot(), topBox.getRobot()};
+
+         SequentialImpulseCollisionHandler collisionHandler = new SequentialImpulseCollisionHandler(0.0, 0.7, dt);
+         Simulator simulator = new Simulator(new SimulationSynchronizer(), robots, dt);
+         simulator.setCollisions(collisionDetector, new DoNothingCollisionArbiter(), collisionHandler, null);
+
+         Point3D position = new Point3D();
+         Vector3D velocity = new Vector3D();
+
+         for (int i = 0; i < (int) Math.round(2.0 / dt); i++)
+         {
+            simulator.simulate();
+            assertEquals(0, collisionHandler.getNumberOfIgnoredContacts());
+
+            // No sinking through the ground or through the other box at any time.
+            bottomBox.getPosition(position);
+            assertTrue(position.getZ() > 0.05 - 0.01);
+            topBox.getPosition(position);
+            assertTrue(position.getZ() > 0.15 - 0.01);
+         }
+
+         FloatingJoint[] boxes = {bottomBox, topBox};
+         double[] restingHeights = {0.05, 0.15};
+
+         for (int i = 0; i < boxes.length; i++)
+         {
+            boxes[i].getPosition(position);
+            boxes[i].getVelocity(velocity);
+
+            assertEquals(restingHeights[i], position.getZ(), 0.005);
+            assertEquals(0.0, position.getX(), 0.005);
+            assertEquals(0.0, position.getY(), 0.005);
+            assertTrue(velocity.length() < 0.01);
+            assertTrue(boxes[i].getAngularVelocityInBody().length() < 0.05);
+         }
+      }
+   }
+
+   private static FloatingJoint createFallingBox(String name, double height, CollisionShapeFactory shapeFactory)
+   {
+      Robot robot = new Robot(name);
+      FloatingJoint floatingJoint = new FloatingJoint(name + "Root", new Vector3D(), robot);
+      Link link = new Link(name + "Body");
+      link.setMass(MASS);
+      link.setMomentOfInertia(0.004, 0.004, 0.007);
+      floatingJoint.setLink(link);
+      robot.addRootJoint(floatingJoint);
+      link.enableContactingExternalForcePoints(8, robot.getRobotsYoRegistry());
+
+      shapeFactory.addShape(link, new RigidBodyTransform(), shapeFactory.createBox(0.1, 0.1, 0.05), false, 0xFFFF, 0xFFFF);
+
+      floatingJoint.setPosition(0.0, 0.0, height);
+      robot.update();
+      return floatingJoint;
+   }
+}
@@ -0,0 +1,60 @@
+package us.ihmc.simulationconstructionset;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.Axis3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.synchronization.SimulationSynchronizer;
+
+public class SimulatorSubstepTest
+{
+   @Test // timeout=300000
+   public void testSubstepsMatchASmallerTimeStep() throws UnreasonableAccelerationException
+   {
+      double dt = 0.004;
+      int numberOfSubsteps = 4;
+
+      Robot substepped = createPendulum("substepped");
+      substepped.setNumberOfSubsteps(numberOfSubsteps);
+      Robot reference = createPendulum("reference");
+
+      Simulator substeppedSimulator = new Simulator(new SimulationSynchronizer(), new Robot[] {substepped}, dt);
+      Simulator referenceSimulator = new Simulator(new SimulationSynchronizer(), new Robot[] {reference}, dt / numberOfSubsteps);
+
+      for (int i = 0; i < 250; i++)
+      {
+         substeppedSimulator.simulate();
+
+         for (int j = 0; j < numberOfSubsteps; j++)
+            referenceSimulator.simulate();
+
+         assertEquals((i + 1) * dt, substepped.getTime(), 1.0e-12);
+         assertEquals(getQ(reference), getQ(substepped), 1.0e-10);
+      }
+
+      assertEquals(250 * numberOfSubsteps, substepped.getSubstepCounter());
+      // One integration step per tick when not substepped.
+      assertEquals(250 * numberOfSubsteps, reference.getSubstepCounter());
+   }
+
+   private static double getQ(Robot robot)
+   {
+      return ((PinJoint) robot.getRootJoints().get(0)).getQYoVariable().getDoubleValue();
+   }
+
+   private static Robot createPendulum(String name)
+   {
+      Robot robot = new Robot(name);
+      PinJoint pin = new PinJoint("pin", new Vector3D(), robot, Axis3D.Y);
+      Link link = new Link("link");
+      link.setMass(1.0);
+      link.setComOffset(0.0, 0.0, -1.0);
+      link.setMomentOfInertia(0.1, 0.1, 0.1);
+      pin.setLink(link);
+      robot.addRootJoint(pin);
+      pin.setQ(1.0);
+      return robot;
+   }
+}
@@ -0,0 +1,52 @@
+package us.ihmc.simulationconstructionset.dataBuffer;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.simulationconstructionset.SimulationConstructionSetParameters;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+
+public class SimulationConstructionSetSummaryIndexTest
+{
+   @Test // timeout=300000
+   public void testIndexFollowsTickAndUpdate()
+   {
+      Robot robot = new Robot("testRobot");
+      SimulationConstructionSetParameters parameters = SimulationConstructionSetParameters.createFromSystemProperties();
+      parameters.setCreateGUI(false);
+      parameters.setDataBufferSize(1024);
+      SimulationConstructionSet scs = new SimulationConstructionSet(robot, parameters);
+
+      YoRegistry registry = new YoRegistry("testRegistry");
+      YoDouble variable = new YoDouble("variable", registry);
+      scs.addYoRegistry(registry);
+
+      // Created before recording, so that it has to be kept up to date.
+      YoBufferSummaryIndex summaryIndex = scs.getDataBufferSummaryIndex();
+      int startIndex = scs.getDataBuffer().getCurrentIndex();
+      assertEquals(0.0, summaryIndex.summarize(variable, startIndex, startIndex).getMax(), 0.0);
+
+      for (int i = 1; i <= 100; i++)
+      {
+         variable.set(i);
+
+         if (i % 2 == 0)
+            scs.tickAndUpdate();
+         else
+            scs.tickAndUpdateLeisurely(10);
+      }
+
+      int endIndex = scs.getDataBuffer().getCurrentIndex();
+      YoBufferRangeSummary summary = summaryIndex.summarize(variable, startIndex + 1, endIndex);
+      assertEquals(100, summary.getNumberOfSamples());
+      assertEquals(1.0, summary.getMin(), 0.0);
+      assertEquals(100.0, summary.getMax(), 0.0);
+      assertEquals(50.5, summary.getMean(), 1.0e-12);
+
+      scs.closeAndDispose();
+   }
+}
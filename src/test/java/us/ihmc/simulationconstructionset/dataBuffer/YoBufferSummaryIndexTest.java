@@ -0,0 +1,136 @@
+package us.ihmc.simulationconstructionset.dataBuffer;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.yoVariables.buffer.YoBuffer;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+
+public class YoBufferSummaryIndexTest
+{
+   private static final int BUFFER_SIZE = 1000;
+   private static final int BLOCK_SIZE = 16;
+   private static final double EPSILON = 1.0e-9;
+
+   @Test // timeout=300000
+   public void testRangesAgainstBruteForce()
+   {
+      Random random = new Random(4587L);
+      YoRegistry registry = new YoRegistry("testRegistry");
+      YoDouble variable = new YoDouble("variable", registry);
+      YoBuffer dataBuffer = new YoBuffer(BUFFER_SIZE);
+      dataBuffer.addVariable(variable);
+
+      YoBufferSummaryIndex summaryIndex = new YoBufferSummaryIndex(dataBuffer, BLOCK_SIZE);
+
+      for (int i = 0; i < BUFFER_SIZE; i++)
+      {
+         variable.set(random.nextGaussian());
+         dataBuffer.tickAndWriteIntoBuffer();
+         summaryIndex.dataRecorded();
+      }
+
+      for (int i = 0; i < 500; i++)
+      {
+         // Keep recording between the queries so that the dirty blocks get recomputed.
+         for (int j = random.nextInt(50); j > 0; j--)
+         {
+            variable.set(3.0 * random.nextGaussian());
+            dataBuffer.tickAndWriteIntoBuffer();
+            summaryIndex.dataRecorded();
+         }
+
+         int fromIndex = random.nextInt(BUFFER_SIZE);
+         int toIndex = random.nextInt(BUFFER_SIZE);
+         double threshold = random.nextGaussian();
+
+         assertRangeEquals(dataBuffer.getEntry(variable).getBuffer(), fromIndex, toIndex, summaryIndex.summarize(variable, fromIndex, toIndex));
+         assertEquals(countThresholdCrossings(dataBuffer.getEntry(variable).getBuffer(), fromIndex, toIndex, threshold),
+                      summaryIndex.countThresholdCrossings(variable, fromIndex, toIndex, threshold));
+      }
+   }
+
+   @Test // timeout=300000
+   public void testBetweenInAndOutPoints()
+   {
+      YoRegistry registry = new YoRegistry("testRegistry");
+      YoDouble variable = new YoDouble("variable", registry);
+      YoBuffer dataBuffer = new YoBuffer(BUFFER_SIZE);
+      dataBuffer.addVariable(variable);
+
+      YoBufferSummaryIndex summaryIndex = new YoBufferSummaryIndex(dataBuffer, BLOCK_SIZE);
+
+      variable.set(0.0);
+      dataBuffer.writeIntoBuffer();
+
+      for (int i = 1; i < 101; i++)
+      {
+         variable.set(i % 2 == 0 ? 1.0 : -1.0);
+         dataBuffer.tickAndWriteIntoBuffer();
+         summaryIndex.dataRecorded();
+      }
+
+      dataBuffer.setInPoint(0);
+      dataBuffer.setOutPoint(100);
+
+      YoBufferRangeSummary summary = summaryIndex.summarizeBetweenInAndOutPoints(variable);
+      assertEquals(101, summary.getNumberOfSamples());
+      assertEquals(-1.0, summary.getMin(), EPSILON);
+      assertEquals(1.0, summary.getMax(), EPSILON);
+      assertEquals(0.0, summary.getMean(), EPSILON);
+      assertEquals(Math.sqrt(100.0 / 101.0), summary.getRMS(), EPSILON);
+      assertEquals(0.1 * (0.0 - 0.5 * (0.0 + 1.0)), summary.getIntegral(0.1), EPSILON);
+      assertEquals(99, summaryIndex.countThresholdCrossingsBetweenInAndOutPoints(variable, 0.5));
+
+      // The buffer changed as a whole, without notification.
+      dataBuffer.cropBuffer();
+      summaryIndex.invalidate();
+      assertRangeEquals(dataBuffer.getEntry(variable).getBuffer(), 0, dataBuffer.getBufferSize() - 1, summaryIndex.summarizeWholeBuffer(variable));
+   }
+
+   private static void assertRangeEquals(double[] data, int fromIndex, int toIndex, YoBufferRangeSummary summary)
+   {
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      double sum = 0.0;
+      double sumOfSquares = 0.0;
+      int numberOfSamples = 0;
+
+      for (int i = fromIndex;; i = (i + 1) % data.length)
+      {
+         min = Math.min(min, data[i]);
+         max = Math.max(max, data[i]);
+         sum += data[i];
+         sumOfSquares += data[i] * data[i];
+         numberOfSamples++;
+
+         if (i == toIndex)
+            break;
+      }
+
+      assertEquals(numberOfSamples, summary.getNumberOfSamples());
+      assertEquals(min, summary.getMin(), 0.0);
+      assertEquals(max, summary.getMax(), 0.0);
+      assertEquals(sum / numberOfSamples, summary.getMean(), EPSILON);
+      assertEquals(Math.sqrt(sumOfSquares / numberOfSamples), summary.getRMS(), EPSILON);
+      assertEquals(data[fromIndex], summary.getFirstValue(), 0.0);
+      assertEquals(data[toIndex], summary.getLastValue(), 0.0);
+   }
+
+   private static int countThresholdCrossings(double[] data, int fromIndex, int toIndex, double threshold)
+   {
+      int count = 0;
+
+      for (int i = fromIndex; i != toIndex; i = (i + 1) % data.length)
+      {
+         if ((data[i] < threshold) != (data[(i + 1) % data.length] < threshold))
+            count++;
+      }
+
+      return count;
+   }
+}
@@ -0,0 +1,98 @@
+package us.ihmc.simulationconstructionset.gui;
+
+import static us.ihmc.robotics.Assert.assertArrayEquals;
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertNull;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Point;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.simulationconstructionset.GraphConfiguration;
+import us.ihmc.simulationconstructionset.gui.GUIConfigurationDescription.EntryBoxTabDescription;
+import us.ihmc.simulationconstructionset.gui.GUIConfigurationDescription.GraphGroupDescription;
+import us.ihmc.simulationconstructionset.gui.GUIConfigurationDescription.GraphWindowDescription;
+
+public class GUIConfigurationDescriptionTest
+{
+   @Test // timeout=300000
+   public void testParseSavedConfiguration()
+   {
+      String configuration = "";
+      configuration += graphGroup(2, "root.robot.q_x,root.robot.q_y", "root.robot.t");
+      configuration += "\n<Entry Boxes Tab Pane>";
+      configuration += "\n<EntryBoxTab>\n<Title>\nTab0\n</Title>\n<Entry Boxes>root.robot.a, root.robot.b</Entry Boxes>\n</EntryBoxTab>";
+      configuration += "\n<EntryBoxTab>\n<Title>\nTab1\n</Title>\n<Entry Boxes></Entry Boxes>\n</EntryBoxTab>";
+      configuration += "\n</Entry Boxes Tab Pane>";
+      configuration += "\n<Graph Array Window Size>2</Graph Array Window Size>\n";
+      configuration += "<Graph Array Window1>\n<ScreenID>0</ScreenID>\n<WindowLocation>10.0, 20.0</WindowLocation>\n<WindowSize>300.0, 400.0</WindowSize>\n";
+      configuration += graphGroup(1, "root.robot.c");
+      configuration += "\n</Graph Array Window1>";
+      configuration += "<Graph Array Window2>\n<ScreenID>1</ScreenID>\n";
+      configuration += graphGroup(3, "root.robot.d", "root.robot.e", "root.robot.f");
+      configuration += "\n</Graph Array Window2>";
+      // As read from the file, the lines are concatenated.
+      configuration = configuration.replace("\n", "");
+
+      GUIConfigurationDescription description = new GUIConfigurationDescription(configuration);
+
+      GraphGroupDescription graphGroup = description.getGraphGroup();
+      assertEquals(2, graphGroup.getNumberOfColumns());
+      assertEquals(2, graphGroup.getGraphs().size());
+      assertArrayEquals(new String[] {"root.robot.q_x", "root.robot.q_y"}, graphGroup.getGraphs().get(0).getVariableNames());
+      assertArrayEquals(new String[] {"root.robot.t"}, graphGroup.getGraphs().get(1).getVariableNames());
+      assertEquals(2, graphGroup.getGraphConfigurations().length);
+      assertEquals(graphGroup.getGraphs().get(0).getGraphConfiguration().getName(), graphGroup.getGraphVars()[0][1][0]);
+
+      assertEquals(2, description.getEntryBoxTabs().size());
+      EntryBoxTabDescription firstTab = description.getEntryBoxTabs().get(0);
+      assertEquals("Tab0", firstTab.getTitle());
+      assertArrayEquals(new String[] {"root.robot.a", "root.robot.b"}, firstTab.getVariableNames());
+      assertEquals(0, description.getEntryBoxTabs().get(1).getVariableNames().length);
+
+      assertEquals(2, description.getGraphWindows().size());
+      GraphWindowDescription firstWindow = description.getGraphWindows().get(0);
+      assertEquals(0, firstWindow.getScreenID());
+      assertEquals(new Point(10, 20), firstWindow.getWindowLocation());
+      assertEquals(new Dimension(300, 400), firstWindow.getWindowSize());
+      assertEquals(1, firstWindow.getGraphGroup().getGraphs().size());
+      assertArrayEquals(new String[] {"root.robot.c"}, firstWindow.getGraphGroup().getGraphs().get(0).getVariableNames());
+
+      GraphWindowDescription secondWindow = description.getGraphWindows().get(1);
+      assertEquals(1, secondWindow.getScreenID());
+      assertNull(secondWindow.getWindowLocation());
+      assertEquals(3, secondWindow.getGraphGroup().getNumberOfColumns());
+      assertEquals(3, secondWindow.getGraphGroup().getGraphs().size());
+   }
+
+   @Test // timeout=300000
+   public void testMissingSections()
+   {
+      GUIConfigurationDescription description = new GUIConfigurationDescription("<Number of ViewPorts>1</Number of ViewPorts>");
+
+      assertNull(description.getGraphGroup());
+      assertTrue(description.getGraphWindows().isEmpty());
+      assertTrue(description.getEntryBoxTabs().isEmpty());
+   }
+
+   @Test // timeout=300000
+   public void testParseVariableNames()
+   {
+      assertArrayEquals(new String[] {"a", "b.c"}, GUIConfigurationDescription.parseVariableNames(" a ,, b.c , "));
+      assertEquals(0, GUIConfigurationDescription.parseVariableNames(null).length);
+   }
+
+   private static String graphGroup(int numberOfColumns, String... graphVariables)
+   {
+      String graphConfiguration = GraphConfiguration.getStandardAutoScalingConfiguration().getXMLStyleRepresentationOfClass();
+
+      String graphGroup = "<GraphGroup>\n\t<Cols>" + numberOfColumns + "</Cols>\n";
+      for (String variables : graphVariables)
+         graphGroup += "\t<Graph>\n\t\t<Variables>" + variables + "</Variables>\n" + graphConfiguration + "\n\t</Graph>\n";
+      graphGroup += "</GraphGroup>";
+
+      return graphGroup;
+   }
+}
@@ -0,0 +1,187 @@
+package us.ihmc.simulationconstructionset.gui;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.simulationconstructionset.gui.SpectralAnalysisEngine.Spectrogram;
+import us.ihmc.simulationconstructionset.gui.SpectralAnalysisEngine.WindowType;
+
+public class SpectralAnalysisEngineTest
+{
+   private static final double SAMPLE_RATE = 1000.0;
+
+   @Test // timeout = 30000
+   public void testWelchAmplitudeOfASine()
+   {
+      int numberOfSamples = 100000;
+      int segmentLength = 4096;
+      // Falls exactly on a frequency bin of the segments.
+      double frequency = 256 * SAMPLE_RATE / segmentLength;
+      double amplitude = 3.0;
+
+      double[] time = createTime(numberOfSamples);
+      double[] data = new double[numberOfSamples];
+      for (int i = 0; i < numberOfSamples; i++)
+         data[i] = amplitude * Math.sin(2.0 * Math.PI * frequency * time[i]);
+
+      SpectralAnalysisEngine serialEngine = new SpectralAnalysisEngine(WindowType.HANN, 0.5, 1);
+      SpectralAnalysisEngine parallelEngine = new SpectralAnalysisEngine(WindowType.HANN, 0.5, 4);
+
+      double[][] serialSpectrum = serialEngine.computeWelchAmplitudeSpectrum(time, data, segmentLength);
+      double[][] parallelSpectrum = parallelEngine.computeWelchAmplitudeSpectrum(time, data, segmentLength);
+
+      assertEquals(segmentLength / 2 - 1, serialSpectrum[0].length);
+      // The frequencies do not include the DC component.
+      assertEquals(frequency, serialSpectrum[0][255], 1.0e-9);
+      assertEquals(amplitude, serialSpectrum[1][255], 1.0e-2);
+
+      int peakIndex = 0;
+      for (int i = 0; i < serialSpectrum[1].length; i++)
+      {
+         if (serialSpectrum[1][i] > serialSpectrum[1][peakIndex])
+            peakIndex = i;
+         assertEquals(serialSpectrum[1][i], parallelSpectrum[1][i], 1.0e-9);
+      }
+      assertEquals(255, peakIndex);
+
+      serialEngine.shutdown();
+      parallelEngine.shutdown();
+   }
+
+   @Test // timeout = 30000
+   public void testWelchBodeOfAGain()
+   {
+      int numberOfSamples = 20000;
+      Random random = new Random(1738L);
+
+      double[] time = createTime(numberOfSamples);
+      double[] input = new double[numberOfSamples];
+      double[] output = new double[numberOfSamples];
+
+      for (int i = 0; i < numberOfSamples; i++)
+      {
+         input[i] = random.nextGaussian();
+         output[i] = -2.0 * input[i];
+      }
+
+      SpectralAnalysisEngine engine = new SpectralAnalysisEngine(WindowType.HAMMING, 0.25, 3);
+      double[][] bode = engine.computeWelchBode(time, input, output, 1024);
+
+      for (int i = 0; i < bode[0].length; i++)
+      {
+         assertEquals(20.0 * Math.log10(2.0), bode[1][i], 1.0e-9);
+         assertEquals(180.0, Math.abs(bode[2][i]), 1.0e-6);
+      }
+
+      engine.shutdown();
+   }
+
+   @Test // timeout = 30000
+   public void testWelchBodeOfAConstantInputIsNaN()
+   {
+      int numberOfSamples = 5000;
+      double[] time = createTime(numberOfSamples);
+      double[] input = new double[numberOfSamples];
+      double[] output = new double[numberOfSamples];
+
+      for (int i = 0; i < numberOfSamples; i++)
+      {
+         input[i] = 0.3;
+         output[i] = Math.sin(2.0 * Math.PI * 10.0 * time[i]);
+      }
+
+      SpectralAnalysisEngine engine = new SpectralAnalysisEngine(WindowType.HANN, 0.5, 2);
+      double[][] bode = engine.computeWelchBode(time, input, output, 512);
+
+      assertEquals(255, bode[0].length);
+
+      for (int i = 0; i < bode[0].length; i++)
+      {
+         assertTrue(Double.isNaN(bode[1][i]));
+         assertTrue(Double.isNaN(bode[2][i]));
+      }
+
+      engine.shutdown();
+   }
+
+   @Test // timeout = 30000
+   public void testSpectrogramFollowsTheFrequency()
+   {
+      int numberOfSamples = 20000;
+      double[] time = createTime(numberOfSamples);
+      double[] data = new double[numberOfSamples];
+
+      for (int i = 0; i < numberOfSamples; i++)
+      {
+         double frequency = i < numberOfSamples / 2 ? 50.0 : 200.0;
+         data[i] = Math.sin(2.0 * Math.PI * frequency * time[i]);
+      }
+
+      SpectralAnalysisEngine engine = new SpectralAnalysisEngine(WindowType.HANN, 0.5, 2);
+      Spectrogram spectrogram = engine.computeSpectrogram(time, data, 512);
+
+      double[][] amplitudes = spectrogram.getAmplitudes();
+      double[] frequencies = spectrogram.getFrequencies();
+      assertEquals(spectrogram.getSegmentTimes().length, amplitudes.length);
+      assertTrue(spectrogram.getSegmentTimes()[0] < spectrogram.getSegmentTimes()[amplitudes.length - 1]);
+
+      double resolution = SAMPLE_RATE / 512;
+      assertEquals(50.0, frequencies[findPeak(amplitudes[0])], resolution);
+      assertEquals(200.0, frequencies[findPeak(amplitudes[amplitudes.length - 1])], resolution);
+
+      engine.shutdown();
+   }
+
+   @Test // timeout = 30000
+   public void testDecimationKeepsThePeaks()
+   {
+      int n = 100000;
+      double[] x = new double[n];
+      double[] y = new double[n];
+
+      for (int i = 0; i < n; i++)
+      {
+         x[i] = 0.1 * (i + 1);
+         y[i] = Math.sin(0.01 * i);
+      }
+      y[54321] = 10.0;
+
+      for (boolean logarithmic : new boolean[] {false, true})
+      {
+         double[][] decimated = PlotDataDecimator.decimate(x, y, 500, logarithmic);
+         assertTrue(decimated[0].length <= 1000);
+
+         double maximum = Double.NEGATIVE_INFINITY;
+         for (int i = 0; i < decimated[0].length; i++)
+         {
+            maximum = Math.max(maximum, decimated[1][i]);
+            if (i > 0)
+               assertTrue(decimated[0][i] > decimated[0][i - 1]);
+         }
+         assertEquals(10.0, maximum, 0.0);
+      }
+   }
+
+   private static int findPeak(double[] values)
+   {
+      int peakIndex = 0;
+      for (int i = 1; i < values.length; i++)
+      {
+         if (values[i] > values[peakIndex])
+            peakIndex = i;
+      }
+      return peakIndex;
+   }
+
+   private static double[] createTime(int numberOfSamples)
+   {
+      double[] time = new double[numberOfSamples];
+      for (int i = 0; i < numberOfSamples; i++)
+         time[i] = i / SAMPLE_RATE;
+      return time;
+   }
+}
@@ -0,0 +1,216 @@
+package us.ihmc.simulationconstructionset.physics.collision;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.FloatingJoint;
+import us.ihmc.simulationconstructionset.Link;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.UnreasonableAccelerationException;
+import us.ihmc.simulationconstructionset.physics.SimpleCollisionShapeWithLink;
+import us.ihmc.simulationconstructionset.physics.collision.simple.BoxShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.CachedContactManifold;
+import us.ihmc.simulationconstructionset.physics.collision.simple.ContactManifoldCache;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SimpleContactWrapper;
+
+public class SequentialImpulseCollisionHandlerTest
+{
+   private static final double MASS = 1.0;
+
+   @Test // timeout = 30000
+   public void testBoxLandingFlatStopsWithoutTilting() throws UnreasonableAccelerationException
+   {
+      FloatingJoint floatingJoint = createBoxOnGroundAndResolve(new Vector3D(0.0, 0.0, -1.0), 0.5, null);
+
+      Vector3D velocity = new Vector3D();
+      floatingJoint.getVelocity(velocity);
+
+      // The four corners share the impact, no corner is favored.
+      assertEquals(0.0, velocity.getZ(), 1.0e-4);
+      assertEquals(0.0, floatingJoint.getAngularVelocityInBody().length(), 1.0e-4);
+   }
+
+   @Test // timeout = 30000
+   public void testFrictionIsBoundedByTheFrictionCone() throws UnreasonableAccelerationException
+   {
+      double mu = 0.1;
+      FloatingJoint floatingJoint = createBoxOnGroundAndResolve(new Vector3D(0.5, 0.0, -1.0), mu, null);
+
+      Vector3D velocity = new Vector3D();
+      floatingJoint.getVelocity(velocity);
+
+      // The normal impulse stops the fall, the friction impulse is at most mu times as large.
+      assertEquals(0.0, velocity.getZ(), 1.0e-4);
+      assertEquals(0.5 - mu * 1.0, velocity.getX(), 1.0e-3);
+   }
+
+   @Test // timeout = 30000
+   public void testImpulsesAreWrittenBackToCachedManifolds() throws UnreasonableAccelerationException
+   {
+      ContactManifoldCache contactManifoldCache = new ContactManifoldCache();
+      createBoxOnGroundAndResolve(new Vector3D(0.0, 0.0, -1.0), 0.5, contactManifoldCache);
+
+      assertEquals(1, contactManifoldCache.getNumberOfManifolds());
+      CachedContactManifold manifold = contactManifoldCache.getManifold(0);
+
+      // The impulses on the box stop its fall and are kept to warm start the next tick.
+      Vector3D impulse = new Vector3D();
+      double totalNormalImpulse = 0.0;
+
+      for (int i = 0; i < manifold.getNumberOfContacts(); i++)
+      {
+         manifold.getAccumulatedImpulse(i, impulse);
+         totalNormalImpulse += impulse.getZ();
+      }
+
+      assertEquals(MASS * 1.0, totalNormalImpulse, 1.0e-4);
+   }
+
+   @Test // timeout = 30000
+   public void testBounceDoesNotDependOnWarmStart() throws UnreasonableAccelerationException
+   {
+      double epsilon = 0.5;
+      Vector3D initialVelocity = new Vector3D(0.0, 0.0, -1.0);
+      ContactManifoldCache contactManifoldCache = new ContactManifoldCache();
+      FloatingJoint floatingJoint = createBoxOnGround(initialVelocity);
+      SimpleContactWrapper contacts = createBoxContacts(floatingJoint);
+      SequentialImpulseCollisionHandler collisionHandler = createCollisionHandler(epsilon, 0.5);
+
+      // The second impact is warm started with the impulses of the first one.
+      for (int i = 0; i < 2; i++)
+      {
+         floatingJoint.setVelocity(initialVelocity);
+         floatingJoint.setAngularVelocityInBody(new Vector3D());
+         floatingJoint.getRobot().update();
+         resolve(collisionHandler, contacts, contactManifoldCache);
+
+         Vector3D velocity = new Vector3D();
+         floatingJoint.getVelocity(velocity);
+         assertEquals(epsilon * 1.0, velocity.getZ(), 1.0e-4);
+         assertEquals(0.0, floatingJoint.getAngularVelocityInBody().length(), 1.0e-4);
+      }
+   }
+
+   @Test // timeout = 30000
+   public void testListenersGetThePointsWithTheirImpulses() throws UnreasonableAccelerationException
+   {
+      FloatingJoint floatingJoint = createBoxOnGround(new Vector3D(0.0, 0.0, -1.0));
+      SequentialImpulseCollisionHandler collisionHandler = createCollisionHandler(0.0, 0.5);
+      Vector3D totalImpulseOnBox = new Vector3D();
+      Vector3D totalImpulseOnGround = new Vector3D();
+      Vector3D impulse = new Vector3D();
+
+      collisionHandler.addListener((shapeA, shapeB, forceA, forceB, torqueA, torqueB) ->
+      {
+         assertTrue(forceA != null && forceB != null && torqueA != null && torqueB != null);
+         forceA.getImpulse(impulse);
+         totalImpulseOnBox.add(impulse);
+         forceB.getImpulse(impulse);
+         totalImpulseOnGround.add(impulse);
+      });
+
+      resolve(collisionHandler, createBoxContacts(floatingJoint), null);
+
+      assertEquals(MASS * 1.0, totalImpulseOnBox.getZ(), 1.0e-4);
+      assertEquals(-MASS * 1.0, totalImpulseOnGround.getZ(), 1.0e-4);
+   }
+
+   @Test // timeout = 30000
+   public void testContactsBeyondTheContactingPointsAreCounted() throws UnreasonableAccelerationException
+   {
+      FloatingJoint floatingJoint = createBoxOnGround(new Vector3D(0.0, 0.0, -1.0), 2);
+      SequentialImpulseCollisionHandler collisionHandler = createCollisionHandler(0.0, 0.5);
+
+      resolve(collisionHandler, createBoxContacts(floatingJoint), null);
+      assertEquals(2, collisionHandler.getNumberOfIgnoredContacts());
+   }
+
+   /**
+    * @param contactManifoldCache if not {@code null}, the contacts are given to the handler as cached
+    *                             manifolds.
+    */
+   private static FloatingJoint createBoxOnGroundAndResolve(Vector3D initialVelocity, double mu, ContactManifoldCache contactManifoldCache)
+         throws UnreasonableAccelerationException
+   {
+      FloatingJoint floatingJoint = createBoxOnGround(initialVelocity);
+      resolve(createCollisionHandler(0.0, mu), createBoxContacts(floatingJoint), contactManifoldCache);
+      return floatingJoint;
+   }
+
+   private static FloatingJoint createBoxOnGround(Vector3D initialVelocity) throws UnreasonableAccelerationException
+   {
+      return createBoxOnGround(initialVelocity, 4);
+   }
+
+   private static FloatingJoint createBoxOnGround(Vector3D initialVelocity, int numberOfContactingPoints) throws UnreasonableAccelerationException
+   {
+      Robot robot = new Robot("box");
+      robot.setGravity(0.0);
+      FloatingJoint floatingJoint = new FloatingJoint("root", new Vector3D(), robot);
+      Link link = new Link("body");
+      link.setMass(MASS);
+      link.setMomentOfInertia(0.004, 0.004, 0.007);
+      floatingJoint.setLink(link);
+      robot.addRootJoint(floatingJoint);
+      link.enableContactingExternalForcePoints(numberOfContactingPoints, robot.getRobotsYoRegistry());
+
+      floatingJoint.setPosition(0.0, 0.0, 0.0495);
+      floatingJoint.setVelocity(initialVelocity);
+      robot.update();
+      robot.doDynamicsButDoNotIntegrate();
+
+      return floatingJoint;
+   }
+
+   private static SimpleContactWrapper createBoxContacts(FloatingJoint floatingJoint)
+   {
+      Link link = floatingJoint.getLink();
+      SimpleCollisionShapeWithLink boxShape = new SimpleCollisionShapeWithLink(link, new BoxShapeDescription<>(0.1, 0.1, 0.05), null);
+      SimpleCollisionShapeWithLink groundShape = new SimpleCollisionShapeWithLink(null, new BoxShapeDescription<>(10.0, 10.0, 0.1), null);
+      groundShape.setIsGround(true);
+
+      SimpleContactWrapper contacts = new SimpleContactWrapper(boxShape, groundShape);
+
+      for (double x : new double[] {-0.1, 0.1})
+      {
+         for (double y : new double[] {-0.1, 0.1})
+            contacts.addContact(new Point3D(x, y, -0.0005), new Point3D(x, y, 0.0), new Vector3D(0.0, 0.0, -1.0), -0.0005);
+      }
+
+      return contacts;
+   }
+
+   private static SequentialImpulseCollisionHandler createCollisionHandler(double epsilon, double mu)
+   {
+      SequentialImpulseCollisionHandler collisionHandler = new SequentialImpulseCollisionHandler(epsilon, mu, 0.001);
+      collisionHandler.setMaximumNumberOfIterations(200);
+      collisionHandler.setImpulseTolerance(1.0e-9);
+      return collisionHandler;
+   }
+
+   /**
+    * @param contactManifoldCache if not {@code null}, the contacts are given to the handler as cached
+    *                             manifolds.
+    */
+   private static void resolve(SequentialImpulseCollisionHandler collisionHandler, SimpleContactWrapper contacts, ContactManifoldCache contactManifoldCache)
+   {
+      CollisionDetectionResult result = new CollisionDetectionResult();
+
+      if (contactManifoldCache != null)
+      {
+         contactManifoldCache.beginUpdate();
+         result.addContact(contactManifoldCache.update(contacts));
+         contactManifoldCache.removeStaleManifolds();
+      }
+      else
+      {
+         result.addContact(contacts);
+      }
+
+      collisionHandler.handleCollisions(result);
+   }
+}
@@ -0,0 +1,184 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertNull;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeFactory;
+
+public class ContactManifoldCacheTest
+{
+   @Test
+   public void testPersistentStateIsCarriedOverForNearbyContacts()
+   {
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+      CollisionShape shapeOne = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+      CollisionShape shapeTwo = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+
+      ContactManifoldCache cache = new ContactManifoldCache();
+
+      cache.beginUpdate();
+      CachedContactManifold manifold = cache.update(createContacts(shapeOne, shapeTwo, new Point3D(0.0, 0.0, 0.0)));
+      manifold.setAccumulatedImpulse(0, new Vector3D(1.0, 2.0, 3.0));
+      manifold.setTouchdownIndex(0, 7);
+      cache.removeStaleManifolds();
+      assertEquals(1, cache.getNumberOfManifolds());
+
+      // Same pair reported with the shapes switched and the contact barely moved.
+      cache.beginUpdate();
+      manifold = cache.update(createContacts(shapeTwo, shapeOne, new Point3D(0.001, 0.0, 0.0)));
+      cache.removeStaleManifolds();
+
+      assertEquals(1, cache.getNumberOfManifolds());
+      assertTrue(manifold.getShapeA() == shapeOne);
+      Vector3D impulse = new Vector3D();
+      manifold.getAccumulatedImpulse(0, impulse);
+      assertEquals(2.0, impulse.getY(), 1e-12);
+      assertEquals(7, manifold.getTouchdownIndex(0));
+
+      Vector3D normal = new Vector3D();
+      manifold.getWorldNormal(0, normal);
+      assertEquals(-1.0, normal.getZ(), 1e-12);
+
+      // The contact jumped, the state is reset.
+      cache.beginUpdate();
+      manifold = cache.update(createContacts(shapeOne, shapeTwo, new Point3D(0.1, 0.0, 0.0)));
+      cache.removeStaleManifolds();
+      assertEquals(-1, manifold.getTouchdownIndex(0));
+
+      // The pair is not reported anymore and is removed.
+      cache.beginUpdate();
+      cache.removeStaleManifolds();
+      assertEquals(0, cache.getNumberOfManifolds());
+      assertNull(cache.getManifold(shapeOne, shapeTwo));
+   }
+
+   @Test
+   public void testSetAndAddAll()
+   {
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+      CollisionShape shapeOne = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+      CollisionShape shapeTwo = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+      CollisionShape shapeThree = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+
+      ContactManifoldCache cache = new ContactManifoldCache(2);
+      cache.beginUpdate();
+      CachedContactManifold manifold = cache.update(createContacts(shapeOne, shapeTwo, new Point3D(0.0, 0.0, 0.0)));
+
+      manifold.addAll(createContacts(shapeTwo, shapeOne, new Point3D(1.0, 0.0, 0.0)));
+      assertEquals(2, manifold.getNumberOfContacts());
+      Point3D point = new Point3D();
+      manifold.getWorldA(1, point);
+      assertEquals(1.0, point.getX(), 1e-12);
+      Vector3D normal = new Vector3D();
+      manifold.getWorldNormal(1, normal);
+      assertEquals(-1.0, normal.getZ(), 1e-12);
+
+      // Beyond the capacity of the manifold.
+      manifold.addAll(createContacts(shapeOne, shapeTwo, new Point3D(2.0, 0.0, 0.0)));
+      assertEquals(2, manifold.getNumberOfContacts());
+
+      manifold.set(createContacts(shapeOne, shapeTwo, new Point3D(3.0, 0.0, 0.0)));
+      assertEquals(1, manifold.getNumberOfContacts());
+      manifold.getWorldA(0, point);
+      assertEquals(3.0, point.getX(), 1e-12);
+
+      Assertions.assertThrows(RuntimeException.class, () -> manifold.set(createContacts(shapeOne, shapeThree, new Point3D())));
+   }
+
+   @Test
+   public void testManyPairsAddedAndRemoved()
+   {
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+      int numberOfShapes = 60;
+      CollisionShape[] shapes = new CollisionShape[numberOfShapes];
+
+      for (int i = 0; i < numberOfShapes; i++)
+         shapes[i] = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+
+      ContactManifoldCache cache = new ContactManifoldCache();
+
+      for (int tick = 0; tick < 10; tick++)
+      {
+         cache.beginUpdate();
+         int expectedNumberOfManifolds = 0;
+
+         for (int i = 0; i < numberOfShapes; i++)
+         {
+            for (int j = i + 1; j < numberOfShapes; j++)
+            {
+               if ((i + j + tick) % 3 == 0)
+               {
+                  cache.update(createContacts(shapes[i], shapes[j], new Point3D(i, j, 0.0)));
+                  expectedNumberOfManifolds++;
+               }
+            }
+         }
+
+         cache.removeStaleManifolds();
+         assertEquals(expectedNumberOfManifolds, cache.getNumberOfManifolds());
+
+         for (int i = 0; i < numberOfShapes; i++)
+         {
+            for (int j = i + 1; j < numberOfShapes; j++)
+            {
+               CachedContactManifold manifold = cache.getManifold(shapes[j], shapes[i]);
+
+               if ((i + j + tick) % 3 == 0)
+                  assertTrue(manifold != null && manifold.getShapeA() == shapes[i]);
+               else
+                  assertNull(manifold);
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testIDOfRemovedShapeIsReusedWithoutItsManifold()
+   {
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+      CollisionShape shapeOne = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+      CollisionShape shapeTwo = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+      int idOfShapeTwo = ((SimpleCollisionShape) shapeTwo).getShapeID();
+
+      ContactManifoldCache cache = new ContactManifoldCache();
+      cache.beginUpdate();
+      CachedContactManifold manifold = cache.update(createContacts(shapeOne, shapeTwo, new Point3D(0.0, 0.0, 0.0)));
+      manifold.setTouchdownIndex(0, 7);
+      cache.removeStaleManifolds();
+
+      assertTrue(detector.removeShape(shapeTwo));
+      assertFalse(detector.removeShape(shapeTwo));
+      assertEquals(-1, ((SimpleCollisionShape) shapeTwo).getShapeID());
+
+      CollisionShape shapeThree = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+      assertEquals(idOfShapeTwo, ((SimpleCollisionShape) shapeThree).getShapeID());
+      assertNull(cache.getManifold(shapeOne, shapeThree));
+
+      cache.beginUpdate();
+      manifold = cache.update(createContacts(shapeOne, shapeThree, new Point3D(0.0, 0.0, 0.0)));
+      cache.removeStaleManifolds();
+
+      assertTrue(manifold.getShapeB() == shapeThree);
+      assertEquals(-1, manifold.getTouchdownIndex(0));
+      assertEquals(1, cache.getNumberOfManifolds());
+   }
+
+   private static SimpleContactWrapper createContacts(CollisionShape shapeA, CollisionShape shapeB, Point3D location)
+   {
+      SimpleContactWrapper contacts = new SimpleContactWrapper(shapeA, shapeB);
+      contacts.addContact(location, location, new Vector3D(0.0, 0.0, 1.0), -0.001);
+      return contacts;
+   }
+}
@@ -3,6 +3,8 @@ package us.ihmc.simulationconstructionset.physics.collision.simple;
 import static us.ihmc.robotics.Assert.assertEquals;
 import static us.ihmc.robotics.Assert.assertTrue;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 import us.ihmc.euclid.tools.EuclidCoreTestTools;
@@ -189,7 +191,7 @@ public class SimpleCollisionDetectorTest
       assertEquals(1, result.getNumberOfCollisions());
       Contacts collision = result.getCollision(0);
 
-      assertEquals(1, collision.getNumberOfContacts());
+      assertEquals(4, collision.getNumberOfContacts());
 
       CollisionShape shapeA = collision.getShapeA();
       CollisionShape shapeB = collision.getShapeB();
@@ -239,7 +241,7 @@ public class SimpleCollisionDetectorTest
       assertEquals(1, result.getNumberOfCollisions());
       collision = result.getCollision(0);
 
-      assertEquals(1, collision.getNumberOfContacts());
+      assertEquals(4, collision.getNumberOfContacts());
 
       distance = collision.getDistance(0);
       collision.getWorldA(0, locationA);
@@ -270,4 +272,248 @@ public class SimpleCollisionDetectorTest
       assertEquals(-0.25, distance, 1e-7);
    }
 
+   @Test // timeout = 30000
+   public void testManifoldsOfShapesRestingOnABox()
+   {
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+
+      // Ground slab with its top face at z = 0.
+      CollisionShape ground = shapeFactory.addShape(shapeFactory.createBox(5.0, 5.0, 0.5));
+      RigidBodyTransform groundTransform = new RigidBodyTransform();
+      groundTransform.getTranslation().set(0.0, 0.0, -0.5);
+      ground.setTransformToWorld(groundTransform);
+
+      double penetration = 0.002;
+
+      CollisionShape box = shapeFactory.addShape(shapeFactory.createBox(0.1, 0.2, 0.3));
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setRotationYawAndZeroTranslation(0.4);
+      transform.getTranslation().set(0.3, -0.2, 0.3 - penetration);
+      box.setTransformToWorld(transform);
+      assertRestingManifold(detector, ground, box, 4, penetration);
+
+      detector.getCollisionObjects().remove(box);
+      CollisionShape capsule = shapeFactory.addShape(shapeFactory.createCapsule(0.05, 0.4));
+      transform.setRotationPitchAndZeroTranslation(0.5 * Math.PI);
+      transform.getTranslation().set(-0.5, 1.0, 0.05 - penetration);
+      capsule.setTransformToWorld(transform);
+      assertRestingManifold(detector, ground, capsule, 2, penetration);
+
+      detector.getCollisionObjects().remove(capsule);
+      CollisionShape cylinder = shapeFactory.addShape(shapeFactory.createCylinder(0.1, 0.4));
+      transform.setIdentity();
+      transform.getTranslation().set(1.0, 1.0, 0.2 - penetration);
+      cylinder.setTransformToWorld(transform);
+      assertRestingManifold(detector, ground, cylinder, 4, penetration);
+
+      transform.setRotationRollAndZeroTranslation(0.5 * Math.PI);
+      transform.getTranslation().set(1.0, 1.0, 0.1 - penetration);
+      cylinder.setTransformToWorld(transform);
+      assertRestingManifold(detector, ground, cylinder, 2, penetration);
+
+      detector.getCollisionObjects().remove(cylinder);
+      CollisionShape sphere = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+      transform.setIdentity();
+      transform.getTranslation().set(0.0, 0.0, 0.1 - penetration);
+      sphere.setTransformToWorld(transform);
+      assertRestingManifold(detector, ground, sphere, 1, penetration);
+   }
+
+   @Test // timeout = 30000
+   public void testParallelNarrowPhaseMatchesSerialNarrowPhase()
+   {
+      SimpleCollisionDetector serialDetector = createPileOfShapes();
+      SimpleCollisionDetector parallelDetector = createPileOfShapes();
+      parallelDetector.setNumberOfNarrowPhaseThreads(4);
+      parallelDetector.setMinimumNumberOfPairsForParallelNarrowPhase(1);
+
+      CollisionDetectionResult serialResult = new CollisionDetectionResult();
+      CollisionDetectionResult parallelResult = new CollisionDetectionResult();
+
+      for (int iteration = 0; iteration < 5; iteration++)
+      {
+         serialResult.clear();
+         parallelResult.clear();
+         serialDetector.performCollisionDetection(serialResult);
+         parallelDetector.performCollisionDetection(parallelResult);
+
+         assertTrue(serialResult.getNumberOfCollisions() > 20);
+         assertEquals(serialResult.getNumberOfCollisions(), parallelResult.getNumberOfCollisions());
+
+         Point3D serialPoint = new Point3D();
+         Point3D parallelPoint = new Point3D();
+
+         for (int i = 0; i < serialResult.getNumberOfCollisions(); i++)
+         {
+            Contacts serialCollision = serialResult.getCollision(i);
+            Contacts parallelCollision = parallelResult.getCollision(i);
+
+            assertEquals(serialDetector.getCollisionObjects().indexOf(serialCollision.getShapeA()),
+                         parallelDetector.getCollisionObjects().indexOf(parallelCollision.getShapeA()));
+            assertEquals(serialDetector.getCollisionObjects().indexOf(serialCollision.getShapeB()),
+                         parallelDetector.getCollisionObjects().indexOf(parallelCollision.getShapeB()));
+            assertEquals(serialCollision.getNumberOfContacts(), parallelCollision.getNumberOfContacts());
+
+            for (int j = 0; j < serialCollision.getNumberOfContacts(); j++)
+            {
+               serialCollision.getWorldA(j, serialPoint);
+               parallelCollision.getWorldA(j, parallelPoint);
+               EuclidCoreTestTools.assertTuple3DEquals(serialPoint, parallelPoint, 0.0);
+               assertEquals(serialCollision.getDistance(j), parallelCollision.getDistance(j), 0.0);
+            }
+         }
+      }
+
+      parallelDetector.setNumberOfNarrowPhaseThreads(1);
+   }
+
+   @Test // timeout = 30000
+   public void testTemporalCoherenceOfGJKQueries()
+   {
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      SimpleCollisionDetector referenceDetector = new SimpleCollisionDetector();
+      referenceDetector.setUseTemporalCoherence(false);
+
+      CollisionShape[] shapes = addTwoCylinders(detector);
+      CollisionShape[] referenceShapes = addTwoCylinders(referenceDetector);
+
+      // The bounding boxes overlap but the cylinders are 4cm apart.
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.getTranslation().set(0.17, 0.17, 0.0);
+      shapes[1].setTransformToWorld(transform);
+      referenceShapes[1].setTransformToWorld(transform);
+
+      CollisionDetectionResult result = new CollisionDetectionResult();
+      detector.performCollisionDetection(result);
+      assertEquals(0, result.getNumberOfCollisions());
+
+      CachedSeparatingAxis separatingAxis = detector.getSeparatingAxisCache().getEntry(shapes[0], shapes[1]);
+      assertTrue(separatingAxis.isSeparatingAxis());
+      assertTrue(!separatingAxis.wasLastQuerySkipped());
+
+      Vector3D direction = new Vector3D();
+      separatingAxis.getDirection(shapes[0], direction);
+      EuclidCoreTestTools.assertTuple3DEquals(new Vector3D(Math.sqrt(0.5), Math.sqrt(0.5), 0.0), direction, 1e-4);
+
+      // Nothing moved, the cached axis is enough.
+      result.clear();
+      detector.performCollisionDetection(result);
+      assertEquals(0, result.getNumberOfCollisions());
+      assertTrue(separatingAxis.wasLastQuerySkipped());
+
+      // Moving into contact drops the axis, the contact is the same as without the cache.
+      transform.getTranslation().set(0.13, 0.13, 0.0);
+      shapes[1].setTransformToWorld(transform);
+      referenceShapes[1].setTransformToWorld(transform);
+
+      CollisionDetectionResult referenceResult = new CollisionDetectionResult();
+
+      for (int tick = 0; tick < 2; tick++)
+      {
+         result.clear();
+         referenceResult.clear();
+         detector.performCollisionDetection(result);
+         referenceDetector.performCollisionDetection(referenceResult);
+
+         assertTrue(!separatingAxis.wasLastQuerySkipped());
+         assertTrue(!separatingAxis.isSeparatingAxis());
+         assertEquals(1, result.getNumberOfCollisions());
+         assertEquals(1, referenceResult.getNumberOfCollisions());
+         assertEquals(referenceResult.getCollision(0).getDistance(0), result.getCollision(0).getDistance(0), 1e-6);
+      }
+
+      assertEquals(0, referenceDetector.getSeparatingAxisCache().getNumberOfEntries());
+   }
+
+   private static CollisionShape[] addTwoCylinders(SimpleCollisionDetector detector)
+   {
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+      CollisionShape cylinderOne = shapeFactory.addShape(shapeFactory.createCylinder(0.1, 0.4));
+      CollisionShape cylinderTwo = shapeFactory.addShape(shapeFactory.createCylinder(0.1, 0.4));
+      cylinderOne.setTransformToWorld(new RigidBodyTransform());
+      return new CollisionShape[] {cylinderOne, cylinderTwo};
+   }
+
+   private static SimpleCollisionDetector createPileOfShapes()
+   {
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+
+      CollisionShape ground = shapeFactory.addShape(shapeFactory.createBox(5.0, 5.0, 0.5));
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.getTranslation().set(0.0, 0.0, -0.5);
+      ground.setTransformToWorld(transform);
+
+      Random random = new Random(1984L);
+
+      for (int i = 0; i < 60; i++)
+      {
+         CollisionShapeDescription<?> description;
+
+         switch (i % 4)
+         {
+         case 0:
+            description = shapeFactory.createSphere(0.15);
+            break;
+         case 1:
+            description = shapeFactory.createBox(0.1, 0.15, 0.1);
+            break;
+         case 2:
+            description = shapeFactory.createCapsule(0.08, 0.3);
+            break;
+         default:
+            description = shapeFactory.createCylinder(0.1, 0.3);
+            break;
+         }
+
+         CollisionShape shape = shapeFactory.addShape(description);
+         transform.setRotationEulerAndZeroTranslation(random.nextDouble(), random.nextDouble(), random.nextDouble());
+         transform.getTranslation().set(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 0.5 * random.nextDouble());
+         shape.setTransformToWorld(transform);
+      }
+
+      return detector;
+   }
+
+   private static void assertRestingManifold(SimpleCollisionDetector detector, CollisionShape ground, CollisionShape shape, int expectedNumberOfContacts,
+                                             double expectedPenetration)
+   {
+      CollisionDetectionResult result = new CollisionDetectionResult();
+      detector.performCollisionDetection(result);
+
+      assertEquals(1, result.getNumberOfCollisions());
+      Contacts collision = result.getCollision(0);
+      assertEquals(expectedNumberOfContacts, collision.getNumberOfContacts());
+
+      Point3D locationOnGround = new Point3D();
+      Point3D locationOnShape = new Point3D();
+      Vector3D normal = new Vector3D();
+
+      for (int i = 0; i < collision.getNumberOfContacts(); i++)
+      {
+         collision.getWorldNormal(i, normal);
+         if (!collision.isNormalOnA())
+            normal.scale(-1.0);
+
+         if (collision.getShapeA() == ground)
+         {
+            collision.getWorldA(i, locationOnGround);
+            collision.getWorldB(i, locationOnShape);
+         }
+         else
+         {
+            assertTrue(collision.getShapeA() == shape);
+            collision.getWorldA(i, locationOnShape);
+            collision.getWorldB(i, locationOnGround);
+            normal.scale(-1.0);
+         }
+
+         // The normal points from the ground to the shape.
+         EuclidCoreTestTools.assertTuple3DEquals(new Vector3D(0.0, 0.0, 1.0), normal, 1e-7);
+         assertEquals(0.0, locationOnGround.getZ(), 1e-7);
+         assertEquals(-expectedPenetration, locationOnShape.getZ(), 1e-7);
+         assertEquals(-expectedPenetration, collision.getDistance(i), 1e-7);
+      }
+   }
 }
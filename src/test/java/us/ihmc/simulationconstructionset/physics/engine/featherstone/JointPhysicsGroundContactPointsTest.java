@@ -0,0 +1,74 @@
+package us.ihmc.simulationconstructionset.physics.engine.featherstone;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.FloatingJoint;
+import us.ihmc.simulationconstructionset.GroundContactPoint;
+import us.ihmc.simulationconstructionset.Robot;
+
+public class JointPhysicsGroundContactPointsTest
+{
+   @Test // timeout=300000
+   public void testPointsInContactFollowTheContactState()
+   {
+      Robot robot = new Robot("Test");
+      FloatingJoint rootJoint = new FloatingJoint("root", new Vector3D(), robot);
+      robot.addRootJoint(rootJoint);
+
+      GroundContactPoint[] points = new GroundContactPoint[5];
+      for (int i = 0; i < points.length; i++)
+      {
+         points[i] = new GroundContactPoint("gc" + i, robot);
+         // Two groups, the compiled layout follows the order of the groups.
+         rootJoint.addGroundContactPoint(i % 2, points[i]);
+      }
+
+      JointPhysics<?> physics = rootJoint.physics;
+      assertEquals(points.length, physics.groundContactPoints.length);
+      assertTrue(physics.groundContactPoints[0] == points[0]);
+      assertTrue(physics.groundContactPoints[3] == points[1]);
+
+      assertPointsInContact(physics);
+
+      points[0].setInContact();
+      points[1].setInContact();
+      points[4].setInContact();
+      robot.decideGroundContactPointsInContact();
+      assertPointsInContact(physics, points[0], points[1], points[4]);
+
+      points[0].setNotInContact();
+      points[2].setInContact();
+      robot.decideGroundContactPointsInContact();
+      assertPointsInContact(physics, points[1], points[2], points[4]);
+
+      robot.decideGroundContactPointsInContact();
+      assertPointsInContact(physics, points[1], points[2], points[4]);
+
+      for (GroundContactPoint point : points)
+         point.setNotInContact();
+      robot.decideGroundContactPointsInContact();
+      assertPointsInContact(physics);
+
+      assertEquals(0, rootJoint.getGroundContactPointGroup(0).getGroundContactPointsInContact().size());
+      points[3].setInContact();
+      assertTrue(rootJoint.getGroundContactPointGroup(1).getGroundContactPointsInContact().contains(points[3]));
+   }
+
+   private static void assertPointsInContact(JointPhysics<?> physics, GroundContactPoint... expectedPoints)
+   {
+      Set<GroundContactPoint> pointsInContact = new HashSet<>();
+      for (int i = 0; i < physics.numberOfGroundContactPointsInContact; i++)
+         pointsInContact.add(physics.groundContactPoints[physics.groundContactPointIndicesInContact[i]]);
+
+      assertEquals(expectedPoints.length, physics.numberOfGroundContactPointsInContact);
+      for (GroundContactPoint expectedPoint : expectedPoints)
+         assertTrue(pointsInContact.contains(expectedPoint));
+   }
+}
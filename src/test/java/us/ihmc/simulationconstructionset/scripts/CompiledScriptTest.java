@@ -0,0 +1,218 @@
+package us.ihmc.simulationconstructionset.scripts;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+public class CompiledScriptTest
+{
+   @Test // timeout=300000
+   public void testTimeEntriesAreAppliedInOrder()
+   {
+      YoRegistry registry = new YoRegistry("root");
+      YoDouble variable = new YoDouble("variable", registry);
+      variable.set(-1.0);
+
+      CompiledScript script = new CompiledScript(registry);
+      double[] times = {2.0, 0.5, 1.0, 1.0};
+      double[] values = {4.0, 1.0, 2.0, 3.0};
+
+      for (int i = 0; i < times.length; i++)
+      {
+         TimeScriptEntry entry = new TimeScriptEntry(times[i]);
+         entry.addVarValue(variable, values[i]);
+         script.addEntry(entry);
+      }
+
+      script.doScript(0.0);
+      assertEquals(-1.0, variable.getDoubleValue(), 1e-12);
+      script.doScript(0.6);
+      assertEquals(1.0, variable.getDoubleValue(), 1e-12);
+      // Both entries at t = 1 are applied in the order they were added.
+      script.doScript(1.5);
+      assertEquals(3.0, variable.getDoubleValue(), 1e-12);
+      script.doScript(10.0);
+      assertEquals(4.0, variable.getDoubleValue(), 1e-12);
+      assertEquals(0, script.getNumberOfPendingEvents());
+
+      script.reset();
+      assertEquals(times.length, script.getNumberOfPendingEvents());
+   }
+
+   @Test // timeout=300000
+   public void testStartConditionOnlyEvaluatedWhenWatchedVariableChanges()
+   {
+      YoRegistry registry = new YoRegistry("root");
+      YoDouble trigger = new YoDouble("trigger", registry);
+      YoDouble output = new YoDouble("output", registry);
+
+      CountingEntry entry = new CountingEntry("entry", registry, trigger, output);
+      CountingEntry child = new CountingEntry("child", registry, trigger, output);
+      child.addParentCondition(entry);
+
+      CompiledScript script = new CompiledScript(registry);
+      script.addEntry(entry, trigger);
+      script.addEntry(child, trigger);
+
+      for (int tick = 0; tick < 100; tick++)
+         script.doScript(tick * 0.01);
+
+      // Evaluated once when compiled, then nothing changed.
+      assertEquals(1, entry.numberOfStartConditionCalls);
+      assertEquals(0, child.numberOfStartConditionCalls);
+
+      trigger.set(1.0);
+      script.doScript(1.0);
+      assertTrue(entry.isActive());
+      assertEquals(2, entry.numberOfStartConditionCalls);
+
+      // The entry finishes when the trigger goes down, the child is armed and evaluated in the same tick.
+      trigger.set(0.5);
+      script.doScript(1.01);
+      assertTrue(entry.isFinished());
+      assertEquals(1, child.numberOfStartConditionCalls);
+      assertTrue(child.isArmed());
+
+      trigger.set(2.0);
+      script.doScript(1.02);
+      assertTrue(child.isActive());
+   }
+
+   @Test // timeout=300000
+   public void testEntryIsNotConsideredBeforeItsStartTime()
+   {
+      YoRegistry registry = new YoRegistry("root");
+      YoDouble trigger = new YoDouble("trigger", registry);
+      YoDouble output = new YoDouble("output", registry);
+      trigger.set(1.0);
+
+      CountingEntry entry = new CountingEntry("entry", registry, trigger, output);
+      CompiledScript script = new CompiledScript(registry);
+      script.addEntry(entry, 0.5, trigger);
+
+      script.doScript(0.0);
+      script.doScript(0.4);
+      assertEquals(0, entry.numberOfStartConditionCalls);
+      assertTrue(entry.isArmed());
+
+      script.doScript(0.5);
+      assertTrue(entry.isActive());
+      script.doScript(0.6);
+      assertEquals(1.0, output.getDoubleValue(), 1e-12);
+
+      script.reset();
+      assertTrue(entry.isArmed());
+      script.doScript(0.1);
+      assertTrue(entry.isArmed());
+   }
+
+   @Test // timeout=300000
+   public void testRewind()
+   {
+      YoRegistry registry = new YoRegistry("root");
+      YoDouble variable = new YoDouble("variable", registry);
+      YoDouble trigger = new YoDouble("trigger", registry);
+      YoDouble output = new YoDouble("output", registry);
+      variable.set(-1.0);
+      trigger.set(1.0);
+
+      CompiledScript script = new CompiledScript(registry);
+      TimeScriptEntry timeEntry = new TimeScriptEntry(1.0);
+      timeEntry.addVarValue(variable, 1.0);
+      script.addEntry(timeEntry);
+      CountingEntry entry = new CountingEntry("entry", registry, trigger, output);
+      script.addEntry(entry, 0.5, trigger);
+
+      script.doScript(0.0);
+      // Recorded in the data buffer at this tick.
+      double[] recordedValues = getValues(registry);
+
+      script.doScript(0.6);
+      script.doScript(1.2);
+      assertTrue(entry.isActive());
+      assertEquals(1.0, variable.getDoubleValue(), 1e-12);
+
+      // Rewind to the recorded tick, then simulate again.
+      setValues(registry, recordedValues);
+      script.doScript(0.1);
+      assertTrue(entry.isArmed());
+      assertEquals(-1.0, variable.getDoubleValue(), 1e-12);
+      assertEquals(2, script.getNumberOfPendingEvents());
+
+      script.doScript(0.6);
+      assertTrue(entry.isActive());
+      script.doScript(1.2);
+      assertEquals(1.0, variable.getDoubleValue(), 1e-12);
+      assertEquals(0, script.getNumberOfPendingEvents());
+   }
+
+   private static double[] getValues(YoRegistry registry)
+   {
+      List<YoVariable> variables = registry.getVariables();
+      double[] values = new double[variables.size()];
+
+      for (int i = 0; i < values.length; i++)
+         values[i] = variables.get(i).getValueAsDouble();
+
+      return values;
+   }
+
+   private static void setValues(YoRegistry registry, double[] values)
+   {
+      List<YoVariable> variables = registry.getVariables();
+
+      for (int i = 0; i < values.length; i++)
+         variables.get(i).setValueFromDouble(values[i]);
+   }
+
+   private static class CountingEntry extends ConditionalScriptEntry
+   {
+      private final YoDouble trigger;
+      private final YoDouble output;
+      private int numberOfStartConditionCalls = 0;
+
+      public CountingEntry(String name, YoRegistry registry, YoDouble trigger, YoDouble output)
+      {
+         super(name, registry);
+         this.trigger = trigger;
+         this.output = output;
+      }
+
+      @Override
+      public boolean startCondition()
+      {
+         numberOfStartConditionCalls++;
+         return trigger.getDoubleValue() > 0.9;
+      }
+
+      @Override
+      public void activate()
+      {
+         output.set(0.0);
+      }
+
+      @Override
+      public void doActivity()
+      {
+         output.add(1.0);
+      }
+
+      @Override
+      public void deactivate()
+      {
+      }
+
+      @Override
+      public boolean finishCondition()
+      {
+         return trigger.getDoubleValue() < 0.9;
+      }
+   }
+}
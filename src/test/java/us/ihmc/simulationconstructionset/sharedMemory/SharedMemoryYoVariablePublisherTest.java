@@ -0,0 +1,155 @@
+package us.ihmc.simulationconstructionset.sharedMemory;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.simulationconstructionset.SimulationConstructionSetParameters;
+import us.ihmc.simulationconstructionset.UnreasonableAccelerationException;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoBoolean;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+public class SharedMemoryYoVariablePublisherTest
+{
+   @Test // timeout=300000
+   public void testPublishAndRead() throws IOException
+   {
+      File file = File.createTempFile("sharedMemory", ".ring");
+
+      YoRegistry rootRegistry = new YoRegistry("root");
+      YoRegistry controllerRegistry = new YoRegistry("controller");
+      rootRegistry.addChild(controllerRegistry);
+      YoDouble time = new YoDouble("t", rootRegistry);
+      YoInteger counter = new YoInteger("counter", controllerRegistry);
+      YoBoolean flag = new YoBoolean("flag", controllerRegistry);
+
+      SharedMemoryYoVariablePublisher publisher = new SharedMemoryYoVariablePublisher(file, Arrays.asList(time, counter, flag), 0.001, 16);
+
+      // The viewer side already has one of the variables and has to create the others.
+      YoRegistry viewerRootRegistry = new YoRegistry("root");
+      YoDouble viewerTime = new YoDouble("t", viewerRootRegistry);
+      SharedMemoryYoVariableReader reader = new SharedMemoryYoVariableReader(file, viewerRootRegistry);
+
+      assertEquals(0.001, reader.getRecordDT(), 1.0e-12);
+      assertEquals(2, reader.getCreatedVariables().size());
+      assertTrue(reader.getVariables()[0] == viewerTime);
+      assertEquals("root.controller.counter", reader.getVariables()[1].getFullNameString());
+      assertFalse(reader.readNextSample());
+
+      for (int i = 0; i < 10; i++)
+      {
+         time.set(0.001 * i);
+         counter.set(i);
+         flag.set(i % 2 == 0);
+         publisher.publish();
+      }
+
+      for (int i = 0; i < 10; i++)
+      {
+         assertTrue(reader.readNextSample());
+
+         YoVariable[] variables = reader.getVariables();
+         assertEquals(0.001 * i, variables[0].getValueAsDouble(), 1.0e-12);
+         assertEquals(i, variables[1].getValueAsDouble(), 1.0e-12);
+         assertEquals(i % 2 == 0 ? 1.0 : 0.0, variables[2].getValueAsDouble(), 1.0e-12);
+      }
+
+      assertFalse(reader.readNextSample());
+      assertEquals(10, reader.getNumberOfSamplesRead());
+      assertEquals(0, reader.getNumberOfLostSamples());
+
+      assertFalse(reader.isPublisherClosed());
+      publisher.close();
+      assertTrue(reader.isPublisherClosed());
+      reader.close();
+
+      file.delete();
+   }
+
+   @Test // timeout=300000
+   public void testSlowReaderLosesTheOldestSamples() throws IOException
+   {
+      File file = File.createTempFile("sharedMemory", ".ring");
+
+      YoRegistry rootRegistry = new YoRegistry("root");
+      YoDouble value = new YoDouble("value", rootRegistry);
+
+      int ringCapacity = 8;
+      SharedMemoryYoVariablePublisher publisher = new SharedMemoryYoVariablePublisher(file, Arrays.asList(value), 0.001, ringCapacity);
+      SharedMemoryYoVariableReader reader = new SharedMemoryYoVariableReader(file, new YoRegistry("root"));
+
+      for (int i = 0; i < 20; i++)
+      {
+         value.set(i);
+         publisher.publish();
+      }
+
+      for (int i = 20 - ringCapacity; i < 20; i++)
+      {
+         assertTrue(reader.readNextSample());
+         assertEquals(i, reader.getVariables()[0].getValueAsDouble(), 1.0e-12);
+      }
+
+      assertFalse(reader.readNextSample());
+      assertEquals(20 - ringCapacity, reader.getNumberOfLostSamples());
+
+      publisher.close();
+      reader.close();
+      file.delete();
+   }
+
+   @Test // timeout=300000
+   public void testHeadlessSimulationPublishesEachRecordedDataPoint() throws IOException, UnreasonableAccelerationException
+   {
+      File file = File.createTempFile("sharedMemory", ".ring");
+
+      Robot robot = new Robot("Test");
+      SimulationConstructionSetParameters parameters = SimulationConstructionSetParameters.createFromSystemProperties();
+      parameters.setCreateGUI(false);
+      SimulationConstructionSet scs = new SimulationConstructionSet(robot, parameters);
+      scs.setDT(0.001, 10);
+      scs.startOnAThread();
+
+      SharedMemoryYoVariablePublisher publisher = SharedMemoryYoVariablePublisher.publish(scs, file);
+
+      YoRegistry viewerRootRegistry = new YoRegistry("root");
+      SharedMemoryYoVariableReader reader = new SharedMemoryYoVariableReader(file, viewerRootRegistry);
+      assertEquals(0.01, reader.getRecordDT(), 1.0e-12);
+
+      for (int i = 0; i < 5; i++)
+         scs.simulateOneRecordStepNow();
+
+      // The initial state, then one sample per record step.
+      assertEquals(6, publisher.getNumberOfPublishedSamples());
+
+      YoVariable viewerTime = null;
+      for (YoVariable variable : reader.getVariables())
+      {
+         if (variable.getFullNameString().equals(robot.getYoTime().getFullNameString()))
+            viewerTime = variable;
+      }
+
+      while (reader.readNextSample())
+      {
+      }
+
+      assertEquals(6, reader.getNumberOfSamplesRead());
+      assertEquals(robot.getTime(), viewerTime.getValueAsDouble(), 1.0e-12);
+
+      publisher.close();
+      reader.close();
+      scs.closeAndDispose();
+      file.delete();
+   }
+}
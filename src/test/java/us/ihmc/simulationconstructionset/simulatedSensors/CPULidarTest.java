@@ -0,0 +1,128 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.jMonkeyEngineToolkit.HeightMapWithNormals;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeFactory;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SimpleCollisionDetector;
+import us.ihmc.simulationconstructionset.util.ground.FlatGroundProfile;
+
+public class CPULidarTest
+{
+   @Test // timeout = 30000
+   public void testScanOfGroundAndBox()
+   {
+      double epsilon = 1e-3;
+
+      // 5 points from -0.2rad to 0.2rad in yaw, 3 scan lines from horizontal to 0.4rad down.
+      CPULidar lidar = new CPULidar(5, -0.2, 0.2, 3, 0.0, 0.4, 0.05, 10.0);
+      lidar.setNumberOfThreads(2);
+      lidar.setGroundProfile(new FlatGroundProfile(0.0));
+
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+      CollisionShape box = shapeFactory.addShape(shapeFactory.createBox(0.5, 0.5, 0.5));
+      RigidBodyTransform boxTransform = new RigidBodyTransform();
+      boxTransform.getTranslation().set(3.0, 0.0, 1.0);
+      box.setTransformToWorld(boxTransform);
+
+      // A sphere around the lidar, as the collision shape of its own link, is not seen.
+      CollisionShape housing = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+      RigidBodyTransform lidarTransform = new RigidBodyTransform();
+      lidarTransform.getTranslation().set(0.0, 0.0, 1.0);
+      housing.setTransformToWorld(lidarTransform);
+
+      lidar.setCollisionShapes(detector.getCollisionObjects());
+      lidar.setComputeTransformedCollisionShapes(true);
+
+      float[] scan = lidar.scan(lidarTransform);
+      assertEquals(15, scan.length);
+
+      // Horizontal scan line: the box is hit by the three middle rays only.
+      assertTrue(Float.isInfinite(scan[0]));
+      assertEquals(2.5 / Math.cos(0.1), scan[1], epsilon);
+      assertEquals(2.5, scan[2], epsilon);
+      assertEquals(2.5 / Math.cos(0.1), scan[3], epsilon);
+      assertTrue(Float.isInfinite(scan[4]));
+
+      // Lowest scan line: the ground is hit at the same distance whatever the yaw.
+      for (int point = 0; point < 5; point++)
+         assertEquals(1.0 / Math.sin(0.4), scan[10 + point], epsilon);
+   }
+
+   @Test // timeout = 30000
+   public void testHitsCloserThanTheMinimumRangeDoNotHideTheOthers()
+   {
+      CPULidar lidar = new CPULidar(1, 0.0, 0.0, 1, 0.0, 0.0, 0.5, 10.0);
+
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+      RigidBodyTransform transform = new RigidBodyTransform();
+
+      // A small box entirely within the minimum range, in front of a larger one.
+      CollisionShape nearBox = shapeFactory.addShape(shapeFactory.createBox(0.05, 0.05, 0.05));
+      transform.getTranslation().set(0.3, 0.0, 1.0);
+      nearBox.setTransformToWorld(transform);
+      CollisionShape farBox = shapeFactory.addShape(shapeFactory.createBox(0.5, 0.5, 0.5));
+      transform.getTranslation().set(3.0, 0.0, 1.0);
+      farBox.setTransformToWorld(transform);
+
+      lidar.setCollisionShapes(detector.getCollisionObjects());
+      lidar.setComputeTransformedCollisionShapes(true);
+
+      transform.getTranslation().set(0.0, 0.0, 1.0);
+      assertEquals(2.5, lidar.scan(transform)[0], 1.0e-3);
+      lidar.shutdown();
+   }
+
+   @Test // timeout = 30000
+   public void testTerrainFactoryGivesOneTerrainPerThread()
+   {
+      CPULidar lidar = new CPULidar(5, -0.2, 0.2, 8, 0.2, 0.4, 0.05, 10.0);
+      lidar.setNumberOfThreads(4);
+
+      List<HeightMapWithNormals> terrains = new ArrayList<>();
+      lidar.setTerrainFactory(() ->
+      {
+         FlatGroundProfile terrain = new FlatGroundProfile(0.0);
+         terrains.add(terrain);
+         return terrain;
+      });
+      assertEquals(4, terrains.size());
+
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.getTranslation().set(0.0, 0.0, 1.0);
+      float[] scan = lidar.scan(transform);
+      assertEquals(1.0 / Math.sin(0.4), scan[scan.length - 1], 1.0e-3);
+
+      lidar.shutdown();
+   }
+
+   @Test // timeout = 30000
+   public void testScanRate()
+   {
+      CPULidar lidar = new CPULidar(10, -1.0, 1.0, 1, 0.0, 0.0, 0.1, 5.0);
+      lidar.setNumberOfThreads(1);
+      lidar.setScanPeriod(0.1);
+
+      AtomicInteger numberOfScans = new AtomicInteger();
+      lidar.addGPULidarListener((scan, transform, time) -> numberOfScans.incrementAndGet());
+
+      RigidBodyTransform transform = new RigidBodyTransform();
+
+      for (int tick = 0; tick <= 160; tick++)
+         lidar.setTransformFromWorld(transform, tick * 0.0031);
+
+      // One scan at the first tick after each multiple of the period, up to 0.496s.
+      assertEquals(5, numberOfScans.get());
+   }
+}
@@ -0,0 +1,125 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.ejml.data.DMatrixRMaj;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.Axis3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.JointWrenchSensor;
+import us.ihmc.simulationconstructionset.PinJoint;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SpatialVector;
+
+public class FeatherStoneJointBasedWrenchCalculatorTest
+{
+   private static final double EPSILON = 1.0e-12;
+
+   @Test // timeout = 30000
+   public void testWrenchIsTorqueThenForceWithCorruption()
+   {
+      Robot robot = new Robot("testRobot");
+      PinJoint joint = createJointWithWrenchSensor("joint", robot);
+      robot.addRootJoint(joint);
+
+      setJointWrench(joint, new Vector3D(1.0, 2.0, 3.0), new Vector3D(4.0, 5.0, 6.0));
+
+      FeatherStoneJointBasedWrenchCalculator calculator = new FeatherStoneJointBasedWrenchCalculator("sensor", joint);
+      DMatrixRMaj wrench = calculator.getWrench();
+      calculator.calculate();
+
+      assertTrue(wrench == calculator.getWrench());
+      double[] expected = {4.0, 5.0, 6.0, 1.0, 2.0, 3.0};
+      for (int i = 0; i < 6; i++)
+         assertEquals(expected[i], wrench.get(i, 0), EPSILON);
+
+      calculator.corruptWrenchElement(2, 0.5);
+      calculator.calculate();
+      assertEquals(6.0, wrench.get(2, 0), EPSILON);
+
+      calculator.setDoWrenchCorruption(true);
+      calculator.calculate();
+      calculator.calculate();
+      assertEquals(6.5, wrench.get(2, 0), EPSILON);
+      assertEquals(1.0, wrench.get(3, 0), EPSILON);
+   }
+
+   @Test // timeout = 30000
+   public void testRobotCalculatesTheSensorsAddedLater()
+   {
+      Robot robot = new Robot("testRobot");
+      PinJoint rootJoint = createJointWithWrenchSensor("rootJoint", robot);
+      robot.addRootJoint(rootJoint);
+      FeatherStoneJointBasedWrenchCalculator rootSensor = new FeatherStoneJointBasedWrenchCalculator("rootSensor", rootJoint);
+      rootJoint.addForceSensor(rootSensor);
+
+      setJointWrench(rootJoint, new Vector3D(0.0, 0.0, 1.0), new Vector3D());
+      robot.calculateForceSensors();
+      assertEquals(1.0, rootSensor.getWrench().get(5, 0), EPSILON);
+
+      PinJoint childJoint = createJointWithWrenchSensor("childJoint", robot);
+      rootJoint.addJoint(childJoint);
+      FeatherStoneJointBasedWrenchCalculator childSensor = new FeatherStoneJointBasedWrenchCalculator("childSensor", childJoint);
+      childJoint.addForceSensor(childSensor);
+
+      setJointWrench(childJoint, new Vector3D(0.0, 0.0, 2.0), new Vector3D());
+      robot.calculateForceSensors();
+      assertEquals(2.0, childSensor.getWrench().get(5, 0), EPSILON);
+      assertEquals(1.0, rootSensor.getWrench().get(5, 0), EPSILON);
+   }
+
+   @Test // timeout = 30000
+   public void testCalculatingTheSensorsDoesNotAllocate()
+   {
+      com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+
+      Robot robot = new Robot("testRobot");
+      PinJoint rootJoint = createJointWithWrenchSensor("rootJoint", robot);
+      robot.addRootJoint(rootJoint);
+      rootJoint.addForceSensor(new FeatherStoneJointBasedWrenchCalculator("rootSensor", rootJoint));
+      setJointWrench(rootJoint, new Vector3D(1.0, 2.0, 3.0), new Vector3D(4.0, 5.0, 6.0));
+
+      // Collects the sensors.
+      robot.calculateForceSensors();
+
+      int numberOfCalls = 10000;
+      long threadID = Thread.currentThread().getId();
+      long allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadID);
+
+      for (int i = 0; i < numberOfCalls; i++)
+         robot.calculateForceSensors();
+
+      long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadID) - allocatedBytesBefore;
+
+      // Less than a byte per call, the measurement itself may allocate a little.
+      assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < numberOfCalls);
+   }
+
+   static com.sun.management.ThreadMXBean getThreadMXBean()
+   {
+      Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      Assumptions.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+      threadMXBean.setThreadAllocatedMemoryEnabled(true);
+      return threadMXBean;
+   }
+
+   private static PinJoint createJointWithWrenchSensor(String name, Robot robot)
+   {
+      PinJoint joint = new PinJoint(name, new Vector3D(), robot, Axis3D.X);
+      joint.addJointWrenchSensor(new JointWrenchSensor(name + "WrenchSensor", new Vector3D(), robot));
+      return joint;
+   }
+
+   private static void setJointWrench(PinJoint joint, Vector3D force, Vector3D torque)
+   {
+      SpatialVector wrench = new SpatialVector();
+      wrench.setFromVector3d(force, torque);
+      joint.getJointWrenchSensor().setWrench(wrench);
+   }
+}
@@ -120,4 +120,40 @@ public class GroundContactPointBasedWrenchCalculatorTest
       assertEquals(wholeWrench.get(4, 0), -2.0, epsilon);
       assertEquals(wholeWrench.get(5, 0), 0.0, epsilon);
    }
+
+   @Test // timeout = 30000
+   public void testCalculateDoesNotAllocate()
+   {
+      com.sun.management.ThreadMXBean threadMXBean = FeatherStoneJointBasedWrenchCalculatorTest.getThreadMXBean();
+
+      Robot robot = new Robot("testRobot");
+      List<GroundContactPoint> contactPoints = new ArrayList<>();
+      for (int i = 0; i < 4; i++)
+         contactPoints.add(new GroundContactPoint("point" + i, new Vector3D(), robot.getRobotsYoRegistry()));
+
+      joint = new PinJoint("test", new Vector3D(1.0, 0.0, 0.0), robot, Axis3D.X);
+      robot.addRootJoint(joint);
+      robot.update();
+
+      calculator = new GroundContactPointBasedWrenchCalculator(joint.getName(), contactPoints, joint, new RigidBodyTransform(), new YoRegistry("dummy"));
+      calculator.setDoWrenchCorruption(true);
+
+      for (int i = 0; i < contactPoints.size(); i++)
+      {
+         contactPoints.get(i).setForce(new Vector3D(0.1 * i, 0.0, 1.0));
+         contactPoints.get(i).getYoPosition().set(new Point3D(i, -i, 0.0));
+      }
+
+      calculator.calculate();
+
+      int numberOfCalls = 10000;
+      long threadID = Thread.currentThread().getId();
+      long allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadID);
+
+      for (int i = 0; i < numberOfCalls; i++)
+         calculator.calculate();
+
+      long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadID) - allocatedBytesBefore;
+      assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < numberOfCalls);
+   }
 }
@@ -5,10 +5,16 @@ import java.util.ArrayList;
 import org.junit.jupiter.api.Test;
 
 import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
 import us.ihmc.robotics.Assert;
+import us.ihmc.simulationconstructionset.FloatingJoint;
 import us.ihmc.simulationconstructionset.GroundContactPoint;
+import us.ihmc.simulationconstructionset.Link;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.util.ground.FlatGroundProfile;
 import us.ihmc.simulationconstructionset.util.ground.RollingGroundProfile;
 import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoBoolean;
 
 public class CollisionGroundContactModelTest
 {
@@ -36,4 +42,123 @@ public class CollisionGroundContactModelTest
 
       Assert.assertFalse(gc.isInContact());
    }
+
+   @Test // timeout = 30000
+   public void testBatchResolutionMatchesSequentialWithOnePointPerLink()
+   {
+      Vector3D sequentialVelocity = new Vector3D();
+      Vector3D batchVelocity = new Vector3D();
+
+      FloatingJoint sequentialJoint = simulateImpact(false);
+      FloatingJoint batchJoint = simulateImpact(true);
+
+      sequentialJoint.getVelocity(sequentialVelocity);
+      batchJoint.getVelocity(batchVelocity);
+
+      Assert.assertTrue(sequentialVelocity.getZ() > -1.0);
+      Assert.assertEquals(sequentialVelocity.getX(), batchVelocity.getX(), 1.0e-12);
+      Assert.assertEquals(sequentialVelocity.getY(), batchVelocity.getY(), 1.0e-12);
+      Assert.assertEquals(sequentialVelocity.getZ(), batchVelocity.getZ(), 1.0e-12);
+      Assert.assertEquals(sequentialJoint.getAngularVelocityInBody().getY(), batchJoint.getAngularVelocityInBody().getY(), 1.0e-12);
+   }
+
+   @Test // timeout = 30000
+   public void testBatchResolutionOnlyScalesTheImpulsesComputedInThePass()
+   {
+      Robot robot = new Robot("box");
+      FloatingJoint floatingJoint = new FloatingJoint("root", new Vector3D(), robot);
+      Link link = new Link("body");
+      link.setMass(1.0);
+      link.setMomentOfInertia(0.01, 0.01, 0.01);
+      floatingJoint.setLink(link);
+      robot.addRootJoint(floatingJoint);
+
+      GroundContactPoint[] gcPoints = new GroundContactPoint[3];
+      double[] xOffsets = {0.1, 0.15, -0.2};
+
+      for (int i = 0; i < gcPoints.length; i++)
+      {
+         gcPoints[i] = new GroundContactPoint("gc" + i, new Vector3D(xOffsets[i], 0.0, -0.1), robot);
+         floatingJoint.addGroundContactPoint(gcPoints[i]);
+      }
+
+      CollisionGroundContactModel groundContactModel = new CollisionGroundContactModel(robot, robot.getRobotsYoRegistry());
+      groundContactModel.setGroundProfile3D(new FlatGroundProfile());
+      groundContactModel.setBatchImpulseResolution(true);
+
+      // All the points penetrate, but the rotation lifts the last one, which does not collide.
+      floatingJoint.setPosition(0.0, 0.0, 0.0995);
+      floatingJoint.setVelocity(0.0, 0.0, -0.5);
+      floatingJoint.setAngularVelocityInBody(new Vector3D(0.0, 5.0, 0.0));
+      robot.update();
+      robot.updateVelocities();
+      robot.updateAllGroundContactPointVelocities();
+
+      // The impulse of a previous tick.
+      gcPoints[2].setImpulse(0.0, 0.0, 1.0);
+      groundContactModel.doGroundContact();
+
+      Vector3D impulse = new Vector3D();
+      Assert.assertTrue(gcPoints[2].isInContact());
+      gcPoints[2].getImpulse(impulse);
+      Assert.assertEquals(1.0, impulse.getZ(), 0.0);
+
+      for (int i = 0; i < 2; i++)
+      {
+         gcPoints[i].getImpulse(impulse);
+         Assert.assertTrue(impulse.getZ() > 0.0);
+      }
+   }
+
+   @Test // timeout = 30000
+   public void testDiagnosticsCanBeDisabled()
+   {
+      YoRegistry registry = new YoRegistry("CollisionGroundContactModelTest");
+
+      ArrayList<GroundContactPoint> gcPoints = new ArrayList<>();
+      GroundContactPoint gc = new GroundContactPoint("groundContactPoint", registry);
+      gc.setPosition(new Point3D(0.0, 0.0, -0.01));
+      gcPoints.add(gc);
+
+      CollisionGroundContactModel groundContactModel = new CollisionGroundContactModel(gcPoints, registry);
+      groundContactModel.setGroundProfile3D(new FlatGroundProfile());
+      groundContactModel.setDiagnosticsEnabled(false);
+      groundContactModel.doGroundContact();
+
+      Assert.assertTrue(gc.isInContact());
+      Assert.assertFalse(((YoBoolean) registry.findVariable("groundContactPoint_isInsideSpy")).getBooleanValue());
+
+      groundContactModel.setDiagnosticsEnabled(true);
+      groundContactModel.doGroundContact();
+      Assert.assertTrue(((YoBoolean) registry.findVariable("groundContactPoint_isInsideSpy")).getBooleanValue());
+   }
+
+   private static FloatingJoint simulateImpact(boolean batchImpulseResolution)
+   {
+      Robot robot = new Robot("box");
+      FloatingJoint floatingJoint = new FloatingJoint("root", new Vector3D(), robot);
+      Link link = new Link("body");
+      link.setMass(1.0);
+      link.setMomentOfInertia(0.01, 0.01, 0.01);
+      floatingJoint.setLink(link);
+      robot.addRootJoint(floatingJoint);
+
+      GroundContactPoint gc = new GroundContactPoint("gc", new Vector3D(0.1, 0.0, -0.1), robot);
+      floatingJoint.addGroundContactPoint(gc);
+
+      CollisionGroundContactModel groundContactModel = new CollisionGroundContactModel(robot, robot.getRobotsYoRegistry());
+      groundContactModel.setGroundProfile3D(new FlatGroundProfile());
+      groundContactModel.setBatchImpulseResolution(batchImpulseResolution);
+
+      floatingJoint.setPosition(0.0, 0.0, 0.0995);
+      floatingJoint.setVelocity(0.0, 0.0, -1.0);
+      robot.updateVelocities();
+      robot.updateAllGroundContactPointVelocities();
+
+      // The first call puts the point in contact and resolves the impact.
+      groundContactModel.doGroundContact();
+      robot.updateVelocities();
+
+      return floatingJoint;
+   }
 }
@@ -0,0 +1,98 @@
+package us.ihmc.simulationconstructionset.util.ground;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tuple3D.Vector3D;
+
+public class CachedHeightMapWithNormalsTest
+{
+   @Test // timeout=300000
+   public void testInterpolatedValuesAreCloseToTheSource()
+   {
+      BumpyGroundProfile source = new BumpyGroundProfile();
+      CachedHeightMapWithNormals cachedProfile = new CachedHeightMapWithNormals(source, 0.01, 32, 16);
+
+      Random random = new Random(1776L);
+      Vector3D sourceNormal = new Vector3D();
+      Vector3D cachedNormal = new Vector3D();
+
+      for (int i = 0; i < 2000; i++)
+      {
+         double x = -10.0 + 20.0 * random.nextDouble();
+         double y = -10.0 + 20.0 * random.nextDouble();
+
+         double sourceHeight = source.heightAndNormalAt(x, y, 0.0, sourceNormal);
+         double cachedHeight = cachedProfile.heightAndNormalAt(x, y, 0.0, cachedNormal);
+
+         assertEquals(sourceHeight, cachedHeight, 1.0e-4);
+         assertEquals(1.0, cachedNormal.length(), 1.0e-12);
+         assertTrue(sourceNormal.angle(cachedNormal) < 1.0e-2);
+         assertEquals(cachedHeight, cachedProfile.heightAt(x, y, 0.0), 0.0);
+      }
+
+      // Only 16 tiles are kept while the queries are spread over many more.
+      assertEquals(16, cachedProfile.getNumberOfTiles());
+      assertTrue(cachedProfile.getNumberOfRasterizedTiles() > 16);
+   }
+
+   @Test // timeout=300000
+   public void testEvictionKeepsTheResultsConsistent()
+   {
+      WavyGroundProfile source = new WavyGroundProfile();
+      CachedHeightMapWithNormals cachedProfile = new CachedHeightMapWithNormals(source, 0.05, 4, 3);
+      Random random = new Random(1492L);
+
+      int numberOfPoints = 500;
+      double[] xs = new double[numberOfPoints];
+      double[] ys = new double[numberOfPoints];
+      double[] heights = new double[numberOfPoints];
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         xs[i] = -5.0 + 10.0 * random.nextDouble();
+         ys[i] = -5.0 + 10.0 * random.nextDouble();
+         heights[i] = cachedProfile.heightAt(xs[i], ys[i], 0.0);
+      }
+
+      for (int i = numberOfPoints - 1; i >= 0; i--)
+      {
+         assertEquals(heights[i], cachedProfile.heightAt(xs[i], ys[i], 0.0), 1.0e-12);
+      }
+
+      assertEquals(3, cachedProfile.getNumberOfTiles());
+
+      cachedProfile.clear();
+      assertEquals(0, cachedProfile.getNumberOfTiles());
+      assertEquals(heights[0], cachedProfile.heightAt(xs[0], ys[0], 0.0), 1.0e-12);
+   }
+
+   @Test // timeout=300000
+   public void testValidationModeBoundsTheError()
+   {
+      // A step is smoothed by the interpolation.
+      SingleStepGroundProfile source = new SingleStepGroundProfile(-10.0, 10.0, -10.0, 10.0, 0.0, 0.2);
+      CachedHeightMapWithNormals cachedProfile = new CachedHeightMapWithNormals(source, 0.1);
+      cachedProfile.enableValidation(1.0e-3, 1.0e-2);
+
+      Vector3D sourceNormal = new Vector3D();
+      Vector3D cachedNormal = new Vector3D();
+
+      for (double x = -1.0; x < 1.0; x += 0.013)
+      {
+         double sourceHeight = source.heightAndNormalAt(x, 0.5, 1.0, sourceNormal);
+         double cachedHeight = cachedProfile.heightAndNormalAt(x, 0.5, 1.0, cachedNormal);
+
+         assertEquals(sourceHeight, cachedHeight, 1.0e-3);
+         assertTrue(sourceNormal.angle(cachedNormal) <= 1.0e-2);
+      }
+
+      assertTrue(cachedProfile.getNumberOfViolations() > 0);
+      assertTrue(cachedProfile.getNumberOfViolations() < cachedProfile.getNumberOfValidatedQueries());
+      assertTrue(cachedProfile.getMaximumHeightError() > 1.0e-3);
+   }
+}
@@ -0,0 +1,45 @@
+package us.ihmc.simulationconstructionset.util.ground;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LongKeyHashMapTest
+{
+   @Test // timeout=300000
+   public void testAgainstHashMap()
+   {
+      Random random = new Random(9632L);
+      LongKeyHashMap<Integer> map = new LongKeyHashMap<>();
+      Map<Long, Integer> expectedMap = new HashMap<>();
+
+      for (int i = 0; i < 100000; i++)
+      {
+         // Few distinct keys, close to each other as the keys of the tiles, so that removals happen.
+         long key = ((long) (random.nextInt(40) - 20) << 32) | ((random.nextInt(40) - 20) & 0xFFFFFFFFL);
+
+         if (random.nextBoolean())
+            assertEquals(expectedMap.put(key, i), map.put(key, i));
+         else
+            assertEquals(expectedMap.remove(key), map.remove(key));
+
+         assertEquals(expectedMap.size(), map.size());
+      }
+
+      for (Map.Entry<Long, Integer> entry : expectedMap.entrySet())
+      {
+         assertTrue(map.containsKey(entry.getKey()));
+         assertEquals(entry.getValue(), map.get(entry.getKey()));
+      }
+
+      Integer[] values = map.copyValues(new Integer[map.size()]);
+      assertEquals(expectedMap.size(), values.length);
+      for (Integer value : values)
+         assertTrue(expectedMap.containsValue(value));
+   }
+}
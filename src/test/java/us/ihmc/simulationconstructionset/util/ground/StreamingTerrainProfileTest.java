@@ -0,0 +1,123 @@
+package us.ihmc.simulationconstructionset.util.ground;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+
+public class StreamingTerrainProfileTest
+{
+   @Test // timeout=300000
+   public void testTilesFollowTheTrackedPosition() throws InterruptedException
+   {
+      // Each tile is a box whose height encodes its x index.
+      StreamingTerrainProfile profile = new StreamingTerrainProfile((tileX, tileY, xMin, yMin, tileSize) -> new BoxTerrainObject(xMin,
+                                                                                                                                 yMin,
+                                                                                                                                 xMin + tileSize,
+                                                                                                                                 yMin + tileSize,
+                                                                                                                                 -1.0,
+                                                                                                                                 0.1 * (tileX + 100)),
+                                                                    10.0,
+                                                                    1,
+                                                                    2,
+                                                                    null);
+
+      Point3D position = new Point3D(5.0, 5.0, 0.0);
+      profile.addTrackedPosition(position);
+
+      int[] numberOfTiles = new int[1];
+      profile.addTerrainTileListener(new StreamingTerrainProfile.TerrainTileListener()
+      {
+         @Override
+         public void tileAdded(TerrainObject3D tile)
+         {
+            numberOfTiles[0]++;
+         }
+
+         @Override
+         public void tileRemoved(TerrainObject3D tile)
+         {
+            numberOfTiles[0]--;
+         }
+      });
+
+      waitForTiles(profile);
+      assertEquals(9, profile.getNumberOfLoadedTiles());
+      assertEquals(9, numberOfTiles[0]);
+
+      Point3D intersection = new Point3D();
+      Vector3D normal = new Vector3D();
+      assertTrue(profile.checkIfInside(5.0, 5.0, 0.0, intersection, normal));
+      assertEquals(10.0, intersection.getZ(), 1.0e-12);
+      assertEquals(10.1, profile.getHeightMapIfAvailable().heightAt(15.0, 5.0, 20.0), 1.0e-12);
+      assertFalse(profile.isClose(35.0, 5.0, 0.0));
+
+      // Moving by 3 tiles evicts the tiles more than 2 tiles away and loads the new ones.
+      position.setX(35.0);
+      profile.update();
+      waitForTiles(profile);
+      assertEquals(12, profile.getNumberOfLoadedTiles());
+      assertEquals(12, numberOfTiles[0]);
+      assertTrue(profile.checkIfInside(35.0, 5.0, 0.0, intersection, normal));
+      assertEquals(10.3, intersection.getZ(), 1.0e-12);
+
+      position.setX(1005.0);
+      profile.update();
+      waitForTiles(profile);
+      assertEquals(9, profile.getNumberOfLoadedTiles());
+      assertFalse(profile.isClose(5.0, 5.0, 0.0));
+
+      profile.shutdown();
+   }
+
+   @Test // timeout=300000
+   public void testTilesAroundTheTrackedPositionAreLoadedRightAway() throws InterruptedException
+   {
+      // A slow provider, the background thread cannot keep up with the simulation.
+      StreamingTerrainProfile profile = new StreamingTerrainProfile((tileX, tileY, xMin, yMin, tileSize) ->
+      {
+         try
+         {
+            Thread.sleep(20);
+         }
+         catch (InterruptedException e)
+         {
+         }
+         return new BoxTerrainObject(xMin, yMin, xMin + tileSize, yMin + tileSize, -1.0, 0.0);
+      }, 10.0, 2, 3, null);
+
+      Point3D position = new Point3D(5.0, 5.0, 0.0);
+      profile.addTrackedPosition(position);
+
+      Point3D intersection = new Point3D();
+      Vector3D normal = new Vector3D();
+
+      for (int i = 0; i < 20; i++)
+      {
+         position.setX(5.0 + 10.0 * i);
+         profile.update();
+
+         // The tile under the position and its neighbors are there, the outer ring may still be loading.
+         assertTrue(profile.getNumberOfLoadedTiles() >= 9);
+         assertTrue(profile.checkIfInside(position.getX(), 5.0, -0.01, intersection, normal));
+         assertTrue(profile.checkIfInside(position.getX() + 9.0, -4.0, -0.01, intersection, normal));
+      }
+
+      profile.shutdown();
+   }
+
+   private static void waitForTiles(StreamingTerrainProfile profile) throws InterruptedException
+   {
+      profile.update();
+
+      while (profile.getNumberOfPendingTiles() > 0)
+      {
+         Thread.sleep(1);
+         profile.update();
+      }
+   }
+}
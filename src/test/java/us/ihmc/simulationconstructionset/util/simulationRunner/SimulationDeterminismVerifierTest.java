@@ -0,0 +1,156 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.simulationconstructionset.SimulationConstructionSetParameters;
+import us.ihmc.simulationconstructionset.UnreasonableAccelerationException;
+import us.ihmc.simulationconstructionset.util.RobotController;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+
+public class SimulationDeterminismVerifierTest
+{
+   private final double DT = 0.01;
+
+   @Test // timeout=300000
+   public void testDeterministicSimulations() throws UnreasonableAccelerationException
+   {
+      SimulationConstructionSet scs1 = constructSimulationConstructionSet(0.0);
+      SimulationConstructionSet scs2 = constructSimulationConstructionSet(0.0);
+
+      SimulationDeterminismVerifier verifier = new SimulationDeterminismVerifier(scs1, scs2, new ArrayList<>());
+
+      assertEquals(-1, verifier.findFirstDivergentTick(5000, 0));
+      assertEquals(5000, verifier.getNumberOfHashedTicks());
+      assertTrue(verifier.getDivergentRegistryNames().isEmpty());
+
+      scs1.closeAndDispose();
+      scs2.closeAndDispose();
+   }
+
+   @Test // timeout=300000
+   public void testFirstDivergentTickAndRegistry() throws UnreasonableAccelerationException
+   {
+      SimulationConstructionSet scs1 = constructSimulationConstructionSet(0.0);
+      SimulationConstructionSet scs2 = constructSimulationConstructionSet(1.0e-12);
+
+      SimulationDeterminismVerifier verifier = new SimulationDeterminismVerifier(scs1, scs2, new ArrayList<>());
+
+      int firstDivergentTick = verifier.findFirstDivergentTick(5000, 0);
+
+      // The controllers differ from t = 1.0 on.
+      assertTrue(Math.abs(firstDivergentTick - 100) <= 1);
+      assertEquals(1, verifier.getDivergentRegistryNames().size());
+      assertTrue(verifier.getDivergentRegistryNames().get(0).endsWith("controller"));
+
+      int bisectedTick = SimulationDeterminismVerifier.findFirstDivergentTick(verifier.getChainedHashesForSimulationOne(),
+                                                                              verifier.getChainedHashesForSimulationTwo(),
+                                                                              verifier.getNumberOfHashedTicks());
+      assertEquals(firstDivergentTick, bisectedTick);
+
+      SimulationRewindabilityVerifierWithStackTracing helper = verifier.traceFirstDivergentTick();
+      assertTrue(helper.areTheVariableChangesDifferent());
+
+      scs1.closeAndDispose();
+      scs2.closeAndDispose();
+   }
+
+   @Test // timeout=300000
+   public void testBisectChainedHashes()
+   {
+      long[] hashesOne = new long[1000];
+      long[] hashesTwo = new long[1000];
+
+      for (int i = 0; i < hashesOne.length; i++)
+      {
+         hashesOne[i] = i;
+         hashesTwo[i] = i < 637 ? i : -i;
+      }
+
+      assertEquals(637, SimulationDeterminismVerifier.findFirstDivergentTick(hashesOne, hashesTwo, 1000));
+      assertEquals(-1, SimulationDeterminismVerifier.findFirstDivergentTick(hashesOne, hashesTwo, 637));
+      assertEquals(0, SimulationDeterminismVerifier.findFirstDivergentTick(hashesOne, new long[] {1, 2, 3}, 3));
+   }
+
+   private SimulationConstructionSet constructSimulationConstructionSet(double offsetAfterOneSecond)
+   {
+      Robot robot = new Robot("Test");
+      RobotController controller = new OffsetController(robot, offsetAfterOneSecond);
+      robot.setController(controller);
+
+      SimulationConstructionSetParameters parameters = SimulationConstructionSetParameters.createFromSystemProperties();
+      parameters.setCreateGUI(false);
+      SimulationConstructionSet scs = new SimulationConstructionSet(robot, parameters);
+      scs.setDT(DT, 1);
+
+      Thread thread = new Thread(scs);
+      thread.start();
+
+      try
+      {
+         Thread.sleep(2000);
+      }
+      catch (InterruptedException e)
+      {
+      }
+
+      return scs;
+   }
+
+   private static class OffsetController implements RobotController
+   {
+      private final YoRegistry registry = new YoRegistry("controller");
+
+      private final YoDouble variableOne = new YoDouble("variableOne", registry);
+      private final YoDouble variableTwo = new YoDouble("variableTwo", registry);
+
+      private final Robot robot;
+      private final double offsetAfterOneSecond;
+
+      public OffsetController(Robot robot, double offsetAfterOneSecond)
+      {
+         this.robot = robot;
+         this.offsetAfterOneSecond = offsetAfterOneSecond;
+      }
+
+      @Override
+      public void doControl()
+      {
+         variableOne.set(Math.cos(robot.getTime()));
+         variableTwo.set(robot.getTime());
+
+         if (robot.getTime() >= 1.0)
+            variableOne.add(offsetAfterOneSecond);
+      }
+
+      @Override
+      public YoRegistry getYoRegistry()
+      {
+         return registry;
+      }
+
+      @Override
+      public String getName()
+      {
+         return "Test";
+      }
+
+      @Override
+      public void initialize()
+      {
+      }
+
+      @Override
+      public String getDescription()
+      {
+         return getName();
+      }
+   }
+}
@@ -0,0 +1,151 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertNull;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.simulationconstructionset.DataFileWriter;
+import us.ihmc.yoVariables.buffer.YoBuffer;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+public class StreamingLogComparerTest
+{
+   private static final double RECORD_DT = 0.001;
+   private static final int NUMBER_OF_SAMPLES = 3000;
+
+   @Test // timeout=300000
+   public void testColumnAndRowFormattedLogsOfTheSameDataMatch() throws IOException
+   {
+      File columnFile = File.createTempFile("columnLog", ".data.gz");
+      File rowFile = File.createTempFile("rowLog", ".data");
+
+      LogVariables variables = new LogVariables();
+      writeColumnFormattedLog(columnFile, variables);
+      writeRowFormattedLog(rowFile, new LogVariables(), 0, Double.POSITIVE_INFINITY);
+
+      StreamingLogComparer comparer = new StreamingLogComparer(columnFile, rowFile, null);
+      comparer.setNumberOfThreads(2);
+      List<LogVariableDifference> differences = comparer.compare(1.0e-7, false);
+
+      assertTrue(LogVariableDifference.allLogVariableDifferencesToString(differences), differences.isEmpty());
+      assertNull(comparer.getFirstDifference());
+      assertEquals(NUMBER_OF_SAMPLES, comparer.getNumberOfComparedSamples());
+      assertEquals(0, comparer.getNumberOfUnmatchedSamplesInOne());
+      assertEquals(0, comparer.getNumberOfUnmatchedSamplesInTwo());
+      assertEquals(2, comparer.getVariableNames().size());
+
+      columnFile.delete();
+      rowFile.delete();
+   }
+
+   @Test // timeout=300000
+   public void testFirstAndWorstDifferences() throws IOException
+   {
+      File fileOne = File.createTempFile("logOne", ".data");
+      File fileTwo = File.createTempFile("logTwo", ".data");
+
+      // The second log starts later and drifts from t = 2.0 on.
+      writeRowFormattedLog(fileOne, new LogVariables(), 0, Double.POSITIVE_INFINITY);
+      writeRowFormattedLog(fileTwo, new LogVariables(), 500, 2.0);
+
+      StreamingLogComparer comparer = new StreamingLogComparer(fileOne, fileTwo, null);
+      List<LogVariableDifference> differences = comparer.compare(0.01, false);
+
+      assertEquals(NUMBER_OF_SAMPLES - 500, comparer.getNumberOfComparedSamples());
+      assertEquals(500, comparer.getNumberOfUnmatchedSamplesInOne());
+      assertEquals(0, comparer.getNumberOfUnmatchedSamplesInTwo());
+
+      assertEquals(1, differences.size());
+      LogVariableDifference difference = comparer.getFirstDifference();
+      assertTrue(difference.getVariableName().endsWith("controller.drifting"));
+      assertEquals(2.01, difference.getTimeOfFirstDifference(), 2.0 * RECORD_DT);
+      assertEquals((NUMBER_OF_SAMPLES - 1) * RECORD_DT, difference.getTimeOfWorstDifference(), 1.0e-5);
+      assertEquals((NUMBER_OF_SAMPLES - 1) * RECORD_DT - 2.0, difference.getWorstDifference(), 1.0e-5);
+      assertEquals(difference.getWorstDifference(), Math.abs(difference.getWorstValueTwo() - difference.getWorstValueOne()), 1.0e-12);
+      assertTrue(Math.abs(difference.getNumberOfDifferences() - 990) <= 2);
+
+      comparer.setVariableTolerance(difference.getVariableName(), 2.0);
+      assertTrue(comparer.compare(0.01, false).isEmpty());
+
+      StreamingLogComparer comparerWithExceptions = new StreamingLogComparer(fileOne, fileTwo, new ArrayList<>(Arrays.asList("DRIFT")));
+      assertTrue(comparerWithExceptions.compare(0.01, false).isEmpty());
+      assertEquals(1, comparerWithExceptions.getVariableNames().size());
+
+      fileOne.delete();
+      fileTwo.delete();
+   }
+
+   private static void writeColumnFormattedLog(File file, LogVariables variables)
+   {
+      YoBuffer dataBuffer = new YoBuffer(NUMBER_OF_SAMPLES);
+      for (YoVariable variable : variables.getAll())
+         dataBuffer.addVariable(variable);
+
+      variables.set(0, Double.POSITIVE_INFINITY);
+      dataBuffer.writeIntoBuffer();
+
+      for (int i = 1; i < NUMBER_OF_SAMPLES; i++)
+      {
+         variables.set(i, Double.POSITIVE_INFINITY);
+         dataBuffer.tickAndWriteIntoBuffer();
+      }
+
+      new DataFileWriter(file).writeData("model", RECORD_DT, dataBuffer, variables.getAll(), true, true);
+   }
+
+   private static void writeRowFormattedLog(File file, LogVariables variables, int firstSample, double driftStartTime) throws IOException
+   {
+      DataFileWriter dataFileWriter = new DataFileWriter(file);
+      DataOutputStream dataOutputStream = dataFileWriter.openDataOutputStreamAndWriteHeaderInformationForLoggingData("model",
+                                                                                                                   RECORD_DT,
+                                                                                                                   null,
+                                                                                                                   variables.getAll(),
+                                                                                                                   false);
+
+      for (int i = firstSample; i < NUMBER_OF_SAMPLES; i++)
+      {
+         variables.set(i, driftStartTime);
+         dataFileWriter.writeOutOneRowOfLogData(dataOutputStream, variables.getAll());
+      }
+
+      dataOutputStream.close();
+   }
+
+   private static class LogVariables
+   {
+      private final YoRegistry rootRegistry = new YoRegistry("root");
+      private final YoRegistry controllerRegistry = new YoRegistry("controller");
+      private final YoDouble t = new YoDouble("t", rootRegistry);
+      private final YoDouble sine = new YoDouble("sine", controllerRegistry);
+      private final YoDouble drifting = new YoDouble("drifting", controllerRegistry);
+
+      public LogVariables()
+      {
+         rootRegistry.addChild(controllerRegistry);
+      }
+
+      public void set(int sample, double driftStartTime)
+      {
+         double time = sample * RECORD_DT;
+         t.set(time);
+         sine.set(Math.sin(time));
+         drifting.set(time > driftStartTime ? 1.0 + time - driftStartTime : 1.0);
+      }
+
+      public List<YoVariable> getAll()
+      {
+         return Arrays.asList(t, sine, drifting);
+      }
+   }
+}
@@ -0,0 +1,62 @@
+package us.ihmc.simulationconstructionset.videos;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.simulationconstructionset.SimulationConstructionSetParameters;
+
+public class FrameStepperTest
+{
+   private static final double DT = 0.001;
+
+   @Test // timeout=300000
+   public void testFrameCountOfAFrameSteppedExport()
+   {
+      Robot robot = new Robot("testRobot");
+      SimulationConstructionSetParameters parameters = SimulationConstructionSetParameters.createFromSystemProperties();
+      parameters.setCreateGUI(false);
+      parameters.setDataBufferSize(2048);
+      SimulationConstructionSet scs = new SimulationConstructionSet(robot, parameters);
+
+      scs.setTime(0.0);
+      scs.setInPoint();
+
+      // One second of data.
+      for (int i = 1; i <= 1000; i++)
+      {
+         scs.setTime(i * DT);
+         scs.tickAndUpdate();
+      }
+
+      scs.setOutPoint();
+      scs.gotoInPointNow();
+
+      double playBackRate = 0.9;
+      double frameRate = 24.0;
+      double timePerFrame = playBackRate / frameRate;
+      FrameStepper frameStepper = new FrameStepper(scs, scs, playBackRate, frameRate);
+      assertEquals(0.0, scs.getTime(), 0.0);
+
+      int numberOfFrames = 1;
+
+      while (frameStepper.stepToNextFrame())
+      {
+         double frameTime = numberOfFrames * timePerFrame;
+         // The frame is the first sample at or after the time of the frame.
+         assertTrue(scs.getTime() >= frameTime);
+         assertTrue(scs.getTime() - DT < frameTime + 1.0e-12);
+         numberOfFrames++;
+      }
+
+      // Frames at 0.0, 0.0375, ..., 0.975 seconds.
+      assertEquals(27, numberOfFrames);
+      assertFalse(frameStepper.stepToNextFrame());
+
+      scs.closeAndDispose();
+   }
+}
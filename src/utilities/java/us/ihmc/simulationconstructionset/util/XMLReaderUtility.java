@@ -43,7 +43,8 @@ public class XMLReaderUtility
 
       for (int i = start; target.length() + i <= fullString.length(); i++)
       {
-         if (fullString.substring(i, target.length() + i).equalsIgnoreCase(target))
+         // Same as equalsIgnoreCase on the substring, without creating the substring.
+         if (fullString.regionMatches(true, i, target, 0, target.length()))
          {
             output[0] = i;
             output[1] = i + target.length();